@@ -0,0 +1,30 @@
+package com.hicham.backend.benchmark;
+
+import java.util.List;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+
+import com.hicham.backend.websocket.ProgressUpdateMessageConverter;
+
+// Converters set up the way the application context configures them
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    // Same order as WebSocketConfig.configureMessageConverters
+    static List<MessageConverter> brokerConverters() {
+        return List.of(new ProgressUpdateMessageConverter(), jacksonConverter());
+    }
+
+    static MappingJackson2MessageConverter jacksonConverter() {
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build());
+        return converter;
+    }
+}
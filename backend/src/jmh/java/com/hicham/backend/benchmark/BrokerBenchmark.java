@@ -0,0 +1,118 @@
+package com.hicham.backend.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import com.hicham.backend.config.ProgressDeliveryProperties;
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+import com.hicham.backend.service.OperationStateRegistry;
+import com.hicham.backend.service.ProgressReplayBuffer;
+import com.hicham.backend.service.WebSocketProgressService;
+import com.hicham.backend.websocket.IndexedSubscriptionRegistry;
+
+// WebSocketProgressService into an in-process simple broker. Every channel is synchronous,
+// so a benchmark call covers conversion, subscription lookup and one message per subscriber.
+// Each of the N sessions subscribes to its own /topic/progress.{userId} and to /topic/system.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BrokerBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int subscribers;
+
+    // indexed: IndexedSubscriptionRegistry, default: Spring's DefaultSubscriptionRegistry
+    @Param({"indexed", "default"})
+    public String registry;
+
+    private SimpleBrokerMessageHandler broker;
+    private WebSocketProgressService progressService;
+    private ProgressUpdate[] updates;
+    private int next;
+    private long delivered;
+
+    @Setup
+    public void setUp() {
+        ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        clientOutbound.subscribe(message -> delivered++);
+
+        broker = new SimpleBrokerMessageHandler(clientInbound, clientOutbound, brokerChannel, List.of("/topic", "/queue"));
+        if ("indexed".equals(registry)) {
+            broker.setSubscriptionRegistry(new IndexedSubscriptionRegistry());
+        }
+        broker.start();
+        for (int i = 0; i < subscribers; i++) {
+            broker.handleMessage(subscribe("session-" + i, "sub-0", "/topic/progress.user-" + i));
+            broker.handleMessage(subscribe("session-" + i, "sub-1", "/topic/system"));
+        }
+
+        SimpMessagingTemplate template = new SimpMessagingTemplate(brokerChannel);
+        template.setMessageConverter(new CompositeMessageConverter(BenchmarkFixtures.brokerConverters()));
+        // The scheduler is only used when conflation or batching is enabled
+        progressService = new WebSocketProgressService(template, new ProgressDeliveryProperties(), null,
+                List.of(new ProgressReplayBuffer(256, 64 * 1024), new OperationStateRegistry(300_000, 3_600_000)));
+        updates = new ProgressUpdate[subscribers];
+        for (int i = 0; i < subscribers; i++) {
+            updates[i] = new ProgressUpdate("3f1c2d4e-5a6b-4c7d-8e9f-0a1b2c3d4e5f", "user-" + i,
+                    ProgressType.GENERATION_PROGRESS, 60, "step_3", "Etape 3 complétée pour user-" + i,
+                    LocalDateTime.now());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        broker.stop();
+    }
+
+    // Progress of each user in turn, so that lookups cover all N destinations
+    @Benchmark
+    public long sendProgressUpdate() {
+        ProgressUpdate update = updates[next];
+        next = next + 1 < updates.length ? next + 1 : 0;
+        progressService.sendProgressUpdate(update.getUserId(), update);
+        return delivered;
+    }
+
+    // One system update delivered to all N sessions
+    @Benchmark
+    public long fanOut() {
+        progressService.broadcastSystemUpdate(updates[0]);
+        return delivered;
+    }
+
+    private static Message<byte[]> subscribe(String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
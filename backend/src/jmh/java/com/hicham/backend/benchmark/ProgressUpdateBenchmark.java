@@ -0,0 +1,71 @@
+package com.hicham.backend.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+import com.hicham.backend.websocket.ProgressBinaryCodec;
+
+// Building and serializing a single progress update
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProgressUpdateBenchmark {
+
+    private ProgressUpdate update;
+    private MessageConverter configuredConverter;
+    private MessageConverter jacksonConverter;
+
+    @Setup
+    public void setUp() {
+        update = newUpdate();
+        configuredConverter = new CompositeMessageConverter(BenchmarkFixtures.brokerConverters());
+        jacksonConverter = BenchmarkFixtures.jacksonConverter();
+    }
+
+    @Benchmark
+    public ProgressUpdate construct() {
+        return newUpdate();
+    }
+
+    // Through the converter chain registered by WebSocketConfig
+    @Benchmark
+    public Message<?> jsonConfiguredConverter() {
+        return configuredConverter.toMessage(update, null);
+    }
+
+    // Spring Boot's Jackson converter alone, as the baseline
+    @Benchmark
+    public Message<?> jsonJacksonConverter() {
+        return jacksonConverter.toMessage(update, null);
+    }
+
+    @Benchmark
+    public byte[] binaryCodec() {
+        return ProgressBinaryCodec.encode(update);
+    }
+
+    private static ProgressUpdate newUpdate() {
+        return new ProgressUpdate("3f1c2d4e-5a6b-4c7d-8e9f-0a1b2c3d4e5f", "user-42",
+                ProgressType.GENERATION_PROGRESS, 60, "step_3", "Etape 3 complétée pour user-42",
+                LocalDateTime.now());
+    }
+}
@@ -0,0 +1,35 @@
+package com.hicham.backend.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Limits checked by /generate before an operation is started
+@Data
+@ConfigurationProperties(prefix = "generation.admission")
+public class GenerationAdmissionProperties {
+    // When false, every request is started as before
+    private boolean enabled = true;
+    // Operations started but not yet finished, across all users
+    private int maxInFlight = 1000;
+    // Retry-After sent when the in-flight cap or the generation executor is full
+    private long capacityRetryAfterMillis = 1000;
+    // Applies to users without a tier
+    private RateLimit defaultLimit = new RateLimit();
+    // Named limits, e.g. generation.admission.tiers.premium.burst=50
+    private Map<String, RateLimit> tiers = new HashMap<>();
+    // Tier of a user, e.g. generation.admission.users.alice=premium
+    private Map<String, String> users = new HashMap<>();
+    // How often buckets of users that have been idle long enough to refill are dropped
+    private long sweepIntervalMillis = 60_000;
+
+    @Data
+    public static class RateLimit {
+        // Requests accepted back to back from an idle user
+        private int burst = 10;
+        // Sustained requests per second once the burst is used up
+        private double refillPerSecond = 1.0;
+    }
+}
@@ -0,0 +1,17 @@
+package com.hicham.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Cache of generation results, keyed by the normalized request
+@Data
+@ConfigurationProperties(prefix = "generation.cache")
+public class GenerationCacheProperties {
+    // When false, every request runs all generation steps
+    private boolean enabled = false;
+    private int maxEntries = 1000;
+    // Estimated size of all cached results; least recently used ones are evicted above it
+    private long maxWeightBytes = 1024 * 1024;
+    // Results older than this are generated again
+    private long ttlMillis = 600_000;
+}
@@ -0,0 +1,82 @@
+package com.hicham.backend.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+// Dedicated executor for generation steps, so they don't share Spring's default task executor
+@Configuration
+public class GenerationExecutorConfig {
+
+    public static final String GENERATION_EXECUTOR = "generationExecutor";
+
+    @Bean
+    public GenerationExecutorMonitor generationExecutorMonitor(GenerationExecutorProperties properties) {
+        return new GenerationExecutorMonitor(properties.getMode());
+    }
+
+    @Bean
+    public MeterBinder generationExecutorMetrics(GenerationExecutorMonitor monitor) {
+        return registry -> {
+            Gauge.builder("generation.executor.active", monitor, GenerationExecutorMonitor::getActiveCount)
+                    .description("Generation jobs running")
+                    .register(registry);
+            Gauge.builder("generation.executor.queue.size", monitor, GenerationExecutorMonitor::getQueueDepth)
+                    .description("Generation jobs waiting for a thread")
+                    .register(registry);
+            FunctionCounter.builder("generation.executor.rejected", monitor, GenerationExecutorMonitor::getRejectedCount)
+                    .description("Generation jobs rejected because the executor was saturated")
+                    .register(registry);
+        };
+    }
+
+    @Bean(name = GENERATION_EXECUTOR)
+    public AsyncTaskExecutor generationExecutor(GenerationExecutorProperties properties,
+                                                GenerationExecutorMonitor monitor) {
+        if (properties.getMode() == GenerationExecutorProperties.Mode.VIRTUAL) {
+            return virtualThreadExecutor(properties, monitor);
+        }
+        return platformThreadExecutor(properties, monitor);
+    }
+
+    static ThreadPoolTaskExecutor platformThreadExecutor(GenerationExecutorProperties properties,
+                                                         GenerationExecutorMonitor monitor) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getCorePoolSize());
+        executor.setMaxPoolSize(properties.getMaxPoolSize());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix(properties.getThreadNamePrefix());
+        executor.setTaskDecorator(monitor::decorate);
+        executor.setRejectedExecutionHandler(monitor.rejectionHandler());
+        monitor.bindQueueDepth(executor::getQueueSize);
+        return executor;
+    }
+
+    // One virtual thread per job: no queue, jobs above the concurrency limit are rejected
+    static SimpleAsyncTaskExecutor virtualThreadExecutor(GenerationExecutorProperties properties,
+                                                         GenerationExecutorMonitor monitor) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(properties.getThreadNamePrefix()) {
+            @Override
+            @SuppressWarnings("deprecation")
+            public void execute(Runnable task, long startTimeout) {
+                try {
+                    super.execute(task, startTimeout);
+                } catch (TaskRejectedException e) {
+                    monitor.recordRejection();
+                    throw e;
+                }
+            }
+        };
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(properties.getVirtualConcurrencyLimit());
+        executor.setRejectTasksWhenLimitReached(true);
+        executor.setTaskDecorator(monitor::decorate);
+        return executor;
+    }
+}
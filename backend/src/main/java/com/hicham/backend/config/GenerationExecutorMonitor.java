@@ -0,0 +1,65 @@
+package com.hicham.backend.config;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+import com.hicham.backend.model.ExecutorStats;
+
+// Tracks active jobs, queue depth and rejections of the generation executor
+public class GenerationExecutorMonitor {
+    private final GenerationExecutorProperties.Mode mode;
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private volatile IntSupplier queueDepth = () -> 0;
+
+    public GenerationExecutorMonitor(GenerationExecutorProperties.Mode mode) {
+        this.mode = mode;
+    }
+
+    // Wraps a task so that it is counted as active while it runs
+    public Runnable decorate(Runnable task) {
+        return () -> {
+            activeCount.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                activeCount.decrementAndGet();
+            }
+        };
+    }
+
+    // Counts the rejection, then fails the submission like the default abort policy
+    public RejectedExecutionHandler rejectionHandler() {
+        return (task, executor) -> {
+            recordRejection();
+            throw new RejectedExecutionException("Generation executor saturated: " + executor);
+        };
+    }
+
+    public void recordRejection() {
+        rejectedCount.incrementAndGet();
+    }
+
+    public void bindQueueDepth(IntSupplier queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public ExecutorStats snapshot() {
+        return new ExecutorStats(mode.name(), getActiveCount(), getQueueDepth(), getRejectedCount());
+    }
+}
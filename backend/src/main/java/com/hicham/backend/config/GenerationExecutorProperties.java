@@ -0,0 +1,24 @@
+package com.hicham.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Sizing of the executor that runs architecture generation jobs
+@Data
+@ConfigurationProperties(prefix = "generation.executor")
+public class GenerationExecutorProperties {
+
+    public enum Mode {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    // PLATFORM uses a bounded thread pool, VIRTUAL starts one virtual thread per job (requires Java 21+)
+    private Mode mode = Mode.PLATFORM;
+    private int corePoolSize = 8;
+    private int maxPoolSize = 32;
+    private int queueCapacity = 500;
+    // Maximum number of jobs running at once in VIRTUAL mode, extra jobs are rejected
+    private int virtualConcurrencyLimit = 10000;
+    private String threadNamePrefix = "generation-";
+}
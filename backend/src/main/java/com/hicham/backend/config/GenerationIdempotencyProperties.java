@@ -0,0 +1,15 @@
+package com.hicham.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Deduplication of repeated /generate requests
+@Data
+@ConfigurationProperties(prefix = "generation.idempotency")
+public class GenerationIdempotencyProperties {
+    // How long a finished operation is still returned for a repeated request
+    private long retentionMillis = 300_000;
+    // When true, requests without an Idempotency-Key are deduplicated on user and request content
+    private boolean deduplicateWithoutKey = false;
+    private long sweepIntervalMillis = 30_000;
+}
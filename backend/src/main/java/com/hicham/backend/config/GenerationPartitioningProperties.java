@@ -0,0 +1,26 @@
+package com.hicham.backend.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Assignment of users to instances on a consistent-hash ring; /generate is forwarded to the owner
+@Data
+@ConfigurationProperties(prefix = "generation.partitioning")
+public class GenerationPartitioningProperties {
+
+    private boolean enabled = false;
+    // This instance, one of the keys of members
+    private String nodeId = "";
+    // nodeId -> base URL of every instance, e.g. node-a: http://localhost:8080; the same on all of them
+    private Map<String, String> members = new LinkedHashMap<>();
+    // Points per instance on the ring; more spread users more evenly
+    private int virtualNodes = 128;
+    private long forwardTimeoutMillis = 5000;
+    // Threads forwarding requests whose caller must not wait, e.g. cancels sent over STOMP
+    private int forwardThreads = 4;
+    // An instance that could not be reached leaves the ring for this long
+    private long downRetryMillis = 10_000;
+}
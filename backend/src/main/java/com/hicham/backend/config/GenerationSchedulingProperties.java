@@ -0,0 +1,28 @@
+package com.hicham.backend.config;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.hicham.backend.model.JobPriority;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Weighted fair queuing of generation jobs in front of the generation executor
+@Data
+@ConfigurationProperties(prefix = "generation.scheduling")
+public class GenerationSchedulingProperties {
+    // When false, jobs go straight to the executor's FIFO queue
+    private boolean enabled = true;
+    // Jobs handed to the executor at once; the rest wait in their tenant's queue
+    private int maxConcurrentJobs = 32;
+    // Queued jobs across all tenants before new ones are rejected
+    private int maxQueuedJobs = 10_000;
+    // Share of dispatches of each priority class while both have jobs queued
+    private Map<JobPriority, Integer> priorityWeights = new EnumMap<>(Map.of(
+            JobPriority.INTERACTIVE, 4,
+            JobPriority.BATCH, 1));
+    private int defaultTenantWeight = 1;
+    // Weight of a tenant (user) within its priority class, e.g. generation.scheduling.tenant-weights.alice=3
+    private Map<String, Integer> tenantWeights = new HashMap<>();
+}
@@ -0,0 +1,15 @@
+package com.hicham.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Retention of the latest state of each operation
+@Data
+@ConfigurationProperties(prefix = "operation.state")
+public class OperationStateProperties {
+    // How long COMPLETED and ERROR operations stay readable
+    private long completedTtlMillis = 300_000;
+    // Operations without any update for this long are dropped even if they never finished
+    private long idleTtlMillis = 3_600_000;
+    private long sweepIntervalMillis = 30_000;
+}
@@ -0,0 +1,33 @@
+package com.hicham.backend.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Replication of progress updates between instances over node-to-node TCP connections
+@Data
+@ConfigurationProperties(prefix = "progress.cluster")
+public class ProgressClusterProperties {
+
+    private boolean enabled = false;
+    // Name of this instance; a random one when blank
+    private String nodeId = "";
+    // TCP port peers connect to, 0 for any free port
+    private int port = 9701;
+    // Interface the port listens on; only other processes of this machine can connect by default
+    private String bindAddress = "127.0.0.1";
+    // Shared by every instance, which must prove it knows it; required unless bound to loopback
+    private String secret = "";
+    // host:port of every other instance; this instance's own address may be listed too and is skipped
+    private List<String> peers = new ArrayList<>();
+    // How long updates for a peer are collected before they go out as one frame
+    private long batchWindowMillis = 10;
+    // Updates per frame before it is sent early
+    private int maxBatchSize = 256;
+    // Updates waiting for a peer; past it new ones are dropped
+    private int queueCapacity = 10_000;
+    private long connectTimeoutMillis = 2000;
+    private long reconnectIntervalMillis = 1000;
+}
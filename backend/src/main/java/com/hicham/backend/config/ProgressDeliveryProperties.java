@@ -0,0 +1,43 @@
+package com.hicham.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Optional stages between WebSocketProgressService and the broker
+@Data
+@ConfigurationProperties(prefix = "progress.delivery")
+public class ProgressDeliveryProperties {
+
+    private Conflation conflation = new Conflation();
+    private Batching batching = new Batching();
+    private SystemBroadcast system = new SystemBroadcast();
+
+    @Data
+    public static class Conflation {
+        // Keep only the newest GENERATION_PROGRESS per operation between ticks
+        private boolean enabled = false;
+        private long tickMillis = 250;
+    }
+
+    @Data
+    public static class Batching {
+        // Send updates for the same destination as one frame with an array payload
+        private boolean enabled = false;
+        private long windowMillis = 50;
+        private int maxBatchSize = 32;
+    }
+
+    @Data
+    public static class SystemBroadcast {
+        // IMMEDIATE sends each system update to every session, DIGEST one summary per interval
+        private Mode mode = Mode.IMMEDIATE;
+        private long digestIntervalMillis = 1000;
+        // Most recent operation IDs listed per outcome in a digest
+        private int digestSampleSize = 10;
+
+        public enum Mode {
+            IMMEDIATE,
+            DIGEST
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.hicham.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Write-behind journal of progress updates in the progress_journal table
+@Data
+@ConfigurationProperties(prefix = "progress.journal")
+public class ProgressJournalProperties {
+
+    public enum OverflowPolicy {
+        // A full queue refuses the new update
+        DROP_NEWEST,
+        // A full queue drops its oldest update to make room
+        DROP_OLDEST
+    }
+
+    private boolean enabled = true;
+    // Updates waiting to be written; past it the overflow policy applies instead of blocking the sender
+    private int queueCapacity = 10_000;
+    // Rows per JDBC batch insert
+    private int batchSize = 200;
+    // Longest time an update waits in the queue before its batch is written
+    private long flushIntervalMillis = 500;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+}
@@ -0,0 +1,17 @@
+package com.hicham.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Bounds of the per-user buffer that lets reconnecting clients catch up
+@Data
+@ConfigurationProperties(prefix = "progress.replay")
+public class ProgressReplayProperties {
+    // Updates kept per user; the oldest are evicted first
+    private int maxUpdatesPerUser = 256;
+    // Estimated bytes kept per user
+    private long maxBytesPerUser = 64 * 1024;
+    // Buffers of users without updates for this long are dropped
+    private long idleTtlMillis = 600_000;
+    private long sweepIntervalMillis = 60_000;
+}
@@ -0,0 +1,22 @@
+package com.hicham.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Server-Sent Events streams of one operation's updates, at GET /operations/{operationId}/events
+@Data
+@ConfigurationProperties(prefix = "progress.stream")
+public class ProgressStreamProperties {
+    // Updates queued per stream; when full the oldest GENERATION_PROGRESS is dropped
+    private int bufferCapacity = 64;
+    // Comment line sent to idle streams so that proxies keep them open
+    private long heartbeatIntervalMillis = 15_000;
+    // Streams still open after this long are closed; the client can open a new one
+    private long timeoutMillis = 1_800_000;
+    // Threads writing events, shared by all streams
+    private int writerThreads = 2;
+    // Events written to one stream before its writer thread moves on to the other streams waiting
+    private int writeBudget = 16;
+    // A stream whose write blocked longer than this is closed as too slow to keep a writer thread
+    private long maxWriteMillis = 1000;
+}
@@ -0,0 +1,21 @@
+package com.hicham.backend.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+// Timer threads for periodic progress work (flush ticks, sweeps), kept apart from the broker's scheduler
+@Configuration
+public class SchedulingConfig {
+
+    public static final String PROGRESS_SCHEDULER = "progressTaskScheduler";
+
+    @Bean(name = PROGRESS_SCHEDULER)
+    public ThreadPoolTaskScheduler progressTaskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(2);
+        scheduler.setThreadNamePrefix("progress-timer-");
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+}
@@ -0,0 +1,18 @@
+package com.hicham.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Limits applied to each WebSocket session's outbound buffer
+@Data
+@ConfigurationProperties(prefix = "websocket.slow-consumer")
+public class SlowConsumerProperties {
+    // When false, sessions use Spring's default decorator with the same limits
+    private boolean enabled = true;
+    // A send blocked this long starts dropping superseded GENERATION_PROGRESS frames
+    private int sendTimeLimitMillis = 10_000;
+    // Buffered bytes above this start dropping; the session is closed if dropping is not enough
+    private int bufferSizeLimitBytes = 512 * 1024;
+    // A send blocked this long closes the session
+    private int disconnectTimeLimitMillis = 30_000;
+}
@@ -0,0 +1,19 @@
+package com.hicham.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Compression of frames sent to clients
+@Data
+@ConfigurationProperties(prefix = "websocket.compression")
+public class WebSocketCompressionProperties {
+    // Let the servlet container negotiate permessage-deflate with clients that offer it. The container
+    // compresses every frame at its own fixed level, so it honours neither threshold nor level.
+    private boolean permessageDeflate = true;
+    // Deflate frames for sessions that send "accept-encoding: deflate" on CONNECT
+    private boolean enabled = true;
+    // Smaller frames are sent as they are
+    private int thresholdBytes = 256;
+    // java.util.zip.Deflater level, from 1 (fastest) to 9 (smallest)
+    private int level = 6;
+}
@@ -1,29 +1,208 @@
 package com.hicham.backend.controller;
 
+import com.hicham.backend.config.GenerationAdmissionProperties;
+import com.hicham.backend.config.GenerationIdempotencyProperties;
+import com.hicham.backend.config.GenerationPartitioningProperties;
+import com.hicham.backend.model.JobPriority;
 import com.hicham.backend.service.ArchitectureGenerationService;
+import com.hicham.backend.service.GenerationAdmission;
+import com.hicham.backend.service.GenerationDeduplicator;
+import com.hicham.backend.service.GenerationPartitioner;
+import com.hicham.backend.service.GenerationRejectedException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @CrossOrigin(origins = "http://localhost:5173")
 public class GenerationController {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final ArchitectureGenerationService generationService;
+    private final GenerationAdmission admission;
+    private final GenerationDeduplicator deduplicator;
+    private final GenerationPartitioner partitioner;
 
-    @Autowired
+    // Overloaded constructor for tests: no admission limits
     public GenerationController(ArchitectureGenerationService generationService) {
+        this(generationService, new GenerationAdmission(disabledAdmission()));
+    }
+
+    public GenerationController(ArchitectureGenerationService generationService, GenerationAdmission admission) {
+        this(generationService, admission, new GenerationDeduplicator(new GenerationIdempotencyProperties()));
+    }
+
+    public GenerationController(ArchitectureGenerationService generationService, GenerationAdmission admission,
+                                GenerationDeduplicator deduplicator) {
+        this(generationService, admission, deduplicator,
+                new GenerationPartitioner(new GenerationPartitioningProperties()));
+    }
+
+    @Autowired
+    public GenerationController(ArchitectureGenerationService generationService, GenerationAdmission admission,
+                                GenerationDeduplicator deduplicator, GenerationPartitioner partitioner) {
         this.generationService = generationService;
+        this.admission = admission;
+        this.deduplicator = deduplicator;
+        this.partitioner = partitioner;
+    }
+
+    public String startGeneration(String userId) {
+        return startGeneration(userId, null);
+    }
+
+    public String startGeneration(String userId, String idempotencyKey) {
+        return startGeneration(userId, idempotencyKey, null, JobPriority.INTERACTIVE);
     }
 
-    // Trigger generation for a specific user
+    public String startGeneration(String userId, String idempotencyKey, Long deadlineMillis, JobPriority priority) {
+        return startGeneration(userId, idempotencyKey, deadlineMillis, priority, null);
+    }
+
+    // Trigger generation for a specific user, 429 with Retry-After when it is not admitted.
+    // A repeated request with the same Idempotency-Key returns the operation it already started.
+    // With deadlineMillis, the operation is cancelled if it is still running after that long.
+    // priority=BATCH queues its steps behind interactive work, by weight.
+    // With partitioning, a user owned by another instance is handled there.
     @GetMapping("/generate")
-    public String startGeneration(@RequestParam String userId) {
+    public String startGeneration(@RequestParam String userId,
+                                  @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                  @RequestParam(required = false) Long deadlineMillis,
+                                  @RequestParam(defaultValue = "INTERACTIVE") JobPriority priority,
+                                  @RequestHeader(name = GenerationPartitioner.FORWARDED_HEADER, required = false)
+                                  String forwardedBy) {
+        if (!partitioner.isMember(forwardedBy) && !partitioner.isLocal(userId)) {
+            UriComponentsBuilder path = UriComponentsBuilder.fromPath("/generate")
+                    .queryParam("userId", userId)
+                    .queryParam("priority", priority);
+            if (deadlineMillis != null) {
+                path.queryParam("deadlineMillis", deadlineMillis);
+            }
+            Optional<ResponseEntity<String>> forwarded = partitioner.forward(userId, HttpMethod.GET,
+                    path.encode().build().toUriString(),
+                    idempotencyKey != null ? Map.of(IDEMPOTENCY_KEY_HEADER, idempotencyKey) : Map.of());
+            if (forwarded.isPresent()) {
+                return forwardedBody(forwarded.get());
+            }
+        }
+        String request = "Sample Request";
         String operationId = UUID.randomUUID().toString();
-        generationService.generateArchitecture(operationId, userId, "Sample Request");
+        String key = deduplicator.keyFor(userId, idempotencyKey, request);
+        if (key != null) {
+            String existing = deduplicator.claim(key, operationId);
+            if (existing != null) {
+                return "Generation already started for user: " + userId + ", operation: " + existing;
+            }
+        }
+
+        CompletableFuture<Void> generation;
+        boolean admitted = false;
+        try {
+            admission.acquire(userId);
+            admitted = true;
+            try {
+                generation = generationService.generateArchitecture(operationId, userId, request, priority);
+            } catch (RejectedExecutionException e) {
+                admitted = false;
+                throw admission.rejectSaturated();
+            }
+        } catch (RuntimeException e) {
+            // Any other failure to start, e.g. from a cached result, gives the slot back too
+            if (admitted) {
+                admission.release();
+            }
+            if (key != null) {
+                deduplicator.abandon(key, operationId);
+            }
+            throw e;
+        }
+        generation.whenComplete((result, error) -> {
+            admission.release();
+            if (key == null) {
+                return;
+            }
+            // A cancelled operation is not reused: a retry with the same key starts a new one
+            if (error instanceof CancellationException) {
+                deduplicator.abandon(key, operationId);
+            } else {
+                deduplicator.finished(key, operationId);
+            }
+        });
+        if (deadlineMillis != null) {
+            generationService.scheduleDeadline(operationId, deadlineMillis);
+        }
         return "Generation started for user: " + userId + ", operation: " + operationId;
     }
+
+    public ResponseEntity<String> cancelGeneration(String operationId, String userId) {
+        return cancelGeneration(operationId, userId, null);
+    }
+
+    // Cancel a running operation of the user; 404 if it is unknown, finished or another user's
+    @PostMapping("/generate/{operationId}/cancel")
+    public ResponseEntity<String> cancelGeneration(@PathVariable String operationId, @RequestParam String userId,
+                                                   @RequestHeader(name = GenerationPartitioner.FORWARDED_HEADER,
+                                                           required = false) String forwardedBy) {
+        if (!partitioner.isMember(forwardedBy) && !partitioner.isLocal(userId)) {
+            String path = UriComponentsBuilder.fromPath("/generate/{operationId}/cancel")
+                    .queryParam("userId", userId)
+                    .encode().buildAndExpand(operationId).toUriString();
+            Optional<ResponseEntity<String>> forwarded = partitioner.forward(userId, HttpMethod.POST, path, Map.of());
+            if (forwarded.isPresent()) {
+                return ResponseEntity.status(forwarded.get().getStatusCode()).body(forwarded.get().getBody());
+            }
+        }
+        if (!generationService.cancel(operationId, userId, "cancelled by the user")) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("No running operation " + operationId + " for user: " + userId);
+        }
+        return ResponseEntity.ok("Generation cancelled for user: " + userId + ", operation: " + operationId);
+    }
+
+    @ExceptionHandler(GenerationRejectedException.class)
+    public ResponseEntity<String> handleRejected(GenerationRejectedException e) {
+        // Retry-After is in whole seconds, rounded up
+        long retryAfterSeconds = Math.max(1, (e.getRetryAfterMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(e.getMessage());
+    }
+
+    // The owner's answer as if this instance had given it, including 429 with its Retry-After
+    private static String forwardedBody(ResponseEntity<String> response) {
+        if (response.getStatusCode().is2xxSuccessful()) {
+            return response.getBody();
+        }
+        if (response.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            String retryAfter = response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+            long retryAfterSeconds = retryAfter != null && retryAfter.matches("\\d+") ? Long.parseLong(retryAfter) : 1;
+            throw new GenerationRejectedException(response.getBody(), retryAfterSeconds * 1000);
+        }
+        throw new ResponseStatusException(response.getStatusCode(), response.getBody());
+    }
+
+    private static GenerationAdmissionProperties disabledAdmission() {
+        GenerationAdmissionProperties properties = new GenerationAdmissionProperties();
+        properties.setEnabled(false);
+        return properties;
+    }
 }
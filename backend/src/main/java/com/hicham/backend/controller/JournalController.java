@@ -0,0 +1,38 @@
+package com.hicham.backend.controller;
+
+import java.util.List;
+
+import com.hicham.backend.model.ProgressUpdate;
+import com.hicham.backend.service.ProgressJournal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/journal")
+@CrossOrigin(origins = "http://localhost:5173")
+public class JournalController {
+    private final ProgressJournal journal;
+
+    @Autowired
+    public JournalController(ProgressJournal journal) {
+        this.journal = journal;
+    }
+
+    // Every journaled update of one operation, oldest first; empty once nothing was written for it
+    @GetMapping("/operations/{operationId}")
+    public List<ProgressUpdate> getOperationHistory(@PathVariable String operationId) {
+        return journal.findByOperation(operationId);
+    }
+
+    // Last journaled updates of a user, oldest first
+    @GetMapping
+    public List<ProgressUpdate> getUserHistory(@RequestParam String userId,
+                                               @RequestParam(defaultValue = "100") int limit) {
+        return journal.findByUser(userId, Math.max(1, Math.min(limit, 1000)));
+    }
+}
@@ -0,0 +1,50 @@
+package com.hicham.backend.controller;
+
+import java.util.List;
+
+import com.hicham.backend.model.OperationState;
+import com.hicham.backend.service.OperationStateRegistry;
+import com.hicham.backend.service.ProgressEventStreams;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/operations")
+@CrossOrigin(origins = "http://localhost:5173")
+public class OperationController {
+    private final OperationStateRegistry operationStates;
+    private final ProgressEventStreams eventStreams;
+
+    @Autowired
+    public OperationController(OperationStateRegistry operationStates, ProgressEventStreams eventStreams) {
+        this.operationStates = operationStates;
+        this.eventStreams = eventStreams;
+    }
+
+    // Latest state of one operation, 404 once it is unknown or evicted
+    @GetMapping("/{operationId}")
+    public ResponseEntity<OperationState> getOperation(@PathVariable String operationId) {
+        return ResponseEntity.of(operationStates.find(operationId));
+    }
+
+    // Server-Sent Events of one operation: its current state, then each update until the terminal one
+    @GetMapping(value = "/{operationId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamOperation(@PathVariable String operationId) {
+        return ResponseEntity.of(eventStreams.open(operationId));
+    }
+
+    // Running operations of a user, plus recently finished ones with includeFinished=true
+    @GetMapping
+    public List<OperationState> getUserOperations(@RequestParam String userId,
+                                                  @RequestParam(defaultValue = "false") boolean includeFinished) {
+        return operationStates.findByUser(userId, includeFinished);
+    }
+}
@@ -1,20 +1,120 @@
 package com.hicham.backend.controller;
 
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+
+import com.hicham.backend.service.ArchitectureGenerationService;
+import com.hicham.backend.service.GenerationPartitioner;
+import com.hicham.backend.service.ProgressReplayBuffer;
 import com.hicham.backend.service.WebSocketProgressService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
 
 @Controller
 public class ProgressController {
+    public static final String LAST_SEQUENCE_HEADER = "last-sequence";
+    // Node of the last sequence, from the updates' node field
+    public static final String SEQUENCE_NODE_HEADER = "sequence-node";
+
+    private final ProgressReplayBuffer replayBuffer;
+    private final WebSocketProgressService progressService;
+    private final ArchitectureGenerationService generationService;
+    private final GenerationPartitioner partitioner; // null in tests: every operation is local
+
+    // Overloaded constructor for tests
+    public ProgressController() {
+        this(null, null, null);
+    }
+
+    public ProgressController(ProgressReplayBuffer replayBuffer, WebSocketProgressService progressService) {
+        this(replayBuffer, progressService, null);
+    }
+
+    public ProgressController(ProgressReplayBuffer replayBuffer, WebSocketProgressService progressService,
+                              ArchitectureGenerationService generationService) {
+        this(replayBuffer, progressService, generationService, null);
+    }
+
+    @Autowired
+    public ProgressController(ProgressReplayBuffer replayBuffer, WebSocketProgressService progressService,
+                              ArchitectureGenerationService generationService, GenerationPartitioner partitioner) {
+        this.replayBuffer = replayBuffer;
+        this.progressService = progressService;
+        this.generationService = generationService;
+        this.partitioner = partitioner;
+    }
 
+    public String subscribeToProgress(String userId, Long lastSequence, String sessionId) {
+        return subscribeToProgress(userId, lastSequence, null, sessionId);
+    }
 
-    // Handle subscription requests with userId
+    // Handle subscription requests with userId; a reconnecting client passes the last sequence it
+    // received and its node, and gets the updates it missed in one batch. After reconnecting to
+    // another instance, the batch is empty and marked truncated.
     @MessageMapping("/subscribe")
     @SendToUser("/queue/progress")
-    public String subscribeToProgress(@Payload String userId) {
+    public String subscribeToProgress(@Payload String userId,
+                                      @Header(name = LAST_SEQUENCE_HEADER, required = false) Long lastSequence,
+                                      @Header(name = SEQUENCE_NODE_HEADER, required = false) String sequenceNode,
+                                      @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
+        if (lastSequence != null && replayBuffer != null) {
+            progressService.sendReplay(sessionId, replayBuffer.replaySince(userId, sequenceNode, lastSequence));
+        }
+        return subscribeToProgress(userId);
+    }
+
+    public String subscribeToProgress(String userId) {
         return "Subscribed to progress updates for user: " + userId;
     }
+
+    // Cancel a running operation of the user sent as payload; the result is sent back to the session.
+    // Operations run on their user's owner instance, so the cancel is forwarded there like the HTTP one:
+    // off the inbound channel's thread, with the owner's answer sent to the session once it comes.
+    @MessageMapping("/cancel/{operationId}")
+    @SendToUser("/queue/progress")
+    public String cancelGeneration(@DestinationVariable String operationId, @Payload String userId,
+                                   @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
+        if (partitioner != null && !partitioner.isLocal(userId)) {
+            String path = UriComponentsBuilder.fromPath("/generate/{operationId}/cancel")
+                    .queryParam("userId", userId)
+                    .encode().buildAndExpand(operationId).toUriString();
+            partitioner.forwardAsync(userId, HttpMethod.POST, path, Map.of())
+                    .handle((forwarded, error) -> forwardedCancelReply(operationId, userId, forwarded, error))
+                    .thenAccept(reply -> progressService.sendToSession(sessionId, reply));
+            return null; // nothing to send yet
+        }
+        return cancelLocally(operationId, userId);
+    }
+
+    private String forwardedCancelReply(String operationId, String userId,
+                                        Optional<ResponseEntity<String>> forwarded, Throwable error) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            return cause instanceof ResponseStatusException e
+                    ? e.getReason() : "Could not reach the instance running operation " + operationId;
+        }
+        if (forwarded.isPresent()) {
+            return forwarded.get().getBody();
+        }
+        // The owner left the ring meanwhile: the user's operations now run here
+        return cancelLocally(operationId, userId);
+    }
+
+    private String cancelLocally(String operationId, String userId) {
+        if (generationService == null || !generationService.cancel(operationId, userId, "cancelled by the user")) {
+            return "No running operation " + operationId + " for user: " + userId;
+        }
+        return "Generation cancelled for user: " + userId + ", operation: " + operationId;
+    }
 }
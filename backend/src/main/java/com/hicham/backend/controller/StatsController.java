@@ -0,0 +1,81 @@
+package com.hicham.backend.controller;
+
+import java.util.List;
+
+import com.hicham.backend.config.GenerationExecutorMonitor;
+import com.hicham.backend.model.AdmissionStats;
+import com.hicham.backend.model.ClusterStats;
+import com.hicham.backend.model.ExecutorStats;
+import com.hicham.backend.model.SchedulingStats;
+import com.hicham.backend.model.SlowConsumerStats;
+import com.hicham.backend.model.TransportStats;
+import com.hicham.backend.service.FairGenerationScheduler;
+import com.hicham.backend.service.GenerationAdmission;
+import com.hicham.backend.service.ProgressClusterBus;
+import com.hicham.backend.websocket.SlowConsumerMonitor;
+import com.hicham.backend.websocket.TransportMonitor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/stats")
+@CrossOrigin(origins = "http://localhost:5173")
+public class StatsController {
+    private final GenerationExecutorMonitor executorMonitor;
+    private final SlowConsumerMonitor slowConsumerMonitor;
+    private final GenerationAdmission admission;
+    private final FairGenerationScheduler generationScheduler;
+    private final ProgressClusterBus cluster;
+    private final TransportMonitor transportMonitor;
+
+    @Autowired
+    public StatsController(GenerationExecutorMonitor executorMonitor, SlowConsumerMonitor slowConsumerMonitor,
+                           GenerationAdmission admission, FairGenerationScheduler generationScheduler,
+                           ProgressClusterBus cluster, TransportMonitor transportMonitor) {
+        this.executorMonitor = executorMonitor;
+        this.slowConsumerMonitor = slowConsumerMonitor;
+        this.admission = admission;
+        this.generationScheduler = generationScheduler;
+        this.cluster = cluster;
+        this.transportMonitor = transportMonitor;
+    }
+
+    // Queue depth, active jobs and rejections of the generation executor
+    @GetMapping("/generation-executor")
+    public ExecutorStats generationExecutorStats() {
+        return executorMonitor.snapshot();
+    }
+
+    // Dropped progress frames and forced disconnects, with the send buffer of each open session
+    @GetMapping("/slow-consumers")
+    public SlowConsumerStats slowConsumerStats() {
+        return slowConsumerMonitor.snapshot();
+    }
+
+    // Requests admitted to /generate and rejected with 429, by reason
+    @GetMapping("/admission")
+    public AdmissionStats admissionStats() {
+        return admission.snapshot();
+    }
+
+    // Jobs running and queued in the fair scheduler, with queue length and wait times per tenant
+    @GetMapping("/scheduling")
+    public SchedulingStats schedulingStats() {
+        return generationScheduler.snapshot();
+    }
+
+    // Replication peers of this instance, with connection state and subscribed destinations
+    @GetMapping("/cluster")
+    public ClusterStats clusterStats() {
+        return cluster.snapshot();
+    }
+
+    // Frames, bytes and send time per message on the native and SockJS endpoints
+    @GetMapping("/transport")
+    public List<TransportStats> transportStats() {
+        return transportMonitor.snapshot();
+    }
+}
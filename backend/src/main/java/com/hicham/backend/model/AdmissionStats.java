@@ -0,0 +1,17 @@
+package com.hicham.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class AdmissionStats {
+    private boolean enabled;
+    private int inFlight;
+    private int maxInFlight;
+    private long admittedCount;
+    private long rateLimitedCount;
+    private long capacityRejectedCount;
+    private long executorRejectedCount;
+    private int trackedUsers;
+}
@@ -0,0 +1,18 @@
+package com.hicham.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ClusterPeerStats {
+    private String address;
+    // Null until the peer answered the handshake
+    private String nodeId;
+    private boolean connected;
+    // Destinations the peer has subscribers for, -1 when it forwards everything
+    private int subscribedDestinations;
+    private int queuedUpdates;
+    private long sentCount;
+    private long droppedCount;
+}
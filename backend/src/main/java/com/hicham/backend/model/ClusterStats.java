@@ -0,0 +1,17 @@
+package com.hicham.backend.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ClusterStats {
+    private boolean enabled;
+    private String nodeId;
+    private int port;
+    private int inboundConnections;
+    private long receivedCount;
+    private List<ClusterPeerStats> peers;
+}
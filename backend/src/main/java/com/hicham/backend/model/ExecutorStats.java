@@ -0,0 +1,13 @@
+package com.hicham.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ExecutorStats {
+    private String mode;
+    private int activeCount;
+    private int queueDepth;
+    private long rejectedCount;
+}
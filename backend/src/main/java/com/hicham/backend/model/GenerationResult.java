@@ -0,0 +1,17 @@
+package com.hicham.backend.model;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Outcome of a completed generation, reused for later requests with the same normalized content
+@Data
+@AllArgsConstructor
+public class GenerationResult {
+    private String requestHash;
+    private String request;
+    // Operation that generated the result
+    private String operationId;
+    private LocalDateTime generatedAt;
+}
@@ -0,0 +1,7 @@
+package com.hicham.backend.model;
+
+// Scheduling class of a generation operation; classes share the executor by weight
+public enum JobPriority {
+    INTERACTIVE,
+    BATCH
+}
@@ -0,0 +1,18 @@
+package com.hicham.backend.model;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class OperationState {
+    private String operationId;
+    private String userId;
+    private ProgressType type;
+    private Integer percentage;
+    private String step;
+    private String message;
+    private LocalDateTime updatedAt;
+}
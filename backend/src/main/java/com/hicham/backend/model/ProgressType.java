@@ -6,5 +6,12 @@ public enum ProgressType {
     GENERATION_COMPLETED,
     GENERATION_ERROR,
     VALIDATION_PROGRESS,
-    DEPLOYMENT_PROGRESS
+    DEPLOYMENT_PROGRESS,
+    // Added last: the binary format sends the ordinal
+    GENERATION_CANCELLED;
+
+    // Whether no further update follows for the operation
+    public boolean isTerminal() {
+        return this == GENERATION_COMPLETED || this == GENERATION_ERROR || this == GENERATION_CANCELLED;
+    }
 } 
\ No newline at end of file
@@ -14,4 +14,18 @@ public class ProgressUpdate {
     private String step;
     private String message;
     private LocalDateTime timestamp;
+    // Assigned by ProgressReplayBuffer; increases with every update sent, so clients can resume after it
+    private Long sequence;
+    // Instance that assigned the sequence; sequences of different instances are unrelated
+    private String node;
+
+    public ProgressUpdate(String operationId, String userId, ProgressType type, Integer percentage,
+                          String step, String message, LocalDateTime timestamp) {
+        this(operationId, userId, type, percentage, step, message, timestamp, null, null);
+    }
+
+    public ProgressUpdate(String operationId, String userId, ProgressType type, Integer percentage,
+                          String step, String message, LocalDateTime timestamp, Long sequence) {
+        this(operationId, userId, type, percentage, step, message, timestamp, sequence, null);
+    }
 } 
\ No newline at end of file
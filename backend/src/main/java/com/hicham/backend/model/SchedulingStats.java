@@ -0,0 +1,16 @@
+package com.hicham.backend.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class SchedulingStats {
+    private boolean enabled;
+    private int runningJobs;
+    private int maxConcurrentJobs;
+    private int queuedJobs;
+    private List<TenantQueueStats> tenants;
+}
@@ -0,0 +1,14 @@
+package com.hicham.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class SessionSendStats {
+    private String sessionId;
+    private int bufferedMessages;
+    private int bufferSize;
+    private long timeSinceSendStarted;
+    private long droppedCount;
+}
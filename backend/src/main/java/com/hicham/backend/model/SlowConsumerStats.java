@@ -0,0 +1,14 @@
+package com.hicham.backend.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class SlowConsumerStats {
+    private long droppedCount;
+    private long disconnectedCount;
+    private List<SessionSendStats> sessions;
+}
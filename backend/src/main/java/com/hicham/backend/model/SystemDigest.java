@@ -0,0 +1,25 @@
+package com.hicham.backend.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Summary of the system updates of one digest interval, sent on /topic/system in digest mode
+@Data
+@AllArgsConstructor
+public class SystemDigest {
+    private long started;
+    private long completed;
+    private long failed;
+    private long cancelled;
+    // Most recent operation IDs of each outcome, newest last
+    private List<String> startedOperationIds;
+    private List<String> completedOperationIds;
+    private List<String> failedOperationIds;
+    private List<String> cancelledOperationIds;
+    private long intervalMillis;
+    private String message;
+    private LocalDateTime timestamp;
+}
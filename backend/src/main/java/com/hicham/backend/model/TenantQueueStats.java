@@ -0,0 +1,17 @@
+package com.hicham.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TenantQueueStats {
+    private String tenant;
+    private JobPriority priority;
+    private int weight;
+    private int queuedJobs;
+    // Age of the oldest queued job
+    private long oldestWaitMillis;
+    // Mean wait of jobs dispatched since the tenant's queue was last empty
+    private double averageWaitMillis;
+}
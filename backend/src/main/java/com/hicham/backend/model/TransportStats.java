@@ -0,0 +1,20 @@
+package com.hicham.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TransportStats {
+    // sockjs or native
+    private String transport;
+    private int openSessions;
+    private long messageCount;
+    // STOMP frames as handed to the session
+    private long payloadBytes;
+    // Payload plus SockJS framing and the WebSocket frame header, before permessage-deflate
+    private long wireBytes;
+    private double averageWireBytes;
+    // Mean time the session took to accept a frame
+    private double averageSendMicros;
+}
@@ -1,37 +1,224 @@
 package com.hicham.backend.service;
 
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
 
+import com.hicham.backend.config.SchedulingConfig;
+import com.hicham.backend.model.GenerationResult;
+import com.hicham.backend.model.JobPriority;
 import com.hicham.backend.model.ProgressType;
 import com.hicham.backend.model.ProgressUpdate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @Service
 public class ArchitectureGenerationService {
     private final WebSocketProgressService progressService;
     private final int sleepMillis;
     private static final int TOTAL_STEPS = 5; // Number of steps in simulation
+    // Delay before a step is offered again when the generation executor is saturated
+    private static final long RETRY_DELAY_MILLIS = 50;
+    private final Executor generationExecutor;
+    private final TaskScheduler scheduler;
+    private final GenerationResultCache resultCache; // null when caching is off
+    private final Counter startedCounter;
+    private final Counter completedCounter;
+    private final Counter failedCounter;
+    private final Counter cancelledCounter;
+    private final AtomicInteger activeOperations = new AtomicInteger();
+    private final Timer[] stepTimers = new Timer[TOTAL_STEPS];
+    // Operations that have not finished yet, so they can be cancelled
+    private final Map<String, GenerationRun> runs = new ConcurrentHashMap<>();
 
     @Autowired
+    public ArchitectureGenerationService(WebSocketProgressService progressService,
+                                         FairGenerationScheduler generationScheduler,
+                                         @Qualifier(SchedulingConfig.PROGRESS_SCHEDULER) TaskScheduler scheduler,
+                                         MeterRegistry meterRegistry, GenerationResultCache resultCache) {
+        this(progressService, 3000, generationScheduler, scheduler, meterRegistry, resultCache); // default 3 seconds
+    }
+
+    // Overloaded constructor for tests: steps run on the calling thread, one right after the other,
+    // since there is no scheduler to wait between them
     public ArchitectureGenerationService(WebSocketProgressService progressService) {
-        this(progressService, 3000); // default 3 seconds
+        this(progressService, new SimpleMeterRegistry());
+    }
+
+    public ArchitectureGenerationService(WebSocketProgressService progressService, MeterRegistry meterRegistry) {
+        this(progressService, 0, new SyncTaskExecutor(), null, meterRegistry);
     }
 
-    // Overloaded constructor for tests
-    public ArchitectureGenerationService(WebSocketProgressService progressService, int sleepMillis) {
+    public ArchitectureGenerationService(WebSocketProgressService progressService, int sleepMillis,
+                                         Executor generationExecutor, TaskScheduler scheduler,
+                                         MeterRegistry meterRegistry) {
+        this(progressService, sleepMillis, generationExecutor, scheduler, meterRegistry, null);
+    }
+
+    public ArchitectureGenerationService(WebSocketProgressService progressService, int sleepMillis,
+                                         Executor generationExecutor, TaskScheduler scheduler,
+                                         MeterRegistry meterRegistry, GenerationResultCache resultCache) {
         this.progressService = progressService;
+        this.resultCache = resultCache != null && resultCache.isEnabled() ? resultCache : null;
         this.sleepMillis = sleepMillis;
+        this.generationExecutor = generationExecutor;
+        this.scheduler = scheduler;
+        this.startedCounter = Counter.builder("generation.operations.started")
+                .description("Generation operations started")
+                .register(meterRegistry);
+        this.completedCounter = Counter.builder("generation.operations.completed")
+                .description("Generation operations completed successfully")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("generation.operations.failed")
+                .description("Generation operations that ended with GENERATION_ERROR")
+                .register(meterRegistry);
+        this.cancelledCounter = Counter.builder("generation.operations.cancelled")
+                .description("Generation operations cancelled by a client or their deadline")
+                .register(meterRegistry);
+        Gauge.builder("generation.operations.active", activeOperations, AtomicInteger::get)
+                .description("Generation operations in flight")
+                .register(meterRegistry);
+        for (int i = 0; i < TOTAL_STEPS; i++) {
+            stepTimers[i] = Timer.builder("generation.step.duration")
+                    .description("Time from the start of a generation step to its progress update being sent")
+                    .tag("step", "step_" + (i + 1))
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
     }
 
-    // Simulate asynchronous architecture generation for a specific user
-    @Async
+    // Simulate asynchronous architecture generation for a specific user.
+    // Each step is a short task on the generation executor and the timer starts the next one,
+    // so no thread is held while an operation waits. The future completes after the last update.
+    // A request whose result is cached gets STARTED then COMPLETED right away, without any step.
+    // Throws TaskRejectedException if the generation executor cannot take the first step.
     public CompletableFuture<Void> generateArchitecture(String operationId, String userId, String request) {
+        return generateArchitecture(operationId, userId, request, JobPriority.INTERACTIVE);
+    }
+
+    // With the fair scheduler, the steps queue under the user as tenant and the given priority class
+    public CompletableFuture<Void> generateArchitecture(String operationId, String userId, String request,
+                                                        JobPriority priority) {
+        String requestHash = resultCache != null ? GenerationResultCache.requestHash(request) : null;
+        Executor executor = generationExecutor instanceof FairGenerationScheduler fair
+                ? fair.executorFor(userId, priority)
+                : generationExecutor;
+        GenerationRun run = new GenerationRun(operationId, userId, request, requestHash, executor);
+        Optional<GenerationResult> cached = requestHash != null ? resultCache.get(requestHash) : Optional.empty();
+        if (cached.isPresent()) {
+            run.startFromCache(cached.get());
+            return run.future;
+        }
+        if (operationId != null) {
+            runs.put(operationId, run);
+        }
         try {
+            executor.execute(run::start);
+        } catch (RuntimeException e) {
+            run.release();
+            throw e;
+        }
+        return run.future;
+    }
+
+    // Stops a running operation between steps and sends GENERATION_CANCELLED with step "cancelled".
+    // Its pending timer and queued progress updates are dropped and its future completes with a
+    // CancellationException. Returns false if the operation is unknown, finished or not the user's.
+    public boolean cancel(String operationId, String userId, String reason) {
+        GenerationRun run = operationId != null ? runs.get(operationId) : null;
+        if (run == null || !Objects.equals(run.userId, userId)) {
+            return false;
+        }
+        return run.cancel(reason);
+    }
+
+    // Cancels the operation if it is still running after deadlineMillis
+    public void scheduleDeadline(String operationId, long deadlineMillis) {
+        GenerationRun run = operationId != null ? runs.get(operationId) : null;
+        if (run == null || scheduler == null || deadlineMillis <= 0) {
+            return;
+        }
+        run.setDeadline(scheduler.schedule(() -> run.cancel("deadline of " + deadlineMillis + " ms exceeded"),
+                Instant.now().plusMillis(deadlineMillis)));
+    }
+
+    public int getRunningOperations() {
+        return runs.size();
+    }
+
+    // State of one operation: the last progress step sent, advanced by the timer.
+    // Steps and cancellation lock the run, so no update follows the cancellation.
+    private final class GenerationRun {
+        private final String operationId;
+        private final String userId;
+        private final String request;
+        private final String requestHash; // null when caching is off
+        private final Executor executor;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private int step;
+        private long stepStart;
+        private boolean started;
+        private boolean cancelled;
+        private ScheduledFuture<?> pendingStep;
+        private ScheduledFuture<?> deadline;
+
+        private GenerationRun(String operationId, String userId, String request, String requestHash,
+                              Executor executor) {
+            this.operationId = operationId;
+            this.userId = userId;
+            this.request = request;
+            this.requestHash = requestHash;
+            this.executor = executor;
+        }
+
+        private synchronized void start() {
+            if (cancelled) {
+                return;
+            }
+            started = true;
+            startedCounter.increment();
+            activeOperations.incrementAndGet();
+            try {
+                sendStarted();
+                scheduleNextStep(sleepMillis);
+            } catch (Exception e) {
+                fail(e);
+            }
+        }
+
+        private synchronized void startFromCache(GenerationResult cached) {
+            started = true;
+            startedCounter.increment();
+            activeOperations.incrementAndGet();
+            try {
+                sendStarted();
+                complete(cached);
+            } catch (Exception e) {
+                fail(e);
+            }
+        }
+
+        private void sendStarted() {
             // Send private start update to user
             ProgressUpdate startUpdate = new ProgressUpdate(
                     operationId, userId, ProgressType.GENERATION_STARTED, 0,
@@ -44,23 +231,44 @@ public class ArchitectureGenerationService {
                     operationId, userId, ProgressType.GENERATION_STARTED, 0,
                     "System: Generation started for " + userId, "init", LocalDateTime.now()
             ));
+        }
 
-            // Simulate generation steps
-            for (int i = 1; i <= TOTAL_STEPS; i++) {
-                Thread.sleep(sleepMillis); // use configurable sleep
-                int percentage = (i * 100) / TOTAL_STEPS;
+        private synchronized void advance() {
+            if (cancelled) {
+                return;
+            }
+            try {
+                step++;
+                int percentage = (step * 100) / TOTAL_STEPS;
                 // Send private progress update
                 ProgressUpdate progressUpdate = new ProgressUpdate(
                         operationId, userId, ProgressType.GENERATION_PROGRESS, percentage,
-                        "Etape " + i + " complétée pour " + userId, "step_" + i, LocalDateTime.now()
+                        "Etape " + step + " complétée pour " + userId, "step_" + step, LocalDateTime.now()
                 );
                 progressService.sendProgressUpdate(userId, progressUpdate);
+                stepTimers[step - 1].record(System.nanoTime() - stepStart, TimeUnit.NANOSECONDS);
+
+                if (step < TOTAL_STEPS) {
+                    scheduleNextStep(sleepMillis);
+                } else {
+                    complete(null);
+                }
+            } catch (Exception e) {
+                fail(e);
             }
+        }
 
+        // cached is the reused result, or null when the steps were run
+        private void complete(GenerationResult cached) {
             // Send private completion update
+            String message = "Génération terminée avec succès pour " + userId;
+            if (cached != null) {
+                // The cache is shared by all users, so the operation that produced the result is not named
+                message += " (résultat en cache)";
+            }
             ProgressUpdate completeUpdate = new ProgressUpdate(
                     operationId, userId, ProgressType.GENERATION_COMPLETED, 100,
-                    "Génération terminée avec succès pour " + userId, "completed", LocalDateTime.now()
+                    message, "completed", LocalDateTime.now()
             );
             progressService.sendProgressUpdate(userId, completeUpdate);
 
@@ -70,22 +278,121 @@ public class ArchitectureGenerationService {
                     "System: Generation completed for " + userId, "completed", LocalDateTime.now()
             ));
 
-            return CompletableFuture.completedFuture(null);
-        } catch (Exception e) {
-           // progressService.sendErrorUpdate(userId, e, operationId);
-           progressService.sendProgressUpdate(
-            userId,
-            new ProgressUpdate(
-                operationId,
-                userId,
-                ProgressType.GENERATION_ERROR,
-                null,
-                "error",
-                "An error occurred: " + e.getMessage(),
-                LocalDateTime.now()
-            )
-        );
-            return CompletableFuture.completedFuture(null);
+            if (cached == null && requestHash != null) {
+                resultCache.put(new GenerationResult(requestHash, request, operationId, LocalDateTime.now()));
+            }
+            completedCounter.increment();
+            activeOperations.decrementAndGet();
+            release();
+            future.complete(null);
+        }
+
+        private synchronized boolean cancel(String reason) {
+            if (cancelled || future.isDone()) {
+                return false;
+            }
+            cancelled = true;
+            release();
+            cancelledCounter.increment();
+            if (started) {
+                activeOperations.decrementAndGet();
+            }
+            try {
+                // Progress still waiting for a conflation tick or a batch window is no longer wanted
+                progressService.discardPending(operationId);
+                progressService.sendProgressUpdate(userId, new ProgressUpdate(
+                        operationId, userId, ProgressType.GENERATION_CANCELLED, null,
+                        "cancelled", "Generation cancelled: " + reason, LocalDateTime.now()
+                ));
+                progressService.broadcastSystemUpdate(new ProgressUpdate(
+                        operationId, userId, ProgressType.GENERATION_CANCELLED, null,
+                        "cancelled", "System: Generation cancelled for " + userId, LocalDateTime.now()
+                ));
+            } finally {
+                future.completeExceptionally(new CancellationException(reason));
+            }
+            return true;
+        }
+
+        private synchronized void setDeadline(ScheduledFuture<?> deadline) {
+            if (future.isDone()) {
+                deadline.cancel(false);
+            } else {
+                this.deadline = deadline;
+            }
+        }
+
+        // Forgets the operation and its timers, so a finished or cancelled run holds nothing
+        private synchronized void release() {
+            if (operationId != null) {
+                runs.remove(operationId, this);
+            }
+            if (pendingStep != null) {
+                pendingStep.cancel(false);
+                pendingStep = null;
+            }
+            if (deadline != null) {
+                deadline.cancel(false);
+                deadline = null;
+            }
+        }
+
+        // Without a timer (tests) or a delay, the next step is handed over right away
+        private void scheduleNextStep(long delayMillis) {
+            stepStart = System.nanoTime();
+            if (scheduler == null || delayMillis <= 0) {
+                dispatchStep();
+            } else {
+                pendingStep = scheduler.schedule(this::dispatchStep, Instant.now().plusMillis(delayMillis));
+            }
+        }
+
+        // A saturated executor delays the step instead of failing the operation
+        private void dispatchStep() {
+            try {
+                executor.execute(this::advance);
+            } catch (RejectedExecutionException e) {
+                if (scheduler == null) {
+                    fail(e);
+                } else {
+                    retry();
+                }
+            }
+        }
+
+        private synchronized void retry() {
+            if (!cancelled) {
+                pendingStep = scheduler.schedule(this::dispatchStep, Instant.now().plusMillis(RETRY_DELAY_MILLIS));
+            }
+        }
+
+        private void fail(Exception e) {
+            failedCounter.increment();
+            activeOperations.decrementAndGet();
+            release();
+            try {
+                // progressService.sendErrorUpdate(userId, e, operationId);
+                progressService.sendProgressUpdate(
+                    userId,
+                    new ProgressUpdate(
+                        operationId,
+                        userId,
+                        ProgressType.GENERATION_ERROR,
+                        null,
+                        "error",
+                        "An error occurred: " + e.getMessage(),
+                        LocalDateTime.now()
+                    )
+                );
+                // Send public failure update, so that system listeners and digests see it
+                progressService.broadcastSystemUpdate(new ProgressUpdate(
+                        operationId, userId, ProgressType.GENERATION_ERROR, null,
+                        "error", "System: Generation failed for " + userId, LocalDateTime.now()
+                ));
+                future.complete(null);
+            } catch (RuntimeException sendError) {
+                future.completeExceptionally(sendError);
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,99 @@
+package com.hicham.backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Consistent-hash ring with virtual nodes. A key belongs to the first point at or after its hash,
+// so adding or removing a node only moves the keys of the arcs that node gains or loses.
+// Hashes depend on nothing but the strings, so every instance computes the same ring.
+// Lookups read an immutable snapshot; changes replace it.
+public class ConsistentHashRing {
+    private final int virtualNodes;
+    private volatile Snapshot snapshot = new Snapshot(new TreeMap<>(), new TreeSet<>());
+
+    public ConsistentHashRing(int virtualNodes) {
+        this.virtualNodes = Math.max(1, virtualNodes);
+    }
+
+    public ConsistentHashRing(int virtualNodes, Collection<String> nodes) {
+        this(virtualNodes);
+        nodes.forEach(this::add);
+    }
+
+    public synchronized void add(String node) {
+        if (snapshot.nodes.contains(node)) {
+            return;
+        }
+        TreeMap<Long, String> points = new TreeMap<>(snapshot.points);
+        addPoints(points, node);
+        TreeSet<String> nodes = new TreeSet<>(snapshot.nodes);
+        nodes.add(node);
+        snapshot = new Snapshot(points, nodes);
+    }
+
+    public synchronized void remove(String node) {
+        if (!snapshot.nodes.contains(node)) {
+            return;
+        }
+        TreeSet<String> nodes = new TreeSet<>(snapshot.nodes);
+        nodes.remove(node);
+        // Rebuilt rather than pruned so that collided points go back to the remaining node
+        TreeMap<Long, String> points = new TreeMap<>();
+        for (String remaining : nodes) {
+            addPoints(points, remaining);
+        }
+        snapshot = new Snapshot(points, nodes);
+    }
+
+    // Owner of the key, null when the ring is empty
+    public String nodeFor(String key) {
+        TreeMap<Long, String> points = snapshot.points;
+        if (points.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> point = points.ceilingEntry(hash(key));
+        return point != null ? point.getValue() : points.firstEntry().getValue();
+    }
+
+    public Set<String> getNodes() {
+        return snapshot.nodes;
+    }
+
+    private void addPoints(TreeMap<Long, String> points, String node) {
+        for (int i = 0; i < virtualNodes; i++) {
+            // On the rare collision the lower node ID wins, whatever the order nodes were added in
+            points.merge(hash(node + "#" + i), node, (current, added) -> current.compareTo(added) <= 0 ? current : added);
+        }
+    }
+
+    // 64-bit FNV-1a of the UTF-8 bytes, finished with the MurmurHash3 mix so that
+    // similar strings such as "node-a#1" and "node-a#2" land far apart
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static final class Snapshot {
+        private final TreeMap<Long, String> points;
+        private final Set<String> nodes;
+
+        private Snapshot(TreeMap<Long, String> points, TreeSet<String> nodes) {
+            this.points = points;
+            this.nodes = Collections.unmodifiableSet(nodes);
+        }
+    }
+}
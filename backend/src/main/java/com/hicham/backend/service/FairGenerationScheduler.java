@@ -0,0 +1,336 @@
+package com.hicham.backend.service;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.hicham.backend.config.GenerationExecutorConfig;
+import com.hicham.backend.config.GenerationSchedulingProperties;
+import com.hicham.backend.config.SchedulingConfig;
+import com.hicham.backend.model.JobPriority;
+import com.hicham.backend.model.SchedulingStats;
+import com.hicham.backend.model.TenantQueueStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+// Weighted fair queuing in front of the generation executor. Jobs wait in one queue per tenant
+// and priority class; at most maxConcurrentJobs are handed to the executor at once.
+// The next job comes from the class, then the tenant within it, with the lowest pass:
+// stride scheduling, where each dispatch advances the pass by 1/weight, so a tenant with
+// thousands of queued jobs gets its share and no more.
+@Service
+public class FairGenerationScheduler implements Executor {
+    // Tenant of jobs submitted without one
+    public static final String DEFAULT_TENANT = "";
+    // Pass advance of a weight-1 queue per dispatch
+    private static final long STRIDE_UNIT = 1L << 20;
+    // Delay before a job the executor refused is offered again
+    private static final long RETRY_DELAY_MILLIS = 50;
+
+    private final GenerationSchedulingProperties properties;
+    private final Executor executor;
+    private final TaskScheduler scheduler;
+    private final Map<JobPriority, PriorityClass> classes = new EnumMap<>(JobPriority.class);
+    private final Map<JobPriority, Timer> waitTimers = new EnumMap<>(JobPriority.class);
+    // Pass of the class dispatched last; an idle class rejoins there
+    private long classVirtualTime;
+    private int queuedJobs;
+    private int runningJobs;
+    private ScheduledFuture<?> pendingRetry;
+
+    // Overloaded constructors for tests; without a scheduler, a refused job waits for the next submit
+    public FairGenerationScheduler(GenerationSchedulingProperties properties, Executor executor) {
+        this(properties, executor, null);
+    }
+
+    public FairGenerationScheduler(GenerationSchedulingProperties properties, Executor executor,
+                                   TaskScheduler scheduler) {
+        this(properties, executor, scheduler, new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public FairGenerationScheduler(GenerationSchedulingProperties properties,
+                                   @Qualifier(GenerationExecutorConfig.GENERATION_EXECUTOR) Executor executor,
+                                   @Qualifier(SchedulingConfig.PROGRESS_SCHEDULER) TaskScheduler scheduler,
+                                   MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.executor = executor;
+        this.scheduler = scheduler;
+        for (JobPriority priority : JobPriority.values()) {
+            PriorityClass priorityClass = new PriorityClass(priority,
+                    properties.getPriorityWeights().getOrDefault(priority, 1));
+            classes.put(priority, priorityClass);
+            Gauge.builder("generation.scheduling.queued", priorityClass, c -> queued(c))
+                    .description("Generation jobs waiting for their turn")
+                    .tag("priority", priority.name())
+                    .register(meterRegistry);
+            waitTimers.put(priority, Timer.builder("generation.scheduling.wait")
+                    .description("Time generation jobs spent queued before being handed to the executor")
+                    .tag("priority", priority.name())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        Gauge.builder("generation.scheduling.running", this, FairGenerationScheduler::getRunningJobs)
+                .description("Generation jobs handed to the executor and not finished")
+                .register(meterRegistry);
+        Gauge.builder("generation.scheduling.tenants", this, FairGenerationScheduler::getQueuedTenants)
+                .description("Tenants with queued generation jobs")
+                .register(meterRegistry);
+    }
+
+    // Jobs without a tenant share the default tenant's interactive queue
+    @Override
+    public void execute(Runnable task) {
+        execute(DEFAULT_TENANT, JobPriority.INTERACTIVE, task);
+    }
+
+    // Executor that queues every job under the given tenant and class
+    public Executor executorFor(String tenant, JobPriority priority) {
+        String key = tenant != null ? tenant : DEFAULT_TENANT;
+        JobPriority jobPriority = priority != null ? priority : JobPriority.INTERACTIVE;
+        return task -> execute(key, jobPriority, task);
+    }
+
+    // Throws TaskRejectedException once maxQueuedJobs are waiting
+    public void execute(String tenant, JobPriority priority, Runnable task) {
+        if (!properties.isEnabled()) {
+            executor.execute(task);
+            return;
+        }
+        synchronized (this) {
+            if (queuedJobs >= properties.getMaxQueuedJobs()) {
+                throw new TaskRejectedException("Generation scheduler queue full: " + queuedJobs + " jobs");
+            }
+            classes.get(priority).enqueue(tenant, new Job(task, System.nanoTime()));
+            queuedJobs++;
+        }
+        drain();
+    }
+
+    public synchronized int getRunningJobs() {
+        return runningJobs;
+    }
+
+    public synchronized int getQueuedJobs() {
+        return queuedJobs;
+    }
+
+    public synchronized int getQueuedTenants() {
+        int tenants = 0;
+        for (PriorityClass priorityClass : classes.values()) {
+            tenants += priorityClass.tenants.size();
+        }
+        return tenants;
+    }
+
+    public synchronized SchedulingStats snapshot() {
+        long now = System.nanoTime();
+        List<TenantQueueStats> tenants = new ArrayList<>();
+        for (PriorityClass priorityClass : classes.values()) {
+            for (TenantQueue queue : priorityClass.tenants.values()) {
+                Job oldest = queue.jobs.peekFirst();
+                tenants.add(new TenantQueueStats(queue.tenant, priorityClass.priority, queue.weight, queue.jobs.size(),
+                        oldest != null ? TimeUnit.NANOSECONDS.toMillis(now - oldest.enqueuedAt) : 0,
+                        queue.dispatched > 0 ? queue.waitNanos / 1e6 / queue.dispatched : 0));
+            }
+        }
+        tenants.sort(Comparator.comparingInt(TenantQueueStats::getQueuedJobs).reversed());
+        return new SchedulingStats(properties.isEnabled(), runningJobs, properties.getMaxConcurrentJobs(),
+                queuedJobs, tenants);
+    }
+
+    // Hands queued jobs to the executor while there is room; called on every submit and finish,
+    // and after a refusal
+    private void drain() {
+        while (true) {
+            Job job;
+            synchronized (this) {
+                if (runningJobs >= properties.getMaxConcurrentJobs() || queuedJobs == 0) {
+                    return;
+                }
+                job = next();
+                queuedJobs--;
+                runningJobs++;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        job.task.run();
+                    } finally {
+                        synchronized (this) {
+                            runningJobs--;
+                        }
+                        drain();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // The executor is full after all: the job goes back to the head of its queue.
+                // With nothing running, no finished job would try again, so a retry is scheduled.
+                synchronized (this) {
+                    runningJobs--;
+                    queuedJobs++;
+                    job.owner.owner.requeue(job);
+                    scheduleRetry();
+                }
+                return;
+            }
+        }
+    }
+
+    // At most one retry is pending; a submit or finished job may drain before it runs
+    private synchronized void scheduleRetry() {
+        if (scheduler == null || pendingRetry != null) {
+            return;
+        }
+        pendingRetry = scheduler.schedule(() -> {
+            synchronized (this) {
+                pendingRetry = null;
+            }
+            drain();
+        }, Instant.now().plusMillis(RETRY_DELAY_MILLIS));
+    }
+
+    // Class with the lowest pass among those with queued jobs, then its tenant with the lowest pass
+    private Job next() {
+        PriorityClass selected = null;
+        for (PriorityClass priorityClass : classes.values()) {
+            if (!priorityClass.active.isEmpty() && (selected == null || priorityClass.pass < selected.pass)) {
+                selected = priorityClass;
+            }
+        }
+        classVirtualTime = selected.pass;
+        selected.pass += selected.stride;
+        Job job = selected.dequeue();
+        waitTimers.get(selected.priority).record(System.nanoTime() - job.enqueuedAt, TimeUnit.NANOSECONDS);
+        return job;
+    }
+
+    private int queued(PriorityClass priorityClass) {
+        synchronized (this) {
+            return priorityClass.queued;
+        }
+    }
+
+    private int tenantWeight(String tenant) {
+        return Math.max(1, properties.getTenantWeights().getOrDefault(tenant, properties.getDefaultTenantWeight()));
+    }
+
+    private final class PriorityClass {
+        private final JobPriority priority;
+        private final long stride;
+        private long pass;
+        // Pass of the tenant dispatched last; an idle tenant rejoins there
+        private long tenantVirtualTime;
+        private int queued;
+        private final Map<String, TenantQueue> tenants = new HashMap<>();
+        private final PriorityQueue<TenantQueue> active = new PriorityQueue<>(
+                Comparator.comparingLong((TenantQueue queue) -> queue.pass).thenComparingLong(queue -> queue.order));
+        private long nextOrder;
+
+        private PriorityClass(JobPriority priority, int weight) {
+            this.priority = priority;
+            this.stride = STRIDE_UNIT / Math.max(1, weight);
+        }
+
+        private void enqueue(String tenant, Job job) {
+            activate();
+            TenantQueue queue = tenants.computeIfAbsent(tenant,
+                    key -> new TenantQueue(this, key, tenantWeight(key), tenantVirtualTime));
+            job.owner = queue;
+            if (queue.jobs.isEmpty()) {
+                queue.order = nextOrder++;
+                active.add(queue);
+            }
+            queue.jobs.addLast(job);
+            queued++;
+        }
+
+        private Job dequeue() {
+            TenantQueue queue = active.poll();
+            Job job = queue.jobs.pollFirst();
+            queued--;
+            tenantVirtualTime = queue.pass;
+            queue.pass += queue.stride;
+            queue.waitNanos += System.nanoTime() - job.enqueuedAt;
+            queue.dispatched++;
+            if (queue.jobs.isEmpty()) {
+                // An idle tenant keeps no state; it rejoins at the class's virtual time
+                tenants.remove(queue.tenant);
+            } else {
+                active.add(queue);
+            }
+            return job;
+        }
+
+        // Puts a job the executor refused back at the head of its tenant's queue,
+        // which may have been dropped or recreated since the job left it
+        private void requeue(Job job) {
+            activate();
+            TenantQueue queue = tenants.computeIfAbsent(job.owner.tenant, key -> job.owner);
+            job.owner = queue;
+            if (queue.jobs.isEmpty()) {
+                // The job was not served, so its tenant gets its turn back
+                queue.pass = Math.min(queue.pass, tenantVirtualTime);
+                queue.order = nextOrder++;
+                active.add(queue);
+            }
+            queue.jobs.addFirst(job);
+            queued++;
+        }
+
+        // A class that was idle starts at the current virtual time instead of catching up
+        private void activate() {
+            if (queued == 0) {
+                pass = Math.max(pass, classVirtualTime);
+            }
+        }
+    }
+
+    private static final class TenantQueue {
+        private final PriorityClass owner;
+        private final String tenant;
+        private final int weight;
+        private final long stride;
+        private long pass;
+        private long order;
+        private final ArrayDeque<Job> jobs = new ArrayDeque<>();
+        private long waitNanos;
+        private long dispatched;
+
+        private TenantQueue(PriorityClass owner, String tenant, int weight, long pass) {
+            this.owner = owner;
+            this.tenant = tenant;
+            this.weight = weight;
+            this.stride = STRIDE_UNIT / weight;
+            this.pass = pass;
+        }
+    }
+
+    private static final class Job {
+        private final Runnable task;
+        private final long enqueuedAt;
+        private TenantQueue owner;
+
+        private Job(Runnable task, long enqueuedAt) {
+            this.task = task;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
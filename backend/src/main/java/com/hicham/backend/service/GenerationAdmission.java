@@ -0,0 +1,175 @@
+package com.hicham.backend.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.hicham.backend.config.GenerationAdmissionProperties;
+import com.hicham.backend.config.SchedulingConfig;
+import com.hicham.backend.model.AdmissionStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+// Admission control for /generate: a token bucket per user, sized by the user's tier,
+// and a global cap on operations in flight. Both are lock-free.
+@Service
+public class GenerationAdmission {
+    private final GenerationAdmissionProperties properties;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong admittedCount = new AtomicLong();
+    private final AtomicLong rateLimitedCount = new AtomicLong();
+    private final AtomicLong capacityRejectedCount = new AtomicLong();
+    private final AtomicLong executorRejectedCount = new AtomicLong();
+    private final ScheduledFuture<?> sweep;
+
+    // Overloaded constructor for tests
+    public GenerationAdmission(GenerationAdmissionProperties properties) {
+        this.properties = properties;
+        bindMetrics(new SimpleMeterRegistry());
+        this.sweep = null;
+    }
+
+    @Autowired
+    public GenerationAdmission(GenerationAdmissionProperties properties,
+                               @Qualifier(SchedulingConfig.PROGRESS_SCHEDULER) TaskScheduler scheduler,
+                               MeterRegistry meterRegistry) {
+        this.properties = properties;
+        bindMetrics(meterRegistry);
+        this.sweep = scheduler.scheduleAtFixedRate(this::evictIdle,
+                Duration.ofMillis(properties.getSweepIntervalMillis()));
+    }
+
+    // Takes a token from the user's bucket and a slot under the in-flight cap, or throws.
+    // Every successful call must be followed by one release() when the operation finishes.
+    public void acquire(String userId) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (inFlight.incrementAndGet() > properties.getMaxInFlight()) {
+            inFlight.decrementAndGet();
+            capacityRejectedCount.incrementAndGet();
+            throw new GenerationRejectedException("Too many generations in progress",
+                    properties.getCapacityRetryAfterMillis());
+        }
+        String key = userId != null ? userId : "";
+        long waitNanos = buckets.computeIfAbsent(key, this::newBucket).tryAcquire(System.nanoTime());
+        if (waitNanos > 0) {
+            inFlight.decrementAndGet();
+            rateLimitedCount.incrementAndGet();
+            throw new GenerationRejectedException("Rate limit exceeded for user: " + userId,
+                    TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1);
+        }
+        admittedCount.incrementAndGet();
+    }
+
+    public void release() {
+        if (properties.isEnabled()) {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    // The generation executor refused an admitted operation: gives its slot back.
+    // The user's token stays spent, so a saturated executor also slows down retries.
+    public GenerationRejectedException rejectSaturated() {
+        release();
+        executorRejectedCount.incrementAndGet();
+        return new GenerationRejectedException("Generation executor saturated",
+                properties.getCapacityRetryAfterMillis());
+    }
+
+    // A bucket that has refilled completely is the same as a new one, so dropping it loses nothing
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.forEach((userId, bucket) -> {
+            if (bucket.isFull(now)) {
+                buckets.remove(userId, bucket);
+            }
+        });
+    }
+
+    public AdmissionStats snapshot() {
+        return new AdmissionStats(properties.isEnabled(), inFlight.get(), properties.getMaxInFlight(),
+                admittedCount.get(), rateLimitedCount.get(), capacityRejectedCount.get(),
+                executorRejectedCount.get(), buckets.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweep != null) {
+            sweep.cancel(false);
+        }
+    }
+
+    private TokenBucket newBucket(String userId) {
+        String tier = properties.getUsers().get(userId);
+        GenerationAdmissionProperties.RateLimit limit = tier != null ? properties.getTiers().get(tier) : null;
+        return new TokenBucket(limit != null ? limit : properties.getDefaultLimit());
+    }
+
+    private void bindMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("generation.admission.admitted", admittedCount, AtomicLong::get)
+                .description("Generation requests admitted")
+                .register(registry);
+        FunctionCounter.builder("generation.admission.rejected", rateLimitedCount, AtomicLong::get)
+                .description("Generation requests rejected with 429")
+                .tag("reason", "rate_limit")
+                .register(registry);
+        FunctionCounter.builder("generation.admission.rejected", capacityRejectedCount, AtomicLong::get)
+                .description("Generation requests rejected with 429")
+                .tag("reason", "capacity")
+                .register(registry);
+        FunctionCounter.builder("generation.admission.rejected", executorRejectedCount, AtomicLong::get)
+                .description("Generation requests rejected with 429")
+                .tag("reason", "executor")
+                .register(registry);
+        Gauge.builder("generation.admission.in.flight", inFlight, AtomicInteger::get)
+                .description("Admitted generation operations not finished yet")
+                .register(registry);
+    }
+
+    // Token bucket kept as a single timestamp: the time at which it is full again.
+    // Taking a token pushes that time one refill interval further; the request is refused
+    // if that would leave the bucket more than burst tokens short.
+    private static final class TokenBucket {
+        private final long intervalNanos;
+        private final long capacityNanos;
+        private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+        private TokenBucket(GenerationAdmissionProperties.RateLimit limit) {
+            this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / limit.getRefillPerSecond()));
+            this.capacityNanos = intervalNanos * Math.max(0, limit.getBurst());
+        }
+
+        // Returns 0 if a token was taken, otherwise how long until one is available
+        private long tryAcquire(long now) {
+            while (true) {
+                long current = fullAt.get();
+                long next = (current == Long.MIN_VALUE || current - now < 0 ? now : current) + intervalNanos;
+                long shortfall = next - now - capacityNanos;
+                if (shortfall > 0) {
+                    return shortfall;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        private boolean isFull(long now) {
+            long current = fullAt.get();
+            return current == Long.MIN_VALUE || current - now <= 0;
+        }
+    }
+}
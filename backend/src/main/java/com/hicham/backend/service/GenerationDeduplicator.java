@@ -0,0 +1,129 @@
+package com.hicham.backend.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+import com.hicham.backend.config.GenerationIdempotencyProperties;
+import com.hicham.backend.config.SchedulingConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+// Maps an idempotency key, or the request content, to the operation it started, so a repeated
+// /generate attaches to that operation instead of starting the same work again.
+// Keys are scoped per user. An entry lives while its operation runs and for the retention
+// window after it finishes, whether it completed or failed.
+@Service
+public class GenerationDeduplicator {
+    private final long retentionMillis;
+    private final boolean deduplicateWithoutKey;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Counter duplicateCounter;
+    private final ScheduledFuture<?> sweep;
+
+    // Overloaded constructor for tests
+    public GenerationDeduplicator(GenerationIdempotencyProperties properties) {
+        this.retentionMillis = properties.getRetentionMillis();
+        this.deduplicateWithoutKey = properties.isDeduplicateWithoutKey();
+        this.duplicateCounter = duplicateCounter(new SimpleMeterRegistry());
+        this.sweep = null;
+    }
+
+    @Autowired
+    public GenerationDeduplicator(GenerationIdempotencyProperties properties,
+                                  @Qualifier(SchedulingConfig.PROGRESS_SCHEDULER) TaskScheduler scheduler,
+                                  MeterRegistry meterRegistry) {
+        this.retentionMillis = properties.getRetentionMillis();
+        this.deduplicateWithoutKey = properties.isDeduplicateWithoutKey();
+        this.duplicateCounter = duplicateCounter(meterRegistry);
+        this.sweep = scheduler.scheduleAtFixedRate(this::evictExpired,
+                Duration.ofMillis(properties.getSweepIntervalMillis()));
+    }
+
+    // Returns the key a request is deduplicated on, or null if it is not deduplicated
+    public String keyFor(String userId, String idempotencyKey, String request) {
+        String user = userId != null ? userId : "";
+        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+            return user + "\u0000key\u0000" + idempotencyKey;
+        }
+        return deduplicateWithoutKey ? user + "\u0000request\u0000" + request : null;
+    }
+
+    // Claims the key for a new operation. Returns null if it was claimed, otherwise
+    // the operation ID of the earlier request with the same key.
+    public String claim(String key, String operationId) {
+        Entry entry = new Entry(operationId);
+        Entry existing = entries.putIfAbsent(key, entry);
+        while (existing != null && existing.isExpired(System.currentTimeMillis())) {
+            if (entries.replace(key, existing, entry)) {
+                return null;
+            }
+            existing = entries.putIfAbsent(key, entry);
+        }
+        if (existing != null) {
+            duplicateCounter.increment();
+            return existing.operationId;
+        }
+        return null;
+    }
+
+    // The operation never started, so a retry with the same key must start it
+    public void abandon(String key, String operationId) {
+        entries.computeIfPresent(key, (k, entry) -> entry.operationId.equals(operationId) ? null : entry);
+    }
+
+    // Starts the retention window of the key's operation
+    public void finished(String key, String operationId) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.operationId.equals(operationId)) {
+            entry.finishedAtMillis = System.currentTimeMillis();
+        }
+    }
+
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.forEach((key, entry) -> {
+            if (entry.isExpired(now)) {
+                entries.remove(key, entry);
+            }
+        });
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweep != null) {
+            sweep.cancel(false);
+        }
+    }
+
+    private static Counter duplicateCounter(MeterRegistry registry) {
+        return Counter.builder("generation.idempotency.duplicates")
+                .description("Repeated /generate requests attached to an existing operation")
+                .register(registry);
+    }
+
+    private final class Entry {
+        private final String operationId;
+        // Set once the operation has finished; 0 while it runs
+        private volatile long finishedAtMillis;
+
+        private Entry(String operationId) {
+            this.operationId = operationId;
+        }
+
+        private boolean isExpired(long now) {
+            return finishedAtMillis != 0 && now - finishedAtMillis >= retentionMillis;
+        }
+    }
+}
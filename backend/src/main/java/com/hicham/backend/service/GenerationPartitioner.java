@@ -0,0 +1,206 @@
+package com.hicham.backend.service;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.hicham.backend.config.GenerationPartitioningProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.server.ResponseStatusException;
+
+// Gives each user an owner instance on a consistent-hash ring, so that the user's operations,
+// result cache, deduplication keys and rate limit all live on one instance. Requests that reach
+// another instance are forwarded to the owner over HTTP, marked with FORWARDED_HEADER so they are
+// never forwarded twice. An owner that refuses the connection leaves the ring for downRetryMillis:
+// only its users move to the next instance meanwhile, and they move back when it returns.
+@Service
+public class GenerationPartitioner {
+    // Set on forwarded requests, its value is the instance that forwarded them
+    public static final String FORWARDED_HEADER = "X-Forwarded-By-Node";
+
+    private final GenerationPartitioningProperties properties;
+    private final RestClient restClient;
+    private final ConsistentHashRing ring;
+    // nodeId -> System.nanoTime() at which an unreachable instance rejoins the ring
+    private final Map<String, Long> downUntil = new ConcurrentHashMap<>();
+    private final Counter forwardedCounter;
+    private final Counter failoverCounter;
+    // Runs the forwards of callers that must not block; null when partitioning is off
+    private final ExecutorService forwardPool;
+
+    // Overloaded constructor for tests: partitioning off
+    public GenerationPartitioner(GenerationPartitioningProperties properties) {
+        this(properties, RestClient.builder());
+    }
+
+    public GenerationPartitioner(GenerationPartitioningProperties properties, RestClient.Builder restClientBuilder) {
+        this(properties, restClientBuilder.build(), new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public GenerationPartitioner(GenerationPartitioningProperties properties, RestClient.Builder restClientBuilder,
+                                 MeterRegistry meterRegistry) {
+        this(properties, restClientBuilder.requestFactory(requestFactory(properties)).build(), meterRegistry);
+    }
+
+    private GenerationPartitioner(GenerationPartitioningProperties properties, RestClient restClient,
+                                  MeterRegistry meterRegistry) {
+        if (properties.isEnabled() && !properties.getMembers().containsKey(properties.getNodeId())) {
+            throw new IllegalStateException("generation.partitioning.node-id '" + properties.getNodeId()
+                    + "' is not one of generation.partitioning.members " + properties.getMembers().keySet());
+        }
+        this.properties = properties;
+        this.restClient = restClient;
+        this.ring = new ConsistentHashRing(properties.getVirtualNodes(),
+                properties.isEnabled() ? properties.getMembers().keySet() : List.of());
+        this.forwardedCounter = Counter.builder("generation.partitioning.forwarded")
+                .description("Requests forwarded to the instance owning their user")
+                .register(meterRegistry);
+        this.failoverCounter = Counter.builder("generation.partitioning.failover")
+                .description("Forwards that found the owner unreachable and took it off the ring")
+                .register(meterRegistry);
+        Gauge.builder("generation.partitioning.members", ring, r -> r.getNodes().size())
+                .description("Instances currently on the partitioning ring")
+                .register(meterRegistry);
+        this.forwardPool = properties.isEnabled() ? newForwardPool(properties.getForwardThreads()) : null;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public String getNodeId() {
+        return properties.getNodeId();
+    }
+
+    // Instance owning the key; this one when partitioning is off
+    public String ownerOf(String key) {
+        if (!properties.isEnabled()) {
+            return properties.getNodeId();
+        }
+        if (!downUntil.isEmpty()) {
+            restoreDue();
+        }
+        String owner = ring.nodeFor(key != null ? key : "");
+        return owner != null ? owner : properties.getNodeId();
+    }
+
+    // Whether a FORWARDED_HEADER value names a member; any other value came from outside the cluster
+    // and must not let a request skip forwarding
+    public boolean isMember(String forwardedBy) {
+        return properties.isEnabled() && forwardedBy != null && properties.getMembers().containsKey(forwardedBy);
+    }
+
+    public boolean isLocal(String key) {
+        return ownerOf(key).equals(properties.getNodeId());
+    }
+
+    // Sends the request to the owner of the key and returns its response, whatever the status.
+    // Empty when this instance is the owner, possibly after unreachable owners left the ring.
+    // pathAndQuery must already be encoded.
+    public Optional<ResponseEntity<String>> forward(String key, HttpMethod method, String pathAndQuery,
+                                                    Map<String, String> headers) {
+        for (int attempt = 0; attempt < properties.getMembers().size(); attempt++) {
+            String owner = ownerOf(key);
+            if (owner.equals(properties.getNodeId())) {
+                return Optional.empty();
+            }
+            try {
+                ResponseEntity<String> response = restClient.method(method)
+                        .uri(URI.create(properties.getMembers().get(owner) + pathAndQuery))
+                        .headers(httpHeaders -> {
+                            headers.forEach(httpHeaders::set);
+                            httpHeaders.set(FORWARDED_HEADER, properties.getNodeId());
+                        })
+                        .retrieve()
+                        .onStatus(status -> true, (request, clientResponse) -> { })
+                        .toEntity(String.class);
+                forwardedCounter.increment();
+                return Optional.of(response);
+            } catch (ResourceAccessException e) {
+                // Only a connection that could not be opened is certain not to have reached the owner;
+                // after a timeout it may already be running the request, so running it here could run it twice
+                if (!unreachable(e.getCause())) {
+                    throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Owner " + owner + " did not answer", e);
+                }
+                failoverCounter.increment();
+                markDown(owner);
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Same as forward, on the partitioner's own threads; completes exceptionally where forward throws
+    public CompletableFuture<Optional<ResponseEntity<String>>> forwardAsync(String key, HttpMethod method,
+                                                                          String pathAndQuery,
+                                                                          Map<String, String> headers) {
+        if (forwardPool == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return CompletableFuture.supplyAsync(() -> forward(key, method, pathAndQuery, headers), forwardPool);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (forwardPool != null) {
+            forwardPool.shutdownNow();
+        }
+    }
+
+    private static boolean unreachable(Throwable cause) {
+        return cause instanceof ConnectException || cause instanceof NoRouteToHostException
+                || cause instanceof UnknownHostException;
+    }
+
+    private void markDown(String nodeId) {
+        downUntil.put(nodeId, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getDownRetryMillis()));
+        ring.remove(nodeId);
+    }
+
+    private void restoreDue() {
+        long now = System.nanoTime();
+        downUntil.forEach((nodeId, until) -> {
+            if (now - until >= 0 && downUntil.remove(nodeId, until)) {
+                ring.add(nodeId);
+            }
+        });
+    }
+
+    private static ExecutorService newForwardPool(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, threads), task -> {
+            Thread thread = new Thread(task, "partitioning-forward-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static SimpleClientHttpRequestFactory requestFactory(GenerationPartitioningProperties properties) {
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout((int) properties.getForwardTimeoutMillis());
+        factory.setReadTimeout((int) properties.getForwardTimeoutMillis());
+        return factory;
+    }
+}
@@ -0,0 +1,17 @@
+package com.hicham.backend.service;
+
+// Thrown when /generate does not admit a request; the client may retry after the given delay
+public class GenerationRejectedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterMillis;
+
+    public GenerationRejectedException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,181 @@
+package com.hicham.backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.hicham.backend.config.GenerationCacheProperties;
+import com.hicham.backend.model.GenerationResult;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+// LRU cache of generation results, bounded by entry count and estimated weight, with a TTL.
+// Requests that differ only in case or whitespace share an entry.
+@Service
+public class GenerationResultCache {
+    // Estimated bytes of a cached entry besides its strings
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long maxWeightBytes;
+    private final long ttlMillis;
+    // Access order, so the first entry is the least recently used
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weightBytes;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong sizeEvictionCount = new AtomicLong();
+    private final AtomicLong expiredEvictionCount = new AtomicLong();
+
+    // Overloaded constructor for tests
+    public GenerationResultCache(GenerationCacheProperties properties) {
+        this(properties, new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public GenerationResultCache(GenerationCacheProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.maxEntries = properties.getMaxEntries();
+        this.maxWeightBytes = properties.getMaxWeightBytes();
+        this.ttlMillis = properties.getTtlMillis();
+        bindMetrics(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // SHA-256 of the request with case and runs of whitespace normalized
+    public static String requestHash(String request) {
+        String canonical = request == null ? "" : request.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public Optional<GenerationResult> get(String requestHash) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        synchronized (this) {
+            Entry entry = entries.get(requestHash);
+            if (entry != null && System.currentTimeMillis() - entry.storedAtMillis >= ttlMillis) {
+                remove(requestHash, entry);
+                expiredEvictionCount.incrementAndGet();
+                entry = null;
+            }
+            if (entry == null) {
+                missCount.incrementAndGet();
+                return Optional.empty();
+            }
+            hitCount.incrementAndGet();
+            return Optional.of(entry.result);
+        }
+    }
+
+    public void put(GenerationResult result) {
+        if (!enabled) {
+            return;
+        }
+        Entry entry = new Entry(result, System.currentTimeMillis());
+        if (entry.weightBytes > maxWeightBytes) {
+            return;
+        }
+        synchronized (this) {
+            Entry previous = entries.remove(result.getRequestHash());
+            if (previous != null) {
+                weightBytes -= previous.weightBytes;
+            }
+            entries.put(result.getRequestHash(), entry);
+            weightBytes += entry.weightBytes;
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || weightBytes > maxWeightBytes) && eldest.hasNext()) {
+                Entry evicted = eldest.next().getValue();
+                eldest.remove();
+                weightBytes -= evicted.weightBytes;
+                sizeEvictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getWeightBytes() {
+        return weightBytes;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return sizeEvictionCount.get() + expiredEvictionCount.get();
+    }
+
+    private void remove(String requestHash, Entry entry) {
+        entries.remove(requestHash);
+        weightBytes -= entry.weightBytes;
+    }
+
+    private void bindMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("generation.cache.hits", hitCount, AtomicLong::get)
+                .description("Generation requests answered from the result cache")
+                .register(registry);
+        FunctionCounter.builder("generation.cache.misses", missCount, AtomicLong::get)
+                .description("Generation requests not found in the result cache")
+                .register(registry);
+        FunctionCounter.builder("generation.cache.evictions", sizeEvictionCount, AtomicLong::get)
+                .description("Cached generation results evicted")
+                .tag("cause", "size")
+                .register(registry);
+        FunctionCounter.builder("generation.cache.evictions", expiredEvictionCount, AtomicLong::get)
+                .description("Cached generation results evicted")
+                .tag("cause", "expired")
+                .register(registry);
+        Gauge.builder("generation.cache.size", this, GenerationResultCache::size)
+                .description("Cached generation results")
+                .register(registry);
+        Gauge.builder("generation.cache.weight", this, GenerationResultCache::getWeightBytes)
+                .description("Estimated bytes of cached generation results")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private static final class Entry {
+        private final GenerationResult result;
+        private final long storedAtMillis;
+        private final long weightBytes;
+
+        private Entry(GenerationResult result, long storedAtMillis) {
+            this.result = result;
+            this.storedAtMillis = storedAtMillis;
+            this.weightBytes = ENTRY_OVERHEAD_BYTES + 2L * (length(result.getRequestHash())
+                    + length(result.getRequest()) + length(result.getOperationId()));
+        }
+
+        private static int length(String value) {
+            return value != null ? value.length() : 0;
+        }
+    }
+}
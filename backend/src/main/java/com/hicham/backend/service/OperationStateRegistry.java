@@ -0,0 +1,142 @@
+package com.hicham.backend.service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+import com.hicham.backend.config.OperationStateProperties;
+import com.hicham.backend.config.SchedulingConfig;
+import com.hicham.backend.model.OperationState;
+import com.hicham.backend.model.ProgressUpdate;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+// Latest type, percentage and step of each operation, so a client can read where an
+// operation stands instead of waiting for the next push.
+// Runs right after the replay buffer, so ProgressEventStreams never sees an update the registry has not.
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class OperationStateRegistry implements ProgressUpdateListener {
+    private final long completedTtlMillis;
+    private final long idleTtlMillis;
+    private final Map<String, Entry> operations = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> operationsByUser = new ConcurrentHashMap<>();
+    private final ScheduledFuture<?> sweep;
+
+    // Overloaded constructor for tests
+    public OperationStateRegistry(long completedTtlMillis, long idleTtlMillis) {
+        this.completedTtlMillis = completedTtlMillis;
+        this.idleTtlMillis = idleTtlMillis;
+        this.sweep = null;
+    }
+
+    @Autowired
+    public OperationStateRegistry(OperationStateProperties properties,
+                                  @Qualifier(SchedulingConfig.PROGRESS_SCHEDULER) TaskScheduler scheduler) {
+        this.completedTtlMillis = properties.getCompletedTtlMillis();
+        this.idleTtlMillis = properties.getIdleTtlMillis();
+        this.sweep = scheduler.scheduleAtFixedRate(this::evictExpired,
+                Duration.ofMillis(properties.getSweepIntervalMillis()));
+    }
+
+    @Override
+    public void onProgressUpdate(String userId, ProgressUpdate update) {
+        String operationId = update.getOperationId();
+        if (operationId == null) {
+            return;
+        }
+        OperationState state = new OperationState(operationId, userId, update.getType(), update.getPercentage(),
+                update.getStep(), update.getMessage(), update.getTimestamp());
+        Entry previous = operations.put(operationId, new Entry(state, System.currentTimeMillis()));
+        if (previous != null && Objects.equals(previous.state.getUserId(), userId)) {
+            return;
+        }
+        if (previous != null) {
+            removeFromUser(previous.state.getUserId(), operationId);
+        }
+        if (userId != null) {
+            operationsByUser.compute(userId, (id, operationIds) -> {
+                Set<String> result = operationIds != null ? operationIds : ConcurrentHashMap.newKeySet();
+                result.add(operationId);
+                return result;
+            });
+        }
+    }
+
+    public Optional<OperationState> find(String operationId) {
+        Entry entry = operations.get(operationId);
+        return entry != null ? Optional.of(entry.state) : Optional.empty();
+    }
+
+    // Operations of a user, oldest update first; finished ones only when asked for
+    public List<OperationState> findByUser(String userId, boolean includeFinished) {
+        Set<String> operationIds = operationsByUser.get(userId);
+        if (operationIds == null) {
+            return List.of();
+        }
+        return operationIds.stream()
+                .map(operations::get)
+                .filter(entry -> entry != null && (includeFinished || !entry.isFinished()))
+                .map(entry -> entry.state)
+                .sorted(Comparator.comparing(OperationState::getUpdatedAt,
+                        Comparator.nullsFirst(Comparator.naturalOrder())))
+                .toList();
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    // Drops finished operations past the completed TTL and silent ones past the idle TTL
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        operations.forEach((operationId, entry) -> {
+            long ttl = entry.isFinished() ? completedTtlMillis : idleTtlMillis;
+            if (now - entry.updatedAtMillis >= ttl && operations.remove(operationId, entry)) {
+                removeFromUser(entry.state.getUserId(), operationId);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweep != null) {
+            sweep.cancel(false);
+        }
+    }
+
+    private void removeFromUser(String userId, String operationId) {
+        if (userId == null) {
+            return;
+        }
+        operationsByUser.computeIfPresent(userId, (id, operationIds) -> {
+            operationIds.remove(operationId);
+            return operationIds.isEmpty() ? null : operationIds;
+        });
+    }
+
+    private static final class Entry {
+        private final OperationState state;
+        private final long updatedAtMillis;
+
+        private Entry(OperationState state, long updatedAtMillis) {
+            this.state = state;
+            this.updatedAtMillis = updatedAtMillis;
+        }
+
+        private boolean isFinished() {
+            return state.getType() != null && state.getType().isTerminal();
+        }
+    }
+}
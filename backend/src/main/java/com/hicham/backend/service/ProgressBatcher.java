@@ -0,0 +1,87 @@
+package com.hicham.backend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.hicham.backend.model.ProgressUpdate;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+
+// Groups updates per destination into one frame with an array payload.
+// A batch goes out on the next tick, as soon as it holds maxBatchSize updates,
+// or right away when it ends with a terminal update. A lone update is sent as a plain frame.
+public class ProgressBatcher implements ProgressSink {
+
+    // Native header set on batched frames, its value is the number of updates in the array
+    public static final String BATCH_HEADER = "progress-batch";
+
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final int maxBatchSize;
+    private final Map<String, Batch> batches = new ConcurrentHashMap<>();
+
+    public ProgressBatcher(SimpMessageSendingOperations messagingTemplate, int maxBatchSize) {
+        this.messagingTemplate = messagingTemplate;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    @Override
+    public void send(String destination, ProgressUpdate update) {
+        boolean terminal = update.getType() != null && update.getType().isTerminal();
+        while (true) {
+            Batch batch = batches.computeIfAbsent(destination, d -> new Batch());
+            synchronized (batch) {
+                if (batch.closed) {
+                    continue; // removed by a concurrent flush, retry with a fresh batch
+                }
+                batch.updates.add(update);
+                if (terminal || batch.updates.size() >= maxBatchSize) {
+                    sendBatch(destination, batch);
+                }
+                return;
+            }
+        }
+    }
+
+    // Sends every pending batch; destinations that stayed empty since the last tick are dropped
+    public void flush() {
+        batches.forEach((destination, batch) -> {
+            synchronized (batch) {
+                if (!batch.updates.isEmpty()) {
+                    sendBatch(destination, batch);
+                } else {
+                    batch.closed = true;
+                    batches.remove(destination, batch);
+                }
+            }
+        });
+    }
+
+    // Drops pending updates of an operation without sending them
+    public void discard(String operationId) {
+        batches.values().forEach(batch -> {
+            synchronized (batch) {
+                batch.updates.removeIf(update -> operationId.equals(update.getOperationId()));
+            }
+        });
+    }
+
+    public int getPendingDestinations() {
+        return batches.size();
+    }
+
+    private void sendBatch(String destination, Batch batch) {
+        List<ProgressUpdate> updates = batch.updates;
+        batch.updates = new ArrayList<>();
+        if (updates.size() == 1) {
+            messagingTemplate.convertAndSend(destination, updates.get(0));
+        } else {
+            messagingTemplate.convertAndSend(destination, updates, Map.of(BATCH_HEADER, updates.size()));
+        }
+    }
+
+    private static final class Batch {
+        private List<ProgressUpdate> updates = new ArrayList<>();
+        private boolean closed;
+    }
+}
@@ -0,0 +1,671 @@
+package com.hicham.backend.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.hicham.backend.config.ProgressClusterProperties;
+import com.hicham.backend.model.ClusterPeerStats;
+import com.hicham.backend.model.ClusterStats;
+import com.hicham.backend.model.ProgressUpdate;
+import com.hicham.backend.websocket.IndexedSubscriptionRegistry;
+import com.hicham.backend.websocket.ProgressBinaryCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
+
+// Replicates progress updates to the other instances, so that a user connected to any instance
+// gets the updates of operations running on another one, without an external broker.
+// Every instance listens on a TCP port and opens one connection to each peer. Over it the peer
+// answers with the destinations it has subscribers for and keeps that list current; updates go
+// the other way, only for those destinations, up to maxBatchSize of them per frame.
+// Received updates are delivered locally and never forwarded again, so peers must form a full mesh.
+// Both sides prove they know the shared secret before anything else is exchanged: each answers
+// the other's random nonce with an HMAC over its role and both nonces.
+//
+// hello    := HELLO version:u8 nodeId:utf nonce:byte[16]           (both ways, client first)
+// proof    := PROOF mac:byte[32]                                   (server first)
+// interest := (RESET | ADD | REMOVE) count:i32 destination:utf*  |  ALL
+// updates  := UPDATES count:i32 (destination:utf length:i32 ProgressBinaryCodec frame)*
+@Service
+public class ProgressClusterBus {
+    private static final int PROTOCOL_VERSION = 2;
+    private static final int HELLO = 1;
+    private static final int INTEREST_RESET = 2;
+    private static final int INTEREST_ADD = 3;
+    private static final int INTEREST_REMOVE = 4;
+    // Sent by a peer that cannot tell which destinations have subscribers
+    private static final int INTEREST_ALL = 5;
+    private static final int UPDATES = 6;
+    private static final int PROOF = 7;
+    private static final int NONCE_BYTES = 16;
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int MAX_FRAME_BYTES = 16 * 1024 * 1024;
+    // How often an idle link checks that its connection is still open
+    private static final long IDLE_POLL_MILLIS = 1000;
+
+    private final ProgressClusterProperties properties;
+    // Null when the broker uses Spring's default registry: peers then get every update
+    private final IndexedSubscriptionRegistry registry;
+    private final String nodeId;
+    // HMAC key derived from the shared secret
+    private final byte[] secretKey;
+    private final SecureRandom random = new SecureRandom();
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+    private final List<PeerLink> peers = new ArrayList<>();
+    private final Set<InboundLink> inbound = ConcurrentHashMap.newKeySet();
+    private final AtomicLong receivedCount = new AtomicLong();
+    private final Counter sentCounter;
+    private final Counter droppedCounter;
+    private final Counter receivedCounter;
+    private final Counter framesCounter;
+    private final ServerSocket serverSocket;
+    private volatile ProgressSink localSink = (destination, update) -> { };
+    private volatile boolean running;
+
+    // Overloaded constructor for tests
+    public ProgressClusterBus(ProgressClusterProperties properties, IndexedSubscriptionRegistry registry) {
+        this(properties, registry, new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public ProgressClusterBus(ProgressClusterProperties properties,
+                              ObjectProvider<IndexedSubscriptionRegistry> registry,
+                              MeterRegistry meterRegistry) {
+        this(properties, registry.getIfAvailable(), meterRegistry);
+    }
+
+    public ProgressClusterBus(ProgressClusterProperties properties, IndexedSubscriptionRegistry registry,
+                              MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.registry = registry;
+        // A random one is kept short: every sequenced update carries it
+        this.nodeId = StringUtils.hasText(properties.getNodeId())
+                ? properties.getNodeId() : UUID.randomUUID().toString().substring(0, 8);
+        this.secretKey = sha256(properties.getSecret());
+        this.sentCounter = Counter.builder("progress.cluster.sent")
+                .description("Progress updates replicated to peers")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("progress.cluster.dropped")
+                .description("Progress updates not replicated because a peer's queue was full or its connection lost")
+                .register(meterRegistry);
+        this.receivedCounter = Counter.builder("progress.cluster.received")
+                .description("Progress updates received from peers")
+                .register(meterRegistry);
+        this.framesCounter = Counter.builder("progress.cluster.frames")
+                .description("Frames of replicated updates written to peers")
+                .register(meterRegistry);
+        Gauge.builder("progress.cluster.peers.connected", this, ProgressClusterBus::getConnectedPeers)
+                .description("Peers with an open replication connection")
+                .register(meterRegistry);
+        if (!properties.isEnabled()) {
+            this.serverSocket = null;
+            return;
+        }
+        try {
+            InetAddress bindAddress = InetAddress.getByName(properties.getBindAddress());
+            if (!bindAddress.isLoopbackAddress() && !StringUtils.hasText(properties.getSecret())) {
+                throw new IllegalStateException("progress.cluster.secret is required to listen on "
+                        + properties.getBindAddress() + ", which is not a loopback address");
+            }
+            this.serverSocket = new ServerSocket(properties.getPort(), 0, bindAddress);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot listen for cluster peers on "
+                    + properties.getBindAddress() + ":" + properties.getPort(), e);
+        }
+        running = true;
+        if (registry != null) {
+            registry.addDestinationListener(this::destinationChanged);
+        }
+        startThread("progress-cluster-accept", this::acceptLoop);
+        for (String address : properties.getPeers()) {
+            PeerLink peer = new PeerLink(address.trim());
+            peers.add(peer);
+            startThread("progress-cluster-peer-" + peer.address, peer::run);
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public int getLocalPort() {
+        return serverSocket != null ? serverSocket.getLocalPort() : properties.getPort();
+    }
+
+    // Where updates received from peers are delivered
+    public void setLocalSink(ProgressSink localSink) {
+        this.localSink = localSink;
+    }
+
+    // Queues the update for every connected peer with subscribers for the destination
+    public void replicate(String destination, ProgressUpdate update) {
+        for (PeerLink peer : peers) {
+            peer.offer(destination, update);
+        }
+    }
+
+    public int getConnectedPeers() {
+        int connected = 0;
+        for (PeerLink peer : peers) {
+            if (peer.connected) {
+                connected++;
+            }
+        }
+        return connected;
+    }
+
+    public ClusterStats snapshot() {
+        List<ClusterPeerStats> peerStats = new ArrayList<>(peers.size());
+        for (PeerLink peer : peers) {
+            peerStats.add(new ClusterPeerStats(peer.address, peer.peerNodeId, peer.connected,
+                    peer.allDestinations ? -1 : peer.destinations.size() + peer.patterns.size(),
+                    peer.queue.size(), peer.sentCount.get(), peer.droppedCount.get()));
+        }
+        return new ClusterStats(properties.isEnabled(), nodeId, getLocalPort(), inbound.size(),
+                receivedCount.get(), peerStats);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        closeQuietly(serverSocket);
+        peers.forEach(PeerLink::close);
+        inbound.forEach(InboundLink::close);
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                InboundLink link = new InboundLink(socket);
+                startThread("progress-cluster-in-" + socket.getRemoteSocketAddress(), link::run);
+            } catch (IOException e) {
+                if (serverSocket.isClosed()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Called on the thread that subscribed or disconnected: only queued, each link writes it
+    private void destinationChanged(String destination) {
+        for (InboundLink link : inbound) {
+            link.interestChanged(destination);
+        }
+    }
+
+    // The last local subscriber may have left since the peer was told about it
+    private void deliver(String destination, List<ProgressUpdate> updates) {
+        receivedCount.addAndGet(updates.size());
+        receivedCounter.increment(updates.size());
+        if (registry != null && !registry.hasSubscribers(destination)) {
+            return;
+        }
+        for (ProgressUpdate update : updates) {
+            // Sequences number the origin's replay buffer: next to this instance's own, they would
+            // collide, and clients would drop the update as already seen or resume from the wrong point
+            update.setSequence(null);
+            update.setNode(null);
+            localSink.send(destination, update);
+        }
+    }
+
+    private byte[] writeHello(DataOutputStream out) throws IOException {
+        byte[] nonce = new byte[NONCE_BYTES];
+        random.nextBytes(nonce);
+        out.writeByte(HELLO);
+        out.writeByte(PROTOCOL_VERSION);
+        out.writeUTF(nodeId);
+        out.write(nonce);
+        out.flush();
+        return nonce;
+    }
+
+    private static Hello readHello(DataInputStream in) throws IOException {
+        int type = in.readUnsignedByte();
+        int version = in.readUnsignedByte();
+        if (type != HELLO || version != PROTOCOL_VERSION) {
+            throw new IOException("Unexpected cluster handshake: type " + type + ", version " + version);
+        }
+        String remoteNodeId = in.readUTF();
+        byte[] nonce = new byte[NONCE_BYTES];
+        in.readFully(nonce);
+        return new Hello(remoteNodeId, nonce);
+    }
+
+    // The role keeps a proof from being sent back as the other side's
+    private void writeProof(DataOutputStream out, String role, byte[] serverNonce, byte[] clientNonce)
+            throws IOException {
+        out.writeByte(PROOF);
+        out.write(proof(role, serverNonce, clientNonce));
+        out.flush();
+    }
+
+    private void readProof(DataInputStream in, String role, byte[] serverNonce, byte[] clientNonce)
+            throws IOException {
+        int type = in.readUnsignedByte();
+        byte[] mac = new byte[32];
+        in.readFully(mac);
+        if (type != PROOF || !MessageDigest.isEqual(mac, proof(role, serverNonce, clientNonce))) {
+            throw new IOException("Cluster peer does not know the shared secret");
+        }
+    }
+
+    private byte[] proof(String role, byte[] serverNonce, byte[] clientNonce) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secretKey, HMAC_ALGORITHM));
+            mac.update(role.getBytes(StandardCharsets.UTF_8));
+            mac.update(serverNonce);
+            mac.update(clientNonce);
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC_ALGORITHM + " not available", e);
+        }
+    }
+
+    // Keys of any length, the empty secret of a loopback-only cluster included
+    private static byte[] sha256(String secret) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void writeDestinations(DataOutputStream out, int type, List<String> destinations) throws IOException {
+        out.writeByte(type);
+        out.writeInt(destinations.size());
+        for (String destination : destinations) {
+            out.writeUTF(destination);
+        }
+        out.flush();
+    }
+
+    private static List<String> readDestinations(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<String> destinations = new ArrayList<>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+            destinations.add(in.readUTF());
+        }
+        return destinations;
+    }
+
+    private static void startThread(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Nothing left to release
+        }
+    }
+
+    // Connection opened by a peer: it sends updates, this side answers with its subscribed destinations.
+    // Changed destinations are collected, then written by the link's own writer thread, so a slow peer
+    // never holds up subscriptions; the set stays bounded by the destinations that exist.
+    private final class InboundLink {
+        private final Socket socket;
+        private final Set<String> changed = new LinkedHashSet<>();
+        private DataOutputStream out;
+
+        private InboundLink(Socket socket) {
+            this.socket = socket;
+        }
+
+        private void run() {
+            try {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                // A connection that does not complete the handshake in time is dropped
+                socket.setSoTimeout((int) properties.getConnectTimeoutMillis());
+                Hello hello = readHello(in);
+                byte[] nonce = writeHello(out);
+                writeProof(out, "server", nonce, hello.nonce);
+                if (nodeId.equals(hello.nodeId)) {
+                    return; // this instance listed its own address among the peers
+                }
+                readProof(in, "client", nonce, hello.nonce);
+                socket.setSoTimeout(0);
+                // Changes from now on are queued, so the snapshot the writer starts with misses none
+                inbound.add(this);
+                startThread("progress-cluster-interest-out-" + socket.getRemoteSocketAddress(), this::writeInterest);
+                while (running) {
+                    int type = in.readUnsignedByte();
+                    if (type != UPDATES) {
+                        throw new IOException("Unexpected cluster frame type " + type);
+                    }
+                    int count = in.readInt();
+                    for (int i = 0; i < count; i++) {
+                        String destination = in.readUTF();
+                        int length = in.readInt();
+                        if (length < 0 || length > MAX_FRAME_BYTES) {
+                            throw new IOException("Cluster frame too large: " + length + " bytes");
+                        }
+                        byte[] frame = new byte[length];
+                        in.readFully(frame);
+                        deliver(destination, ProgressBinaryCodec.decode(frame));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // Peer gone or sending garbage; it reconnects on its own
+            } finally {
+                close();
+            }
+        }
+
+        private synchronized void interestChanged(String destination) {
+            if (changed.add(destination)) {
+                notifyAll();
+            }
+        }
+
+        // Sends the subscribed destinations, then what changed since. Notifications can arrive
+        // out of order, so the current state of each changed destination is read instead of trusted.
+        private void writeInterest() {
+            try {
+                if (registry == null) {
+                    out.writeByte(INTEREST_ALL);
+                    out.flush();
+                    return;
+                }
+                writeDestinations(out, INTEREST_RESET, registry.subscribedDestinations().toList());
+                while (running && !socket.isClosed()) {
+                    List<String> batch;
+                    synchronized (this) {
+                        if (changed.isEmpty()) {
+                            wait(IDLE_POLL_MILLIS);
+                            continue;
+                        }
+                        batch = new ArrayList<>(changed);
+                        changed.clear();
+                    }
+                    List<String> added = new ArrayList<>();
+                    List<String> removed = new ArrayList<>();
+                    for (String destination : batch) {
+                        (registry.isSubscribed(destination) ? added : removed).add(destination);
+                    }
+                    if (!added.isEmpty()) {
+                        writeDestinations(out, INTEREST_ADD, added);
+                    }
+                    if (!removed.isEmpty()) {
+                        writeDestinations(out, INTEREST_REMOVE, removed);
+                    }
+                }
+            } catch (IOException e) {
+                close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+            }
+        }
+
+        private void close() {
+            inbound.remove(this);
+            closeQuietly(socket);
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    // Connection to one peer, reopened while the bus runs: a writer sends queued updates,
+    // a reader tracks the destinations the peer wants
+    private final class PeerLink {
+        private final String address;
+        private final String host;
+        private final int port;
+        private final BlockingQueue<Pending> queue;
+        private final Set<String> destinations = ConcurrentHashMap.newKeySet();
+        private final Set<String> patterns = ConcurrentHashMap.newKeySet();
+        private final AtomicLong sentCount = new AtomicLong();
+        private final AtomicLong droppedCount = new AtomicLong();
+        private volatile boolean allDestinations;
+        private volatile boolean connected;
+        private volatile String peerNodeId;
+        private volatile Socket socket;
+        private volatile Thread writer;
+
+        private PeerLink(String address) {
+            int separator = address.lastIndexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Cluster peer must be host:port, got: " + address);
+            }
+            this.address = address;
+            this.host = address.substring(0, separator);
+            this.port = Integer.parseInt(address.substring(separator + 1));
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+        }
+
+        private void offer(String destination, ProgressUpdate update) {
+            if (!connected || !wants(destination)) {
+                return;
+            }
+            if (!queue.offer(new Pending(destination, update))) {
+                droppedCount.incrementAndGet();
+                droppedCounter.increment();
+            }
+        }
+
+        private boolean wants(String destination) {
+            if (allDestinations || destinations.contains(destination)) {
+                return true;
+            }
+            for (String pattern : patterns) {
+                if (pathMatcher.match(pattern, destination)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void run() {
+            writer = Thread.currentThread();
+            while (running) {
+                try (Socket connection = new Socket()) {
+                    connection.connect(new InetSocketAddress(host, port), (int) properties.getConnectTimeoutMillis());
+                    connection.setTcpNoDelay(true);
+                    DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+                    connection.setSoTimeout((int) properties.getConnectTimeoutMillis());
+                    byte[] nonce = writeHello(out);
+                    Hello hello = readHello(in);
+                    readProof(in, "server", hello.nonce, nonce);
+                    peerNodeId = hello.nodeId;
+                    if (nodeId.equals(hello.nodeId)) {
+                        return; // our own address
+                    }
+                    writeProof(out, "client", hello.nonce, nonce);
+                    connection.setSoTimeout(0);
+                    socket = connection;
+                    startThread("progress-cluster-interest-" + address, () -> readInterest(connection, in));
+                    connected = true;
+                    writeUpdates(connection, out);
+                } catch (IOException e) {
+                    // Peer down or restarting, retried below
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } finally {
+                    disconnected();
+                }
+                try {
+                    Thread.sleep(properties.getReconnectIntervalMillis());
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        // Waits for a first update, then for the frame to fill up or the batch window to pass
+        private void writeUpdates(Socket connection, DataOutputStream out) throws IOException, InterruptedException {
+            int maxBatchSize = Math.max(1, properties.getMaxBatchSize());
+            long windowNanos = TimeUnit.MILLISECONDS.toNanos(properties.getBatchWindowMillis());
+            List<Pending> batch = new ArrayList<>(maxBatchSize);
+            while (running && !connection.isClosed()) {
+                Pending first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                writeFrame(out, batch);
+                batch.clear();
+            }
+        }
+
+        // Updates are grouped per destination, each group in order, as one codec frame
+        private void writeFrame(DataOutputStream out, List<Pending> batch) throws IOException {
+            Map<String, List<ProgressUpdate>> groups = new LinkedHashMap<>();
+            for (Pending pending : batch) {
+                groups.computeIfAbsent(pending.destination, d -> new ArrayList<>()).add(pending.update);
+            }
+            out.writeByte(UPDATES);
+            out.writeInt(groups.size());
+            for (Map.Entry<String, List<ProgressUpdate>> group : groups.entrySet()) {
+                byte[] frame = ProgressBinaryCodec.encode(group.getValue());
+                out.writeUTF(group.getKey());
+                out.writeInt(frame.length);
+                out.write(frame);
+            }
+            out.flush();
+            framesCounter.increment();
+            sentCounter.increment(batch.size());
+            sentCount.addAndGet(batch.size());
+        }
+
+        private void readInterest(Socket connection, DataInputStream in) {
+            try {
+                while (true) {
+                    int type = in.readUnsignedByte();
+                    if (type == INTEREST_ALL) {
+                        allDestinations = true;
+                        continue;
+                    }
+                    if (type != INTEREST_RESET && type != INTEREST_ADD && type != INTEREST_REMOVE) {
+                        throw new IOException("Unexpected cluster frame type " + type);
+                    }
+                    List<String> changed = readDestinations(in);
+                    if (type == INTEREST_RESET) {
+                        destinations.clear();
+                        patterns.clear();
+                    }
+                    for (String destination : changed) {
+                        Set<String> target = pathMatcher.isPattern(destination) ? patterns : destinations;
+                        if (type == INTEREST_REMOVE) {
+                            target.remove(destination);
+                        } else {
+                            target.add(destination);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // The writer sees the closed socket and reconnects
+                closeQuietly(connection);
+            }
+        }
+
+        // Updates still queued for a lost connection are dropped rather than sent late
+        private void disconnected() {
+            connected = false;
+            socket = null;
+            allDestinations = false;
+            destinations.clear();
+            patterns.clear();
+            int lost = queue.size();
+            queue.clear();
+            if (lost > 0) {
+                droppedCount.addAndGet(lost);
+                droppedCounter.increment(lost);
+            }
+        }
+
+        private void close() {
+            Thread thread = writer;
+            if (thread != null) {
+                thread.interrupt();
+            }
+            closeQuietly(socket);
+        }
+    }
+
+    private static final class Hello {
+        private final String nodeId;
+        private final byte[] nonce;
+
+        private Hello(String nodeId, byte[] nonce) {
+            this.nodeId = nodeId;
+            this.nonce = nonce;
+        }
+    }
+
+    private static final class Pending {
+        private final String destination;
+        private final ProgressUpdate update;
+
+        private Pending(String destination, ProgressUpdate update) {
+            this.destination = destination;
+            this.update = update;
+        }
+    }
+}
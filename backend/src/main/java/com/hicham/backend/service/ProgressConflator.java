@@ -0,0 +1,103 @@
+package com.hicham.backend.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+
+// Latest-wins conflation of GENERATION_PROGRESS updates, keyed by operationId.
+// Progress updates are held until the next flush tick and replaced by newer ones;
+// every other type is sent immediately, right after any progress still held for its operation.
+public class ProgressConflator implements ProgressSink {
+    private final ProgressSink downstream;
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+
+    public ProgressConflator(ProgressSink downstream) {
+        this.downstream = downstream;
+    }
+
+    @Override
+    public void send(String destination, ProgressUpdate update) {
+        String operationId = update.getOperationId();
+        if (operationId == null) {
+            downstream.send(destination, update);
+        } else if (update.getType() == ProgressType.GENERATION_PROGRESS) {
+            hold(operationId, destination, update);
+        } else {
+            sendInOrder(operationId, destination, update);
+        }
+    }
+
+    // Sends the newest held progress of every operation; slots left empty since the last tick are dropped
+    public void flush() {
+        slots.forEach((operationId, slot) -> {
+            synchronized (slot) {
+                if (slot.pending != null) {
+                    downstream.send(slot.destination, slot.pending);
+                    slot.pending = null;
+                } else {
+                    slot.closed = true;
+                    slots.remove(operationId, slot);
+                }
+            }
+        });
+    }
+
+    // Drops whatever is held for an operation without sending it
+    public void discard(String operationId) {
+        Slot slot = slots.remove(operationId);
+        if (slot != null) {
+            synchronized (slot) {
+                slot.closed = true;
+                slot.pending = null;
+            }
+        }
+    }
+
+    public int getPendingOperations() {
+        return slots.size();
+    }
+
+    private void hold(String operationId, String destination, ProgressUpdate update) {
+        while (true) {
+            Slot slot = slots.computeIfAbsent(operationId, id -> new Slot(destination));
+            synchronized (slot) {
+                if (!slot.closed) {
+                    slot.pending = update;
+                    return;
+                }
+            }
+            // Slot was removed by a concurrent flush, retry with a fresh one
+        }
+    }
+
+    private void sendInOrder(String operationId, String destination, ProgressUpdate update) {
+        boolean terminal = update.getType() != null && update.getType().isTerminal();
+        Slot slot = terminal ? slots.remove(operationId) : slots.get(operationId);
+        if (slot == null) {
+            downstream.send(destination, update);
+            return;
+        }
+        synchronized (slot) {
+            if (slot.pending != null) {
+                downstream.send(slot.destination, slot.pending);
+                slot.pending = null;
+            }
+            if (terminal) {
+                slot.closed = true;
+            }
+            downstream.send(destination, update);
+        }
+    }
+
+    private static final class Slot {
+        private final String destination;
+        private ProgressUpdate pending;
+        private boolean closed;
+
+        private Slot(String destination) {
+            this.destination = destination;
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.hicham.backend.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.hicham.backend.config.ProgressStreamProperties;
+import com.hicham.backend.config.SchedulingConfig;
+import com.hicham.backend.model.OperationState;
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+// Server-Sent Events streams of one operation's updates, fed by the same listener call as the
+// registry and the journal. A stream starts with the operation's current state and completes
+// after its terminal update. Each stream has a bounded queue emptied by a small writer pool shared
+// by all streams, so an open stream holds no thread and a slow client never blocks the sender:
+// when the queue is full its oldest GENERATION_PROGRESS is dropped, and a stream with nothing left
+// to drop is closed. Writes block, so a writer thread gives up a stream after writeBudget events
+// to let the others through, and a client whose write took longer than maxWriteMillis is closed
+// before it can hold a thread again. Idle streams get a comment line every heartbeatIntervalMillis.
+@Service
+public class ProgressEventStreams implements ProgressUpdateListener {
+    public static final String EVENT_NAME = "progress";
+    // Queued on idle streams; written as a comment
+    private static final ProgressUpdate HEARTBEAT = new ProgressUpdate(null, null, null, null, null, null, null);
+
+    private final OperationStateRegistry operationStates;
+    private final Executor writer;
+    private final int bufferCapacity;
+    private final long timeoutMillis;
+    private final int writeBudget;
+    private final long maxWriteNanos;
+    private final Map<String, Set<Stream>> streams = new ConcurrentHashMap<>();
+    private final Counter sentCounter;
+    private final Counter droppedCounter;
+    private final Counter overflowCounter;
+    private final Counter slowCounter;
+    private final ScheduledFuture<?> heartbeats;
+
+    // Overloaded constructor for tests: events are written by the given executor, heartbeats by sendHeartbeats()
+    public ProgressEventStreams(ProgressStreamProperties properties, OperationStateRegistry operationStates,
+                                Executor writer) {
+        this(properties, operationStates, writer, null, new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public ProgressEventStreams(ProgressStreamProperties properties, OperationStateRegistry operationStates,
+                                @Qualifier(SchedulingConfig.PROGRESS_SCHEDULER) TaskScheduler scheduler,
+                                MeterRegistry meterRegistry) {
+        this(properties, operationStates, newWriterPool(properties.getWriterThreads()), scheduler, meterRegistry);
+    }
+
+    private ProgressEventStreams(ProgressStreamProperties properties, OperationStateRegistry operationStates,
+                                 Executor writer, TaskScheduler scheduler, MeterRegistry meterRegistry) {
+        this.operationStates = operationStates;
+        this.writer = writer;
+        this.bufferCapacity = Math.max(1, properties.getBufferCapacity());
+        this.timeoutMillis = properties.getTimeoutMillis();
+        this.writeBudget = Math.max(1, properties.getWriteBudget());
+        this.maxWriteNanos = TimeUnit.MILLISECONDS.toNanos(properties.getMaxWriteMillis());
+        this.sentCounter = Counter.builder("progress.stream.sent")
+                .description("Progress updates written to event streams")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("progress.stream.dropped")
+                .description("GENERATION_PROGRESS updates dropped from a full event stream queue")
+                .register(meterRegistry);
+        this.overflowCounter = Counter.builder("progress.stream.overflow")
+                .description("Event streams closed because their queue was full of updates that cannot be dropped")
+                .register(meterRegistry);
+        this.slowCounter = Counter.builder("progress.stream.slow")
+                .description("Event streams closed because a write to them blocked longer than max-write-millis")
+                .register(meterRegistry);
+        Gauge.builder("progress.stream.open", this, ProgressEventStreams::getOpenStreams)
+                .description("Open progress event streams")
+                .register(meterRegistry);
+        this.heartbeats = scheduler != null && properties.getHeartbeatIntervalMillis() > 0
+                ? scheduler.scheduleAtFixedRate(this::sendHeartbeats,
+                        Duration.ofMillis(properties.getHeartbeatIntervalMillis()))
+                : null;
+    }
+
+    // Stream of one operation's updates, empty when the operation is unknown or evicted
+    public Optional<SseEmitter> open(String operationId) {
+        return open(operationId, new SseEmitter(timeoutMillis));
+    }
+
+    public Optional<SseEmitter> open(String operationId, SseEmitter emitter) {
+        if (operationStates.find(operationId).isEmpty()) {
+            return Optional.empty();
+        }
+        Stream stream = new Stream(operationId, emitter);
+        emitter.onCompletion(() -> remove(stream));
+        emitter.onError(e -> remove(stream));
+        emitter.onTimeout(() -> {
+            remove(stream);
+            emitter.complete();
+        });
+        synchronized (stream) {
+            // The registry sees an update before this listener does, so once the stream is registered
+            // an update is either in the state read below or queued after it
+            streams.compute(operationId, (id, operationStreams) -> {
+                Set<Stream> result = operationStreams != null ? operationStreams : ConcurrentHashMap.newKeySet();
+                result.add(stream);
+                return result;
+            });
+            Optional<OperationState> state = operationStates.find(operationId);
+            if (state.isEmpty()) {
+                remove(stream);
+                return Optional.empty();
+            }
+            stream.offer(toUpdate(state.get()));
+            stream.initial = state.get();
+        }
+        return Optional.of(emitter);
+    }
+
+    @Override
+    public void onProgressUpdate(String userId, ProgressUpdate update) {
+        if (update.getOperationId() == null) {
+            return;
+        }
+        Set<Stream> operationStreams = streams.get(update.getOperationId());
+        if (operationStreams == null) {
+            return;
+        }
+        for (Stream stream : operationStreams) {
+            stream.offer(update);
+        }
+    }
+
+    // Queues a comment line on every stream with nothing queued
+    public void sendHeartbeats() {
+        for (Set<Stream> operationStreams : streams.values()) {
+            for (Stream stream : operationStreams) {
+                stream.heartbeat();
+            }
+        }
+    }
+
+    public int getOpenStreams() {
+        int open = 0;
+        for (Set<Stream> operationStreams : streams.values()) {
+            open += operationStreams.size();
+        }
+        return open;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (heartbeats != null) {
+            heartbeats.cancel(false);
+        }
+        for (Set<Stream> operationStreams : streams.values()) {
+            for (Stream stream : operationStreams) {
+                stream.emitter.complete();
+            }
+        }
+        if (writer instanceof ExecutorService pool) {
+            pool.shutdownNow();
+        }
+    }
+
+    private void remove(Stream stream) {
+        streams.computeIfPresent(stream.operationId, (id, operationStreams) -> {
+            operationStreams.remove(stream);
+            return operationStreams.isEmpty() ? null : operationStreams;
+        });
+    }
+
+    private static ProgressUpdate toUpdate(OperationState state) {
+        return new ProgressUpdate(state.getOperationId(), state.getUserId(), state.getType(), state.getPercentage(),
+                state.getStep(), state.getMessage(), state.getUpdatedAt());
+    }
+
+    // Whether the update is the one the state was read from
+    private static boolean isSame(OperationState state, ProgressUpdate update) {
+        return state.getType() == update.getType()
+                && Objects.equals(state.getPercentage(), update.getPercentage())
+                && Objects.equals(state.getStep(), update.getStep())
+                && Objects.equals(state.getUpdatedAt(), update.getTimestamp());
+    }
+
+    private static ExecutorService newWriterPool(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, threads), task -> {
+            Thread thread = new Thread(task, "progress-stream-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private final class Stream {
+        private final String operationId;
+        private final SseEmitter emitter;
+        private final ArrayDeque<ProgressUpdate> queue = new ArrayDeque<>();
+        // State the stream started from; the update it was read from may still arrive once
+        private OperationState initial;
+        // A writer task is queued or running
+        private boolean writing;
+        // Nothing is queued once the terminal update is, or once the stream is closed
+        private boolean finished;
+
+        private Stream(String operationId, SseEmitter emitter) {
+            this.operationId = operationId;
+            this.emitter = emitter;
+        }
+
+        private synchronized void offer(ProgressUpdate update) {
+            if (finished) {
+                return;
+            }
+            if (initial != null) {
+                boolean duplicate = isSame(initial, update);
+                initial = null;
+                if (duplicate) {
+                    return;
+                }
+            }
+            if (queue.size() >= bufferCapacity && !dropOldestProgress()) {
+                // The writer completes the stream; completing it here could wait on a blocked write
+                overflowCounter.increment();
+                queue.clear();
+                finished = true;
+                startWriting();
+                return;
+            }
+            queue.addLast(update);
+            if (update.getType() != null && update.getType().isTerminal()) {
+                finished = true;
+            }
+            startWriting();
+        }
+
+        private synchronized void heartbeat() {
+            if (!finished && !writing && queue.isEmpty()) {
+                queue.addLast(HEARTBEAT);
+                startWriting();
+            }
+        }
+
+        private boolean dropOldestProgress() {
+            Iterator<ProgressUpdate> iterator = queue.iterator();
+            while (iterator.hasNext()) {
+                ProgressUpdate queued = iterator.next();
+                if (queued == HEARTBEAT || queued.getType() == ProgressType.GENERATION_PROGRESS) {
+                    iterator.remove();
+                    if (queued != HEARTBEAT) {
+                        droppedCounter.increment();
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void startWriting() {
+            if (writing) {
+                return;
+            }
+            writing = true;
+            try {
+                writer.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Shutting down: the stream is completed by shutdown()
+                writing = false;
+            }
+        }
+
+        // Writes queued updates until the queue is empty, then completes the stream if it is finished.
+        // Past the write budget, the rest is written by a new task behind the streams already waiting.
+        private void drain() {
+            for (int written = 0; ; written++) {
+                ProgressUpdate next;
+                boolean complete;
+                synchronized (this) {
+                    if (written >= writeBudget && !queue.isEmpty()) {
+                        writing = false;
+                        startWriting();
+                        return;
+                    }
+                    next = queue.pollFirst();
+                    complete = next == null && finished;
+                    if (next == null) {
+                        writing = false;
+                    }
+                }
+                if (next == null) {
+                    if (complete) {
+                        remove(this);
+                        emitter.complete();
+                    }
+                    return;
+                }
+                try {
+                    long start = System.nanoTime();
+                    send(next);
+                    if (System.nanoTime() - start > maxWriteNanos) {
+                        // Too slow to keep sharing the writer threads with the other streams
+                        slowCounter.increment();
+                        synchronized (this) {
+                            queue.clear();
+                            finished = true;
+                            writing = false;
+                        }
+                        remove(this);
+                        emitter.complete();
+                        return;
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // The client is gone or the stream timed out; the container completes the emitter
+                    synchronized (this) {
+                        queue.clear();
+                        finished = true;
+                        writing = false;
+                    }
+                    remove(this);
+                    return;
+                }
+            }
+        }
+
+        private void send(ProgressUpdate update) throws IOException {
+            if (update == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+                return;
+            }
+            SseEmitter.SseEventBuilder event = SseEmitter.event();
+            if (update.getSequence() != null) {
+                event.id(update.getSequence().toString());
+            }
+            emitter.send(event.name(EVENT_NAME).data(update, MediaType.APPLICATION_JSON));
+            sentCounter.increment();
+        }
+    }
+}
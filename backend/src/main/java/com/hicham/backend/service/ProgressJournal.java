@@ -0,0 +1,208 @@
+package com.hicham.backend.service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.hicham.backend.config.ProgressJournalProperties;
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+// Write-behind journal of every update sent to a user. onProgressUpdate only offers the update to a
+// bounded queue; a writer thread inserts it with the next JDBC batch, once batchSize updates are
+// queued or flushIntervalMillis after the first one. When the queue is full the overflow policy
+// drops an update instead of making the sender wait. A batch the database rejects is dropped.
+@Service
+public class ProgressJournal implements ProgressUpdateListener {
+    private static final String INSERT = "INSERT INTO progress_journal "
+            + "(operation_id, user_id, update_type, percentage, step, message, created_at, seq) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT = "SELECT operation_id, user_id, update_type, percentage, step, message, "
+            + "created_at, seq FROM progress_journal ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final ProgressJournalProperties.OverflowPolicy overflowPolicy;
+    private final BlockingQueue<ProgressUpdate> queue;
+    private final Counter writtenCounter;
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
+    private final Thread writer;
+    private volatile boolean running;
+
+    // Overloaded constructor for tests: no writer thread, updates are written by flush()
+    public ProgressJournal(ProgressJournalProperties properties, JdbcTemplate jdbcTemplate) {
+        this(properties, jdbcTemplate, new SimpleMeterRegistry(), false);
+    }
+
+    @Autowired
+    public ProgressJournal(ProgressJournalProperties properties, JdbcTemplate jdbcTemplate,
+                           MeterRegistry meterRegistry) {
+        this(properties, jdbcTemplate, meterRegistry, true);
+    }
+
+    private ProgressJournal(ProgressJournalProperties properties, JdbcTemplate jdbcTemplate,
+                            MeterRegistry meterRegistry, boolean startWriter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = properties.isEnabled();
+        this.batchSize = Math.max(1, properties.getBatchSize());
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMillis());
+        this.overflowPolicy = properties.getOverflowPolicy();
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+        this.writtenCounter = Counter.builder("progress.journal.written")
+                .description("Progress updates inserted into the journal")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("progress.journal.dropped")
+                .description("Progress updates dropped because the journal queue was full")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("progress.journal.failed")
+                .description("Progress updates lost because their batch insert failed")
+                .register(meterRegistry);
+        Gauge.builder("progress.journal.queue.size", queue, BlockingQueue::size)
+                .description("Progress updates waiting to be written")
+                .register(meterRegistry);
+        if (enabled && startWriter) {
+            running = true;
+            writer = new Thread(this::writeLoop, "progress-journal");
+            writer.setDaemon(true);
+            writer.start();
+        } else {
+            writer = null;
+        }
+    }
+
+    @Override
+    public void onProgressUpdate(String userId, ProgressUpdate update) {
+        if (!enabled) {
+            return;
+        }
+        while (!queue.offer(update)) {
+            if (overflowPolicy == ProgressJournalProperties.OverflowPolicy.DROP_NEWEST) {
+                droppedCounter.increment();
+                return;
+            }
+            if (queue.poll() != null) {
+                droppedCounter.increment();
+            }
+        }
+    }
+
+    // Writes everything queued so far on the calling thread
+    public void flush() {
+        List<ProgressUpdate> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    // Updates of one operation, oldest first
+    public List<ProgressUpdate> findByOperation(String operationId) {
+        return jdbcTemplate.query(SELECT + "WHERE operation_id = ? ORDER BY id", ROW_MAPPER, operationId);
+    }
+
+    // Most recent updates of a user, oldest first
+    public List<ProgressUpdate> findByUser(String userId, int limit) {
+        List<ProgressUpdate> updates = new ArrayList<>(jdbcTemplate.query(
+                SELECT + "WHERE user_id = ? ORDER BY id DESC LIMIT ?", ROW_MAPPER, userId, limit));
+        Collections.reverse(updates);
+        return updates;
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 1000);
+        }
+        flush();
+    }
+
+    // Waits for a first update, then for the batch to fill up or the flush interval to pass
+    private void writeLoop() {
+        List<ProgressUpdate> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                ProgressUpdate first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    ProgressUpdate next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void write(List<ProgressUpdate> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (ProgressUpdate update : batch) {
+            rows.add(new Object[] {
+                    update.getOperationId(),
+                    update.getUserId(),
+                    update.getType() != null ? update.getType().name() : null,
+                    update.getPercentage(),
+                    update.getStep(),
+                    update.getMessage(),
+                    update.getTimestamp() != null ? Timestamp.valueOf(update.getTimestamp()) : null,
+                    update.getSequence()
+            });
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT, rows);
+            writtenCounter.increment(rows.size());
+        } catch (DataAccessException e) {
+            failedCounter.increment(rows.size());
+        }
+    }
+
+    private static final RowMapper<ProgressUpdate> ROW_MAPPER = (rs, rowNum) -> {
+        String type = rs.getString("update_type");
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return new ProgressUpdate(
+                rs.getString("operation_id"),
+                rs.getString("user_id"),
+                type != null ? ProgressType.valueOf(type) : null,
+                rs.getObject("percentage", Integer.class),
+                rs.getString("step"),
+                rs.getString("message"),
+                createdAt != null ? createdAt.toLocalDateTime() : null,
+                rs.getObject("seq", Long.class)
+        );
+    };
+}
@@ -0,0 +1,186 @@
+package com.hicham.backend.service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.hicham.backend.config.ProgressReplayProperties;
+import com.hicham.backend.config.SchedulingConfig;
+import com.hicham.backend.model.ProgressUpdate;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+// Numbers every update and keeps the most recent ones of each user, bounded by count and
+// by estimated bytes, so a client that reconnects can ask for what it missed.
+// Runs first among the listeners so that the others see the sequence. Every update also
+// carries this instance's node ID, which changes on restart unless it is configured: a client
+// that reconnects elsewhere can tell that the sequences it knows are not this instance's.
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ProgressReplayBuffer implements ProgressUpdateListener {
+    // Object headers, fields and the timestamp of a buffered update
+    private static final int UPDATE_OVERHEAD_BYTES = 128;
+
+    private final int maxUpdatesPerUser;
+    private final long maxBytesPerUser;
+    private final long idleTtlMillis;
+    private final String nodeId;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, UserBuffer> buffers = new ConcurrentHashMap<>();
+    private final ScheduledFuture<?> sweep;
+
+    // Overloaded constructors for tests
+    public ProgressReplayBuffer(int maxUpdatesPerUser, long maxBytesPerUser) {
+        this(UUID.randomUUID().toString().substring(0, 8), maxUpdatesPerUser, maxBytesPerUser);
+    }
+
+    public ProgressReplayBuffer(String nodeId, int maxUpdatesPerUser, long maxBytesPerUser) {
+        this.nodeId = nodeId;
+        this.maxUpdatesPerUser = maxUpdatesPerUser;
+        this.maxBytesPerUser = maxBytesPerUser;
+        this.idleTtlMillis = Long.MAX_VALUE;
+        this.sweep = null;
+    }
+
+    @Autowired
+    public ProgressReplayBuffer(ProgressReplayProperties properties,
+                                @Qualifier(SchedulingConfig.PROGRESS_SCHEDULER) TaskScheduler scheduler,
+                                ProgressClusterBus cluster) {
+        this.nodeId = cluster.getNodeId();
+        this.maxUpdatesPerUser = properties.getMaxUpdatesPerUser();
+        this.maxBytesPerUser = properties.getMaxBytesPerUser();
+        this.idleTtlMillis = properties.getIdleTtlMillis();
+        this.sweep = scheduler.scheduleAtFixedRate(this::evictIdle,
+                Duration.ofMillis(properties.getSweepIntervalMillis()));
+    }
+
+    @Override
+    public void onProgressUpdate(String userId, ProgressUpdate update) {
+        if (userId == null) {
+            update.setSequence(sequence.incrementAndGet());
+            update.setNode(nodeId);
+            return;
+        }
+        UserBuffer buffer = buffers.computeIfAbsent(userId, id -> new UserBuffer());
+        // Numbered under the user's lock so that each buffer is ordered by sequence
+        synchronized (buffer) {
+            update.setSequence(sequence.incrementAndGet());
+            update.setNode(nodeId);
+            buffer.append(update, maxUpdatesPerUser, maxBytesPerUser);
+        }
+    }
+
+    // Same, for a position numbered by the given node. Another instance's position, or one from
+    // before a restart, says nothing about this buffer: nothing can be replayed reliably.
+    public Replay replaySince(String userId, String node, long lastSequence) {
+        if (node != null && !node.equals(nodeId)) {
+            return new Replay(List.of(), true);
+        }
+        return replaySince(userId, lastSequence);
+    }
+
+    // Buffered updates of the user after lastSequence, oldest first
+    public Replay replaySince(String userId, long lastSequence) {
+        UserBuffer buffer = userId != null ? buffers.get(userId) : null;
+        if (buffer == null) {
+            return new Replay(List.of(), false);
+        }
+        synchronized (buffer) {
+            List<ProgressUpdate> missed = new ArrayList<>();
+            Iterator<ProgressUpdate> newestFirst = buffer.updates.descendingIterator();
+            while (newestFirst.hasNext()) {
+                ProgressUpdate update = newestFirst.next();
+                if (update.getSequence() <= lastSequence) {
+                    break;
+                }
+                missed.add(update);
+            }
+            Collections.reverse(missed);
+            return new Replay(missed, buffer.evictedThrough > lastSequence);
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public long getLastSequence() {
+        return sequence.get();
+    }
+
+    public int getBufferedUsers() {
+        return buffers.size();
+    }
+
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        buffers.entrySet().removeIf(entry -> now - entry.getValue().lastAppendMillis >= idleTtlMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweep != null) {
+            sweep.cancel(false);
+        }
+    }
+
+    private static long estimateBytes(ProgressUpdate update) {
+        return UPDATE_OVERHEAD_BYTES + 2L * (length(update.getOperationId()) + length(update.getUserId())
+                + length(update.getStep()) + length(update.getMessage()));
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    // Missed updates; truncated when some of them were already evicted
+    public static final class Replay {
+        private final List<ProgressUpdate> updates;
+        private final boolean truncated;
+
+        public Replay(List<ProgressUpdate> updates, boolean truncated) {
+            this.updates = updates;
+            this.truncated = truncated;
+        }
+
+        public List<ProgressUpdate> getUpdates() {
+            return updates;
+        }
+
+        public boolean isTruncated() {
+            return truncated;
+        }
+    }
+
+    // Ring buffer of one user's updates, guarded by its own monitor
+    private static final class UserBuffer {
+        private final ArrayDeque<ProgressUpdate> updates = new ArrayDeque<>();
+        private long bytes;
+        private long evictedThrough;
+        private volatile long lastAppendMillis = System.currentTimeMillis();
+
+        private void append(ProgressUpdate update, int maxUpdates, long maxBytes) {
+            updates.addLast(update);
+            bytes += estimateBytes(update);
+            lastAppendMillis = System.currentTimeMillis();
+            while (!updates.isEmpty() && (updates.size() > maxUpdates || bytes > maxBytes)) {
+                ProgressUpdate evicted = updates.removeFirst();
+                bytes -= estimateBytes(evicted);
+                evictedThrough = evicted.getSequence();
+            }
+        }
+    }
+}
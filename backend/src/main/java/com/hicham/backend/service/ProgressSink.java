@@ -0,0 +1,9 @@
+package com.hicham.backend.service;
+
+import com.hicham.backend.model.ProgressUpdate;
+
+// A stage that progress updates go through on their way to the broker
+@FunctionalInterface
+public interface ProgressSink {
+    void send(String destination, ProgressUpdate update);
+}
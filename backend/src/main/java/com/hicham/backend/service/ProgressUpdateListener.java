@@ -0,0 +1,9 @@
+package com.hicham.backend.service;
+
+import com.hicham.backend.model.ProgressUpdate;
+
+// Notified of every update passed to WebSocketProgressService.sendProgressUpdate, before it is sent
+@FunctionalInterface
+public interface ProgressUpdateListener {
+    void onProgressUpdate(String userId, ProgressUpdate update);
+}
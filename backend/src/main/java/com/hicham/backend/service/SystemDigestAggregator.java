@@ -0,0 +1,103 @@
+package com.hicham.backend.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.hicham.backend.model.ProgressUpdate;
+import com.hicham.backend.model.SystemDigest;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+
+// Folds system updates into one SystemDigest per interval instead of one frame per event.
+// Started, completed, failed and cancelled operations are counted, with a sample of the most recent IDs;
+// other types are ignored. Nothing is sent for an interval without events.
+public class SystemDigestAggregator {
+
+    // Native header set on digest frames, so clients can tell them from single updates
+    public static final String DIGEST_HEADER = "system-digest";
+
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final String destination;
+    private final long intervalMillis;
+    private final int sampleSize;
+    private Interval current;
+
+    public SystemDigestAggregator(SimpMessageSendingOperations messagingTemplate, String destination,
+                                  long intervalMillis, int sampleSize) {
+        this.messagingTemplate = messagingTemplate;
+        this.destination = destination;
+        this.intervalMillis = intervalMillis;
+        this.sampleSize = Math.max(0, sampleSize);
+        this.current = new Interval();
+    }
+
+    public void record(ProgressUpdate update) {
+        if (update.getType() == null) {
+            return;
+        }
+        synchronized (this) {
+            switch (update.getType()) {
+                case GENERATION_STARTED -> current.started.add(update.getOperationId());
+                case GENERATION_COMPLETED -> current.completed.add(update.getOperationId());
+                case GENERATION_ERROR -> current.failed.add(update.getOperationId());
+                case GENERATION_CANCELLED -> current.cancelled.add(update.getOperationId());
+                default -> {
+                }
+            }
+        }
+    }
+
+    // Sends the digest of the interval that just ended, if anything happened in it
+    public void flush() {
+        Interval ended;
+        synchronized (this) {
+            if (current.isEmpty()) {
+                return;
+            }
+            ended = current;
+            current = new Interval();
+        }
+        messagingTemplate.convertAndSend(destination, ended.toDigest(intervalMillis), Map.of(DIGEST_HEADER, "true"));
+    }
+
+    private final class Interval {
+        private final Outcome started = new Outcome();
+        private final Outcome completed = new Outcome();
+        private final Outcome failed = new Outcome();
+        private final Outcome cancelled = new Outcome();
+
+        private boolean isEmpty() {
+            return started.count == 0 && completed.count == 0 && failed.count == 0 && cancelled.count == 0;
+        }
+
+        private SystemDigest toDigest(long intervalMillis) {
+            String message = "System: " + started.count + " started, " + completed.count + " completed, "
+                    + failed.count + " failed, " + cancelled.count + " cancelled in the last " + intervalMillis + " ms";
+            return new SystemDigest(started.count, completed.count, failed.count, cancelled.count,
+                    started.sample(), completed.sample(), failed.sample(), cancelled.sample(),
+                    intervalMillis, message, LocalDateTime.now());
+        }
+    }
+
+    private final class Outcome {
+        private long count;
+        private final ArrayDeque<String> recent = new ArrayDeque<>();
+
+        private void add(String operationId) {
+            count++;
+            if (sampleSize == 0 || operationId == null) {
+                return;
+            }
+            if (recent.size() == sampleSize) {
+                recent.removeFirst();
+            }
+            recent.addLast(operationId);
+        }
+
+        private List<String> sample() {
+            return new ArrayList<>(recent);
+        }
+    }
+}
@@ -1,24 +1,227 @@
 package com.hicham.backend.service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import com.hicham.backend.config.ProgressDeliveryProperties;
+import com.hicham.backend.config.SchedulingConfig;
+import com.hicham.backend.model.ProgressType;
 import com.hicham.backend.model.ProgressUpdate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
 
 @Service
 public class WebSocketProgressService {
+    public static final String REPLAY_DESTINATION = "/queue/progress";
+    public static final String REPLAY_TRUNCATED_HEADER = "replay-truncated";
+    public static final String SYSTEM_DESTINATION = "/topic/system";
+
     private final SimpMessagingTemplate messagingTemplate;
+    private final ProgressSink progressSink;
+    private final ProgressConflator conflator;
+    private final ProgressBatcher batcher;
+    private final SystemDigestAggregator systemDigest;
+    private final ProgressClusterBus cluster;
+    private final List<ProgressUpdateListener> listeners;
+    private final List<ScheduledFuture<?>> ticks = new ArrayList<>();
+    // Indexed by ProgressType ordinal, the last one counts updates without a type
+    private final Counter[] userUpdateCounters;
+    private final Counter[] systemUpdateCounters;
 
-    @Autowired
     public WebSocketProgressService(SimpMessagingTemplate messagingTemplate) {
         this.messagingTemplate = messagingTemplate;
+        this.progressSink = messagingTemplate::convertAndSend;
+        this.conflator = null;
+        this.batcher = null;
+        this.systemDigest = null;
+        this.cluster = null;
+        this.listeners = List.of();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        this.userUpdateCounters = updateCounters(meterRegistry, "user");
+        this.systemUpdateCounters = updateCounters(meterRegistry, "system");
+    }
+
+    public WebSocketProgressService(SimpMessagingTemplate messagingTemplate,
+                                    ProgressDeliveryProperties properties,
+                                    TaskScheduler scheduler) {
+        this(messagingTemplate, properties, scheduler, List.of());
+    }
+
+    public WebSocketProgressService(SimpMessagingTemplate messagingTemplate,
+                                    ProgressDeliveryProperties properties,
+                                    TaskScheduler scheduler,
+                                    List<ProgressUpdateListener> listeners) {
+        this(messagingTemplate, properties, scheduler, listeners, new SimpleMeterRegistry());
+    }
+
+    public WebSocketProgressService(SimpMessagingTemplate messagingTemplate,
+                                    ProgressDeliveryProperties properties,
+                                    TaskScheduler scheduler,
+                                    List<ProgressUpdateListener> listeners,
+                                    MeterRegistry meterRegistry) {
+        this(messagingTemplate, properties, scheduler, listeners, meterRegistry, null);
+    }
+
+    @Autowired
+    public WebSocketProgressService(SimpMessagingTemplate messagingTemplate,
+                                    ProgressDeliveryProperties properties,
+                                    @Qualifier(SchedulingConfig.PROGRESS_SCHEDULER) TaskScheduler scheduler,
+                                    List<ProgressUpdateListener> listeners,
+                                    MeterRegistry meterRegistry,
+                                    ProgressClusterBus cluster) {
+        this.messagingTemplate = messagingTemplate;
+        this.cluster = cluster != null && cluster.isEnabled() ? cluster : null;
+        this.listeners = List.copyOf(listeners);
+        this.userUpdateCounters = updateCounters(meterRegistry, "user");
+        this.systemUpdateCounters = updateCounters(meterRegistry, "system");
+        // Stages are chained conflation -> cluster replication -> batching -> broker
+        ProgressSink sink = messagingTemplate::convertAndSend;
+        ProgressDeliveryProperties.Batching batching = properties.getBatching();
+        if (batching.isEnabled()) {
+            this.batcher = new ProgressBatcher(messagingTemplate, batching.getMaxBatchSize());
+            ticks.add(scheduler.scheduleAtFixedRate(batcher::flush, Duration.ofMillis(batching.getWindowMillis())));
+            sink = batcher;
+        } else {
+            this.batcher = null;
+        }
+        if (this.cluster != null) {
+            // Peers already conflated what they send; their updates join here
+            ProgressSink local = sink;
+            this.cluster.setLocalSink((destination, update) -> {
+                if (SYSTEM_DESTINATION.equals(destination)) {
+                    deliverSystemUpdate(update);
+                } else {
+                    local.send(destination, update);
+                }
+            });
+            sink = (destination, update) -> {
+                local.send(destination, update);
+                this.cluster.replicate(destination, update);
+            };
+        }
+        ProgressDeliveryProperties.Conflation conflation = properties.getConflation();
+        if (conflation.isEnabled()) {
+            this.conflator = new ProgressConflator(sink);
+            ticks.add(scheduler.scheduleAtFixedRate(conflator::flush, Duration.ofMillis(conflation.getTickMillis())));
+            sink = conflator;
+        } else {
+            this.conflator = null;
+        }
+        this.progressSink = sink;
+        ProgressDeliveryProperties.SystemBroadcast system = properties.getSystem();
+        if (system.getMode() == ProgressDeliveryProperties.SystemBroadcast.Mode.DIGEST) {
+            this.systemDigest = new SystemDigestAggregator(messagingTemplate, SYSTEM_DESTINATION,
+                    system.getDigestIntervalMillis(), system.getDigestSampleSize());
+            ticks.add(scheduler.scheduleAtFixedRate(systemDigest::flush, Duration.ofMillis(system.getDigestIntervalMillis())));
+        } else {
+            this.systemDigest = null;
+        }
     }
 
     public void sendProgressUpdate(String userId, ProgressUpdate update) {
-        messagingTemplate.convertAndSend("/topic/progress." + userId, update);
+        // Listeners see the update before clients do, so a REST read never lags a received frame
+        for (ProgressUpdateListener listener : listeners) {
+            listener.onProgressUpdate(userId, update);
+        }
+        counter(userUpdateCounters, update).increment();
+        progressSink.send("/topic/progress." + userId, update);
     }
 
+    // Drops updates of an operation still held for a conflation tick or a batch window
+    public void discardPending(String operationId) {
+        if (operationId == null) {
+            return;
+        }
+        if (conflator != null) {
+            conflator.discard(operationId);
+        }
+        if (batcher != null) {
+            batcher.discard(operationId);
+        }
+    }
+
+    // Sends missed updates to one session as a single batch, on its /user/queue/progress subscription
+    public void sendReplay(String sessionId, ProgressReplayBuffer.Replay replay) {
+        if (replay.getUpdates().isEmpty() && !replay.isTruncated()) {
+            return;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setNativeHeader(ProgressBatcher.BATCH_HEADER, String.valueOf(replay.getUpdates().size()));
+        if (replay.isTruncated()) {
+            accessor.setNativeHeader(REPLAY_TRUNCATED_HEADER, "true");
+        }
+        accessor.setLeaveMutable(true);
+        messagingTemplate.convertAndSendToUser(sessionId, REPLAY_DESTINATION, replay.getUpdates(),
+                accessor.getMessageHeaders());
+    }
+
+    // Sends a reply to one session on /user/queue/progress, as @SendToUser does, from any thread
+    public void sendToSession(String sessionId, Object payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.convertAndSendToUser(sessionId, REPLAY_DESTINATION, payload, accessor.getMessageHeaders());
+    }
+
+    // In digest mode the update is only counted towards the next periodic summary
     public void broadcastSystemUpdate(ProgressUpdate update) {
-        messagingTemplate.convertAndSend("/topic/system", update);
+        counter(systemUpdateCounters, update).increment();
+        if (cluster != null) {
+            cluster.replicate(SYSTEM_DESTINATION, update);
+        }
+        deliverSystemUpdate(update);
+    }
+
+    private void deliverSystemUpdate(ProgressUpdate update) {
+        if (systemDigest != null) {
+            systemDigest.record(update);
+        } else {
+            messagingTemplate.convertAndSend(SYSTEM_DESTINATION, update);
+        }
+    }
+
+    // Counts updates as published, before conflation and batching
+    private static Counter[] updateCounters(MeterRegistry meterRegistry, String destination) {
+        ProgressType[] types = ProgressType.values();
+        Counter[] counters = new Counter[types.length + 1];
+        for (int i = 0; i <= types.length; i++) {
+            counters[i] = Counter.builder("progress.updates.sent")
+                    .description("Progress updates published to clients")
+                    .tag("destination", destination)
+                    .tag("type", i < types.length ? types[i].name() : "NONE")
+                    .register(meterRegistry);
+        }
+        return counters;
+    }
+
+    private static Counter counter(Counter[] counters, ProgressUpdate update) {
+        ProgressType type = update.getType();
+        return counters[type != null ? type.ordinal() : counters.length - 1];
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticks.forEach(tick -> tick.cancel(false));
+        if (conflator != null) {
+            conflator.flush();
+        }
+        if (batcher != null) {
+            batcher.flush();
+        }
+        if (systemDigest != null) {
+            systemDigest.flush();
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,161 @@
+package com.hicham.backend.websocket;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.broker.AbstractSubscriptionRegistry;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.PathMatcher;
+
+// Subscription registry for the simple broker that looks up plain destinations in a hash map.
+// Spring's default registry matches every destination against every subscription and caches
+// the result, which churns with one /topic/progress.{userId} destination per user.
+// Here a lookup is a single map get; destinations with wildcards are kept apart and only
+// matched when some exist. Selector headers are not supported.
+public class IndexedSubscriptionRegistry extends AbstractSubscriptionRegistry {
+
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, Subscribers> exactDestinations = new ConcurrentHashMap<>();
+    private final Map<String, Subscribers> patternDestinations = new ConcurrentHashMap<>();
+    // sessionId -> subscriptionId -> destination, to unsubscribe and clean up on disconnect
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+    // Told about destinations that got their first subscriber or lost their last one
+    private final List<Consumer<String>> destinationListeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    protected void addSubscriptionInternal(String sessionId, String subscriptionId, String destination, Message<?> message) {
+        String previous = sessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                .put(subscriptionId, destination);
+        if (previous != null) {
+            removeFromDestination(previous, sessionId, subscriptionId);
+        }
+        boolean[] created = new boolean[1];
+        destinationsFor(destination).compute(destination, (key, subscribers) -> {
+            created[0] = subscribers == null;
+            Subscribers result = subscribers != null ? subscribers : new Subscribers();
+            result.add(sessionId, subscriptionId);
+            return result;
+        });
+        if (created[0]) {
+            destinationChanged(destination);
+        }
+    }
+
+    @Override
+    protected void removeSubscriptionInternal(String sessionId, String subscriptionId, Message<?> message) {
+        Map<String, String> subscriptions = sessions.get(sessionId);
+        String destination = subscriptions != null ? subscriptions.remove(subscriptionId) : null;
+        if (destination != null) {
+            removeFromDestination(destination, sessionId, subscriptionId);
+        }
+    }
+
+    @Override
+    public void unregisterAllSubscriptions(String sessionId) {
+        Map<String, String> subscriptions = sessions.remove(sessionId);
+        if (subscriptions != null) {
+            subscriptions.forEach((subscriptionId, destination) ->
+                    removeFromDestination(destination, sessionId, subscriptionId));
+        }
+    }
+
+    @Override
+    protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
+        Subscribers exact = exactDestinations.get(destination);
+        if (patternDestinations.isEmpty()) {
+            return exact != null ? exact.view : Subscribers.EMPTY;
+        }
+        MultiValueMap<String, String> result = new LinkedMultiValueMap<>();
+        if (exact != null) {
+            result.addAll(exact.view);
+        }
+        patternDestinations.forEach((pattern, subscribers) -> {
+            if (pathMatcher.match(pattern, destination)) {
+                result.addAll(subscribers.view);
+            }
+        });
+        return result;
+    }
+
+    public boolean hasSubscribers(String destination) {
+        return !findSubscriptionsInternal(destination, null).isEmpty();
+    }
+
+    // Whether some session subscribed to exactly this destination or pattern
+    public boolean isSubscribed(String destination) {
+        return destinationsFor(destination).containsKey(destination);
+    }
+
+    // The listener gets the destination only; notifications can race with each other,
+    // so it should read isSubscribed for the current state
+    public void addDestinationListener(Consumer<String> listener) {
+        destinationListeners.add(listener);
+    }
+
+    // Every plain or pattern destination with at least one subscriber
+    public Stream<String> subscribedDestinations() {
+        return Stream.concat(exactDestinations.keySet().stream(), patternDestinations.keySet().stream());
+    }
+
+    public int getDestinationCount() {
+        return exactDestinations.size() + patternDestinations.size();
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    private Map<String, Subscribers> destinationsFor(String destination) {
+        return pathMatcher.isPattern(destination) ? patternDestinations : exactDestinations;
+    }
+
+    private void removeFromDestination(String destination, String sessionId, String subscriptionId) {
+        boolean[] emptied = new boolean[1];
+        destinationsFor(destination).computeIfPresent(destination, (key, subscribers) -> {
+            emptied[0] = subscribers.remove(sessionId, subscriptionId);
+            return emptied[0] ? null : subscribers;
+        });
+        if (emptied[0]) {
+            destinationChanged(destination);
+        }
+    }
+
+    private void destinationChanged(String destination) {
+        for (Consumer<String> listener : destinationListeners) {
+            listener.accept(destination);
+        }
+    }
+
+    // Subscribers of one destination: a concurrent map of sessions with copy-on-write
+    // subscription id lists, exposed to the broker through a read-only view
+    private static final class Subscribers {
+        private static final MultiValueMap<String, String> EMPTY =
+                CollectionUtils.unmodifiableMultiValueMap(new LinkedMultiValueMap<>());
+
+        private final Map<String, List<String>> bySession = new ConcurrentHashMap<>();
+        private final MultiValueMap<String, String> view =
+                CollectionUtils.unmodifiableMultiValueMap(CollectionUtils.toMultiValueMap(bySession));
+
+        private void add(String sessionId, String subscriptionId) {
+            bySession.merge(sessionId, List.of(subscriptionId), (current, added) ->
+                    Stream.concat(current.stream(), added.stream()).toList());
+        }
+
+        // Returns true when no subscriber is left
+        private boolean remove(String sessionId, String subscriptionId) {
+            bySession.computeIfPresent(sessionId, (id, current) -> {
+                List<String> remaining = current.stream().filter(s -> !s.equals(subscriptionId)).toList();
+                return remaining.isEmpty() ? null : remaining;
+            });
+            return bySession.isEmpty();
+        }
+    }
+}
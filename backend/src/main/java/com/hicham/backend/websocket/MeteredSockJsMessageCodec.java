@@ -0,0 +1,33 @@
+package com.hicham.backend.websocket;
+
+import org.springframework.web.socket.sockjs.frame.Jackson2SockJsMessageCodec;
+
+// Spring's SockJS codec, reporting the size of every a[...] message frame it builds
+public class MeteredSockJsMessageCodec extends Jackson2SockJsMessageCodec {
+    private final TransportMonitor monitor;
+
+    public MeteredSockJsMessageCodec(TransportMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    @Override
+    public String encode(String... messages) {
+        String frame = super.encode(messages);
+        monitor.recordSockJsFrame(utf8Length(frame));
+        return frame;
+    }
+
+    static int utf8Length(String text) {
+        int length = text.length();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 0x800 && !Character.isSurrogate(c)) {
+                length += 2;
+            } else if (c >= 0x80) {
+                // Each half of a surrogate pair adds one byte to the pair's four
+                length += 1;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,58 @@
+package com.hicham.backend.websocket;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.websocket.WebSocketContainer;
+import jakarta.websocket.server.ServerEndpointConfig;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.server.standard.StandardWebSocketUpgradeStrategy;
+
+// Keeps the servlet container from negotiating permessage-deflate. Tomcat reads the client's
+// Sec-WebSocket-Extensions header itself and accepts the offer whatever Spring selected, so the
+// header is hidden from it; permessage-deflate is the only extension Tomcat implements.
+public class PerMessageDeflateFilteringUpgradeStrategy extends StandardWebSocketUpgradeStrategy {
+
+    public static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    @Override
+    protected List<WebSocketExtension> getInstalledExtensions(WebSocketContainer container) {
+        return super.getInstalledExtensions(container).stream()
+                .filter(extension -> !PERMESSAGE_DEFLATE.equals(extension.getName()))
+                .toList();
+    }
+
+    @Override
+    protected void upgradeHttpToWebSocket(HttpServletRequest request, HttpServletResponse response,
+                                          ServerEndpointConfig endpointConfig, Map<String, String> pathParams)
+            throws Exception {
+        super.upgradeHttpToWebSocket(new WithoutExtensionOffers(request), response, endpointConfig, pathParams);
+    }
+
+    private static final class WithoutExtensionOffers extends HttpServletRequestWrapper {
+
+        private WithoutExtensionOffers(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isExtensionOffer(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isExtensionOffer(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        private static boolean isExtensionOffer(String name) {
+            return WebSocketHttpHeaders.SEC_WEBSOCKET_EXTENSIONS.equalsIgnoreCase(name);
+        }
+    }
+}
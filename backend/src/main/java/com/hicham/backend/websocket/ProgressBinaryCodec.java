@@ -0,0 +1,214 @@
+package com.hicham.backend.websocket;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+
+// Compact binary encoding of progress updates, for clients that opt out of JSON.
+//
+// frame  := version:u8 count:varint record*
+// record := flags:u16 [operationId] [userId] [type:u8] [percentage:zigzag varint]
+//           [step] [message] [timestamp:i64] [sequence:varint] [node]
+// Strings are a varint byte length followed by UTF-8. An operationId that is a UUID is sent
+// as its 16 raw bytes instead. Timestamps are epoch millis of the LocalDateTime read as UTC.
+// Multi-byte integers are big-endian. A field is present only if its flag bit is set.
+public final class ProgressBinaryCodec {
+
+    // 2 added the node of the sequence
+    public static final int VERSION = 2;
+
+    static final int OPERATION_ID = 1;
+    static final int OPERATION_ID_UUID = 1 << 1;
+    static final int USER_ID = 1 << 2;
+    static final int TYPE = 1 << 3;
+    static final int PERCENTAGE = 1 << 4;
+    static final int STEP = 1 << 5;
+    static final int MESSAGE = 1 << 6;
+    static final int TIMESTAMP = 1 << 7;
+    static final int SEQUENCE = 1 << 8;
+    static final int NODE = 1 << 9;
+
+    private static final ProgressType[] TYPES = ProgressType.values();
+
+    private ProgressBinaryCodec() {
+    }
+
+    // Encodes a ProgressUpdate or a list of them
+    public static byte[] encode(Object payload) {
+        List<?> updates = payload instanceof List<?> list ? list : List.of(payload);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * updates.size());
+        out.write(VERSION);
+        writeVarint(out, updates.size());
+        for (Object update : updates) {
+            writeRecord(out, (ProgressUpdate) update);
+        }
+        return out.toByteArray();
+    }
+
+    public static List<ProgressUpdate> decode(byte[] frame) {
+        ByteBuffer in = ByteBuffer.wrap(frame);
+        int version = in.get() & 0xFF;
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported progress frame version: " + version);
+        }
+        int count = readVarint(in);
+        List<ProgressUpdate> updates = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            updates.add(readRecord(in));
+        }
+        return updates;
+    }
+
+    private static void writeRecord(ByteArrayOutputStream out, ProgressUpdate update) {
+        UUID operationUuid = parseUuid(update.getOperationId());
+        int flags = (update.getOperationId() != null ? OPERATION_ID : 0)
+                | (operationUuid != null ? OPERATION_ID_UUID : 0)
+                | (update.getUserId() != null ? USER_ID : 0)
+                | (update.getType() != null ? TYPE : 0)
+                | (update.getPercentage() != null ? PERCENTAGE : 0)
+                | (update.getStep() != null ? STEP : 0)
+                | (update.getMessage() != null ? MESSAGE : 0)
+                | (update.getTimestamp() != null ? TIMESTAMP : 0)
+                | (update.getSequence() != null ? SEQUENCE : 0)
+                | (update.getNode() != null ? NODE : 0);
+        out.write(flags >>> 8);
+        out.write(flags);
+        if (operationUuid != null) {
+            writeLong(out, operationUuid.getMostSignificantBits());
+            writeLong(out, operationUuid.getLeastSignificantBits());
+        } else if (update.getOperationId() != null) {
+            writeString(out, update.getOperationId());
+        }
+        if (update.getUserId() != null) {
+            writeString(out, update.getUserId());
+        }
+        if (update.getType() != null) {
+            out.write(update.getType().ordinal());
+        }
+        if (update.getPercentage() != null) {
+            int percentage = update.getPercentage();
+            writeVarint(out, (percentage << 1) ^ (percentage >> 31));
+        }
+        if (update.getStep() != null) {
+            writeString(out, update.getStep());
+        }
+        if (update.getMessage() != null) {
+            writeString(out, update.getMessage());
+        }
+        if (update.getTimestamp() != null) {
+            writeLong(out, update.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+        if (update.getSequence() != null) {
+            writeVarlong(out, update.getSequence());
+        }
+        if (update.getNode() != null) {
+            writeString(out, update.getNode());
+        }
+    }
+
+    private static ProgressUpdate readRecord(ByteBuffer in) {
+        int flags = ((in.get() & 0xFF) << 8) | (in.get() & 0xFF);
+        String operationId = null;
+        if ((flags & OPERATION_ID_UUID) != 0) {
+            operationId = new UUID(in.getLong(), in.getLong()).toString();
+        } else if ((flags & OPERATION_ID) != 0) {
+            operationId = readString(in);
+        }
+        String userId = (flags & USER_ID) != 0 ? readString(in) : null;
+        ProgressType type = (flags & TYPE) != 0 ? TYPES[in.get() & 0xFF] : null;
+        Integer percentage = null;
+        if ((flags & PERCENTAGE) != 0) {
+            int zigzag = readVarint(in);
+            percentage = (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+        String step = (flags & STEP) != 0 ? readString(in) : null;
+        String message = (flags & MESSAGE) != 0 ? readString(in) : null;
+        LocalDateTime timestamp = (flags & TIMESTAMP) != 0
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(in.getLong()), ZoneOffset.UTC)
+                : null;
+        Long sequence = (flags & SEQUENCE) != 0 ? readVarlong(in) : null;
+        String node = (flags & NODE) != 0 ? readString(in) : null;
+        return new ProgressUpdate(operationId, userId, type, percentage, step, message, timestamp, sequence, node);
+    }
+
+    // Only the canonical lowercase form, so that decoding gives back the same string
+    private static UUID parseUuid(String value) {
+        if (value == null || value.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(value);
+            return uuid.toString().equals(value) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = readVarint(in);
+        String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.get() & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in progress frame");
+    }
+
+    private static void writeVarlong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarlong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.get() & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in progress frame");
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+}
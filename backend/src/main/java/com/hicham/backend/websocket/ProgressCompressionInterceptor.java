@@ -0,0 +1,184 @@
+package com.hicham.backend.websocket;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.util.MimeTypeUtils;
+
+import com.hicham.backend.config.WebSocketCompressionProperties;
+
+// Deflates the body of frames sent to sessions that put "accept-encoding: deflate" on CONNECT.
+// Frames under the threshold, and frames deflate would not shrink, are sent unchanged. A compressed
+// frame is application/octet-stream with "content-encoding: deflate" and a zlib body, which
+// DecompressionStream("deflate") reads in browsers; its progress-format header still tells what
+// the inflated body is. SockJS only carries text, so SockJS sessions are never compressed.
+// Unlike the container's permessage-deflate, threshold and level are tunable and every frame is measured.
+public class ProgressCompressionInterceptor implements ChannelInterceptor {
+
+    public static final String ACCEPT_ENCODING_HEADER = "accept-encoding";
+    public static final String CONTENT_ENCODING_HEADER = "content-encoding";
+    public static final String DEFLATE = "deflate";
+
+    private final boolean enabled;
+    private final int thresholdBytes;
+    private final ThreadLocal<Deflater> deflaters;
+    private final Set<String> sessions = ConcurrentHashMap.newKeySet();
+    private final Counter compressedCounter;
+    private final Counter belowThresholdCounter;
+    private final Counter incompressibleCounter;
+    private final Counter bytesInCounter;
+    private final Counter bytesOutCounter;
+    private final DistributionSummary ratioSummary;
+    // CPU time rather than elapsed time: a channel thread descheduled mid-deflate would inflate the latter
+    private final Timer compressionCpuTimer;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    // Overloaded constructor for tests
+    public ProgressCompressionInterceptor(WebSocketCompressionProperties properties) {
+        this(properties, new SimpleMeterRegistry());
+    }
+
+    public ProgressCompressionInterceptor(WebSocketCompressionProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.thresholdBytes = properties.getThresholdBytes();
+        int level = Math.max(Deflater.BEST_SPEED, Math.min(Deflater.BEST_COMPRESSION, properties.getLevel()));
+        // Deflaters hold native memory, so each channel thread keeps one
+        this.deflaters = ThreadLocal.withInitial(() -> new Deflater(level));
+        this.compressedCounter = frameCounter(meterRegistry, "compressed");
+        this.belowThresholdCounter = frameCounter(meterRegistry, "below-threshold");
+        this.incompressibleCounter = frameCounter(meterRegistry, "incompressible");
+        this.bytesInCounter = Counter.builder("websocket.compression.bytes")
+                .description("Bodies of frames that went through deflate, before and after")
+                .baseUnit("bytes")
+                .tag("stage", "in")
+                .register(meterRegistry);
+        this.bytesOutCounter = Counter.builder("websocket.compression.bytes")
+                .description("Bodies of frames that went through deflate, before and after")
+                .baseUnit("bytes")
+                .tag("stage", "out")
+                .register(meterRegistry);
+        this.ratioSummary = DistributionSummary.builder("websocket.compression.ratio")
+                .description("Compressed body size over original body size, per compressed frame")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.compressionCpuTimer = Timer.builder("websocket.compression.cpu.time")
+                .description("CPU time of the channel thread deflating each frame over the threshold")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("websocket.compression.sessions", sessions, Set::size)
+                .description("Sessions that accept deflated frames")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        if (!enabled || accessor == null || accessor.getMessageType() == null || accessor.getSessionId() == null) {
+            return message;
+        }
+        switch (accessor.getMessageType()) {
+            case MESSAGE -> {
+                return sessions.contains(accessor.getSessionId()) ? compress(message) : message;
+            }
+            case CONNECT -> {
+                if (acceptsDeflate(accessor.getFirstNativeHeader(ACCEPT_ENCODING_HEADER)) && !isSockJs(accessor)) {
+                    sessions.add(accessor.getSessionId());
+                }
+            }
+            case DISCONNECT -> sessions.remove(accessor.getSessionId());
+            default -> {
+            }
+        }
+        return message;
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    private Message<?> compress(Message<?> message) {
+        if (!(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+        if (payload.length < thresholdBytes) {
+            belowThresholdCounter.increment();
+            return message;
+        }
+        long start = threads.getCurrentThreadCpuTime();
+        byte[] compressed = deflate(payload);
+        long end = threads.getCurrentThreadCpuTime();
+        // -1 on a JVM that cannot measure thread CPU time, or with the measurement turned off
+        if (start >= 0 && end >= 0) {
+            compressionCpuTimer.record(end - start, TimeUnit.NANOSECONDS);
+        }
+        if (compressed == null) {
+            incompressibleCounter.increment();
+            return message;
+        }
+        compressedCounter.increment();
+        bytesInCounter.increment(payload.length);
+        bytesOutCounter.increment(compressed.length);
+        ratioSummary.record((double) compressed.length / payload.length);
+        SimpMessageHeaderAccessor encoded = SimpMessageHeaderAccessor.wrap(message);
+        encoded.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        encoded.setNativeHeader(CONTENT_ENCODING_HEADER, DEFLATE);
+        return MessageBuilder.createMessage(compressed, encoded.getMessageHeaders());
+    }
+
+    // zlib-wrapped deflate of the payload, or null unless it comes out smaller
+    private byte[] deflate(byte[] payload) {
+        Deflater deflater = deflaters.get();
+        deflater.reset();
+        deflater.setInput(payload);
+        deflater.finish();
+        byte[] buffer = new byte[payload.length];
+        int length = 0;
+        while (!deflater.finished() && length < buffer.length) {
+            length += deflater.deflate(buffer, length, buffer.length - length);
+        }
+        return deflater.finished() && length < payload.length ? Arrays.copyOf(buffer, length) : null;
+    }
+
+    private static boolean acceptsDeflate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String encoding : acceptEncoding.split(",")) {
+            if (DEFLATE.equalsIgnoreCase(encoding.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSockJs(SimpMessageHeaderAccessor accessor) {
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        return attributes != null
+                && TransportHandshakeInterceptor.SOCKJS.equals(attributes.get(TransportHandshakeInterceptor.TRANSPORT_ATTRIBUTE));
+    }
+
+    private static Counter frameCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("websocket.compression.frames")
+                .description("Frames for sessions accepting deflate, by what compression did with them")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,152 @@
+package com.hicham.backend.websocket;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+import com.hicham.backend.service.ProgressBatcher;
+
+// Reads encoded STOMP frames to find the ones a slow session may skip
+final class ProgressFrames {
+
+    private static final byte[] MESSAGE_COMMAND = "MESSAGE\n".getBytes(StandardCharsets.US_ASCII);
+    private static final String OPERATION_ID_PREFIX = "{\"operationId\":\"";
+    private static final String INTERMEDIATE_TYPE = "\"type\":\"" + ProgressType.GENERATION_PROGRESS.name() + "\"";
+
+    private ProgressFrames() {
+    }
+
+    // Operation id of a single GENERATION_PROGRESS update, or null for any other frame
+    static String intermediateOperationId(WebSocketMessage<?> message) {
+        byte[] frame;
+        if (message instanceof TextMessage text) {
+            frame = text.asBytes();
+        } else if (message instanceof BinaryMessage binary) {
+            ByteBuffer payload = binary.getPayload().duplicate();
+            frame = new byte[payload.remaining()];
+            payload.get(frame);
+        } else {
+            return null;
+        }
+        if (!startsWith(frame, MESSAGE_COMMAND)) {
+            return null;
+        }
+        int headersEnd = indexOfBlankLine(frame);
+        if (headersEnd < 0) {
+            return null;
+        }
+        String format = ProgressWireFormatInterceptor.JSON;
+        boolean deflated = false;
+        for (String header : new String(frame, 0, headersEnd, StandardCharsets.UTF_8).split("\n")) {
+            if (header.startsWith(ProgressBatcher.BATCH_HEADER + ":")) {
+                return null;
+            }
+            if (header.startsWith(ProgressWireFormatInterceptor.FORMAT_HEADER + ":")) {
+                format = header.substring(ProgressWireFormatInterceptor.FORMAT_HEADER.length() + 1);
+            }
+            if (header.equals(ProgressCompressionInterceptor.CONTENT_ENCODING_HEADER + ":"
+                    + ProgressCompressionInterceptor.DEFLATE)) {
+                deflated = true;
+            }
+        }
+        int bodyStart = headersEnd + 2;
+        int bodyEnd = frame.length > bodyStart && frame[frame.length - 1] == 0 ? frame.length - 1 : frame.length;
+        if (bodyEnd <= bodyStart) {
+            return null;
+        }
+        byte[] body = Arrays.copyOfRange(frame, bodyStart, bodyEnd);
+        if (deflated) {
+            body = inflate(body);
+        }
+        return switch (format) {
+            case ProgressWireFormatInterceptor.BINARY -> binaryOperationId(body);
+            case ProgressWireFormatInterceptor.BINARY_BASE64 -> binaryOperationId(decodeBase64(body));
+            default -> jsonOperationId(new String(body, StandardCharsets.UTF_8));
+        };
+    }
+
+    private static String jsonOperationId(String json) {
+        if (!json.startsWith(OPERATION_ID_PREFIX) || !json.contains(INTERMEDIATE_TYPE)) {
+            return null;
+        }
+        int end = json.indexOf('"', OPERATION_ID_PREFIX.length());
+        if (end < 0 || json.lastIndexOf('\\', end) >= OPERATION_ID_PREFIX.length()) {
+            return null;
+        }
+        return json.substring(OPERATION_ID_PREFIX.length(), end);
+    }
+
+    private static String binaryOperationId(byte[] body) {
+        List<ProgressUpdate> updates;
+        try {
+            updates = ProgressBinaryCodec.decode(body);
+        } catch (RuntimeException e) {
+            return null;
+        }
+        if (updates.size() != 1 || updates.get(0).getType() != ProgressType.GENERATION_PROGRESS) {
+            return null;
+        }
+        return updates.get(0).getOperationId();
+    }
+
+    private static byte[] inflate(byte[] body) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(body);
+            ByteArrayOutputStream inflated = new ByteArrayOutputStream(body.length * 4);
+            byte[] buffer = new byte[1024];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    return new byte[0];
+                }
+                inflated.write(buffer, 0, length);
+            }
+            return inflated.toByteArray();
+        } catch (DataFormatException e) {
+            return new byte[0];
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] decodeBase64(byte[] body) {
+        try {
+            return Base64.getDecoder().decode(body);
+        } catch (IllegalArgumentException e) {
+            return new byte[0];
+        }
+    }
+
+    private static boolean startsWith(byte[] frame, byte[] prefix) {
+        if (frame.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (frame[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOfBlankLine(byte[] frame) {
+        for (int i = 0; i + 1 < frame.length; i++) {
+            if (frame[i] == '\n' && frame[i + 1] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,29 @@
+package com.hicham.backend.websocket;
+
+// The ProgressUpdate (or batch) a message was converted from, carried as a non-native header
+// so that outbound frames can be re-encoded per session. The binary form is built once
+// and shared by every subscriber that asked for it.
+public final class ProgressPayload {
+
+    public static final String HEADER = "progressPayload";
+
+    private final Object payload;
+    private volatile byte[] binary;
+
+    public ProgressPayload(Object payload) {
+        this.payload = payload;
+    }
+
+    public Object getPayload() {
+        return payload;
+    }
+
+    public byte[] binary() {
+        byte[] encoded = binary;
+        if (encoded == null) {
+            encoded = ProgressBinaryCodec.encode(payload);
+            binary = encoded;
+        }
+        return encoded;
+    }
+}
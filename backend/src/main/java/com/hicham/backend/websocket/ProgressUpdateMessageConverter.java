@@ -0,0 +1,341 @@
+package com.hicham.backend.websocket;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.messaging.converter.DefaultContentTypeResolver;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.util.MimeTypeUtils;
+
+// Writes ProgressUpdate (and batches of them) as JSON without reflection.
+// Field names and enum values are pre-encoded and each thread reuses its own buffer.
+// The output is byte for byte what Spring Boot's Jackson converter produces, so clients see no difference.
+// Inbound messages are left to the Jackson converter.
+public class ProgressUpdateMessageConverter extends AbstractMessageConverter {
+
+    private static final byte[] OPERATION_ID = ascii("{\"operationId\":");
+    private static final byte[] USER_ID = ascii(",\"userId\":");
+    private static final byte[] TYPE = ascii(",\"type\":");
+    private static final byte[] PERCENTAGE = ascii(",\"percentage\":");
+    private static final byte[] STEP = ascii(",\"step\":");
+    private static final byte[] MESSAGE = ascii(",\"message\":");
+    private static final byte[] TIMESTAMP = ascii(",\"timestamp\":");
+    private static final byte[] SEQUENCE = ascii(",\"sequence\":");
+    private static final byte[] NODE = ascii(",\"node\":");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[][] TYPE_VALUES = new byte[ProgressType.values().length][];
+    private static final byte[] HEX = ascii("0123456789ABCDEF");
+
+    // Upper bound of a serialized update, excluding its strings
+    private static final int FIXED_SIZE = 224;
+    // Buffers that grew past this size are not kept for the next message
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    private static final ThreadLocal<JsonBuffer> BUFFERS = ThreadLocal.withInitial(JsonBuffer::new);
+
+    static {
+        for (ProgressType type : ProgressType.values()) {
+            TYPE_VALUES[type.ordinal()] = ascii("\"" + type.name() + "\"");
+        }
+    }
+
+    @Nullable
+    private final Timer serializationTimer;
+
+    public ProgressUpdateMessageConverter() {
+        this(null);
+    }
+
+    // Records the time spent writing each outbound payload, when a timer is given
+    public ProgressUpdateMessageConverter(@Nullable Timer serializationTimer) {
+        super(MimeTypeUtils.APPLICATION_JSON);
+        this.serializationTimer = serializationTimer;
+        DefaultContentTypeResolver resolver = new DefaultContentTypeResolver();
+        resolver.setDefaultMimeType(MimeTypeUtils.APPLICATION_JSON);
+        setContentTypeResolver(resolver);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ProgressUpdate.class == clazz;
+    }
+
+    @Override
+    protected boolean canConvertFrom(Message<?> message, @Nullable Class<?> targetClass) {
+        return false;
+    }
+
+    @Override
+    protected boolean canConvertTo(Object payload, @Nullable MessageHeaders headers) {
+        return isProgressPayload(payload) && supportsMimeType(headers);
+    }
+
+    @Override
+    @Nullable
+    protected Object convertToInternal(Object payload, @Nullable MessageHeaders headers, @Nullable Object conversionHint) {
+        // Keep the source object so that outbound frames can be re-encoded for binary clients
+        MessageHeaderAccessor accessor = headers != null
+                ? MessageHeaderAccessor.getAccessor(headers, MessageHeaderAccessor.class)
+                : null;
+        if (accessor != null && accessor.isMutable()) {
+            accessor.setHeader(ProgressPayload.HEADER, new ProgressPayload(payload));
+        }
+        if (serializationTimer == null) {
+            return toJson(payload);
+        }
+        long start = System.nanoTime();
+        byte[] json = toJson(payload);
+        serializationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return json;
+    }
+
+    public byte[] toJson(Object payload) {
+        JsonBuffer buffer = BUFFERS.get();
+        buffer.reset();
+        if (payload instanceof ProgressUpdate update) {
+            buffer.ensureCapacity(estimateSize(update));
+            writeUpdate(buffer, update);
+        } else {
+            List<?> updates = (List<?>) payload;
+            buffer.write('[');
+            for (int i = 0; i < updates.size(); i++) {
+                ProgressUpdate update = (ProgressUpdate) updates.get(i);
+                buffer.ensureCapacity(estimateSize(update) + 2);
+                if (i > 0) {
+                    buffer.write(',');
+                }
+                writeUpdate(buffer, update);
+            }
+            buffer.ensureCapacity(1);
+            buffer.write(']');
+        }
+        byte[] json = buffer.toByteArray();
+        if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFERS.remove();
+        }
+        return json;
+    }
+
+    static boolean isProgressPayload(Object payload) {
+        if (payload instanceof ProgressUpdate) {
+            return true;
+        }
+        if (payload instanceof List<?> list && !list.isEmpty()) {
+            for (Object element : list) {
+                if (!(element instanceof ProgressUpdate)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static void writeUpdate(JsonBuffer buffer, ProgressUpdate update) {
+        buffer.write(OPERATION_ID);
+        writeString(buffer, update.getOperationId());
+        buffer.write(USER_ID);
+        writeString(buffer, update.getUserId());
+        buffer.write(TYPE);
+        buffer.write(update.getType() != null ? TYPE_VALUES[update.getType().ordinal()] : NULL);
+        buffer.write(PERCENTAGE);
+        if (update.getPercentage() != null) {
+            writeInt(buffer, update.getPercentage());
+        } else {
+            buffer.write(NULL);
+        }
+        buffer.write(STEP);
+        writeString(buffer, update.getStep());
+        buffer.write(MESSAGE);
+        writeString(buffer, update.getMessage());
+        buffer.write(TIMESTAMP);
+        writeTimestamp(buffer, update.getTimestamp());
+        buffer.write(SEQUENCE);
+        buffer.write(update.getSequence() != null ? ascii(Long.toString(update.getSequence())) : NULL);
+        buffer.write(NODE);
+        writeString(buffer, update.getNode());
+        buffer.write('}');
+    }
+
+    // Worst case: every char escaped as \\u00XX
+    private static int estimateSize(ProgressUpdate update) {
+        return FIXED_SIZE + 6 * (length(update.getOperationId()) + length(update.getUserId())
+                + length(update.getStep()) + length(update.getMessage()) + length(update.getNode()));
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    // Same escaping as Jackson: quote, backslash, control characters and surrogates, everything else as UTF-8
+    private static void writeString(JsonBuffer buffer, String value) {
+        if (value == null) {
+            buffer.write(NULL);
+            return;
+        }
+        buffer.write('"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c >= 0x20 && c != '"' && c != '\\') {
+                    buffer.write(c);
+                } else {
+                    writeEscaped(buffer, c);
+                }
+            } else if (c < 0x800) {
+                buffer.write(0xC0 | (c >> 6));
+                buffer.write(0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Jackson's UTF-8 generator escapes each surrogate char on its own
+                writeUnicodeEscape(buffer, c);
+            } else {
+                buffer.write(0xE0 | (c >> 12));
+                buffer.write(0x80 | ((c >> 6) & 0x3F));
+                buffer.write(0x80 | (c & 0x3F));
+            }
+        }
+        buffer.write('"');
+    }
+
+    private static void writeEscaped(JsonBuffer buffer, char c) {
+        char shortEscape = switch (c) {
+            case '"' -> '"';
+            case '\\' -> '\\';
+            case '\b' -> 'b';
+            case '\t' -> 't';
+            case '\n' -> 'n';
+            case '\f' -> 'f';
+            case '\r' -> 'r';
+            default -> 0;
+        };
+        if (shortEscape != 0) {
+            buffer.write('\\');
+            buffer.write(shortEscape);
+        } else {
+            writeUnicodeEscape(buffer, c);
+        }
+    }
+
+    private static void writeUnicodeEscape(JsonBuffer buffer, char c) {
+        buffer.write('\\');
+        buffer.write('u');
+        buffer.write(HEX[c >> 12]);
+        buffer.write(HEX[(c >> 8) & 0xF]);
+        buffer.write(HEX[(c >> 4) & 0xF]);
+        buffer.write(HEX[c & 0xF]);
+    }
+
+    private static void writeInt(JsonBuffer buffer, int value) {
+        if (value < 0) {
+            if (value == Integer.MIN_VALUE) {
+                buffer.write(ascii(Integer.toString(value)));
+                return;
+            }
+            buffer.write('-');
+            value = -value;
+        }
+        if (value >= 10) {
+            writeInt(buffer, value / 10);
+        }
+        buffer.write('0' + value % 10);
+    }
+
+    // ISO-8601 local date-time, as DateTimeFormatter.ISO_LOCAL_DATE_TIME prints it
+    private static void writeTimestamp(JsonBuffer buffer, LocalDateTime timestamp) {
+        if (timestamp == null) {
+            buffer.write(NULL);
+            return;
+        }
+        int year = timestamp.getYear();
+        buffer.write('"');
+        if (year < 0 || year > 9999) {
+            buffer.write(ascii(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(timestamp)));
+        } else {
+            writeDigits(buffer, year, 4);
+            buffer.write('-');
+            writeDigits(buffer, timestamp.getMonthValue(), 2);
+            buffer.write('-');
+            writeDigits(buffer, timestamp.getDayOfMonth(), 2);
+            buffer.write('T');
+            writeDigits(buffer, timestamp.getHour(), 2);
+            buffer.write(':');
+            writeDigits(buffer, timestamp.getMinute(), 2);
+            buffer.write(':');
+            writeDigits(buffer, timestamp.getSecond(), 2);
+            int nano = timestamp.getNano();
+            if (nano > 0) {
+                int digits = 9;
+                while (nano % 10 == 0) {
+                    nano /= 10;
+                    digits--;
+                }
+                buffer.write('.');
+                writeDigits(buffer, nano, digits);
+            }
+        }
+        buffer.write('"');
+    }
+
+    private static void writeDigits(JsonBuffer buffer, int value, int width) {
+        for (int divisor = pow10(width - 1); divisor > 0; divisor /= 10) {
+            buffer.write('0' + (value / divisor) % 10);
+        }
+    }
+
+    private static int pow10(int exponent) {
+        int result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // Growable byte buffer, reset and reused for each message of a thread
+    private static final class JsonBuffer {
+        private byte[] bytes = new byte[512];
+        private int size;
+
+        void reset() {
+            size = 0;
+        }
+
+        int capacity() {
+            return bytes.length;
+        }
+
+        void ensureCapacity(int additional) {
+            if (size + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+            }
+        }
+
+        void write(int b) {
+            bytes[size++] = (byte) b;
+        }
+
+        void write(byte[] chunk) {
+            System.arraycopy(chunk, 0, bytes, size, chunk.length);
+            size += chunk.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+}
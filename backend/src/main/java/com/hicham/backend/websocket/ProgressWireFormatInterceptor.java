@@ -0,0 +1,114 @@
+package com.hicham.backend.websocket;
+
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.util.MimeTypeUtils;
+
+// Lets a client receive progress frames in the compact binary encoding instead of JSON.
+// A "progress-format: binary" header on CONNECT applies to every subscription of the session,
+// on SUBSCRIBE to that subscription only ("progress-format: json" opts a subscription back out).
+// Binary frames are sent as application/octet-stream. SockJS only carries text, so SockJS sessions
+// get the same bytes Base64-encoded as text/plain, marked "progress-format: binary-base64".
+public class ProgressWireFormatInterceptor implements ChannelInterceptor {
+
+    public static final String FORMAT_HEADER = "progress-format";
+    public static final String JSON = "json";
+    public static final String BINARY = "binary";
+    public static final String BINARY_BASE64 = "binary-base64";
+
+    // Only sessions that asked for binary at least once are tracked
+    private final Map<String, SessionFormat> sessions = new ConcurrentHashMap<>();
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        if (accessor == null || accessor.getMessageType() == null || accessor.getSessionId() == null) {
+            return message;
+        }
+        SimpMessageType messageType = accessor.getMessageType();
+        if (messageType == SimpMessageType.MESSAGE) {
+            return encodeForSession(message, accessor);
+        }
+        String sessionId = accessor.getSessionId();
+        String requested = accessor.getFirstNativeHeader(FORMAT_HEADER);
+        switch (messageType) {
+            case CONNECT -> {
+                if (BINARY.equals(requested)) {
+                    sessions.computeIfAbsent(sessionId, id -> new SessionFormat(isSockJs(accessor))).binaryByDefault = true;
+                }
+            }
+            case SUBSCRIBE -> {
+                if (requested != null && accessor.getSubscriptionId() != null) {
+                    SessionFormat session = BINARY.equals(requested)
+                            ? sessions.computeIfAbsent(sessionId, id -> new SessionFormat(isSockJs(accessor)))
+                            : sessions.get(sessionId);
+                    if (session != null) {
+                        session.subscriptions.put(accessor.getSubscriptionId(), BINARY.equals(requested));
+                    }
+                }
+            }
+            case UNSUBSCRIBE -> {
+                SessionFormat session = sessions.get(sessionId);
+                if (session != null && accessor.getSubscriptionId() != null) {
+                    session.subscriptions.remove(accessor.getSubscriptionId());
+                }
+            }
+            case DISCONNECT -> sessions.remove(sessionId);
+            default -> {
+            }
+        }
+        return message;
+    }
+
+    public int getBinarySessionCount() {
+        return sessions.size();
+    }
+
+    private Message<?> encodeForSession(Message<?> message, SimpMessageHeaderAccessor accessor) {
+        SessionFormat session = sessions.get(accessor.getSessionId());
+        if (session == null || !session.isBinary(accessor.getSubscriptionId())
+                || !(message.getHeaders().get(ProgressPayload.HEADER) instanceof ProgressPayload progressPayload)) {
+            return message;
+        }
+        SimpMessageHeaderAccessor encoded = SimpMessageHeaderAccessor.wrap(message);
+        byte[] payload = progressPayload.binary();
+        if (session.sockJs) {
+            payload = Base64.getEncoder().encode(payload);
+            encoded.setContentType(MimeTypeUtils.TEXT_PLAIN);
+            encoded.setNativeHeader(FORMAT_HEADER, BINARY_BASE64);
+        } else {
+            encoded.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+            encoded.setNativeHeader(FORMAT_HEADER, BINARY);
+        }
+        return MessageBuilder.createMessage(payload, encoded.getMessageHeaders());
+    }
+
+    private static boolean isSockJs(SimpMessageHeaderAccessor accessor) {
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        return attributes != null
+                && TransportHandshakeInterceptor.SOCKJS.equals(attributes.get(TransportHandshakeInterceptor.TRANSPORT_ATTRIBUTE));
+    }
+
+    private static final class SessionFormat {
+        private final boolean sockJs;
+        private volatile boolean binaryByDefault;
+        private final Map<String, Boolean> subscriptions = new ConcurrentHashMap<>();
+
+        private SessionFormat(boolean sockJs) {
+            this.sockJs = sockJs;
+        }
+
+        private boolean isBinary(String subscriptionId) {
+            return subscriptionId != null ? subscriptions.getOrDefault(subscriptionId, binaryByDefault) : binaryByDefault;
+        }
+    }
+}
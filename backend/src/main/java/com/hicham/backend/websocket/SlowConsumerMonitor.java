@@ -0,0 +1,50 @@
+package com.hicham.backend.websocket;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.hicham.backend.model.SessionSendStats;
+import com.hicham.backend.model.SlowConsumerStats;
+
+// Tracks open slow-consumer sessions and counts dropped frames and forced disconnects
+public class SlowConsumerMonitor {
+    private final Map<String, SlowConsumerSessionDecorator> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong disconnectedCount = new AtomicLong();
+
+    public void register(SlowConsumerSessionDecorator session) {
+        sessions.put(session.getId(), session);
+    }
+
+    public void unregister(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    public void recordDropped(int count) {
+        droppedCount.addAndGet(count);
+    }
+
+    public void recordDisconnect() {
+        disconnectedCount.incrementAndGet();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getDisconnectedCount() {
+        return disconnectedCount.get();
+    }
+
+    // Sessions ordered by buffered bytes, the slowest first
+    public SlowConsumerStats snapshot() {
+        List<SessionSendStats> stats = sessions.values().stream()
+                .map(SlowConsumerSessionDecorator::stats)
+                .sorted(Comparator.comparingInt(SessionSendStats::getBufferSize).reversed())
+                .toList();
+        return new SlowConsumerStats(getDroppedCount(), getDisconnectedCount(), stats);
+    }
+}
@@ -0,0 +1,223 @@
+package com.hicham.backend.websocket;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import com.hicham.backend.model.SessionSendStats;
+
+// Serializes sends like Spring's ConcurrentWebSocketSessionDecorator, but a session over its
+// limits first loses queued GENERATION_PROGRESS frames that a newer frame of the same
+// operation supersedes. Everything else, including COMPLETED and ERROR, is kept.
+// The session is closed only when dropping cannot bring it back under the limits.
+// Extends the Spring decorator only because the STOMP handler requires one to preserve publish
+// order; none of its buffering is used.
+public class SlowConsumerSessionDecorator extends ConcurrentWebSocketSessionDecorator {
+    private final int sendTimeLimit;
+    private final int bufferSizeLimit;
+    private final int disconnectTimeLimit;
+    private final SlowConsumerMonitor monitor;
+
+    // Guarded by itself
+    private final Deque<Pending> buffer = new ArrayDeque<>();
+    private final AtomicInteger bufferSize = new AtomicInteger();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile long sendStartTime;
+    private volatile boolean limitExceeded;
+    private volatile boolean closeInProgress;
+    private final Lock flushLock = new ReentrantLock();
+    private final Lock closeLock = new ReentrantLock();
+    // Releases the session's next outbound message once this one is queued
+    private volatile Consumer<WebSocketMessage<?>> messageCallback;
+
+    public SlowConsumerSessionDecorator(WebSocketSession delegate, int sendTimeLimit, int bufferSizeLimit,
+            int disconnectTimeLimit, SlowConsumerMonitor monitor) {
+        super(delegate, sendTimeLimit, bufferSizeLimit);
+        this.sendTimeLimit = sendTimeLimit;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.disconnectTimeLimit = disconnectTimeLimit;
+        this.monitor = monitor;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (shouldNotSend()) {
+            return;
+        }
+        synchronized (buffer) {
+            buffer.add(new Pending(message));
+        }
+        bufferSize.addAndGet(message.getPayloadLength());
+        Consumer<WebSocketMessage<?>> callback = messageCallback;
+        if (callback != null) {
+            callback.accept(message);
+        }
+
+        do {
+            if (!tryFlushMessageBuffer()) {
+                checkSessionLimits();
+                break;
+            }
+        } while (!isBufferEmpty() && !shouldNotSend());
+    }
+
+    @Override
+    public void setMessageCallback(Consumer<WebSocketMessage<?>> callback) {
+        this.messageCallback = callback;
+    }
+
+    @Override
+    public int getBufferSize() {
+        return bufferSize.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    @Override
+    public long getTimeSinceSendStarted() {
+        long start = sendStartTime;
+        return start > 0 ? System.currentTimeMillis() - start : 0;
+    }
+
+    public SessionSendStats stats() {
+        int buffered;
+        synchronized (buffer) {
+            buffered = buffer.size();
+        }
+        return new SessionSendStats(getId(), buffered, getBufferSize(), getTimeSinceSendStarted(), getDroppedCount());
+    }
+
+    @Override
+    public void close(CloseStatus status) throws IOException {
+        closeLock.lock();
+        try {
+            if (closeInProgress) {
+                return;
+            }
+            closeInProgress = true;
+            getDelegate().close(limitExceeded ? CloseStatus.SESSION_NOT_RELIABLE : status);
+        } finally {
+            closeLock.unlock();
+        }
+    }
+
+    private boolean shouldNotSend() {
+        return limitExceeded || closeInProgress;
+    }
+
+    private boolean isBufferEmpty() {
+        synchronized (buffer) {
+            return buffer.isEmpty();
+        }
+    }
+
+    private boolean tryFlushMessageBuffer() throws IOException {
+        if (!flushLock.tryLock()) {
+            return false;
+        }
+        try {
+            while (!shouldNotSend()) {
+                Pending next;
+                synchronized (buffer) {
+                    next = buffer.poll();
+                }
+                if (next == null) {
+                    break;
+                }
+                bufferSize.addAndGet(-next.message.getPayloadLength());
+                sendStartTime = System.currentTimeMillis();
+                getDelegate().sendMessage(next.message);
+                sendStartTime = 0;
+            }
+        } finally {
+            sendStartTime = 0;
+            flushLock.unlock();
+        }
+        return true;
+    }
+
+    private void checkSessionLimits() {
+        if (shouldNotSend() || !closeLock.tryLock()) {
+            return;
+        }
+        try {
+            long sendTime = getTimeSinceSendStarted();
+            if (sendTime > disconnectTimeLimit) {
+                limitExceeded("Send time " + sendTime + " (ms) for session '" + getId()
+                        + "' exceeded the allowed limit " + disconnectTimeLimit);
+            }
+            if (sendTime > sendTimeLimit || getBufferSize() > bufferSizeLimit) {
+                dropSupersededProgress();
+                if (getBufferSize() > bufferSizeLimit) {
+                    limitExceeded("Buffer size " + getBufferSize() + " bytes for session '" + getId()
+                            + "' exceeds the allowed limit " + bufferSizeLimit + " after dropping progress");
+                }
+            }
+        } finally {
+            closeLock.unlock();
+        }
+    }
+
+    // Walks the queue from the newest frame and removes older GENERATION_PROGRESS frames
+    // of operations that already have a newer one queued
+    private void dropSupersededProgress() {
+        int dropped = 0;
+        synchronized (buffer) {
+            Set<String> newest = new HashSet<>();
+            for (Iterator<Pending> it = buffer.descendingIterator(); it.hasNext();) {
+                Pending pending = it.next();
+                String operationId = pending.intermediateOperationId();
+                if (operationId != null && !newest.add(operationId)) {
+                    it.remove();
+                    bufferSize.addAndGet(-pending.message.getPayloadLength());
+                    dropped++;
+                }
+            }
+        }
+        if (dropped > 0) {
+            droppedCount.addAndGet(dropped);
+            monitor.recordDropped(dropped);
+        }
+    }
+
+    private void limitExceeded(String reason) {
+        limitExceeded = true;
+        monitor.recordDisconnect();
+        throw new SessionLimitExceededException(reason, CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    // A queued frame, classified on first inspection only
+    private static final class Pending {
+        private final WebSocketMessage<?> message;
+        private boolean classified;
+        private String operationId;
+
+        private Pending(WebSocketMessage<?> message) {
+            this.message = message;
+        }
+
+        private String intermediateOperationId() {
+            if (!classified) {
+                operationId = ProgressFrames.intermediateOperationId(message);
+                classified = true;
+            }
+            return operationId;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.hicham.backend.websocket;
+
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import com.hicham.backend.config.SlowConsumerProperties;
+
+// Wraps each session in a SlowConsumerSessionDecorator instead of Spring's default decorator,
+// around a TransportMetricsSessionDecorator that measures what reaches the transport
+public class SlowConsumerWebSocketHandler extends SubProtocolWebSocketHandler {
+    private final SlowConsumerProperties properties;
+    private final SlowConsumerMonitor monitor;
+    private final TransportMonitor transportMonitor;
+
+    public SlowConsumerWebSocketHandler(MessageChannel clientInboundChannel, SubscribableChannel clientOutboundChannel,
+            SlowConsumerProperties properties, SlowConsumerMonitor monitor, TransportMonitor transportMonitor) {
+        super(clientInboundChannel, clientOutboundChannel);
+        this.properties = properties;
+        this.monitor = monitor;
+        this.transportMonitor = transportMonitor;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        transportMonitor.sessionOpened(transportOf(session));
+        super.afterConnectionEstablished(session);
+    }
+
+    @Override
+    protected WebSocketSession decorateSession(WebSocketSession session) {
+        session = new TransportMetricsSessionDecorator(session, transportMonitor);
+        if (!properties.isEnabled()) {
+            return super.decorateSession(session);
+        }
+        SlowConsumerSessionDecorator decorated = new SlowConsumerSessionDecorator(session,
+                getSendTimeLimit(), getSendBufferSizeLimit(), properties.getDisconnectTimeLimitMillis(), monitor);
+        monitor.register(decorated);
+        return decorated;
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        monitor.unregister(session.getId());
+        transportMonitor.sessionClosed(transportOf(session));
+        super.afterConnectionClosed(session, closeStatus);
+    }
+
+    static String transportOf(WebSocketSession session) {
+        return session instanceof SockJsSession ? TransportHandshakeInterceptor.SOCKJS : TransportHandshakeInterceptor.NATIVE;
+    }
+}
@@ -0,0 +1,34 @@
+package com.hicham.backend.websocket;
+
+import java.util.Map;
+
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+// Records which kind of endpoint a session came through in its attributes
+public class TransportHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String TRANSPORT_ATTRIBUTE = "transport";
+    public static final String SOCKJS = "sockjs";
+    public static final String NATIVE = "native";
+
+    private final String transport;
+
+    public TransportHandshakeInterceptor(String transport) {
+        this.transport = transport;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        attributes.put(TRANSPORT_ATTRIBUTE, transport);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+}
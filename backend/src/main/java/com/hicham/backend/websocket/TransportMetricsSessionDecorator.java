@@ -0,0 +1,32 @@
+package com.hicham.backend.websocket;
+
+import java.io.IOException;
+
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+// Innermost decorator of a session: records the size of each frame and how long the transport
+// took to accept it. The transport is told by the session itself, so the raw WebSocket
+// path of the SockJS endpoint counts as native, since it has no SockJS framing either.
+public class TransportMetricsSessionDecorator extends WebSocketSessionDecorator {
+    private final TransportMonitor monitor;
+    private final String transport;
+
+    public TransportMetricsSessionDecorator(WebSocketSession delegate, TransportMonitor monitor) {
+        super(delegate);
+        this.monitor = monitor;
+        this.transport = SlowConsumerWebSocketHandler.transportOf(delegate);
+    }
+
+    public String getTransport() {
+        return transport;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        long start = System.nanoTime();
+        getDelegate().sendMessage(message);
+        monitor.recordSend(transport, message.getPayloadLength(), System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,87 @@
+package com.hicham.backend.websocket;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.hicham.backend.model.TransportStats;
+
+// Counts frames sent to clients per transport, so SockJS and native WebSocket can be compared
+// by bytes and send time per message. SockJS wire bytes come from MeteredSockJsMessageCodec,
+// which sees the a[...] frames; a native frame goes on the wire as it is.
+public class TransportMonitor {
+    private final Map<String, Counters> transports = Map.of(
+            TransportHandshakeInterceptor.SOCKJS, new Counters(),
+            TransportHandshakeInterceptor.NATIVE, new Counters());
+
+    public void sessionOpened(String transport) {
+        transports.get(transport).openSessions.incrementAndGet();
+    }
+
+    public void sessionClosed(String transport) {
+        transports.get(transport).openSessions.decrementAndGet();
+    }
+
+    public void recordSend(String transport, int payloadBytes, long sendNanos) {
+        Counters counters = transports.get(transport);
+        counters.messages.increment();
+        counters.payloadBytes.add(payloadBytes);
+        counters.sendNanos.add(sendNanos);
+        if (TransportHandshakeInterceptor.NATIVE.equals(transport)) {
+            counters.wireBytes.add(payloadBytes + frameHeaderBytes(payloadBytes));
+        }
+    }
+
+    // One encoded SockJS frame, possibly carrying several messages
+    public void recordSockJsFrame(int frameBytes) {
+        transports.get(TransportHandshakeInterceptor.SOCKJS).wireBytes.add(frameBytes + frameHeaderBytes(frameBytes));
+    }
+
+    public int getOpenSessions(String transport) {
+        return transports.get(transport).openSessions.get();
+    }
+
+    public long getMessageCount(String transport) {
+        return transports.get(transport).messages.sum();
+    }
+
+    public long getPayloadBytes(String transport) {
+        return transports.get(transport).payloadBytes.sum();
+    }
+
+    public long getWireBytes(String transport) {
+        return transports.get(transport).wireBytes.sum();
+    }
+
+    public double getSendSeconds(String transport) {
+        return transports.get(transport).sendNanos.sum() / 1e9;
+    }
+
+    public List<TransportStats> snapshot() {
+        return List.of(stats(TransportHandshakeInterceptor.NATIVE), stats(TransportHandshakeInterceptor.SOCKJS));
+    }
+
+    private TransportStats stats(String transport) {
+        Counters counters = transports.get(transport);
+        long messages = counters.messages.sum();
+        long wireBytes = counters.wireBytes.sum();
+        return new TransportStats(transport, counters.openSessions.get(), messages, counters.payloadBytes.sum(),
+                wireBytes, messages > 0 ? (double) wireBytes / messages : 0,
+                messages > 0 ? counters.sendNanos.sum() / (double) TimeUnit.MICROSECONDS.toNanos(1) / messages : 0);
+    }
+
+    // Server frames are unmasked: 2 bytes, plus 2 or 8 for the extended payload length
+    static int frameHeaderBytes(int payloadBytes) {
+        return payloadBytes < 126 ? 2 : payloadBytes <= 0xFFFF ? 4 : 10;
+    }
+
+    private static final class Counters {
+        private final AtomicInteger openSessions = new AtomicInteger();
+        private final LongAdder messages = new LongAdder();
+        private final LongAdder payloadBytes = new LongAdder();
+        private final LongAdder wireBytes = new LongAdder();
+        private final LongAdder sendNanos = new LongAdder();
+    }
+}
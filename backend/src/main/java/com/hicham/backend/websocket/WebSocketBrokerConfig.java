@@ -0,0 +1,70 @@
+package com.hicham.backend.websocket;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+import org.springframework.web.socket.config.annotation.DelegatingWebSocketMessageBrokerConfiguration;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import com.hicham.backend.config.SlowConsumerProperties;
+
+// Takes the place of @EnableWebSocketMessageBroker so that sessions get the slow-consumer
+// policy. Broker, endpoints and channels are still configured by WebSocketConfig.
+@Configuration
+public class WebSocketBrokerConfig extends DelegatingWebSocketMessageBrokerConfiguration {
+    private final SlowConsumerProperties slowConsumerProperties;
+
+    @Autowired
+    public WebSocketBrokerConfig(SlowConsumerProperties slowConsumerProperties) {
+        this.slowConsumerProperties = slowConsumerProperties;
+    }
+
+    @Bean
+    public SlowConsumerMonitor slowConsumerMonitor() {
+        return new SlowConsumerMonitor();
+    }
+
+    @Bean
+    public TransportMonitor transportMonitor() {
+        return new TransportMonitor();
+    }
+
+    @Bean
+    @Override
+    public WebSocketHandler subProtocolWebSocketHandler(AbstractSubscribableChannel clientInboundChannel,
+            AbstractSubscribableChannel clientOutboundChannel) {
+        return new SlowConsumerWebSocketHandler(clientInboundChannel, clientOutboundChannel,
+                slowConsumerProperties, slowConsumerMonitor(), transportMonitor());
+    }
+
+    @Bean
+    public WebSocketMetrics webSocketMetrics(@Qualifier("clientInboundChannelExecutor") Executor clientInboundChannelExecutor,
+            @Qualifier("clientOutboundChannelExecutor") Executor clientOutboundChannelExecutor,
+            @Qualifier("brokerChannelExecutor") Executor brokerChannelExecutor,
+            @Qualifier("subProtocolWebSocketHandler") WebSocketHandler subProtocolWebSocketHandler,
+            AbstractBrokerMessageHandler simpleBrokerMessageHandler) {
+        Map<String, Executor> channelExecutors = Map.of(
+                "inbound", clientInboundChannelExecutor,
+                "outbound", clientOutboundChannelExecutor,
+                "broker", brokerChannelExecutor);
+        return new WebSocketMetrics(channelExecutors, (SubProtocolWebSocketHandler) subProtocolWebSocketHandler,
+                ((SimpleBrokerMessageHandler) simpleBrokerMessageHandler).getSubscriptionRegistry(),
+                slowConsumerMonitor(), transportMonitor());
+    }
+
+    @Override
+    protected void configureWebSocketTransport(WebSocketTransportRegistration registry) {
+        registry.setSendTimeLimit(slowConsumerProperties.getSendTimeLimitMillis())
+                .setSendBufferSizeLimit(slowConsumerProperties.getBufferSizeLimitBytes());
+        super.configureWebSocketTransport(registry);
+    }
+}
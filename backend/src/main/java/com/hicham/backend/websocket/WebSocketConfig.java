@@ -1,15 +1,56 @@
 package com.hicham.backend.websocket;
 
+import java.util.List;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.broker.SubscriptionRegistry;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
-import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.web.socket.config.annotation.SockJsServiceRegistration;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.StompWebSocketEndpointRegistration;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import com.hicham.backend.config.WebSocketCompressionProperties;
 
-// Configures WebSocket with STOMP protocol
+// Configures WebSocket with STOMP protocol (enabled by WebSocketBrokerConfig)
 @Configuration
-@EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+    private final Timer serializationTimer;
+    // Lazy: the monitor is a bean of WebSocketBrokerConfig, which needs this configurer
+    private final ObjectProvider<TransportMonitor> transportMonitor;
+    private final WebSocketCompressionProperties compressionProperties;
+    private final MeterRegistry meterRegistry;
+
+    // Overloaded constructor for tests, without serialization, transport and compression metrics
+    public WebSocketConfig() {
+        this.serializationTimer = null;
+        this.transportMonitor = null;
+        this.compressionProperties = new WebSocketCompressionProperties();
+        this.meterRegistry = null;
+    }
+
+    @Autowired
+    public WebSocketConfig(MeterRegistry meterRegistry, ObjectProvider<TransportMonitor> transportMonitor,
+                           WebSocketCompressionProperties compressionProperties) {
+        this.serializationTimer = Timer.builder("progress.serialization")
+            .description("Time to write progress updates as JSON for the broker")
+            .tag("format", "json")
+            .register(meterRegistry);
+        this.transportMonitor = transportMonitor;
+        this.compressionProperties = compressionProperties;
+        this.meterRegistry = meterRegistry;
+    }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
@@ -19,12 +60,82 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         config.setApplicationDestinationPrefixes("/app");
         // Set prefix for user-specific messages
         config.setUserDestinationPrefix("/user");
+        // Frames of one session leave in the order they were published, even though the outbound
+        // channel has several threads: a terminal update never overtakes the progress before it
+        config.setPreservePublishOrder(true);
     }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
-        registry.addEndpoint("/ws")
+        StompWebSocketEndpointRegistration sockJsEndpoint = registry.addEndpoint("/ws")
             .setAllowedOriginPatterns("http://localhost:5173")
-            .withSockJS();
+            .addInterceptors(new TransportHandshakeInterceptor(TransportHandshakeInterceptor.SOCKJS));
+        // Plain STOMP over WebSocket, same broker, without SockJS framing or fallbacks
+        StompWebSocketEndpointRegistration nativeEndpoint = registry.addEndpoint("/ws-native")
+            .setAllowedOriginPatterns("http://localhost:5173")
+            .addInterceptors(new TransportHandshakeInterceptor(TransportHandshakeInterceptor.NATIVE));
+        if (!compressionProperties.isPermessageDeflate()) {
+            // Also covers the WebSocket transport of SockJS
+            DefaultHandshakeHandler handshakeHandler =
+                new DefaultHandshakeHandler(new PerMessageDeflateFilteringUpgradeStrategy());
+            sockJsEndpoint.setHandshakeHandler(handshakeHandler);
+            nativeEndpoint.setHandshakeHandler(handshakeHandler);
+        }
+        SockJsServiceRegistration sockJs = sockJsEndpoint.withSockJS();
+        TransportMonitor monitor = transportMonitor != null ? transportMonitor.getIfAvailable() : null;
+        if (monitor != null) {
+            sockJs.setMessageCodec(new MeteredSockJsMessageCodec(monitor));
+        }
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "websocket.broker.indexed-registry", havingValue = "true", matchIfMissing = true)
+    public IndexedSubscriptionRegistry indexedSubscriptionRegistry() {
+        return new IndexedSubscriptionRegistry();
+    }
+
+    // Swaps the simple broker's registry for the SubscriptionRegistry bean, when one is defined
+    @Bean
+    public static BeanPostProcessor subscriptionRegistryInstaller(ObjectProvider<SubscriptionRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof SimpleBrokerMessageHandler handler) {
+                    registry.ifAvailable(handler::setSubscriptionRegistry);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public ProgressWireFormatInterceptor progressWireFormatInterceptor() {
+        return new ProgressWireFormatInterceptor();
+    }
+
+    @Bean
+    public ProgressCompressionInterceptor progressCompressionInterceptor() {
+        return meterRegistry != null
+            ? new ProgressCompressionInterceptor(compressionProperties, meterRegistry)
+            : new ProgressCompressionInterceptor(compressionProperties);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Records the progress-format requested at CONNECT and SUBSCRIBE, and accept-encoding at CONNECT
+        registration.interceptors(progressWireFormatInterceptor(), progressCompressionInterceptor());
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Re-encodes progress frames for sessions that asked for binary, then deflates them if asked to
+        registration.interceptors(progressWireFormatInterceptor(), progressCompressionInterceptor());
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        // Serialize ProgressUpdate ahead of the generic Jackson converter
+        messageConverters.add(0, new ProgressUpdateMessageConverter(serializationTimer));
+        return true;
     }
 }
\ No newline at end of file
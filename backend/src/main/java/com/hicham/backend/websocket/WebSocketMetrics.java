@@ -0,0 +1,108 @@
+package com.hicham.backend.websocket;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.messaging.simp.broker.SubscriptionRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+// Gauges over the STOMP channels, open sessions, broker subscriptions, slow-consumer policy
+// and outbound traffic per transport
+public class WebSocketMetrics implements MeterBinder {
+    private final Map<String, Executor> channelExecutors;
+    private final SubProtocolWebSocketHandler webSocketHandler;
+    private final SubscriptionRegistry subscriptionRegistry;
+    private final SlowConsumerMonitor slowConsumerMonitor;
+    private final TransportMonitor transportMonitor;
+
+    // channelExecutors is keyed by channel name: inbound, outbound or broker
+    public WebSocketMetrics(Map<String, Executor> channelExecutors, SubProtocolWebSocketHandler webSocketHandler,
+                            SubscriptionRegistry subscriptionRegistry, SlowConsumerMonitor slowConsumerMonitor,
+                            TransportMonitor transportMonitor) {
+        this.channelExecutors = channelExecutors;
+        this.webSocketHandler = webSocketHandler;
+        this.subscriptionRegistry = subscriptionRegistry;
+        this.slowConsumerMonitor = slowConsumerMonitor;
+        this.transportMonitor = transportMonitor;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // Channels without a thread pool hand messages over on the sending thread, so they never queue
+        channelExecutors.forEach((channel, executor) -> {
+            if (executor instanceof ThreadPoolTaskExecutor pool) {
+                Gauge.builder("websocket.channel.queue.size", pool, ThreadPoolTaskExecutor::getQueueSize)
+                        .description("Messages waiting for a channel thread")
+                        .tag("channel", channel)
+                        .register(registry);
+                Gauge.builder("websocket.channel.threads.active", pool, ThreadPoolTaskExecutor::getActiveCount)
+                        .description("Channel threads handling a message")
+                        .tag("channel", channel)
+                        .register(registry);
+            }
+        });
+
+        Gauge.builder("websocket.sessions.active", webSocketHandler, handler -> handler.getStats().getWebSocketSessions())
+                .description("Open WebSocket sessions")
+                .tag("transport", "websocket")
+                .register(registry);
+        Gauge.builder("websocket.sessions.active", webSocketHandler, handler -> handler.getStats().getHttpStreamingSessions())
+                .description("Open WebSocket sessions")
+                .tag("transport", "http-streaming")
+                .register(registry);
+        Gauge.builder("websocket.sessions.active", webSocketHandler, handler -> handler.getStats().getHttpPollingSessions())
+                .description("Open WebSocket sessions")
+                .tag("transport", "http-polling")
+                .register(registry);
+
+        if (subscriptionRegistry instanceof IndexedSubscriptionRegistry indexed) {
+            Gauge.builder("websocket.broker.destinations", indexed, IndexedSubscriptionRegistry::getDestinationCount)
+                    .description("Destinations with at least one subscription")
+                    .register(registry);
+            Gauge.builder("websocket.broker.sessions", indexed, IndexedSubscriptionRegistry::getSessionCount)
+                    .description("Sessions with at least one subscription")
+                    .register(registry);
+        }
+
+        FunctionCounter.builder("websocket.slow.consumer.dropped", slowConsumerMonitor, SlowConsumerMonitor::getDroppedCount)
+                .description("Superseded progress frames dropped for slow consumers")
+                .register(registry);
+        FunctionCounter.builder("websocket.slow.consumer.disconnected", slowConsumerMonitor,
+                        SlowConsumerMonitor::getDisconnectedCount)
+                .description("Sessions closed by the slow-consumer policy")
+                .register(registry);
+
+        for (String transport : List.of(TransportHandshakeInterceptor.NATIVE, TransportHandshakeInterceptor.SOCKJS)) {
+            Gauge.builder("websocket.transport.sessions", transportMonitor, monitor -> monitor.getOpenSessions(transport))
+                    .description("Open STOMP sessions")
+                    .tag("transport", transport)
+                    .register(registry);
+            FunctionCounter.builder("websocket.transport.payload.bytes", transportMonitor,
+                            monitor -> monitor.getPayloadBytes(transport))
+                    .description("STOMP frame bytes sent to clients")
+                    .baseUnit("bytes")
+                    .tag("transport", transport)
+                    .register(registry);
+            FunctionCounter.builder("websocket.transport.wire.bytes", transportMonitor,
+                            monitor -> monitor.getWireBytes(transport))
+                    .description("Bytes sent to clients including SockJS and WebSocket framing")
+                    .baseUnit("bytes")
+                    .tag("transport", transport)
+                    .register(registry);
+            FunctionTimer.builder("websocket.transport.send", transportMonitor,
+                            monitor -> monitor.getMessageCount(transport), monitor -> monitor.getSendSeconds(transport),
+                            TimeUnit.SECONDS)
+                    .description("Time the transport took to accept each frame sent to a client")
+                    .tag("transport", transport)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+-- Journal of every progress update sent to a user, written in batches by ProgressJournal
+CREATE TABLE IF NOT EXISTS progress_journal (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    operation_id VARCHAR(64),
+    user_id VARCHAR(255),
+    update_type VARCHAR(32),
+    percentage INT,
+    step VARCHAR(1024),
+    message VARCHAR(1024),
+    created_at TIMESTAMP,
+    seq BIGINT
+);
+
+CREATE INDEX IF NOT EXISTS idx_progress_journal_operation ON progress_journal (operation_id, id);
+CREATE INDEX IF NOT EXISTS idx_progress_journal_user ON progress_journal (user_id, id);
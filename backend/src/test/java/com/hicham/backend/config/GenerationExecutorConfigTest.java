@@ -0,0 +1,87 @@
+package com.hicham.backend.config;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.hicham.backend.model.ExecutorStats;
+
+class GenerationExecutorConfigTest {
+
+    private GenerationExecutorMonitor monitor;
+    private ThreadPoolTaskExecutor executor;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        GenerationExecutorProperties properties = new GenerationExecutorProperties();
+        properties.setCorePoolSize(1);
+        properties.setMaxPoolSize(1);
+        properties.setQueueCapacity(1);
+        monitor = new GenerationExecutorMonitor(properties.getMode());
+        executor = GenerationExecutorConfig.platformThreadExecutor(properties, monitor);
+        executor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void testPlatformExecutor_TracksActiveQueuedAndRejected() throws InterruptedException {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        Runnable blocking = () -> {
+            started.countDown();
+            awaitRelease();
+        };
+
+        // When
+        executor.execute(blocking);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute(this::awaitRelease);
+
+        // Then
+        assertThrows(TaskRejectedException.class, () -> executor.execute(this::awaitRelease));
+        ExecutorStats stats = monitor.snapshot();
+        assertEquals("PLATFORM", stats.getMode());
+        assertEquals(1, stats.getActiveCount());
+        assertEquals(1, stats.getQueueDepth());
+        assertEquals(1, stats.getRejectedCount());
+    }
+
+    @Test
+    void testPlatformExecutor_ActiveCountDropsWhenTasksFinish() throws InterruptedException {
+        // Given
+        CountDownLatch done = new CountDownLatch(1);
+
+        // When
+        executor.execute(done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(executor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(0, monitor.getActiveCount());
+        assertEquals(0, monitor.getQueueDepth());
+        assertEquals(0, monitor.getRejectedCount());
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,18 +1,44 @@
 package com.hicham.backend.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.Mock;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.hicham.backend.config.GenerationAdmissionProperties;
+import com.hicham.backend.config.GenerationIdempotencyProperties;
+import com.hicham.backend.model.JobPriority;
 import com.hicham.backend.service.ArchitectureGenerationService;
+import com.hicham.backend.service.GenerationAdmission;
+import com.hicham.backend.service.GenerationDeduplicator;
+import com.hicham.backend.service.GenerationPartitioner;
+import com.hicham.backend.service.GenerationRejectedException;
 
 @ExtendWith(MockitoExtension.class)
 class GenerationControllerTest {
@@ -24,6 +50,8 @@ class GenerationControllerTest {
 
     @BeforeEach
     void setUp() {
+        lenient().when(generationService.generateArchitecture(anyString(), any(), anyString(), any()))
+            .thenReturn(CompletableFuture.completedFuture(null));
         controller = new GenerationController(generationService);
     }
 
@@ -44,7 +72,8 @@ class GenerationControllerTest {
         verify(generationService, times(1)).generateArchitecture(
             org.mockito.ArgumentMatchers.anyString(),
             eq(userId),
-            eq("Sample Request")
+            eq("Sample Request"),
+            eq(JobPriority.INTERACTIVE)
         );
     }
 
@@ -64,7 +93,8 @@ class GenerationControllerTest {
         verify(generationService, times(1)).generateArchitecture(
             org.mockito.ArgumentMatchers.anyString(),
             eq(userId),
-            eq("Sample Request")
+            eq("Sample Request"),
+            eq(JobPriority.INTERACTIVE)
         );
     }
 
@@ -84,7 +114,8 @@ class GenerationControllerTest {
         verify(generationService, times(1)).generateArchitecture(
             org.mockito.ArgumentMatchers.anyString(),
             eq(userId),
-            eq("Sample Request")
+            eq("Sample Request"),
+            eq(JobPriority.INTERACTIVE)
         );
     }
 
@@ -104,7 +135,8 @@ class GenerationControllerTest {
         verify(generationService, times(1)).generateArchitecture(
             org.mockito.ArgumentMatchers.anyString(),
             eq(userId),
-            eq("Sample Request")
+            eq("Sample Request"),
+            eq(JobPriority.INTERACTIVE)
         );
     }
 
@@ -123,4 +155,269 @@ class GenerationControllerTest {
         assertEquals("Generation started for user: " + userId, parts[0]);
         assertTrue(parts[1].length() > 0); // UUID should not be empty
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testStartGeneration_RateLimited() {
+        // Given
+        GenerationAdmissionProperties properties = new GenerationAdmissionProperties();
+        properties.getDefaultLimit().setBurst(1);
+        properties.getDefaultLimit().setRefillPerSecond(0.5);
+        GenerationAdmission admission = new GenerationAdmission(properties);
+        controller = new GenerationController(generationService, admission);
+        controller.startGeneration("test-user-123");
+
+        // When
+        GenerationRejectedException rejected = assertThrows(GenerationRejectedException.class,
+            () -> controller.startGeneration("test-user-123"));
+        ResponseEntity<String> response = controller.handleRejected(rejected);
+
+        // Then
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("2", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        verify(generationService, times(1)).generateArchitecture(anyString(), eq("test-user-123"), anyString(), eq(JobPriority.INTERACTIVE));
+        assertEquals(1, admission.snapshot().getRateLimitedCount());
+    }
+
+    @Test
+    void testStartGeneration_ExecutorSaturated() {
+        // Given
+        GenerationAdmission admission = new GenerationAdmission(new GenerationAdmissionProperties());
+        controller = new GenerationController(generationService, admission);
+        when(generationService.generateArchitecture(anyString(), eq("test-user-123"), anyString(), eq(JobPriority.INTERACTIVE)))
+            .thenThrow(new TaskRejectedException("saturated"));
+
+        // When
+        GenerationRejectedException rejected = assertThrows(GenerationRejectedException.class,
+            () -> controller.startGeneration("test-user-123"));
+
+        // Then
+        assertEquals(1000, rejected.getRetryAfterMillis());
+        assertEquals(0, admission.snapshot().getInFlight());
+        assertEquals(1, admission.snapshot().getExecutorRejectedCount());
+    }
+
+    @Test
+    void testStartGeneration_FailureToStartReleasesAdmission() {
+        // Given
+        GenerationAdmission admission = new GenerationAdmission(new GenerationAdmissionProperties());
+        controller = new GenerationController(generationService, admission);
+        when(generationService.generateArchitecture(anyString(), eq("test-user-123"), anyString(), eq(JobPriority.INTERACTIVE)))
+            .thenThrow(new IllegalStateException("cache unavailable"));
+
+        // When
+        assertThrows(IllegalStateException.class, () -> controller.startGeneration("test-user-123"));
+
+        // Then
+        assertEquals(0, admission.snapshot().getInFlight());
+        assertEquals(0, admission.snapshot().getExecutorRejectedCount());
+    }
+
+    @Test
+    void testStartGeneration_ReleasesWhenGenerationFinishes() {
+        // Given
+        GenerationAdmissionProperties properties = new GenerationAdmissionProperties();
+        properties.setMaxInFlight(1);
+        GenerationAdmission admission = new GenerationAdmission(properties);
+        controller = new GenerationController(generationService, admission);
+        CompletableFuture<Void> generation = new CompletableFuture<>();
+        when(generationService.generateArchitecture(anyString(), eq("user-a"), anyString(), eq(JobPriority.INTERACTIVE))).thenReturn(generation);
+        controller.startGeneration("user-a");
+
+        // When
+        assertThrows(GenerationRejectedException.class, () -> controller.startGeneration("user-b"));
+        generation.complete(null);
+        String response = controller.startGeneration("user-b");
+
+        // Then
+        assertTrue(response.contains("Generation started for user: user-b"));
+        verify(generationService, times(1)).generateArchitecture(anyString(), eq("user-b"), anyString(), eq(JobPriority.INTERACTIVE));
+    }
+
+    @Test
+    void testStartGeneration_DuplicateIdempotencyKey() {
+        // Given
+        CompletableFuture<Void> generation = new CompletableFuture<>();
+        when(generationService.generateArchitecture(anyString(), eq("test-user-123"), anyString(), eq(JobPriority.INTERACTIVE))).thenReturn(generation);
+        String first = controller.startGeneration("test-user-123", "key-1");
+
+        // When
+        String second = controller.startGeneration("test-user-123", "key-1");
+
+        // Then
+        String operationId = first.split(", operation: ")[1];
+        assertEquals("Generation already started for user: test-user-123, operation: " + operationId, second);
+        verify(generationService, times(1)).generateArchitecture(anyString(), eq("test-user-123"), anyString(), eq(JobPriority.INTERACTIVE));
+    }
+
+    @Test
+    void testStartGeneration_RetryAfterRejection() {
+        // Given
+        GenerationAdmissionProperties properties = new GenerationAdmissionProperties();
+        properties.setMaxInFlight(0);
+        GenerationAdmission admission = new GenerationAdmission(properties);
+        GenerationDeduplicator deduplicator = new GenerationDeduplicator(new GenerationIdempotencyProperties());
+        controller = new GenerationController(generationService, admission, deduplicator);
+        assertThrows(GenerationRejectedException.class, () -> controller.startGeneration("test-user-123", "key-1"));
+
+        // When
+        properties.setMaxInFlight(1);
+        String response = controller.startGeneration("test-user-123", "key-1");
+
+        // Then
+        // The rejected request did not keep the key, so the retry starts the operation
+        assertTrue(response.startsWith("Generation started for user: test-user-123"));
+        verify(generationService, times(1)).generateArchitecture(anyString(), eq("test-user-123"), anyString(), eq(JobPriority.INTERACTIVE));
+    }
+
+    @Test
+    void testCancelGeneration() {
+        // Given
+        when(generationService.cancel("op-1", "test-user-123", "cancelled by the user")).thenReturn(true);
+
+        // When
+        ResponseEntity<String> cancelled = controller.cancelGeneration("op-1", "test-user-123");
+        ResponseEntity<String> unknown = controller.cancelGeneration("op-2", "test-user-123");
+
+        // Then
+        assertEquals(HttpStatus.OK, cancelled.getStatusCode());
+        assertEquals("Generation cancelled for user: test-user-123, operation: op-1", cancelled.getBody());
+        assertEquals(HttpStatus.NOT_FOUND, unknown.getStatusCode());
+    }
+
+    @Test
+    void testStartGeneration_WithDeadline() {
+        // When
+        String response = controller.startGeneration("test-user-123", null, 5000L, JobPriority.INTERACTIVE);
+
+        // Then
+        String operationId = response.split(", operation: ")[1];
+        verify(generationService, times(1)).scheduleDeadline(operationId, 5000L);
+    }
+
+    @Test
+    void testStartGeneration_CancelledOperationReleasesIdempotencyKey() {
+        // Given
+        CompletableFuture<Void> generation = new CompletableFuture<>();
+        when(generationService.generateArchitecture(anyString(), eq("test-user-123"), anyString(), eq(JobPriority.INTERACTIVE)))
+            .thenReturn(generation)
+            .thenReturn(CompletableFuture.completedFuture(null));
+        String first = controller.startGeneration("test-user-123", "key-1");
+
+        // When
+        generation.completeExceptionally(new CancellationException("cancelled by the user"));
+        String retry = controller.startGeneration("test-user-123", "key-1");
+
+        // Then
+        assertNotEquals(first.split(", operation: ")[1], retry.split(", operation: ")[1]);
+        assertTrue(retry.startsWith("Generation started for user: test-user-123"));
+    }
+
+    @Test
+    void testStartGeneration_BatchPriority() {
+        // When
+        controller.startGeneration("test-user-123", null, null, JobPriority.BATCH);
+
+        // Then
+        verify(generationService, times(1)).generateArchitecture(
+            anyString(), eq("test-user-123"), eq("Sample Request"), eq(JobPriority.BATCH)
+        );
+    }
+
+    @Test
+    void testStartGeneration_ForwardedToOwner() {
+        // Given
+        GenerationPartitioner partitioner = mock(GenerationPartitioner.class);
+        when(partitioner.isLocal("test-user-123")).thenReturn(false);
+        when(partitioner.forward(eq("test-user-123"), eq(HttpMethod.GET),
+                eq("/generate?userId=test-user-123&priority=INTERACTIVE"), eq(Map.of("Idempotency-Key", "key-1"))))
+            .thenReturn(Optional.of(ResponseEntity.ok("Generation started for user: test-user-123, operation: op-9")));
+        GenerationController partitioned = new GenerationController(generationService,
+            new GenerationAdmission(new GenerationAdmissionProperties()),
+            new GenerationDeduplicator(new GenerationIdempotencyProperties()), partitioner);
+
+        // When
+        String response = partitioned.startGeneration("test-user-123", "key-1");
+
+        // Then
+        assertEquals("Generation started for user: test-user-123, operation: op-9", response);
+        verify(generationService, never()).generateArchitecture(anyString(), anyString(), anyString(), any());
+    }
+
+    @Test
+    void testStartGeneration_OwnerRejectionKeepsRetryAfter() {
+        // Given
+        GenerationPartitioner partitioner = mock(GenerationPartitioner.class);
+        when(partitioner.forward(eq("test-user-123"), eq(HttpMethod.GET), anyString(), any()))
+            .thenReturn(Optional.of(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "4").body("Rate limit exceeded for user: test-user-123")));
+        GenerationController partitioned = new GenerationController(generationService,
+            new GenerationAdmission(new GenerationAdmissionProperties()),
+            new GenerationDeduplicator(new GenerationIdempotencyProperties()), partitioner);
+
+        // When
+        GenerationRejectedException error = assertThrows(GenerationRejectedException.class,
+            () -> partitioned.startGeneration("test-user-123"));
+
+        // Then
+        assertEquals(4000, error.getRetryAfterMillis());
+        assertEquals("4", partitioned.handleRejected(error).getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void testStartGeneration_ForwardedRequestRunsLocally() {
+        // Given
+        GenerationPartitioner partitioner = mock(GenerationPartitioner.class);
+        when(partitioner.isMember("node-b")).thenReturn(true);
+        GenerationController partitioned = new GenerationController(generationService,
+            new GenerationAdmission(new GenerationAdmissionProperties()),
+            new GenerationDeduplicator(new GenerationIdempotencyProperties()), partitioner);
+
+        // When
+        String response = partitioned.startGeneration("test-user-123", null, null, JobPriority.INTERACTIVE, "node-b");
+
+        // Then
+        assertTrue(response.startsWith("Generation started for user: test-user-123"));
+        verify(partitioner, never()).forward(anyString(), any(), anyString(), any());
+    }
+
+    @Test
+    void testStartGeneration_ForwardedHeaderOfNonMemberIsIgnored() {
+        // Given: a client claiming to be an instance, to skip forwarding
+        GenerationPartitioner partitioner = mock(GenerationPartitioner.class);
+        when(partitioner.forward(eq("test-user-123"), eq(HttpMethod.GET), anyString(), any()))
+            .thenReturn(Optional.of(ResponseEntity.ok("Generation started for user: test-user-123, operation: op-9")));
+        when(partitioner.forward(eq("test-user-123"), eq(HttpMethod.POST), anyString(), any()))
+            .thenReturn(Optional.of(ResponseEntity.ok("Generation cancelled for user: test-user-123, operation: op-9")));
+        GenerationController partitioned = new GenerationController(generationService,
+            new GenerationAdmission(new GenerationAdmissionProperties()),
+            new GenerationDeduplicator(new GenerationIdempotencyProperties()), partitioner);
+
+        // When
+        String response = partitioned.startGeneration("test-user-123", null, null, JobPriority.INTERACTIVE, "node-x");
+        ResponseEntity<String> cancelled = partitioned.cancelGeneration("op-9", "test-user-123", "node-x");
+
+        // Then: both went to the owner as if the header were absent
+        assertEquals("Generation started for user: test-user-123, operation: op-9", response);
+        assertEquals(HttpStatus.OK, cancelled.getStatusCode());
+        verify(generationService, never()).generateArchitecture(anyString(), anyString(), anyString(), any());
+        verify(generationService, never()).cancel(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void testCancelGeneration_ForwardedToOwner() {
+        // Given
+        GenerationPartitioner partitioner = mock(GenerationPartitioner.class);
+        when(partitioner.forward("test-user-123", HttpMethod.POST, "/generate/op-9/cancel?userId=test-user-123", Map.of()))
+            .thenReturn(Optional.of(ResponseEntity.status(HttpStatus.NOT_FOUND).body("No running operation op-9")));
+        GenerationController partitioned = new GenerationController(generationService,
+            new GenerationAdmission(new GenerationAdmissionProperties()),
+            new GenerationDeduplicator(new GenerationIdempotencyProperties()), partitioner);
+
+        // When
+        ResponseEntity<String> response = partitioned.cancelGeneration("op-9", "test-user-123");
+
+        // Then
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verify(generationService, never()).cancel(anyString(), anyString(), anyString());
+    }
+}
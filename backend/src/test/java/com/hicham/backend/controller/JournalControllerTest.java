@@ -0,0 +1,55 @@
+package com.hicham.backend.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+import com.hicham.backend.service.ProgressJournal;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+class JournalControllerTest {
+
+    @Mock
+    private ProgressJournal journal;
+
+    private JournalController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new JournalController(journal);
+    }
+
+    @Test
+    void testGetOperationHistory() {
+        // Given
+        ProgressUpdate update = new ProgressUpdate(
+            "op-1", "user-1", ProgressType.GENERATION_COMPLETED, 100, "done", "Done", LocalDateTime.now()
+        );
+        when(journal.findByOperation("op-1")).thenReturn(List.of(update));
+
+        // When
+        List<ProgressUpdate> history = controller.getOperationHistory("op-1");
+
+        // Then
+        assertEquals(List.of(update), history);
+    }
+
+    @Test
+    void testGetUserHistory_ClampsLimit() {
+        // When
+        controller.getUserHistory("user-1", 50_000);
+
+        // Then
+        verify(journal).findByUser("user-1", 1000);
+    }
+}
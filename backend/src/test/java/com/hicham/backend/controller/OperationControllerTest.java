@@ -0,0 +1,95 @@
+package com.hicham.backend.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.hicham.backend.config.ProgressStreamProperties;
+import com.hicham.backend.model.OperationState;
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+import com.hicham.backend.service.OperationStateRegistry;
+import com.hicham.backend.service.ProgressEventStreams;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+class OperationControllerTest {
+
+    private OperationStateRegistry registry;
+    private OperationController controller;
+
+    @BeforeEach
+    void setUp() {
+        registry = new OperationStateRegistry(60_000, 60_000);
+        controller = new OperationController(registry,
+            new ProgressEventStreams(new ProgressStreamProperties(), registry, Runnable::run));
+    }
+
+    @Test
+    void testGetOperation_Found() {
+        // Given
+        registry.onProgressUpdate("user-1", new ProgressUpdate(
+            "op-1", "user-1", ProgressType.GENERATION_PROGRESS, 60, "step_3", "Etape 3", LocalDateTime.now()
+        ));
+
+        // When
+        ResponseEntity<OperationState> response = controller.getOperation("op-1");
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(60, response.getBody().getPercentage());
+    }
+
+    @Test
+    void testGetOperation_NotFound() {
+        // When
+        ResponseEntity<OperationState> response = controller.getOperation("unknown");
+
+        // Then
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void testGetUserOperations() {
+        // Given
+        registry.onProgressUpdate("user-1", new ProgressUpdate(
+            "op-1", "user-1", ProgressType.GENERATION_STARTED, 0, "init", "Starting", LocalDateTime.now()
+        ));
+
+        // When
+        List<OperationState> operations = controller.getUserOperations("user-1", false);
+
+        // Then
+        assertEquals(1, operations.size());
+        assertEquals("op-1", operations.get(0).getOperationId());
+    }
+
+    @Test
+    void testStreamOperation_Found() {
+        // Given
+        registry.onProgressUpdate("user-1", new ProgressUpdate(
+            "op-1", "user-1", ProgressType.GENERATION_STARTED, 0, "init", "Starting", LocalDateTime.now()
+        ));
+
+        // When
+        ResponseEntity<SseEmitter> response = controller.streamOperation("op-1");
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+    }
+
+    @Test
+    void testStreamOperation_NotFound() {
+        // When
+        ResponseEntity<SseEmitter> response = controller.streamOperation("unknown");
+
+        // Then
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+}
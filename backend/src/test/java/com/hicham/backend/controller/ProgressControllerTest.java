@@ -2,17 +2,49 @@ package com.hicham.backend.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.ArgumentCaptor;
+
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+import com.hicham.backend.service.ArchitectureGenerationService;
+import com.hicham.backend.service.GenerationPartitioner;
+import com.hicham.backend.service.ProgressReplayBuffer;
+import com.hicham.backend.service.WebSocketProgressService;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
 
 @ExtendWith(MockitoExtension.class)
 class ProgressControllerTest {
 
     private ProgressController controller;
 
+    @Mock
+    private WebSocketProgressService progressService;
+
+    @Mock
+    private ArchitectureGenerationService generationService;
+
     @BeforeEach
     void setUp() {
         controller = new ProgressController();
@@ -87,4 +119,112 @@ class ProgressControllerTest {
         assertNotNull(response);
         assertEquals(expectedResponse, response);
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testSubscribeToProgress_WithLastSequence_ReplaysMissedUpdates() {
+        // Given
+        ProgressReplayBuffer replayBuffer = new ProgressReplayBuffer(16, 64 * 1024);
+        for (int percentage = 20; percentage <= 60; percentage += 20) {
+            replayBuffer.onProgressUpdate("user-1", new ProgressUpdate(
+                "op-1", "user-1", ProgressType.GENERATION_PROGRESS, percentage, "step", "Etape", LocalDateTime.now()
+            ));
+        }
+        ProgressController replayingController = new ProgressController(replayBuffer, progressService);
+
+        // When
+        String response = replayingController.subscribeToProgress("user-1", 1L, "session-1");
+
+        // Then
+        ArgumentCaptor<ProgressReplayBuffer.Replay> replay = ArgumentCaptor.forClass(ProgressReplayBuffer.Replay.class);
+        verify(progressService).sendReplay(eq("session-1"), replay.capture());
+        assertEquals(2, replay.getValue().getUpdates().size());
+        assertEquals("Subscribed to progress updates for user: user-1", response);
+    }
+
+    @Test
+    void testSubscribeToProgress_WithLastSequenceOfAnotherNode_ReplaysTruncatedNothing() {
+        // Given
+        ProgressReplayBuffer replayBuffer = new ProgressReplayBuffer("node-a", 16, 64 * 1024);
+        replayBuffer.onProgressUpdate("user-1", new ProgressUpdate(
+            "op-1", "user-1", ProgressType.GENERATION_PROGRESS, 20, "step", "Etape", LocalDateTime.now()
+        ));
+        ProgressController replayingController = new ProgressController(replayBuffer, progressService);
+
+        // When
+        replayingController.subscribeToProgress("user-1", 0L, "node-b", "session-1");
+
+        // Then
+        ArgumentCaptor<ProgressReplayBuffer.Replay> replay = ArgumentCaptor.forClass(ProgressReplayBuffer.Replay.class);
+        verify(progressService).sendReplay(eq("session-1"), replay.capture());
+        assertTrue(replay.getValue().getUpdates().isEmpty());
+        assertTrue(replay.getValue().isTruncated());
+    }
+
+    @Test
+    void testSubscribeToProgress_WithoutLastSequence_DoesNotReplay() {
+        // Given
+        ProgressController replayingController = new ProgressController(
+            new ProgressReplayBuffer(16, 64 * 1024), progressService
+        );
+
+        // When
+        replayingController.subscribeToProgress("user-1", null, "session-1");
+
+        // Then
+        verify(progressService, never()).sendReplay(any(), any());
+    }
+
+    @Test
+    void testCancelGeneration() {
+        // Given
+        when(generationService.cancel("op-1", "user-1", "cancelled by the user")).thenReturn(true);
+        ProgressController cancellingController = new ProgressController(null, progressService, generationService);
+
+        // When
+        String cancelled = cancellingController.cancelGeneration("op-1", "user-1", "session-1");
+        String unknown = cancellingController.cancelGeneration("op-2", "user-1", "session-1");
+
+        // Then
+        assertEquals("Generation cancelled for user: user-1, operation: op-1", cancelled);
+        assertEquals("No running operation op-2 for user: user-1", unknown);
+    }
+
+    @Test
+    void testCancelGeneration_ForwardedToOwner() {
+        // Given: the STOMP session reached an instance that does not run the user's operations
+        GenerationPartitioner partitioner = mock(GenerationPartitioner.class);
+        when(partitioner.isLocal("user-1")).thenReturn(false);
+        when(partitioner.forwardAsync("user-1", HttpMethod.POST, "/generate/op-1/cancel?userId=user-1", Map.of()))
+            .thenReturn(CompletableFuture.completedFuture(
+                Optional.of(ResponseEntity.ok("Generation cancelled for user: user-1, operation: op-1"))));
+        ProgressController cancellingController =
+            new ProgressController(null, progressService, generationService, partitioner);
+
+        // When
+        String reply = cancellingController.cancelGeneration("op-1", "user-1", "session-1");
+
+        // Then: the inbound thread did not wait for the owner, whose answer goes to the session
+        assertNull(reply);
+        verify(progressService).sendToSession("session-1", "Generation cancelled for user: user-1, operation: op-1");
+        verify(generationService, never()).cancel(any(), any(), any());
+    }
+
+    @Test
+    void testCancelGeneration_OwnerNotAnswering() {
+        // Given
+        GenerationPartitioner partitioner = mock(GenerationPartitioner.class);
+        when(partitioner.isLocal("user-1")).thenReturn(false);
+        when(partitioner.forwardAsync("user-1", HttpMethod.POST, "/generate/op-1/cancel?userId=user-1", Map.of()))
+            .thenReturn(CompletableFuture.failedFuture(
+                new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Owner node-b did not answer")));
+        ProgressController cancellingController =
+            new ProgressController(null, progressService, generationService, partitioner);
+
+        // When
+        cancellingController.cancelGeneration("op-1", "user-1", "session-1");
+
+        // Then
+        verify(progressService).sendToSession("session-1", "Owner node-b did not answer");
+        verify(generationService, never()).cancel(any(), any(), any());
+    }
+}
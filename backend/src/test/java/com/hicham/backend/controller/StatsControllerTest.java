@@ -0,0 +1,139 @@
+package com.hicham.backend.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hicham.backend.config.GenerationAdmissionProperties;
+import com.hicham.backend.config.GenerationExecutorMonitor;
+import com.hicham.backend.config.GenerationExecutorProperties;
+import com.hicham.backend.config.GenerationSchedulingProperties;
+import com.hicham.backend.config.ProgressClusterProperties;
+import com.hicham.backend.model.AdmissionStats;
+import com.hicham.backend.model.ClusterStats;
+import com.hicham.backend.model.ExecutorStats;
+import com.hicham.backend.model.SlowConsumerStats;
+import com.hicham.backend.model.SchedulingStats;
+import com.hicham.backend.model.TransportStats;
+import com.hicham.backend.service.FairGenerationScheduler;
+import com.hicham.backend.service.GenerationAdmission;
+import com.hicham.backend.service.ProgressClusterBus;
+import com.hicham.backend.websocket.SlowConsumerMonitor;
+import com.hicham.backend.websocket.TransportHandshakeInterceptor;
+import com.hicham.backend.websocket.TransportMonitor;
+
+class StatsControllerTest {
+
+    private GenerationExecutorMonitor executorMonitor;
+    private SlowConsumerMonitor slowConsumerMonitor;
+    private GenerationAdmission admission;
+    private FairGenerationScheduler generationScheduler;
+    private TransportMonitor transportMonitor;
+    private StatsController controller;
+
+    @BeforeEach
+    void setUp() {
+        executorMonitor = new GenerationExecutorMonitor(GenerationExecutorProperties.Mode.PLATFORM);
+        slowConsumerMonitor = new SlowConsumerMonitor();
+        admission = new GenerationAdmission(new GenerationAdmissionProperties());
+        generationScheduler = new FairGenerationScheduler(new GenerationSchedulingProperties(), Runnable::run);
+        ProgressClusterBus cluster = new ProgressClusterBus(new ProgressClusterProperties(), null);
+        transportMonitor = new TransportMonitor();
+        controller = new StatsController(executorMonitor, slowConsumerMonitor, admission, generationScheduler, cluster,
+                transportMonitor);
+    }
+
+    @Test
+    void testGenerationExecutorStats() {
+        // Given
+        executorMonitor.bindQueueDepth(() -> 3);
+        executorMonitor.recordRejection();
+
+        // When
+        ExecutorStats stats = controller.generationExecutorStats();
+
+        // Then
+        assertNotNull(stats);
+        assertEquals("PLATFORM", stats.getMode());
+        assertEquals(3, stats.getQueueDepth());
+        assertEquals(1, stats.getRejectedCount());
+    }
+
+    @Test
+    void testSlowConsumerStats() {
+        // Given
+        slowConsumerMonitor.recordDropped(4);
+        slowConsumerMonitor.recordDisconnect();
+
+        // When
+        SlowConsumerStats stats = controller.slowConsumerStats();
+
+        // Then
+        assertEquals(4, stats.getDroppedCount());
+        assertEquals(1, stats.getDisconnectedCount());
+        assertEquals(0, stats.getSessions().size());
+    }
+
+    @Test
+    void testAdmissionStats() {
+        // Given
+        admission.acquire("user-1");
+
+        // When
+        AdmissionStats stats = controller.admissionStats();
+
+        // Then
+        assertEquals(1, stats.getInFlight());
+        assertEquals(1, stats.getAdmittedCount());
+        assertEquals(1, stats.getTrackedUsers());
+    }
+
+    @Test
+    void testSchedulingStats() {
+        // When
+        SchedulingStats stats = controller.schedulingStats();
+
+        // Then
+        assertEquals(0, stats.getQueuedJobs());
+        assertEquals(32, stats.getMaxConcurrentJobs());
+        assertEquals(0, stats.getTenants().size());
+    }
+
+    @Test
+    void testClusterStats_Disabled() {
+        // When
+        ClusterStats stats = controller.clusterStats();
+
+        // Then
+        assertFalse(stats.isEnabled());
+        assertEquals(9701, stats.getPort());
+        assertEquals(0, stats.getPeers().size());
+    }
+
+    @Test
+    void testTransportStats() {
+        // Given
+        transportMonitor.sessionOpened(TransportHandshakeInterceptor.NATIVE);
+        transportMonitor.recordSend(TransportHandshakeInterceptor.NATIVE, 100, 2_000);
+        transportMonitor.recordSend(TransportHandshakeInterceptor.NATIVE, 100, 4_000);
+
+        // When
+        List<TransportStats> stats = controller.transportStats();
+
+        // Then
+        assertEquals(2, stats.size());
+        TransportStats nativeStats = stats.get(0);
+        assertEquals(TransportHandshakeInterceptor.NATIVE, nativeStats.getTransport());
+        assertEquals(1, nativeStats.getOpenSessions());
+        assertEquals(2, nativeStats.getMessageCount());
+        assertEquals(200, nativeStats.getPayloadBytes());
+        assertEquals(204, nativeStats.getWireBytes());
+        assertEquals(3.0, nativeStats.getAverageSendMicros(), 1e-9);
+        assertEquals(0, stats.get(1).getMessageCount());
+    }
+}
@@ -0,0 +1,84 @@
+package com.hicham.backend.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+import com.hicham.backend.service.ProgressEventStreams;
+import com.hicham.backend.service.WebSocketProgressService;
+
+// An event stream gets the updates sent through WebSocketProgressService and ends after the terminal one
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ProgressEventStreamIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WebSocketProgressService progressService;
+
+    @Autowired
+    private ProgressEventStreams eventStreams;
+
+    @Test
+    void testEventStream_EndsAfterTerminalUpdate() throws Exception {
+        // Given
+        progressService.sendProgressUpdate("user-sse", update(ProgressType.GENERATION_STARTED, 0));
+        HttpResponse<Stream<String>> response = HttpClient.newHttpClient()
+            .sendAsync(request("op-sse"), HttpResponse.BodyHandlers.ofLines())
+            .get(5, TimeUnit.SECONDS);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (eventStreams.getOpenStreams() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+
+        // When
+        progressService.sendProgressUpdate("user-sse", update(ProgressType.GENERATION_PROGRESS, 50));
+        progressService.sendProgressUpdate("user-sse", update(ProgressType.GENERATION_COMPLETED, 100));
+
+        // Then: the body ends once the stream completes
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/event-stream"));
+        List<String> data = response.body().filter(line -> line.startsWith("data:")).toList();
+        assertEquals(3, data.size());
+        assertTrue(data.get(0).contains("GENERATION_STARTED"));
+        assertTrue(data.get(1).contains("GENERATION_PROGRESS"));
+        assertTrue(data.get(2).contains("GENERATION_COMPLETED"));
+        assertEquals(0, eventStreams.getOpenStreams());
+    }
+
+    @Test
+    void testEventStream_UnknownOperation() throws Exception {
+        // When
+        HttpResponse<String> response = HttpClient.newHttpClient()
+            .send(request("op-unknown"), HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertEquals(404, response.statusCode());
+    }
+
+    private HttpRequest request(String operationId) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/operations/" + operationId + "/events"))
+            .header("Accept", "text/event-stream")
+            .build();
+    }
+
+    private static ProgressUpdate update(ProgressType type, int percentage) {
+        return new ProgressUpdate("op-sse", "user-sse", type, percentage, "step", "Étape", LocalDateTime.now());
+    }
+}
@@ -0,0 +1,136 @@
+package com.hicham.backend.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.WebSocketClient;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import com.hicham.backend.websocket.IndexedSubscriptionRegistry;
+import com.hicham.backend.websocket.PerMessageDeflateFilteringUpgradeStrategy;
+import com.hicham.backend.websocket.TransportHandshakeInterceptor;
+import com.hicham.backend.websocket.TransportMonitor;
+
+// Same broker behind both endpoints: a frame sent to /topic/system reaches a SockJS and a native client
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class TransportEndpointsIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private IndexedSubscriptionRegistry subscriptionRegistry;
+
+    @Autowired
+    private TransportMonitor transportMonitor;
+
+    @Test
+    void testNativeAndSockJsEndpoints_ShareTheBroker() throws Exception {
+        // Given
+        BlockingQueue<Object> nativeFrames = new LinkedBlockingQueue<>();
+        BlockingQueue<Object> sockJsFrames = new LinkedBlockingQueue<>();
+        StompSession nativeSession = connect(new StandardWebSocketClient(), "ws://localhost:" + port + "/ws-native");
+        StompSession sockJsSession = connect(new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))),
+                "http://localhost:" + port + "/ws");
+        nativeSession.subscribe("/topic/system", new QueueingFrameHandler(nativeFrames));
+        sockJsSession.subscribe("/topic/system", new QueueingFrameHandler(sockJsFrames));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (subscriptionRegistry.getSessionCount() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        long nativeBefore = transportMonitor.getMessageCount(TransportHandshakeInterceptor.NATIVE);
+        long sockJsBefore = transportMonitor.getMessageCount(TransportHandshakeInterceptor.SOCKJS);
+
+        try {
+            // When
+            messagingTemplate.convertAndSend("/topic/system", Map.of("message", "Étape 1"));
+
+            // Then
+            assertEquals(Map.of("message", "Étape 1"), nativeFrames.poll(5, TimeUnit.SECONDS));
+            assertEquals(Map.of("message", "Étape 1"), sockJsFrames.poll(5, TimeUnit.SECONDS));
+            assertEquals(1, transportMonitor.getOpenSessions(TransportHandshakeInterceptor.NATIVE));
+            assertEquals(1, transportMonitor.getOpenSessions(TransportHandshakeInterceptor.SOCKJS));
+            assertTrue(transportMonitor.getMessageCount(TransportHandshakeInterceptor.NATIVE) > nativeBefore);
+            assertTrue(transportMonitor.getMessageCount(TransportHandshakeInterceptor.SOCKJS) > sockJsBefore);
+            // SockJS wraps and escapes every frame, native sends it as it is
+            assertTrue(transportMonitor.getWireBytes(TransportHandshakeInterceptor.SOCKJS)
+                    > transportMonitor.getPayloadBytes(TransportHandshakeInterceptor.SOCKJS));
+        } finally {
+            nativeSession.disconnect();
+            sockJsSession.disconnect();
+        }
+    }
+
+    @Test
+    void testPermessageDeflate_NegotiatedByDefault() throws Exception {
+        // Given
+        WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+        headers.setSecWebSocketExtensions(List.of(
+            new WebSocketExtension(PerMessageDeflateFilteringUpgradeStrategy.PERMESSAGE_DEFLATE)));
+
+        // When
+        WebSocketSession session = new StandardWebSocketClient()
+            .execute(new AbstractWebSocketHandler() { }, headers, URI.create("ws://localhost:" + port + "/ws-native"))
+            .get(5, TimeUnit.SECONDS);
+
+        // Then
+        try {
+            assertEquals(List.of(PerMessageDeflateFilteringUpgradeStrategy.PERMESSAGE_DEFLATE),
+                session.getExtensions().stream().map(WebSocketExtension::getName).toList());
+        } finally {
+            session.close();
+        }
+    }
+
+    private static StompSession connect(WebSocketClient webSocketClient, String url) throws Exception {
+        WebSocketStompClient client = new WebSocketStompClient(webSocketClient);
+        client.setMessageConverter(new MappingJackson2MessageConverter());
+        return client.connectAsync(url, new StompSessionHandlerAdapter() { }).get(5, TimeUnit.SECONDS);
+    }
+
+    private static final class QueueingFrameHandler implements StompFrameHandler {
+        private final BlockingQueue<Object> frames;
+
+        private QueueingFrameHandler(BlockingQueue<Object> frames) {
+            this.frames = frames;
+        }
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return Map.class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            frames.add(payload);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.hicham.backend.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Inflater;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hicham.backend.websocket.IndexedSubscriptionRegistry;
+import com.hicham.backend.websocket.PerMessageDeflateFilteringUpgradeStrategy;
+import com.hicham.backend.websocket.ProgressCompressionInterceptor;
+
+// permessage-deflate turned off, so that compression is left to ProgressCompressionInterceptor
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "websocket.compression.permessage-deflate=false",
+    "websocket.compression.threshold-bytes=0"
+})
+class WebSocketCompressionIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private IndexedSubscriptionRegistry subscriptionRegistry;
+
+    @Test
+    void testPermessageDeflate_NotNegotiatedWhenDisabled() throws Exception {
+        // Given
+        WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+        headers.setSecWebSocketExtensions(List.of(
+            new WebSocketExtension(PerMessageDeflateFilteringUpgradeStrategy.PERMESSAGE_DEFLATE)));
+
+        // When
+        WebSocketSession session = new StandardWebSocketClient()
+            .execute(new AbstractWebSocketHandler() { }, headers, URI.create("ws://localhost:" + port + "/ws-native"))
+            .get(5, TimeUnit.SECONDS);
+
+        // Then
+        try {
+            assertTrue(session.getExtensions().isEmpty());
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    void testAcceptEncoding_ReceivesDeflatedFrames() throws Exception {
+        // Given
+        WebSocketStompClient client = new WebSocketStompClient(new StandardWebSocketClient());
+        client.setMessageConverter(new ByteArrayMessageConverter());
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add(ProgressCompressionInterceptor.ACCEPT_ENCODING_HEADER, ProgressCompressionInterceptor.DEFLATE);
+        StompSession session = client.connectAsync("ws://localhost:" + port + "/ws-native", new WebSocketHttpHeaders(), connectHeaders,
+            new StompSessionHandlerAdapter() { }).get(5, TimeUnit.SECONDS);
+        BlockingQueue<StompHeaders> headers = new LinkedBlockingQueue<>();
+        BlockingQueue<byte[]> bodies = new LinkedBlockingQueue<>();
+        session.subscribe("/topic/system", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders frameHeaders) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders frameHeaders, Object payload) {
+                headers.add(frameHeaders);
+                bodies.add((byte[]) payload);
+            }
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (subscriptionRegistry.getSessionCount() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        Map<String, String> message = Map.of("message", "Étape 1 : génération, génération, génération terminée");
+
+        try {
+            // When
+            messagingTemplate.convertAndSend("/topic/system", message);
+
+            // Then
+            StompHeaders frameHeaders = headers.poll(5, TimeUnit.SECONDS);
+            assertEquals(ProgressCompressionInterceptor.DEFLATE,
+                frameHeaders.getFirst(ProgressCompressionInterceptor.CONTENT_ENCODING_HEADER));
+            assertEquals(message, new ObjectMapper().readValue(inflate(bodies.poll(5, TimeUnit.SECONDS)), Map.class));
+        } finally {
+            session.disconnect();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed) throws Exception {
+        Inflater inflater = new Inflater();
+        inflater.setInput(compressed);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[256];
+        while (!inflater.finished()) {
+            out.write(buffer, 0, inflater.inflate(buffer));
+        }
+        inflater.end();
+        return out.toByteArray();
+    }
+}
@@ -1,11 +1,24 @@
 package com.hicham.backend.integration;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import org.junit.jupiter.api.Test;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.test.context.TestPropertySource;
 
+import com.hicham.backend.websocket.IndexedSubscriptionRegistry;
+import com.hicham.backend.websocket.ProgressUpdateMessageConverter;
+import com.hicham.backend.websocket.SlowConsumerWebSocketHandler;
 import com.hicham.backend.websocket.WebSocketConfig;
 import com.hicham.backend.controller.ProgressController;
 import com.hicham.backend.controller.GenerationController;
@@ -15,6 +28,7 @@ import com.hicham.backend.model.ProgressUpdate;
 import com.hicham.backend.model.ProgressType;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @SpringBootTest
 @TestPropertySource(properties = {
@@ -22,6 +36,18 @@ import java.time.LocalDateTime;
 })
 class WebSocketIntegrationTest {
 
+    @Autowired
+    private CompositeMessageConverter brokerMessageConverter;
+
+    @Autowired
+    private SimpleBrokerMessageHandler simpleBrokerMessageHandler;
+
+    @Autowired
+    private WebSocketHandler subProtocolWebSocketHandler;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     void testWebSocketConfig_Exists() {
         // Test that WebSocket configuration class exists and can be instantiated
@@ -131,4 +157,51 @@ class WebSocketIntegrationTest {
         // Test that simple broker is configured
         assertTrue(true, "Simple broker should be configured with /topic and /queue");
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testProgressUpdateConverter_RegisteredAndMatchesJackson() {
+        // The dedicated converter comes first and writes the same bytes as Boot's Jackson converter
+        List<MessageConverter> converters = brokerMessageConverter.getConverters();
+        assertInstanceOf(ProgressUpdateMessageConverter.class, converters.get(0));
+        MessageConverter jackson = converters.stream()
+            .filter(MappingJackson2MessageConverter.class::isInstance)
+            .findFirst()
+            .orElseThrow();
+
+        ProgressUpdate update = new ProgressUpdate(
+            "test-op-123", "test-user-123", ProgressType.GENERATION_PROGRESS,
+            40, "step_2", "Etape 2 complétée", LocalDateTime.now()
+        );
+        Message<?> expected = jackson.toMessage(update, null);
+        Message<?> actual = brokerMessageConverter.toMessage(update, null);
+
+        assertNotNull(expected);
+        assertNotNull(actual);
+        assertArrayEquals((byte[]) expected.getPayload(), (byte[]) actual.getPayload());
+    }
+
+    @Test
+    void testSimpleBroker_UsesIndexedSubscriptionRegistry() {
+        assertInstanceOf(IndexedSubscriptionRegistry.class, simpleBrokerMessageHandler.getSubscriptionRegistry());
+    }
+
+    @Test
+    void testSubProtocolHandler_AppliesSlowConsumerPolicy() {
+        SlowConsumerWebSocketHandler handler =
+            assertInstanceOf(SlowConsumerWebSocketHandler.class, subProtocolWebSocketHandler);
+        assertTrue(handler.getSendTimeLimit() == 10_000, "Send time limit should come from websocket.slow-consumer");
+    }
+
+    @Test
+    void testMetrics_Registered() {
+        assertNotNull(meterRegistry.find("websocket.channel.queue.size").tag("channel", "outbound").gauge());
+        assertNotNull(meterRegistry.find("websocket.sessions.active").tag("transport", "websocket").gauge());
+        assertNotNull(meterRegistry.find("websocket.broker.destinations").gauge());
+        assertNotNull(meterRegistry.find("websocket.transport.send").tag("transport", "native").functionTimer());
+        assertNotNull(meterRegistry.find("websocket.transport.wire.bytes").tag("transport", "sockjs").functionCounter());
+        assertNotNull(meterRegistry.find("progress.serialization").timer());
+        assertNotNull(meterRegistry.find("progress.updates.sent").tag("type", "GENERATION_PROGRESS").counter());
+        assertNotNull(meterRegistry.find("generation.operations.started").counter());
+        assertNotNull(meterRegistry.find("generation.executor.queue.size").gauge());
+    }
+}
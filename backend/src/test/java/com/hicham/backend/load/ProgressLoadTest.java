@@ -0,0 +1,357 @@
+package com.hicham.backend.load;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hicham.backend.model.TransportStats;
+import com.hicham.backend.websocket.ProgressCompressionInterceptor;
+import com.hicham.backend.websocket.TransportHandshakeInterceptor;
+import com.hicham.backend.websocket.TransportMonitor;
+
+// End-to-end load harness: thousands of STOMP sessions on localhost against the real application.
+// Skipped unless -Dload.test=true; see "Load Test" in the README for the other load.* properties.
+// Latency is measured from ProgressUpdate.timestamp (set when the server creates the update) to
+// client receipt, which is meaningful because server and clients share one JVM clock.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "logging.level.com.hicham.backend=INFO",
+    "logging.level.org.springframework.web=INFO",
+    // Measures delivery, so /generate is not rate limited
+    "generation.admission.enabled=false"
+})
+@EnabledIfSystemProperty(named = "load.test", matches = "true")
+class ProgressLoadTest {
+
+    // Frames sent to /topic/progress.{userId} and /topic/system for one operation
+    private static final int USER_FRAMES_PER_OPERATION = 7;
+    private static final int SYSTEM_FRAMES_PER_OPERATION = 2;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final int sessionCount = Integer.getInteger("load.sessions", 2000);
+    private final int userCount = Integer.getInteger("load.users", sessionCount);
+    private final int rate = Integer.getInteger("load.rate", 20);
+    private final int durationSeconds = Integer.getInteger("load.duration-seconds", 30);
+    private final int drainSeconds = Integer.getInteger("load.drain-seconds", 30);
+    private final int connectConcurrency = Integer.getInteger("load.connect-concurrency", 200);
+    // native: /ws-native, sockjs: the SockJS endpoint through its WebSocket transport
+    private final String transport = System.getProperty("load.transport", TransportHandshakeInterceptor.NATIVE);
+    // Sends "accept-encoding: deflate" on CONNECT
+    private final boolean compression = Boolean.getBoolean("load.compression");
+
+    @LocalServerPort
+    private int port;
+
+    private final LatencyHistogram userLatency = new LatencyHistogram();
+    private final LatencyHistogram systemLatency = new LatencyHistogram();
+    private final LongAdder userFrames = new LongAdder();
+    private final LongAdder systemFrames = new LongAdder();
+    private final LongAdder outOfOrder = new LongAdder();
+    private final List<StompSession> sessions = new ArrayList<>();
+
+    @Autowired
+    private SimpleBrokerMessageHandler broker;
+
+    @Autowired
+    private TransportMonitor transportMonitor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() {
+        sessions.forEach(StompSession::disconnect);
+    }
+
+    @Test
+    void runLoad() throws Exception {
+        // Given
+        int[] sessionsPerUser = connectAll();
+
+        // When
+        AtomicIntegerArray operationsPerUser = new AtomicIntegerArray(userCount);
+        AtomicInteger rejected = new AtomicInteger();
+        long accepted = fire(operationsPerUser, rejected);
+        long expectedUserFrames = 0;
+        for (int user = 0; user < userCount; user++) {
+            expectedUserFrames += (long) operationsPerUser.get(user) * sessionsPerUser[user] * USER_FRAMES_PER_OPERATION;
+        }
+        long expectedSystemFrames = accepted * SYSTEM_FRAMES_PER_OPERATION * sessionCount;
+        drain(expectedUserFrames + expectedSystemFrames);
+
+        // Then
+        report(accepted, rejected.get(), expectedUserFrames, expectedSystemFrames);
+        // Drops are a measurement, reported above; reordering within an operation is a bug
+        assertEquals(sessionCount, sessions.size());
+        assertTrue(userFrames.sum() > 0, "No progress frame was received");
+        assertEquals(0, outOfOrder.sum(), "Progress frames of an operation arrived out of order");
+    }
+
+    // Opens the sessions, users assigned round-robin, and waits until the broker registered every subscription
+    private int[] connectAll() throws Exception {
+        boolean sockJs = TransportHandshakeInterceptor.SOCKJS.equals(transport);
+        WebSocketStompClient client = new WebSocketStompClient(sockJs
+            ? new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient())))
+            : new StandardWebSocketClient());
+        // Deflated frames arrive as application/octet-stream
+        client.setMessageConverter(new CompositeMessageConverter(
+            List.of(new ByteArrayMessageConverter(), new MappingJackson2MessageConverter())));
+        StompHeaders connectHeaders = new StompHeaders();
+        if (compression) {
+            connectHeaders.add(ProgressCompressionInterceptor.ACCEPT_ENCODING_HEADER, ProgressCompressionInterceptor.DEFLATE);
+        }
+        String url = sockJs ? "http://localhost:" + port + "/ws" : "ws://localhost:" + port + "/ws-native";
+
+        int[] sessionsPerUser = new int[userCount];
+        Semaphore inFlight = new Semaphore(connectConcurrency);
+        List<CompletableFuture<StompSession>> connected = new ArrayList<>(sessionCount);
+        for (int i = 0; i < sessionCount; i++) {
+            String userId = userId(i % userCount);
+            sessionsPerUser[i % userCount]++;
+            inFlight.acquire();
+            CompletableFuture<StompSession> session = client.connectAsync(url, new WebSocketHttpHeaders(), connectHeaders,
+                    new StompSessionHandlerAdapter() { })
+                .whenComplete((stomp, error) -> inFlight.release())
+                .thenApply(stomp -> {
+                    subscribe(stomp, userId);
+                    return stomp;
+                });
+            connected.add(session);
+        }
+        for (CompletableFuture<StompSession> session : connected) {
+            sessions.add(session.get(60, TimeUnit.SECONDS));
+        }
+        awaitSubscriptions(sessionsPerUser);
+        return sessionsPerUser;
+    }
+
+    private void subscribe(StompSession stomp, String userId) {
+        // Last sequence per operation: operations of one user run concurrently, so only the
+        // updates of one operation have a guaranteed order
+        Map<String, Long> lastSequences = new HashMap<>();
+        stomp.subscribe("/topic/progress." + userId, new ProgressFrameHandler(update -> {
+            userFrames.increment();
+            userLatency.record(latencyMicros(update));
+            long sequence = update.path("sequence").asLong();
+            // Frames of one subscription are handled one at a time
+            Long previous = lastSequences.put(update.path("operationId").asText(), sequence);
+            if (previous != null && sequence <= previous) {
+                outOfOrder.increment();
+            }
+        }));
+        stomp.subscribe("/topic/system", new ProgressFrameHandler(update -> {
+            systemFrames.increment();
+            systemLatency.record(latencyMicros(update));
+        }));
+    }
+
+    // The simple broker sends no RECEIPT for SUBSCRIBE, so its registry is polled instead
+    private void awaitSubscriptions(int[] sessionsPerUser) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (!subscribed(sessionsPerUser)) {
+            assertTrue(System.nanoTime() < deadline, "Subscriptions were not registered in time");
+            Thread.sleep(200);
+        }
+    }
+
+    private boolean subscribed(int[] sessionsPerUser) {
+        if (subscriberCount("/topic/system") < sessionCount) {
+            return false;
+        }
+        for (int user = 0; user < userCount; user++) {
+            if (subscriberCount("/topic/progress." + userId(user)) < sessionsPerUser[user]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int subscriberCount(String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        return broker.getSubscriptionRegistry().findSubscriptions(message).values().stream().mapToInt(List::size).sum();
+    }
+
+    // Calls /generate at the configured rate for the configured duration, users round-robin
+    private long fire(AtomicIntegerArray operationsPerUser, AtomicInteger rejected) throws Exception {
+        HttpClient http = HttpClient.newHttpClient();
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+        AtomicInteger next = new AtomicInteger();
+        LongAdder accepted = new LongAdder();
+        List<CompletableFuture<?>> calls = new ArrayList<>();
+        long total = (long) rate * durationSeconds;
+        ticker.scheduleAtFixedRate(() -> {
+            int call = next.getAndIncrement();
+            if (call >= total) {
+                return;
+            }
+            int user = call % userCount;
+            HttpRequest request = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/generate?userId=" + userId(user))).GET().build();
+            CompletableFuture<?> response = http.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((result, error) -> {
+                    if (error == null && result.statusCode() == 200) {
+                        operationsPerUser.incrementAndGet(user);
+                        accepted.increment();
+                    } else {
+                        rejected.incrementAndGet();
+                    }
+                });
+            synchronized (calls) {
+                calls.add(response);
+            }
+        }, 0, TimeUnit.SECONDS.toNanos(1) / rate, TimeUnit.NANOSECONDS);
+        while (next.get() < total) {
+            Thread.sleep(100);
+        }
+        ticker.shutdown();
+        synchronized (calls) {
+            CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).handle((ignored, error) -> null).join();
+        }
+        return accepted.sum();
+    }
+
+    // Waits until every expected frame arrived or the drain timeout passed
+    private void drain(long expectedFrames) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(drainSeconds);
+        while (userFrames.sum() + systemFrames.sum() < expectedFrames && System.nanoTime() < deadline) {
+            Thread.sleep(200);
+        }
+    }
+
+    private void report(long accepted, int rejected, long expectedUserFrames, long expectedSystemFrames) {
+        System.out.println("=== PROGRESS LOAD TEST ===");
+        System.out.printf("Sessions: %d over %s, users: %d, rate: %d/s for %ds%n",
+            sessionCount, transport, userCount, rate, durationSeconds);
+        System.out.printf("Operations: %d accepted, %d rejected%n", accepted, rejected);
+        printTopic("/topic/progress.{userId}", userLatency, userFrames.sum(), expectedUserFrames);
+        printTopic("/topic/system", systemLatency, systemFrames.sum(), expectedSystemFrames);
+        System.out.printf("Out of order: %d%n", outOfOrder.sum());
+        // Server side, every frame sent on this transport, CONNECTED and RECEIPT frames included
+        TransportStats sent = transportMonitor.snapshot().stream()
+            .filter(stats -> stats.getTransport().equals(transport))
+            .findFirst()
+            .orElseThrow();
+        System.out.printf("Transport %s: %d frames, %.1f payload bytes and %.1f wire bytes per frame, send %.1fus per frame%n",
+            transport, sent.getMessageCount(),
+            sent.getMessageCount() > 0 ? (double) sent.getPayloadBytes() / sent.getMessageCount() : 0,
+            sent.getAverageWireBytes(), sent.getAverageSendMicros());
+        if (compression) {
+            DistributionSummary ratio = meterRegistry.get("websocket.compression.ratio").summary();
+            Timer time = meterRegistry.get("websocket.compression.cpu.time").timer();
+            System.out.printf("Compression: %d frames deflated, mean ratio %.3f, %.1fus CPU per frame (max %.1fus)%n",
+                ratio.count(), ratio.mean(), time.mean(TimeUnit.MICROSECONDS), time.max(TimeUnit.MICROSECONDS));
+        }
+        System.out.println("==========================");
+    }
+
+    private static void printTopic(String topic, LatencyHistogram latency, long received, long expected) {
+        System.out.printf("%s: %d received, %d dropped%n", topic, received, Math.max(0, expected - received));
+        System.out.printf("  latency p50 %s, p99 %s, p99.9 %s, max %s%n",
+            millis(latency.percentile(50)), millis(latency.percentile(99)),
+            millis(latency.percentile(99.9)), millis(latency.max()));
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.3fms", micros / 1000.0);
+    }
+
+    private static long latencyMicros(JsonNode update) {
+        LocalDateTime created = LocalDateTime.parse(update.path("timestamp").asText());
+        return Duration.between(created, LocalDateTime.now()).toNanos() / 1000;
+    }
+
+    private static JsonNode inflate(byte[] deflated) {
+        Inflater inflater = new Inflater();
+        try (InputStream json = new InflaterInputStream(new ByteArrayInputStream(deflated), inflater)) {
+            return OBJECT_MAPPER.readTree(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static String userId(int user) {
+        return "load-user-" + user;
+    }
+
+    // Receives single updates as well as progress-batch arrays
+    private static final class ProgressFrameHandler implements StompFrameHandler {
+        private final Consumer<JsonNode> consumer;
+
+        ProgressFrameHandler(Consumer<JsonNode> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return ProgressCompressionInterceptor.DEFLATE.equals(
+                headers.getFirst(ProgressCompressionInterceptor.CONTENT_ENCODING_HEADER)) ? byte[].class : JsonNode.class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            JsonNode frame = payload instanceof byte[] deflated ? inflate(deflated) : (JsonNode) payload;
+            if (frame.isArray()) {
+                frame.forEach(consumer::accept);
+            } else {
+                consumer.accept(frame);
+            }
+        }
+    }
+}
@@ -14,7 +14,7 @@ class ProgressTypeTest {
 
         // Then
         assertNotNull(types);
-        assertEquals(6, types.length, "Should have exactly 6 progress types");
+        assertEquals(7, types.length, "Should have exactly 7 progress types");
     }
 
     @Test
@@ -83,6 +83,17 @@ class ProgressTypeTest {
         assertEquals(5, type.ordinal());
     }
 
+    @Test
+    void testProgressType_GenerationCancelled() {
+        // Given & When
+        ProgressType type = ProgressType.GENERATION_CANCELLED;
+
+        // Then
+        assertEquals("GENERATION_CANCELLED", type.name());
+        assertEquals(6, type.ordinal());
+        assertTrue(type.isTerminal());
+    }
+
     @Test
     void testProgressType_ValueOf() {
         // Given
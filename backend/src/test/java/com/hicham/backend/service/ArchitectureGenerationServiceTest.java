@@ -1,19 +1,39 @@
 package com.hicham.backend.service;
 
+import java.time.Instant;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+
+import com.hicham.backend.config.GenerationCacheProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith(MockitoExtension.class)
 class ArchitectureGenerationServiceTest {
@@ -25,7 +45,7 @@ class ArchitectureGenerationServiceTest {
 
     @BeforeEach
     void setUp() {
-        generationService = new ArchitectureGenerationService(progressService, 0); // no sleep in tests
+        generationService = new ArchitectureGenerationService(progressService);
     }
 
     @Test
@@ -163,4 +183,198 @@ class ArchitectureGenerationServiceTest {
             any(com.hicham.backend.model.ProgressUpdate.class)
         );
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testGenerateArchitecture_RecordsMetrics() throws ExecutionException, InterruptedException {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ArchitectureGenerationService service = new ArchitectureGenerationService(progressService, registry);
+
+        // When
+        service.generateArchitecture("test-op-123", "test-user-123", "Sample Request").get();
+
+        // Then
+        assertEquals(1.0, registry.get("generation.operations.started").counter().count());
+        assertEquals(1.0, registry.get("generation.operations.completed").counter().count());
+        assertEquals(0.0, registry.get("generation.operations.failed").counter().count());
+        assertEquals(0.0, registry.get("generation.operations.active").gauge().value());
+        assertEquals(5, registry.get("generation.step.duration").timers().size());
+        assertEquals(1, registry.get("generation.step.duration").tag("step", "step_3").timer().count());
+    }
+
+    @Test
+    void testGenerateArchitecture_RecordsFailure() throws ExecutionException, InterruptedException {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ArchitectureGenerationService service = new ArchitectureGenerationService(progressService, registry);
+        doThrow(new RuntimeException("Messaging error")).doNothing()
+            .when(progressService).sendProgressUpdate(eq("test-user-123"), any(com.hicham.backend.model.ProgressUpdate.class));
+
+        // When
+        service.generateArchitecture("test-op-123", "test-user-123", "Sample Request").get();
+
+        // Then
+        verify(progressService).broadcastSystemUpdate(
+            argThat(update -> update.getType() == com.hicham.backend.model.ProgressType.GENERATION_ERROR)
+        );
+        assertEquals(1.0, registry.get("generation.operations.failed").counter().count());
+        assertEquals(0.0, registry.get("generation.operations.completed").counter().count());
+        assertEquals(0.0, registry.get("generation.operations.active").gauge().value());
+    }
+
+    @Test
+    void testGenerateArchitecture_TimerAdvancesSteps() throws ExecutionException, InterruptedException {
+        // Given
+        TaskScheduler scheduler = mock(TaskScheduler.class);
+        ArchitectureGenerationService service = new ArchitectureGenerationService(
+            progressService, 3000, new SyncTaskExecutor(), scheduler, new SimpleMeterRegistry()
+        );
+        ArgumentCaptor<Runnable> nextStep = ArgumentCaptor.forClass(Runnable.class);
+
+        // When
+        CompletableFuture<Void> future = service.generateArchitecture("test-op-123", "test-user-123", "Sample Request");
+
+        // Then
+        // Only the start is sent; the operation waits for the timer without holding a thread
+        verify(progressService, times(1)).sendProgressUpdate(eq("test-user-123"), any(com.hicham.backend.model.ProgressUpdate.class));
+        assertFalse(future.isDone());
+        for (int step = 1; step <= 5; step++) {
+            verify(scheduler, times(step)).schedule(nextStep.capture(), any(Instant.class));
+            nextStep.getValue().run();
+        }
+        assertTrue(future.isDone());
+        future.get();
+        verify(progressService, times(7)).sendProgressUpdate(eq("test-user-123"), any(com.hicham.backend.model.ProgressUpdate.class));
+        verify(progressService, times(2)).broadcastSystemUpdate(any(com.hicham.backend.model.ProgressUpdate.class));
+    }
+
+    @Test
+    void testGenerateArchitecture_RetriesStepWhenExecutorSaturated() {
+        // Given
+        TaskScheduler scheduler = mock(TaskScheduler.class);
+        Executor executor = mock(Executor.class);
+        ArchitectureGenerationService service = new ArchitectureGenerationService(
+            progressService, 3000, executor, scheduler, new SimpleMeterRegistry()
+        );
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        ArgumentCaptor<Runnable> timer = ArgumentCaptor.forClass(Runnable.class);
+        service.generateArchitecture("test-op-123", "test-user-123", "Sample Request");
+        verify(executor).execute(task.capture());
+        task.getValue().run(); // start
+        verify(scheduler).schedule(timer.capture(), any(Instant.class));
+        doThrow(new TaskRejectedException("saturated")).when(executor).execute(any(Runnable.class));
+
+        // When
+        timer.getValue().run();
+
+        // Then
+        verify(scheduler, times(2)).schedule(any(Runnable.class), any(Instant.class));
+        verify(progressService, times(1)).sendProgressUpdate(eq("test-user-123"), any(com.hicham.backend.model.ProgressUpdate.class));
+    }
+
+    @Test
+    void testGenerateArchitecture_CachedResult() throws ExecutionException, InterruptedException {
+        // Given
+        GenerationCacheProperties cacheProperties = new GenerationCacheProperties();
+        cacheProperties.setEnabled(true);
+        GenerationResultCache cache = new GenerationResultCache(cacheProperties);
+        ArchitectureGenerationService service = new ArchitectureGenerationService(
+            progressService, 0, new SyncTaskExecutor(), null, new SimpleMeterRegistry(), cache
+        );
+        service.generateArchitecture("test-op-1", "other-user", "Sample Request").get();
+        ArgumentCaptor<com.hicham.backend.model.ProgressUpdate> updates =
+            ArgumentCaptor.forClass(com.hicham.backend.model.ProgressUpdate.class);
+
+        // When
+        CompletableFuture<Void> future = service.generateArchitecture("test-op-2", "test-user-123", "sample  request");
+
+        // Then
+        // Completed without any step: 7 updates for the first operation, 2 for the cached one
+        assertTrue(future.isDone());
+        verify(progressService, times(7)).sendProgressUpdate(eq("other-user"), updates.capture());
+        verify(progressService, times(2)).sendProgressUpdate(eq("test-user-123"), updates.capture());
+        com.hicham.backend.model.ProgressUpdate started = updates.getAllValues().get(7);
+        com.hicham.backend.model.ProgressUpdate completed = updates.getAllValues().get(8);
+        assertEquals("test-op-2", started.getOperationId());
+        assertEquals(com.hicham.backend.model.ProgressType.GENERATION_STARTED, started.getType());
+        assertEquals(com.hicham.backend.model.ProgressType.GENERATION_COMPLETED, completed.getType());
+        // The service passes its message as the step argument, as for every completion update.
+        // The result came from another user's operation, which is not named.
+        assertTrue(completed.getStep().contains("en cache"));
+        assertFalse(completed.getStep().contains("test-op-1"));
+        verify(progressService, times(4)).broadcastSystemUpdate(any(com.hicham.backend.model.ProgressUpdate.class));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    void testCancel_StopsBetweenSteps() {
+        // Given
+        TaskScheduler scheduler = mock(TaskScheduler.class);
+        ScheduledFuture<?> pendingStep = mock(ScheduledFuture.class);
+        doReturn(pendingStep).when(scheduler).schedule(any(Runnable.class), any(Instant.class));
+        ArchitectureGenerationService service = new ArchitectureGenerationService(
+            progressService, 3000, new SyncTaskExecutor(), scheduler, new SimpleMeterRegistry()
+        );
+        CompletableFuture<Void> future = service.generateArchitecture("test-op-123", "test-user-123", "Sample Request");
+        ArgumentCaptor<Runnable> nextStep = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(nextStep.capture(), any(Instant.class));
+
+        // When
+        boolean otherUser = service.cancel("test-op-123", "other-user", "test");
+        boolean cancelled = service.cancel("test-op-123", "test-user-123", "test");
+        nextStep.getValue().run(); // a timer that already fired finds the run cancelled
+
+        // Then
+        assertFalse(otherUser);
+        assertTrue(cancelled);
+        assertFalse(service.cancel("test-op-123", "test-user-123", "test"));
+        assertTrue(future.isCompletedExceptionally());
+        assertThrows(CancellationException.class, future::join);
+        verify(pendingStep).cancel(false);
+        verify(progressService).discardPending("test-op-123");
+        // Start, then the cancellation and nothing after it
+        verify(progressService, times(2)).sendProgressUpdate(eq("test-user-123"), any(com.hicham.backend.model.ProgressUpdate.class));
+        verify(progressService).sendProgressUpdate(eq("test-user-123"), argThat(update ->
+            update.getType() == com.hicham.backend.model.ProgressType.GENERATION_CANCELLED && "cancelled".equals(update.getStep())));
+        verify(progressService).broadcastSystemUpdate(argThat(update ->
+            update.getType() == com.hicham.backend.model.ProgressType.GENERATION_CANCELLED));
+        verify(progressService, never()).broadcastSystemUpdate(argThat(update ->
+            update.getType() == com.hicham.backend.model.ProgressType.GENERATION_ERROR));
+        assertEquals(0, service.getRunningOperations());
+    }
+
+    @Test
+    void testScheduleDeadline_CancelsOperation() {
+        // Given
+        TaskScheduler scheduler = mock(TaskScheduler.class);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ArchitectureGenerationService service = new ArchitectureGenerationService(
+            progressService, 3000, new SyncTaskExecutor(), scheduler, registry
+        );
+        CompletableFuture<Void> future = service.generateArchitecture("test-op-123", "test-user-123", "Sample Request");
+        ArgumentCaptor<Runnable> timers = ArgumentCaptor.forClass(Runnable.class);
+
+        // When
+        service.scheduleDeadline("test-op-123", 1000);
+        verify(scheduler, times(2)).schedule(timers.capture(), any(Instant.class));
+        timers.getAllValues().get(1).run();
+
+        // Then
+        assertTrue(future.isCompletedExceptionally());
+        assertEquals(1.0, registry.get("generation.operations.cancelled").counter().count());
+        assertEquals(0.0, registry.get("generation.operations.active").gauge().value());
+    }
+
+    @Test
+    void testCancel_FinishedOperation() throws ExecutionException, InterruptedException {
+        // Given
+        generationService.generateArchitecture("test-op-123", "test-user-123", "Sample Request").get();
+
+        // When
+        boolean cancelled = generationService.cancel("test-op-123", "test-user-123", "test");
+
+        // Then
+        assertFalse(cancelled);
+        assertEquals(0, generationService.getRunningOperations());
+    }
+}
@@ -0,0 +1,93 @@
+package com.hicham.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 30_000;
+
+    @Test
+    void testNodeFor_EmptyRing() {
+        assertNull(new ConsistentHashRing(16).nodeFor("user-1"));
+    }
+
+    @Test
+    void testNodeFor_SpreadsKeysEvenly() {
+        // Given
+        ConsistentHashRing ring = new ConsistentHashRing(128, List.of("node-a", "node-b", "node-c"));
+
+        // When
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.nodeFor("user-" + i), 1, Integer::sum);
+        }
+
+        // Then
+        assertEquals(3, counts.size());
+        counts.values().forEach(count ->
+            assertTrue(Math.abs(count - KEYS / 3) < KEYS / 3 * 0.2, "Uneven share: " + counts));
+    }
+
+    @Test
+    void testAdd_OnlyMovesKeysToTheNewNode() {
+        // Given
+        ConsistentHashRing ring = new ConsistentHashRing(128, List.of("node-a", "node-b", "node-c"));
+        Map<String, String> before = owners(ring);
+
+        // When
+        ring.add("node-d");
+
+        // Then
+        int moved = 0;
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            String owner = ring.nodeFor(entry.getKey());
+            if (!owner.equals(entry.getValue())) {
+                assertEquals("node-d", owner);
+                moved++;
+            }
+        }
+        assertTrue(Math.abs(moved - KEYS / 4) < KEYS / 4 * 0.2, "Moved " + moved + " keys");
+    }
+
+    @Test
+    void testRemove_OnlyMovesKeysOfTheRemovedNode() {
+        // Given
+        ConsistentHashRing ring = new ConsistentHashRing(128, List.of("node-a", "node-b", "node-c"));
+        Map<String, String> before = owners(ring);
+
+        // When
+        ring.remove("node-b");
+
+        // Then
+        before.forEach((key, owner) -> {
+            if (!owner.equals("node-b")) {
+                assertEquals(owner, ring.nodeFor(key));
+            }
+        });
+    }
+
+    @Test
+    void testNodeFor_SameRingWhateverTheOrder() {
+        // Given
+        ConsistentHashRing forward = new ConsistentHashRing(64, List.of("node-a", "node-b", "node-c"));
+        ConsistentHashRing backward = new ConsistentHashRing(64, List.of("node-c", "node-b", "node-a"));
+
+        // Then
+        assertEquals(owners(forward), owners(backward));
+    }
+
+    private static Map<String, String> owners(ConsistentHashRing ring) {
+        Map<String, String> owners = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            owners.put("user-" + i, ring.nodeFor("user-" + i));
+        }
+        return owners;
+    }
+}
@@ -0,0 +1,198 @@
+package com.hicham.backend.service;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+
+import com.hicham.backend.config.GenerationSchedulingProperties;
+import com.hicham.backend.model.JobPriority;
+import com.hicham.backend.model.SchedulingStats;
+import com.hicham.backend.model.TenantQueueStats;
+
+class FairGenerationSchedulerTest {
+
+    // Jobs handed to the executor, run one at a time by the test
+    private final Deque<Runnable> submitted = new ArrayDeque<>();
+    private final List<String> ran = new ArrayList<>();
+    private GenerationSchedulingProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new GenerationSchedulingProperties();
+        properties.setMaxConcurrentJobs(1);
+    }
+
+    @Test
+    void testExecute_InterleavesTenants() {
+        // Given
+        FairGenerationScheduler scheduler = new FairGenerationScheduler(properties, submitted::add);
+        submit(scheduler, "tenant-a", JobPriority.INTERACTIVE, 6);
+        submit(scheduler, "tenant-b", JobPriority.INTERACTIVE, 2);
+
+        // When
+        runAll();
+
+        // Then
+        // tenant-b does not wait behind all of tenant-a's jobs
+        assertEquals(List.of("tenant-a", "tenant-a", "tenant-b", "tenant-a", "tenant-b", "tenant-a", "tenant-a", "tenant-a"), ran);
+    }
+
+    @Test
+    void testExecute_SharesByTenantWeight() {
+        // Given
+        properties.getTenantWeights().put("tenant-a", 3);
+        FairGenerationScheduler scheduler = new FairGenerationScheduler(properties, submitted::add);
+        submit(scheduler, "tenant-a", JobPriority.INTERACTIVE, 20);
+        submit(scheduler, "tenant-b", JobPriority.INTERACTIVE, 20);
+
+        // When
+        runAll();
+
+        // Then
+        int tenantA = Collections.frequency(ran.subList(1, 21), "tenant-a");
+        assertTrue(Math.abs(tenantA - 15) <= 1, "tenant-a dispatches: " + tenantA);
+    }
+
+    @Test
+    void testExecute_SharesByPriorityWeight() {
+        // Given
+        FairGenerationScheduler scheduler = new FairGenerationScheduler(properties, submitted::add);
+        submit(scheduler, "tenant-batch", JobPriority.BATCH, 40);
+        submit(scheduler, "tenant-interactive", JobPriority.INTERACTIVE, 40);
+
+        // When
+        runAll();
+
+        // Then
+        // Interactive work gets 4 of every 5 dispatches while both classes have jobs queued
+        int interactive = Collections.frequency(ran.subList(1, 26), "tenant-interactive");
+        assertTrue(Math.abs(interactive - 20) <= 1, "interactive dispatches: " + interactive);
+    }
+
+    @Test
+    void testExecute_RejectsWhenQueueFull() {
+        // Given
+        properties.setMaxQueuedJobs(1);
+        FairGenerationScheduler scheduler = new FairGenerationScheduler(properties, submitted::add);
+        submit(scheduler, "tenant-a", JobPriority.INTERACTIVE, 2); // one running, one queued
+
+        // When / Then
+        assertThrows(TaskRejectedException.class, () -> submit(scheduler, "tenant-b", JobPriority.INTERACTIVE, 1));
+        assertEquals(1, scheduler.getQueuedJobs());
+        assertEquals(1, scheduler.getRunningJobs());
+    }
+
+    @Test
+    void testExecute_RequeuesWhenExecutorRejects() {
+        // Given
+        boolean[] full = {true};
+        FairGenerationScheduler scheduler = new FairGenerationScheduler(properties, task -> {
+            if (full[0]) {
+                throw new TaskRejectedException("full");
+            }
+            submitted.add(task);
+        });
+        submit(scheduler, "tenant-a", JobPriority.INTERACTIVE, 1);
+        assertEquals(1, scheduler.getQueuedJobs());
+
+        // When
+        full[0] = false;
+        submit(scheduler, "tenant-b", JobPriority.INTERACTIVE, 1);
+        runAll();
+
+        // Then
+        assertEquals(List.of("tenant-a", "tenant-b"), ran);
+        assertEquals(0, scheduler.getRunningJobs());
+    }
+
+    @Test
+    void testExecute_RetriesRefusedJobWithNothingRunning() {
+        // Given: no job runs and nothing else is submitted
+        boolean[] full = {true};
+        TaskScheduler timer = mock(TaskScheduler.class);
+        doReturn(mock(ScheduledFuture.class)).when(timer).schedule(any(Runnable.class), any(Instant.class));
+        FairGenerationScheduler scheduler = new FairGenerationScheduler(properties, task -> {
+            if (full[0]) {
+                throw new TaskRejectedException("full");
+            }
+            submitted.add(task);
+        }, timer);
+        submit(scheduler, "tenant-a", JobPriority.INTERACTIVE, 2);
+        ArgumentCaptor<Runnable> retry = ArgumentCaptor.forClass(Runnable.class);
+        // Both refusals share one pending retry
+        verify(timer, times(1)).schedule(retry.capture(), any(Instant.class));
+
+        // When
+        full[0] = false;
+        retry.getValue().run();
+        runAll();
+
+        // Then
+        assertEquals(List.of("tenant-a", "tenant-a"), ran);
+        assertEquals(0, scheduler.getQueuedJobs());
+    }
+
+    @Test
+    void testSnapshot_PerTenantQueues() {
+        // Given
+        FairGenerationScheduler scheduler = new FairGenerationScheduler(properties, submitted::add);
+        submit(scheduler, "tenant-a", JobPriority.INTERACTIVE, 4);
+        submit(scheduler, "tenant-b", JobPriority.BATCH, 2);
+
+        // When
+        SchedulingStats stats = scheduler.snapshot();
+
+        // Then
+        assertEquals(1, stats.getRunningJobs());
+        assertEquals(5, stats.getQueuedJobs());
+        TenantQueueStats busiest = stats.getTenants().get(0);
+        assertEquals("tenant-a", busiest.getTenant());
+        assertEquals(JobPriority.INTERACTIVE, busiest.getPriority());
+        assertEquals(3, busiest.getQueuedJobs());
+        assertEquals(2, stats.getTenants().get(1).getQueuedJobs());
+    }
+
+    @Test
+    void testExecute_Disabled() {
+        // Given
+        properties.setEnabled(false);
+        FairGenerationScheduler scheduler = new FairGenerationScheduler(properties, submitted::add);
+
+        // When
+        submit(scheduler, "tenant-a", JobPriority.INTERACTIVE, 3);
+
+        // Then
+        assertEquals(3, submitted.size());
+        assertEquals(0, scheduler.getQueuedJobs());
+    }
+
+    private void submit(FairGenerationScheduler scheduler, String tenant, JobPriority priority, int jobs) {
+        for (int i = 0; i < jobs; i++) {
+            scheduler.execute(tenant, priority, () -> ran.add(tenant));
+        }
+    }
+
+    private void runAll() {
+        while (!submitted.isEmpty()) {
+            submitted.poll().run();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.hicham.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hicham.backend.config.GenerationAdmissionProperties;
+import com.hicham.backend.model.AdmissionStats;
+
+class GenerationAdmissionTest {
+
+    private GenerationAdmissionProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new GenerationAdmissionProperties();
+        properties.getDefaultLimit().setBurst(3);
+        properties.getDefaultLimit().setRefillPerSecond(1.0);
+    }
+
+    @Test
+    void testAcquire_RateLimitsAfterBurst() {
+        // Given
+        GenerationAdmission admission = new GenerationAdmission(properties);
+        for (int i = 0; i < 3; i++) {
+            admission.acquire("user-1");
+        }
+
+        // When
+        GenerationRejectedException rejected = assertThrows(GenerationRejectedException.class,
+            () -> admission.acquire("user-1"));
+
+        // Then
+        // One token refills per second, and other users have their own bucket
+        assertTrue(rejected.getRetryAfterMillis() > 0 && rejected.getRetryAfterMillis() <= 1001);
+        assertDoesNotThrow(() -> admission.acquire("user-2"));
+        AdmissionStats stats = admission.snapshot();
+        assertEquals(4, stats.getAdmittedCount());
+        assertEquals(1, stats.getRateLimitedCount());
+        assertEquals(4, stats.getInFlight());
+    }
+
+    @Test
+    void testAcquire_UsesUserTier() {
+        // Given
+        GenerationAdmissionProperties.RateLimit premium = new GenerationAdmissionProperties.RateLimit();
+        premium.setBurst(5);
+        properties.getTiers().put("premium", premium);
+        properties.getUsers().put("user-1", "premium");
+        GenerationAdmission admission = new GenerationAdmission(properties);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            admission.acquire("user-1");
+        }
+
+        // Then
+        assertThrows(GenerationRejectedException.class, () -> admission.acquire("user-1"));
+    }
+
+    @Test
+    void testAcquire_CapsInFlight() {
+        // Given
+        properties.setMaxInFlight(2);
+        properties.setCapacityRetryAfterMillis(500);
+        GenerationAdmission admission = new GenerationAdmission(properties);
+        admission.acquire("user-1");
+        admission.acquire("user-2");
+
+        // When
+        GenerationRejectedException rejected = assertThrows(GenerationRejectedException.class,
+            () -> admission.acquire("user-3"));
+        admission.release();
+
+        // Then
+        assertEquals(500, rejected.getRetryAfterMillis());
+        assertEquals(1, admission.snapshot().getCapacityRejectedCount());
+        // The capacity rejection did not spend a token of user-3
+        for (int i = 0; i < 2; i++) {
+            admission.acquire("user-3");
+            admission.release();
+        }
+        assertDoesNotThrow(() -> admission.acquire("user-3"));
+    }
+
+    @Test
+    void testAcquire_Disabled() {
+        // Given
+        properties.setEnabled(false);
+        properties.setMaxInFlight(0);
+        GenerationAdmission admission = new GenerationAdmission(properties);
+
+        // When / Then
+        for (int i = 0; i < 10; i++) {
+            admission.acquire("user-1");
+        }
+        assertEquals(0, admission.snapshot().getInFlight());
+    }
+
+    @Test
+    void testEvictIdle_KeepsBucketsStillRefilling() {
+        // Given
+        GenerationAdmission admission = new GenerationAdmission(properties);
+        admission.acquire("user-1");
+
+        // When
+        admission.evictIdle();
+
+        // Then
+        assertEquals(1, admission.snapshot().getTrackedUsers());
+    }
+}
@@ -0,0 +1,114 @@
+package com.hicham.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hicham.backend.config.GenerationIdempotencyProperties;
+
+class GenerationDeduplicatorTest {
+
+    private GenerationIdempotencyProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new GenerationIdempotencyProperties();
+    }
+
+    @Test
+    void testKeyFor_ScopedPerUser() {
+        // Given
+        GenerationDeduplicator deduplicator = new GenerationDeduplicator(properties);
+
+        // When
+        String key = deduplicator.keyFor("user-1", "abc", "Sample Request");
+
+        // Then
+        assertNotEquals(key, deduplicator.keyFor("user-2", "abc", "Sample Request"));
+        assertNull(deduplicator.keyFor("user-1", null, "Sample Request"));
+        assertNull(deduplicator.keyFor("user-1", " ", "Sample Request"));
+    }
+
+    @Test
+    void testKeyFor_RequestFingerprint() {
+        // Given
+        properties.setDeduplicateWithoutKey(true);
+        GenerationDeduplicator deduplicator = new GenerationDeduplicator(properties);
+
+        // When
+        String key = deduplicator.keyFor("user-1", null, "Sample Request");
+
+        // Then
+        assertEquals(key, deduplicator.keyFor("user-1", null, "Sample Request"));
+        assertNotEquals(key, deduplicator.keyFor("user-1", null, "Other Request"));
+        assertNotEquals(key, deduplicator.keyFor("user-1", "Sample Request", "Sample Request"));
+    }
+
+    @Test
+    void testClaim_ReturnsExistingOperation() {
+        // Given
+        GenerationDeduplicator deduplicator = new GenerationDeduplicator(properties);
+        String key = deduplicator.keyFor("user-1", "abc", "Sample Request");
+
+        // When
+        String first = deduplicator.claim(key, "op-1");
+        String second = deduplicator.claim(key, "op-2");
+
+        // Then
+        assertNull(first);
+        assertEquals("op-1", second);
+    }
+
+    @Test
+    void testClaim_AfterRetentionWindow() {
+        // Given
+        properties.setRetentionMillis(0);
+        GenerationDeduplicator deduplicator = new GenerationDeduplicator(properties);
+        String key = deduplicator.keyFor("user-1", "abc", "Sample Request");
+        deduplicator.claim(key, "op-1");
+
+        // When
+        // Still running, so retention has not started
+        String whileRunning = deduplicator.claim(key, "op-2");
+        deduplicator.finished(key, "op-1");
+        String afterRetention = deduplicator.claim(key, "op-3");
+
+        // Then
+        assertEquals("op-1", whileRunning);
+        assertNull(afterRetention);
+        assertEquals("op-3", deduplicator.claim(key, "op-4"));
+    }
+
+    @Test
+    void testAbandon_ReleasesKey() {
+        // Given
+        GenerationDeduplicator deduplicator = new GenerationDeduplicator(properties);
+        String key = deduplicator.keyFor("user-1", "abc", "Sample Request");
+        deduplicator.claim(key, "op-1");
+
+        // When
+        deduplicator.abandon(key, "op-2");
+        deduplicator.abandon(key, "op-1");
+
+        // Then
+        assertNull(deduplicator.claim(key, "op-3"));
+    }
+
+    @Test
+    void testEvictExpired() {
+        // Given
+        properties.setRetentionMillis(0);
+        GenerationDeduplicator deduplicator = new GenerationDeduplicator(properties);
+        deduplicator.claim("running", "op-1");
+        deduplicator.claim("finished", "op-2");
+        deduplicator.finished("finished", "op-2");
+
+        // When
+        deduplicator.evictExpired();
+
+        // Then
+        assertEquals(1, deduplicator.size());
+    }
+}
@@ -0,0 +1,212 @@
+package com.hicham.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withException;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.hicham.backend.config.GenerationPartitioningProperties;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+class GenerationPartitionerTest {
+
+    private GenerationPartitioningProperties properties;
+    private RestClient.Builder restClientBuilder;
+    private MockRestServiceServer server;
+
+    @BeforeEach
+    void setUp() {
+        properties = new GenerationPartitioningProperties();
+        properties.setEnabled(true);
+        properties.setNodeId("node-a");
+        properties.setMembers(Map.of("node-a", "http://node-a:8080", "node-b", "http://node-b:8080"));
+        restClientBuilder = RestClient.builder();
+        server = MockRestServiceServer.bindTo(restClientBuilder).build();
+    }
+
+    @Test
+    void testForward_LocalUserIsNotForwarded() {
+        // Given
+        GenerationPartitioner partitioner = new GenerationPartitioner(properties, restClientBuilder);
+        String user = userOwnedBy(partitioner, "node-a");
+
+        // When
+        Optional<ResponseEntity<String>> response = partitioner.forward(user, HttpMethod.GET, "/generate", Map.of());
+
+        // Then
+        assertTrue(response.isEmpty());
+        server.verify();
+    }
+
+    @Test
+    void testForward_SendsRequestToOwner() {
+        // Given
+        GenerationPartitioner partitioner = new GenerationPartitioner(properties, restClientBuilder);
+        String user = userOwnedBy(partitioner, "node-b");
+        server.expect(requestTo("http://node-b:8080/generate?userId=" + user))
+            .andExpect(method(HttpMethod.GET))
+            .andExpect(header(GenerationPartitioner.FORWARDED_HEADER, "node-a"))
+            .andExpect(header("Idempotency-Key", "key-1"))
+            .andRespond(withSuccess("Generation started for user: " + user, MediaType.TEXT_PLAIN));
+
+        // When
+        Optional<ResponseEntity<String>> response = partitioner.forward(user, HttpMethod.GET,
+            "/generate?userId=" + user, Map.of("Idempotency-Key", "key-1"));
+
+        // Then
+        assertEquals("Generation started for user: " + user, response.get().getBody());
+        server.verify();
+    }
+
+    @Test
+    void testForwardAsync_RunsOffTheCallersThread() throws Exception {
+        // Given
+        GenerationPartitioner partitioner = new GenerationPartitioner(properties, restClientBuilder);
+        String user = userOwnedBy(partitioner, "node-b");
+        String[] forwardingThread = new String[1];
+        server.expect(requestTo("http://node-b:8080/generate/op-1/cancel?userId=" + user))
+            .andExpect(method(HttpMethod.POST))
+            .andRespond(request -> {
+                forwardingThread[0] = Thread.currentThread().getName();
+                return withSuccess("Generation cancelled", MediaType.TEXT_PLAIN).createResponse(request);
+            });
+
+        // When
+        Optional<ResponseEntity<String>> response = partitioner.forwardAsync(user, HttpMethod.POST,
+            "/generate/op-1/cancel?userId=" + user, Map.of()).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals("Generation cancelled", response.get().getBody());
+        assertTrue(forwardingThread[0].startsWith("partitioning-forward-"));
+        server.verify();
+        partitioner.shutdown();
+    }
+
+    @Test
+    void testForward_ReturnsOwnerErrorsAsResponses() {
+        // Given
+        GenerationPartitioner partitioner = new GenerationPartitioner(properties, restClientBuilder);
+        String user = userOwnedBy(partitioner, "node-b");
+        server.expect(requestTo("http://node-b:8080/generate"))
+            .andRespond(withStatus(HttpStatus.TOO_MANY_REQUESTS).header("Retry-After", "3").body("Rate limit exceeded"));
+
+        // When
+        ResponseEntity<String> response = partitioner.forward(user, HttpMethod.GET, "/generate", Map.of()).get();
+
+        // Then
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("3", response.getHeaders().getFirst("Retry-After"));
+    }
+
+    @Test
+    void testForward_UnreachableOwnerLeavesTheRing() {
+        // Given
+        GenerationPartitioner partitioner = new GenerationPartitioner(properties, restClientBuilder);
+        String user = userOwnedBy(partitioner, "node-b");
+        server.expect(requestTo("http://node-b:8080/generate")).andRespond(withException(new ConnectException()));
+
+        // When
+        Optional<ResponseEntity<String>> response = partitioner.forward(user, HttpMethod.GET, "/generate", Map.of());
+
+        // Then
+        assertTrue(response.isEmpty());
+        assertEquals("node-a", partitioner.ownerOf(user));
+    }
+
+    @Test
+    void testForward_UnreachableOwnerRejoinsAfterRetryDelay() throws Exception {
+        // Given
+        properties.setDownRetryMillis(50);
+        GenerationPartitioner partitioner = new GenerationPartitioner(properties, restClientBuilder);
+        String user = userOwnedBy(partitioner, "node-b");
+        server.expect(requestTo("http://node-b:8080/generate")).andRespond(withException(new ConnectException()));
+
+        partitioner.forward(user, HttpMethod.GET, "/generate", Map.of());
+        assertEquals("node-a", partitioner.ownerOf(user));
+
+        // When
+        Thread.sleep(100);
+
+        // Then
+        assertEquals("node-b", partitioner.ownerOf(user));
+    }
+
+    @Test
+    void testForward_TimeoutIsNotRetriedLocally() {
+        // Given
+        GenerationPartitioner partitioner = new GenerationPartitioner(properties, restClientBuilder);
+        String user = userOwnedBy(partitioner, "node-b");
+        server.expect(requestTo("http://node-b:8080/generate")).andRespond(withException(new SocketTimeoutException()));
+
+        // When
+        ResponseStatusException error = assertThrows(ResponseStatusException.class,
+            () -> partitioner.forward(user, HttpMethod.GET, "/generate", Map.of()));
+
+        // Then
+        assertEquals(HttpStatus.BAD_GATEWAY, error.getStatusCode());
+        assertEquals("node-b", partitioner.ownerOf(user));
+    }
+
+    @Test
+    void testIsMember_OnlyConfiguredInstances() {
+        // Given
+        GenerationPartitioner partitioner = new GenerationPartitioner(properties, restClientBuilder);
+        GenerationPartitioningProperties disabledProperties = new GenerationPartitioningProperties();
+        disabledProperties.setMembers(properties.getMembers());
+        GenerationPartitioner disabled = new GenerationPartitioner(disabledProperties);
+
+        // Then
+        assertTrue(partitioner.isMember("node-b"));
+        assertFalse(partitioner.isMember("node-x"));
+        assertFalse(partitioner.isMember(null));
+        assertFalse(disabled.isMember("node-b"));
+    }
+
+    @Test
+    void testOwnerOf_DisabledIsAlwaysLocal() {
+        // Given
+        GenerationPartitioner partitioner = new GenerationPartitioner(new GenerationPartitioningProperties());
+
+        // Then
+        for (int i = 0; i < 100; i++) {
+            assertTrue(partitioner.isLocal("user-" + i));
+        }
+    }
+
+    @Test
+    void testConstructor_RejectsNodeOutsideMembers() {
+        // Given
+        properties.setNodeId("node-z");
+
+        // Then
+        assertThrows(IllegalStateException.class, () -> new GenerationPartitioner(properties, restClientBuilder));
+    }
+
+    private static String userOwnedBy(GenerationPartitioner partitioner, String nodeId) {
+        for (int i = 0; ; i++) {
+            if (partitioner.ownerOf("user-" + i).equals(nodeId)) {
+                return "user-" + i;
+            }
+        }
+    }
+}
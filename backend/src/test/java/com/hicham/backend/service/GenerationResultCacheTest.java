@@ -0,0 +1,120 @@
+package com.hicham.backend.service;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hicham.backend.config.GenerationCacheProperties;
+import com.hicham.backend.model.GenerationResult;
+
+class GenerationResultCacheTest {
+
+    private GenerationCacheProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new GenerationCacheProperties();
+        properties.setEnabled(true);
+    }
+
+    @Test
+    void testRequestHash_Normalized() {
+        // When
+        String hash = GenerationResultCache.requestHash("Sample Request");
+
+        // Then
+        assertEquals(64, hash.length());
+        assertEquals(hash, GenerationResultCache.requestHash("  sample   REQUEST\n"));
+        assertNotEquals(hash, GenerationResultCache.requestHash("Sample Requests"));
+    }
+
+    @Test
+    void testGet_HitAndMiss() {
+        // Given
+        GenerationResultCache cache = new GenerationResultCache(properties);
+        cache.put(result("Sample Request", "op-1"));
+
+        // When / Then
+        assertEquals("op-1", cache.get(GenerationResultCache.requestHash("sample request")).get().getOperationId());
+        assertFalse(cache.get(GenerationResultCache.requestHash("Other Request")).isPresent());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void testPut_EvictsLeastRecentlyUsed() {
+        // Given
+        properties.setMaxEntries(2);
+        GenerationResultCache cache = new GenerationResultCache(properties);
+        cache.put(result("Request A", "op-a"));
+        cache.put(result("Request B", "op-b"));
+        cache.get(GenerationResultCache.requestHash("Request A"));
+
+        // When
+        cache.put(result("Request C", "op-c"));
+
+        // Then
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertTrue(cache.get(GenerationResultCache.requestHash("Request A")).isPresent());
+        assertFalse(cache.get(GenerationResultCache.requestHash("Request B")).isPresent());
+    }
+
+    @Test
+    void testPut_BoundedByWeight() {
+        // Given
+        GenerationResultCache probe = new GenerationResultCache(properties);
+        probe.put(result("Request A", "op-a"));
+        properties.setMaxWeightBytes(probe.getWeightBytes() * 2);
+        GenerationResultCache cache = new GenerationResultCache(properties);
+
+        // When
+        cache.put(result("Request A", "op-a"));
+        cache.put(result("Request B", "op-b"));
+        cache.put(result("Request C", "op-c"));
+
+        // Then
+        assertEquals(2, cache.size());
+        assertTrue(cache.getWeightBytes() <= properties.getMaxWeightBytes());
+    }
+
+    @Test
+    void testGet_Expired() {
+        // Given
+        properties.setTtlMillis(0);
+        GenerationResultCache cache = new GenerationResultCache(properties);
+        cache.put(result("Sample Request", "op-1"));
+
+        // When
+        boolean present = cache.get(GenerationResultCache.requestHash("Sample Request")).isPresent();
+
+        // Then
+        assertFalse(present);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeightBytes());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void testDisabled() {
+        // Given
+        properties.setEnabled(false);
+        GenerationResultCache cache = new GenerationResultCache(properties);
+
+        // When
+        cache.put(result("Sample Request", "op-1"));
+
+        // Then
+        assertEquals(0, cache.size());
+        assertFalse(cache.get(GenerationResultCache.requestHash("Sample Request")).isPresent());
+    }
+
+    private static GenerationResult result(String request, String operationId) {
+        return new GenerationResult(GenerationResultCache.requestHash(request), request, operationId, LocalDateTime.now());
+    }
+}
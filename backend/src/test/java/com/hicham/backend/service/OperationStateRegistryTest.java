@@ -0,0 +1,83 @@
+package com.hicham.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.hicham.backend.model.OperationState;
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+
+class OperationStateRegistryTest {
+
+    @Test
+    void testKeepsLatestStatePerOperation() {
+        // Given
+        OperationStateRegistry registry = new OperationStateRegistry(60_000, 60_000);
+
+        // When
+        registry.onProgressUpdate("user-1", update("op-1", ProgressType.GENERATION_STARTED, 0, "init"));
+        registry.onProgressUpdate("user-1", update("op-1", ProgressType.GENERATION_PROGRESS, 40, "step_2"));
+
+        // Then
+        OperationState state = registry.find("op-1").orElseThrow();
+        assertEquals(ProgressType.GENERATION_PROGRESS, state.getType());
+        assertEquals(40, state.getPercentage());
+        assertEquals("step_2", state.getStep());
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void testFindByUser_ExcludesFinishedUnlessAsked() {
+        // Given
+        OperationStateRegistry registry = new OperationStateRegistry(60_000, 60_000);
+        registry.onProgressUpdate("user-1", update("op-1", ProgressType.GENERATION_PROGRESS, 20, "step_1"));
+        registry.onProgressUpdate("user-1", update("op-2", ProgressType.GENERATION_COMPLETED, 100, "complete"));
+        registry.onProgressUpdate("user-2", update("op-3", ProgressType.GENERATION_PROGRESS, 60, "step_3"));
+
+        // When
+        List<OperationState> running = registry.findByUser("user-1", false);
+        List<OperationState> all = registry.findByUser("user-1", true);
+
+        // Then
+        assertEquals(List.of("op-1"), running.stream().map(OperationState::getOperationId).toList());
+        assertEquals(2, all.size());
+        assertTrue(registry.findByUser("user-3", true).isEmpty());
+    }
+
+    @Test
+    void testEvictExpired_RemovesFinishedOperationsAfterTtl() {
+        // Given
+        OperationStateRegistry registry = new OperationStateRegistry(0, 60_000);
+        registry.onProgressUpdate("user-1", update("op-1", ProgressType.GENERATION_PROGRESS, 20, "step_1"));
+        registry.onProgressUpdate("user-1", update("op-2", ProgressType.GENERATION_ERROR, 30, "error"));
+
+        // When
+        registry.evictExpired();
+
+        // Then
+        assertTrue(registry.find("op-1").isPresent());
+        assertTrue(registry.find("op-2").isEmpty());
+        assertEquals(1, registry.findByUser("user-1", true).size());
+    }
+
+    @Test
+    void testIgnoresUpdatesWithoutOperationId() {
+        // Given
+        OperationStateRegistry registry = new OperationStateRegistry(60_000, 60_000);
+
+        // When
+        registry.onProgressUpdate("user-1", update(null, ProgressType.GENERATION_PROGRESS, 20, "step_1"));
+
+        // Then
+        assertEquals(0, registry.size());
+    }
+
+    private static ProgressUpdate update(String operationId, ProgressType type, int percentage, String step) {
+        return new ProgressUpdate(operationId, "user-1", type, percentage, step, "message", LocalDateTime.now());
+    }
+}
@@ -0,0 +1,137 @@
+package com.hicham.backend.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+
+@ExtendWith(MockitoExtension.class)
+class ProgressBatcherTest {
+
+    private static final String DESTINATION = "/topic/progress.user-1";
+
+    @Mock
+    private SimpMessageSendingOperations messagingTemplate;
+
+    private ProgressBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        batcher = new ProgressBatcher(messagingTemplate, 3);
+    }
+
+    @Test
+    void testUpdatesWithinWindow_AreSentAsOneBatch() {
+        // Given
+        ProgressUpdate first = update(ProgressType.GENERATION_PROGRESS, 20);
+        ProgressUpdate second = update(ProgressType.GENERATION_PROGRESS, 40);
+
+        // When
+        batcher.send(DESTINATION, first);
+        batcher.send(DESTINATION, second);
+
+        // Then
+        verifyNoInteractions(messagingTemplate);
+        batcher.flush();
+        verify(messagingTemplate, times(1)).convertAndSend(
+            eq(DESTINATION),
+            eq(List.of(first, second)),
+            eq(Map.<String, Object>of(ProgressBatcher.BATCH_HEADER, 2))
+        );
+    }
+
+    @Test
+    void testSingleUpdate_IsSentAsPlainFrame() {
+        // Given
+        ProgressUpdate update = update(ProgressType.GENERATION_PROGRESS, 20);
+
+        // When
+        batcher.send(DESTINATION, update);
+        batcher.flush();
+
+        // Then
+        verify(messagingTemplate, times(1)).convertAndSend(DESTINATION, (Object) update);
+    }
+
+    @Test
+    void testFullBatch_IsSentWithoutWaitingForTick() {
+        // When
+        for (int i = 1; i <= 3; i++) {
+            batcher.send(DESTINATION, update(ProgressType.GENERATION_PROGRESS, i * 20));
+        }
+
+        // Then
+        verify(messagingTemplate, times(1)).convertAndSend(eq(DESTINATION), anyList(), anyMap());
+    }
+
+    @Test
+    void testTerminalUpdate_SendsBatchImmediately() {
+        // Given
+        ProgressUpdate progress = update(ProgressType.GENERATION_PROGRESS, 80);
+        ProgressUpdate completed = update(ProgressType.GENERATION_COMPLETED, 100);
+
+        // When
+        batcher.send(DESTINATION, progress);
+        batcher.send(DESTINATION, completed);
+
+        // Then
+        verify(messagingTemplate, times(1)).convertAndSend(
+            eq(DESTINATION),
+            eq(List.of(progress, completed)),
+            eq(Map.<String, Object>of(ProgressBatcher.BATCH_HEADER, 2))
+        );
+    }
+
+    @Test
+    void testDestinations_AreBatchedSeparately() {
+        // Given
+        ProgressUpdate forUser1 = update(ProgressType.GENERATION_PROGRESS, 20);
+        ProgressUpdate forUser2 = update(ProgressType.GENERATION_PROGRESS, 20);
+
+        // When
+        batcher.send(DESTINATION, forUser1);
+        batcher.send("/topic/progress.user-2", forUser2);
+        batcher.flush();
+
+        // Then
+        verify(messagingTemplate, times(1)).convertAndSend(DESTINATION, (Object) forUser1);
+        verify(messagingTemplate, times(1)).convertAndSend("/topic/progress.user-2", (Object) forUser2);
+    }
+
+    @Test
+    void testEmptyDestinations_AreReleasedAfterEmptyTick() {
+        // Given
+        batcher.send(DESTINATION, update(ProgressType.GENERATION_PROGRESS, 20));
+
+        // When
+        batcher.flush();
+        batcher.flush();
+
+        // Then
+        assertEquals(0, batcher.getPendingDestinations());
+        verify(messagingTemplate, never()).convertAndSend(anyString(), anyList(), anyMap());
+    }
+
+    private static ProgressUpdate update(ProgressType type, Integer percentage) {
+        return new ProgressUpdate("op-1", "user-1", type, percentage, "step", "message", LocalDateTime.now());
+    }
+}
@@ -0,0 +1,446 @@
+package com.hicham.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.TaskScheduler;
+
+import com.hicham.backend.config.ProgressClusterProperties;
+import com.hicham.backend.controller.ProgressController;
+import com.hicham.backend.config.ProgressDeliveryProperties;
+import com.hicham.backend.model.ClusterPeerStats;
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+import com.hicham.backend.websocket.IndexedSubscriptionRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+class ProgressClusterBusTest {
+
+    private final List<ProgressClusterBus> buses = new ArrayList<>();
+    private IndexedSubscriptionRegistry receiverRegistry;
+    private BlockingQueue<ProgressUpdate> received;
+    private ProgressClusterBus receiver;
+
+    @BeforeEach
+    void setUp() {
+        receiverRegistry = new IndexedSubscriptionRegistry();
+        received = new LinkedBlockingQueue<>();
+        receiver = start(properties("node-a"), receiverRegistry, new SimpleMeterRegistry());
+        receiver.setLocalSink((destination, update) -> received.add(update));
+    }
+
+    @AfterEach
+    void tearDown() {
+        buses.forEach(ProgressClusterBus::shutdown);
+    }
+
+    @Test
+    void testReplicate_OnlyDestinationsWithSubscribersOnThePeer() throws Exception {
+        // Given
+        receiverRegistry.registerSubscription(subscribe("s1", "sub-1", "/topic/progress.user-1"));
+        ProgressClusterBus sender = start(peerOf(receiver, "node-b"), new IndexedSubscriptionRegistry(),
+            new SimpleMeterRegistry());
+        await(() -> peer(sender).getSubscribedDestinations() == 1);
+
+        // When
+        sender.replicate("/topic/progress.user-2", update("op-2", 10));
+        sender.replicate("/topic/progress.user-1", update("op-1", 20));
+
+        // Then
+        ProgressUpdate delivered = received.poll(5, TimeUnit.SECONDS);
+        assertEquals("op-1", delivered.getOperationId());
+        assertEquals(20, delivered.getPercentage());
+        await(() -> peer(sender).getSentCount() == 1);
+        assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(1, receiver.snapshot().getInboundConnections());
+    }
+
+    @Test
+    void testReplicate_StopsAfterLastSubscriberLeaves() throws Exception {
+        // Given
+        receiverRegistry.registerSubscription(subscribe("s1", "sub-1", "/topic/progress.user-1"));
+        ProgressClusterBus sender = start(peerOf(receiver, "node-b"), new IndexedSubscriptionRegistry(),
+            new SimpleMeterRegistry());
+        await(() -> peer(sender).getSubscribedDestinations() == 1);
+
+        // When
+        receiverRegistry.unregisterAllSubscriptions("s1");
+        await(() -> peer(sender).getSubscribedDestinations() == 0);
+        sender.replicate("/topic/progress.user-1", update("op-1", 20));
+
+        // Then
+        assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(0, peer(sender).getSentCount());
+    }
+
+    @Test
+    void testInterestChanges_DoNotWaitForAPeerThatIsNotReading() throws Exception {
+        // Given: a peer that connected, then stopped reading
+        try (Socket stalled = new Socket("localhost", receiver.getLocalPort())) {
+            DataOutputStream out = new DataOutputStream(stalled.getOutputStream());
+            DataInputStream in = new DataInputStream(new BufferedInputStream(stalled.getInputStream()));
+            handshake(out, in, "node-stalled", "");
+            await(() -> receiver.snapshot().getInboundConnections() == 1);
+            String padding = "x".repeat(100);
+            int count = 100_000;
+
+            // When: far more interest changes than the socket buffers hold
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                for (int i = 0; i < count; i++) {
+                    receiverRegistry.registerSubscription(
+                        subscribe("s" + i, "sub-" + i, "/topic/progress.user-" + i + "." + padding));
+                }
+            });
+
+            // Then: subscribing never waited for the peer, which still learns of every destination
+            Set<String> announced = new HashSet<>();
+            while (announced.size() < count) {
+                int type = in.readUnsignedByte();
+                int size = in.readInt();
+                for (int i = 0; i < size; i++) {
+                    String destination = in.readUTF();
+                    if (type != 4) {
+                        announced.add(destination);
+                    }
+                }
+            }
+            assertEquals(count, announced.size());
+        }
+    }
+
+    @Test
+    void testReplicate_BatchesUpdatesIntoOneFrame() throws Exception {
+        // Given
+        receiverRegistry.registerSubscription(subscribe("s1", "sub-1", "/topic/progress.user-1"));
+        receiverRegistry.registerSubscription(subscribe("s1", "sub-2", "/topic/progress.*"));
+        ProgressClusterProperties properties = peerOf(receiver, "node-b");
+        properties.setBatchWindowMillis(500);
+        properties.setMaxBatchSize(3);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ProgressClusterBus sender = start(properties, new IndexedSubscriptionRegistry(), meterRegistry);
+        await(() -> peer(sender).getSubscribedDestinations() == 2);
+
+        // When
+        sender.replicate("/topic/progress.user-1", update("op-1", 10));
+        sender.replicate("/topic/progress.user-3", update("op-3", 10));
+        sender.replicate("/topic/progress.user-1", update("op-1", 20));
+
+        // Then
+        List<ProgressUpdate> updates = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            updates.add(received.poll(5, TimeUnit.SECONDS));
+        }
+        await(() -> peer(sender).getSentCount() == 3);
+        assertEquals(1.0, meterRegistry.get("progress.cluster.frames").counter().count());
+        assertEquals(List.of(10, 20), updates.stream()
+            .filter(update -> update.getOperationId().equals("op-1")).map(ProgressUpdate::getPercentage).toList());
+    }
+
+    @Test
+    void testReplicate_EverythingWhenPeerCannotTellSubscribers() throws Exception {
+        // Given
+        ProgressClusterBus withoutRegistry = start(properties("node-c"), null, new SimpleMeterRegistry());
+        BlockingQueue<ProgressUpdate> delivered = new LinkedBlockingQueue<>();
+        withoutRegistry.setLocalSink((destination, update) -> delivered.add(update));
+        ProgressClusterBus sender = start(peerOf(withoutRegistry, "node-b"), new IndexedSubscriptionRegistry(),
+            new SimpleMeterRegistry());
+        await(() -> peer(sender).getSubscribedDestinations() == -1);
+
+        // When
+        sender.replicate("/topic/progress.user-9", update("op-9", 50));
+
+        // Then
+        assertEquals("op-9", delivered.poll(5, TimeUnit.SECONDS).getOperationId());
+    }
+
+    @Test
+    void testTwoNodes_NoLiveUpdateLostToSequenceCollisions() throws Exception {
+        // Given: a user connected to the receiver gets updates of operations running on both instances,
+        // and each instance numbers its updates from 1
+        receiverRegistry.registerSubscription(subscribe("s1", "sub-1", "/topic/progress.user-1"));
+        ProgressClusterBus origin = start(peerOf(receiver, "node-b"), new IndexedSubscriptionRegistry(),
+            new SimpleMeterRegistry());
+        await(() -> peer(origin).getSubscribedDestinations() == 1);
+        BlockingQueue<ProgressUpdate> toClient = new LinkedBlockingQueue<>();
+        SimpMessagingTemplate receiverTemplate = mock(SimpMessagingTemplate.class);
+        doAnswer(invocation -> toClient.add(invocation.getArgument(1)))
+            .when(receiverTemplate).convertAndSend(eq("/topic/progress.user-1"), any(Object.class));
+        WebSocketProgressService receiverService = progressService(receiverTemplate, receiver);
+        WebSocketProgressService originService = progressService(mock(SimpMessagingTemplate.class), origin);
+
+        // When
+        originService.sendProgressUpdate("user-1", update("op-remote", 10));
+        receiverService.sendProgressUpdate("user-1", update("op-local", 20));
+
+        // Then: a client dropping the sequences it has already seen keeps both updates
+        List<ProgressUpdate> delivered = List.of(toClient.poll(5, TimeUnit.SECONDS), toClient.poll(5, TimeUnit.SECONDS));
+        Set<Long> seen = new HashSet<>();
+        assertEquals(2, delivered.stream()
+            .filter(update -> update.getSequence() == null || seen.add(update.getSequence())).count());
+        for (ProgressUpdate update : delivered) {
+            if (update.getOperationId().equals("op-remote")) {
+                assertNull(update.getSequence());
+            } else {
+                assertEquals(1L, update.getSequence());
+            }
+        }
+    }
+
+    @Test
+    void testClientReconnectingToAnotherNode_ResetsInsteadOfResuming() throws Exception {
+        // Given: a client of node-b received two updates there, then reconnects to the receiver (node-a),
+        // which has numbered only one update of its own
+        receiverRegistry.registerSubscription(subscribe("s1", "sub-1", "/topic/progress.user-1"));
+        ProgressClusterBus origin = start(peerOf(receiver, "node-b"), new IndexedSubscriptionRegistry(),
+            new SimpleMeterRegistry());
+        await(() -> peer(origin).getSubscribedDestinations() == 1);
+        BlockingQueue<ProgressUpdate> toClient = new LinkedBlockingQueue<>();
+        SimpMessagingTemplate receiverTemplate = mock(SimpMessagingTemplate.class);
+        doAnswer(invocation -> toClient.add(invocation.getArgument(1)))
+            .when(receiverTemplate).convertAndSend(eq("/topic/progress.user-1"), any(Object.class));
+        ProgressReplayBuffer receiverBuffer = new ProgressReplayBuffer(receiver.getNodeId(), 256, 64 * 1024);
+        WebSocketProgressService receiverService = progressService(receiverTemplate, receiver, receiverBuffer);
+        WebSocketProgressService originService = progressService(mock(SimpMessagingTemplate.class), origin);
+        ProgressUpdate seenOnOrigin = update("op-remote", 10);
+        originService.sendProgressUpdate("user-1", seenOnOrigin);
+        originService.sendProgressUpdate("user-1", update("op-remote", 20));
+        receiverService.sendProgressUpdate("user-2", update("op-other", 5));
+        await(() -> toClient.stream().anyMatch(update -> update.getPercentage() == 20));
+        toClient.clear();
+
+        // When
+        new ProgressController(receiverBuffer, receiverService).subscribeToProgress("user-1", 2L, "node-b", "s1");
+        receiverService.sendProgressUpdate("user-1", update("op-local", 30));
+
+        // Then: the position of node-b is not resumed against node-a's numbering, and node-a's
+        // next update is tagged so the client starts over instead of dropping it as already seen
+        assertEquals("node-b", seenOnOrigin.getNode());
+        ArgumentCaptor<MessageHeaders> headers = ArgumentCaptor.forClass(MessageHeaders.class);
+        verify(receiverTemplate).convertAndSendToUser(eq("s1"), eq(WebSocketProgressService.REPLAY_DESTINATION),
+            eq(List.of()), headers.capture());
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(
+            MessageBuilder.createMessage(new byte[0], headers.getValue()));
+        assertEquals("true", accessor.getFirstNativeHeader(WebSocketProgressService.REPLAY_TRUNCATED_HEADER));
+        ProgressUpdate live = toClient.poll(5, TimeUnit.SECONDS);
+        assertEquals("op-local", live.getOperationId());
+        assertEquals("node-a", live.getNode());
+        assertEquals(2L, live.getSequence());
+    }
+
+    @Test
+    void testOwnAddressAmongPeers_IsSkipped() throws Exception {
+        // Given
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        ProgressClusterProperties properties = properties("node-self");
+        properties.setPort(port);
+        properties.setPeers(List.of("localhost:" + port));
+
+        // When
+        ProgressClusterBus self = start(properties, new IndexedSubscriptionRegistry(), new SimpleMeterRegistry());
+        await(() -> "node-self".equals(peer(self).getNodeId()));
+
+        // Then
+        assertFalse(peer(self).isConnected());
+        assertEquals(0, self.getConnectedPeers());
+        assertEquals(0, self.snapshot().getInboundConnections());
+    }
+
+    @Test
+    void testPeerWithoutTheSecret_IsRefused() throws Exception {
+        // Given
+        ProgressClusterProperties guardedProperties = properties("node-s");
+        guardedProperties.setSecret("s3cret");
+        ProgressClusterBus guarded = start(guardedProperties, new IndexedSubscriptionRegistry(),
+            new SimpleMeterRegistry());
+        ProgressClusterProperties intruderProperties = peerOf(guarded, "node-x");
+        intruderProperties.setSecret("guess");
+        ProgressClusterProperties memberProperties = peerOf(guarded, "node-m");
+        memberProperties.setSecret("s3cret");
+
+        // When
+        ProgressClusterBus intruder = start(intruderProperties, new IndexedSubscriptionRegistry(),
+            new SimpleMeterRegistry());
+        ProgressClusterBus member = start(memberProperties, new IndexedSubscriptionRegistry(),
+            new SimpleMeterRegistry());
+
+        // Then
+        await(() -> peer(member).isConnected());
+        Thread.sleep(200);
+        assertFalse(peer(intruder).isConnected());
+        assertEquals(1, guarded.snapshot().getInboundConnections());
+    }
+
+    @Test
+    void testSilentConnection_IsDroppedAfterTheConnectTimeout() throws Exception {
+        // Given
+        ProgressClusterProperties properties = properties("node-t");
+        properties.setConnectTimeoutMillis(100);
+        ProgressClusterBus bus = start(properties, new IndexedSubscriptionRegistry(), new SimpleMeterRegistry());
+
+        // When
+        try (Socket silent = new Socket("localhost", bus.getLocalPort())) {
+            silent.setSoTimeout(5000);
+
+            // Then
+            assertEquals(-1, silent.getInputStream().read());
+        }
+    }
+
+    @Test
+    void testListeningBeyondLoopback_RequiresASecret() {
+        // Given
+        ProgressClusterProperties properties = properties("node-open");
+        properties.setBindAddress("0.0.0.0");
+
+        // When / Then
+        assertThrows(IllegalStateException.class,
+            () -> start(properties, new IndexedSubscriptionRegistry(), new SimpleMeterRegistry()));
+        properties.setSecret("s3cret");
+        start(properties, new IndexedSubscriptionRegistry(), new SimpleMeterRegistry());
+        assertEquals("127.0.0.1", new ProgressClusterProperties().getBindAddress());
+    }
+
+    @Test
+    void testDisabled_ReplicatesNothing() {
+        // Given
+        ProgressClusterBus disabled = new ProgressClusterBus(new ProgressClusterProperties(), null);
+
+        // When
+        disabled.replicate("/topic/progress.user-1", update("op-1", 10));
+
+        // Then
+        assertFalse(disabled.snapshot().isEnabled());
+        assertTrue(disabled.snapshot().getPeers().isEmpty());
+    }
+
+    private ProgressClusterBus start(ProgressClusterProperties properties, IndexedSubscriptionRegistry registry,
+                                     SimpleMeterRegistry meterRegistry) {
+        ProgressClusterBus bus = new ProgressClusterBus(properties, registry, meterRegistry);
+        buses.add(bus);
+        return bus;
+    }
+
+    private static ProgressClusterProperties properties(String nodeId) {
+        ProgressClusterProperties properties = new ProgressClusterProperties();
+        properties.setEnabled(true);
+        properties.setNodeId(nodeId);
+        properties.setPort(0);
+        properties.setBatchWindowMillis(5);
+        properties.setReconnectIntervalMillis(50);
+        return properties;
+    }
+
+    private static ProgressClusterProperties peerOf(ProgressClusterBus target, String nodeId) {
+        ProgressClusterProperties properties = properties(nodeId);
+        properties.setPeers(List.of("localhost:" + target.getLocalPort()));
+        return properties;
+    }
+
+    private static WebSocketProgressService progressService(SimpMessagingTemplate messagingTemplate,
+                                                            ProgressClusterBus cluster) {
+        return progressService(messagingTemplate, cluster,
+            new ProgressReplayBuffer(cluster.getNodeId(), 256, 64 * 1024));
+    }
+
+    private static WebSocketProgressService progressService(SimpMessagingTemplate messagingTemplate,
+                                                            ProgressClusterBus cluster,
+                                                            ProgressReplayBuffer replayBuffer) {
+        return new WebSocketProgressService(messagingTemplate, new ProgressDeliveryProperties(),
+            mock(TaskScheduler.class), List.of(replayBuffer), new SimpleMeterRegistry(), cluster);
+    }
+
+    // Client side of the handshake, for a peer speaking the protocol by hand
+    private static void handshake(DataOutputStream out, DataInputStream in, String nodeId, String secret)
+            throws Exception {
+        byte[] nonce = new byte[16];
+        out.writeByte(1);
+        out.writeByte(2);
+        out.writeUTF(nodeId);
+        out.write(nonce);
+        out.flush();
+        in.readUnsignedByte();
+        in.readUnsignedByte();
+        in.readUTF();
+        byte[] serverNonce = in.readNBytes(16);
+        in.readUnsignedByte();
+        in.readNBytes(32); // the server's proof, trusted here
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(MessageDigest.getInstance("SHA-256")
+            .digest(secret.getBytes(StandardCharsets.UTF_8)), "HmacSHA256"));
+        mac.update("client".getBytes(StandardCharsets.UTF_8));
+        mac.update(serverNonce);
+        mac.update(nonce);
+        out.writeByte(7);
+        out.write(mac.doFinal());
+        out.flush();
+    }
+
+    private static ClusterPeerStats peer(ProgressClusterBus bus) {
+        return bus.snapshot().getPeers().get(0);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met within 5 seconds");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static ProgressUpdate update(String operationId, int percentage) {
+        return new ProgressUpdate(operationId, "user", ProgressType.GENERATION_PROGRESS, percentage,
+            "step", "Etape", LocalDateTime.now(), 1L);
+    }
+
+    private static Message<byte[]> subscribe(String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
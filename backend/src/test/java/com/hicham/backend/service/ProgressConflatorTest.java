@@ -0,0 +1,144 @@
+package com.hicham.backend.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+
+class ProgressConflatorTest {
+
+    private static final String DESTINATION = "/topic/progress.user-1";
+
+    private final List<ProgressUpdate> sent = new ArrayList<>();
+    private ProgressConflator conflator;
+
+    @BeforeEach
+    void setUp() {
+        conflator = new ProgressConflator((destination, update) -> sent.add(update));
+    }
+
+    @Test
+    void testProgressUpdates_AreHeldUntilFlush() {
+        // Given
+        ProgressUpdate progress = update("op-1", ProgressType.GENERATION_PROGRESS, 20);
+
+        // When
+        conflator.send(DESTINATION, progress);
+
+        // Then
+        assertTrue(sent.isEmpty());
+        conflator.flush();
+        assertEquals(List.of(progress), sent);
+    }
+
+    @Test
+    void testProgressUpdates_LatestWinsPerOperation() {
+        // Given
+        ProgressUpdate op1Step1 = update("op-1", ProgressType.GENERATION_PROGRESS, 20);
+        ProgressUpdate op1Step2 = update("op-1", ProgressType.GENERATION_PROGRESS, 40);
+        ProgressUpdate op2Step1 = update("op-2", ProgressType.GENERATION_PROGRESS, 20);
+
+        // When
+        conflator.send(DESTINATION, op1Step1);
+        conflator.send(DESTINATION, op2Step1);
+        conflator.send(DESTINATION, op1Step2);
+        conflator.flush();
+
+        // Then
+        assertEquals(2, sent.size());
+        assertTrue(sent.contains(op1Step2));
+        assertTrue(sent.contains(op2Step1));
+    }
+
+    @Test
+    void testStartedUpdate_IsSentImmediately() {
+        // Given
+        ProgressUpdate started = update("op-1", ProgressType.GENERATION_STARTED, 0);
+
+        // When
+        conflator.send(DESTINATION, started);
+
+        // Then
+        assertEquals(List.of(started), sent);
+    }
+
+    @Test
+    void testTerminalUpdate_FlushesHeldProgressFirst() {
+        // Given
+        ProgressUpdate progress = update("op-1", ProgressType.GENERATION_PROGRESS, 80);
+        ProgressUpdate completed = update("op-1", ProgressType.GENERATION_COMPLETED, 100);
+
+        // When
+        conflator.send(DESTINATION, progress);
+        conflator.send(DESTINATION, completed);
+
+        // Then
+        assertEquals(List.of(progress, completed), sent);
+        assertEquals(0, conflator.getPendingOperations());
+        conflator.flush();
+        assertEquals(2, sent.size(), "Nothing should be left to flush");
+    }
+
+    @Test
+    void testErrorUpdate_IsSentImmediately() {
+        // Given
+        ProgressUpdate error = update("op-1", ProgressType.GENERATION_ERROR, null);
+
+        // When
+        conflator.send(DESTINATION, error);
+
+        // Then
+        assertEquals(List.of(error), sent);
+    }
+
+    @Test
+    void testIdleOperations_AreReleasedAfterEmptyTick() {
+        // Given
+        conflator.send(DESTINATION, update("op-1", ProgressType.GENERATION_PROGRESS, 20));
+
+        // When
+        conflator.flush();
+        conflator.flush();
+
+        // Then
+        assertEquals(0, conflator.getPendingOperations());
+    }
+
+    @Test
+    void testNullOperationId_BypassesConflation() {
+        // Given
+        ProgressUpdate progress = update(null, ProgressType.GENERATION_PROGRESS, 20);
+
+        // When
+        conflator.send(DESTINATION, progress);
+
+        // Then
+        assertEquals(1, sent.size());
+        assertSame(progress, sent.get(0));
+    }
+
+    @Test
+    void testDiscard_DropsHeldProgress() {
+        // Given
+        conflator.send(DESTINATION, update("op-1", ProgressType.GENERATION_PROGRESS, 20));
+
+        // When
+        conflator.discard("op-1");
+        conflator.flush();
+
+        // Then
+        assertTrue(sent.isEmpty());
+    }
+
+    private static ProgressUpdate update(String operationId, ProgressType type, Integer percentage) {
+        return new ProgressUpdate(operationId, "user-1", type, percentage, "step", "message", LocalDateTime.now());
+    }
+}
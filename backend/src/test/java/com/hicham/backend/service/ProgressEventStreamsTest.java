@@ -0,0 +1,248 @@
+package com.hicham.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.hicham.backend.config.ProgressStreamProperties;
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+class ProgressEventStreamsTest {
+
+    private ProgressStreamProperties properties;
+    private OperationStateRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ProgressStreamProperties();
+        registry = new OperationStateRegistry(60_000, 60_000);
+    }
+
+    @Test
+    void testOpen_UnknownOperation() {
+        // Given
+        ProgressEventStreams streams = new ProgressEventStreams(properties, registry, Runnable::run);
+
+        // When / Then
+        assertTrue(streams.open("unknown", new RecordingEmitter()).isEmpty());
+        assertEquals(0, streams.getOpenStreams());
+    }
+
+    @Test
+    void testOpen_StreamsStateThenUpdatesUntilTerminal() {
+        // Given
+        ProgressEventStreams streams = new ProgressEventStreams(properties, registry, Runnable::run);
+        send(streams, update(ProgressType.GENERATION_STARTED, 0));
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        // When
+        assertTrue(streams.open("op-1", emitter).isPresent());
+        send(streams, update(ProgressType.GENERATION_PROGRESS, 50));
+        send(streams, update(ProgressType.GENERATION_COMPLETED, 100));
+        send(streams, update(ProgressType.GENERATION_PROGRESS, 60));
+
+        // Then
+        assertEquals(List.of(0, 50, 100), emitter.percentages());
+        assertTrue(emitter.completed);
+        assertEquals(0, streams.getOpenStreams());
+    }
+
+    @Test
+    void testOpen_FinishedOperationSendsStateAndCompletes() {
+        // Given
+        ProgressEventStreams streams = new ProgressEventStreams(properties, registry, Runnable::run);
+        send(streams, update(ProgressType.GENERATION_ERROR, 40));
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        // When
+        streams.open("op-1", emitter);
+
+        // Then
+        assertEquals(List.of(40), emitter.percentages());
+        assertEquals(ProgressType.GENERATION_ERROR, emitter.updates.get(0).getType());
+        assertTrue(emitter.completed);
+    }
+
+    @Test
+    void testOpen_UpdateAlreadyInStateIsNotSentTwice() {
+        // Given: the update reached the registry before the stream opened, and the stream after
+        ProgressEventStreams streams = new ProgressEventStreams(properties, registry, Runnable::run);
+        ProgressUpdate started = update(ProgressType.GENERATION_STARTED, 0);
+        registry.onProgressUpdate("user-1", started);
+        RecordingEmitter emitter = new RecordingEmitter();
+        streams.open("op-1", emitter);
+
+        // When
+        streams.onProgressUpdate("user-1", started);
+        send(streams, update(ProgressType.GENERATION_PROGRESS, 20));
+
+        // Then
+        assertEquals(List.of(0, 20), emitter.percentages());
+    }
+
+    @Test
+    void testFullQueue_DropsOldestProgress() {
+        // Given
+        properties.setBufferCapacity(3);
+        Queue<Runnable> writes = new ArrayDeque<>();
+        ProgressEventStreams streams = new ProgressEventStreams(properties, registry, writes::add);
+        send(streams, update(ProgressType.GENERATION_STARTED, 0));
+        RecordingEmitter emitter = new RecordingEmitter();
+        streams.open("op-1", emitter);
+
+        // When: the writer has not run yet
+        send(streams, update(ProgressType.GENERATION_PROGRESS, 20));
+        send(streams, update(ProgressType.GENERATION_PROGRESS, 40));
+        send(streams, update(ProgressType.GENERATION_PROGRESS, 60));
+        writes.poll().run();
+
+        // Then
+        assertEquals(List.of(0, 40, 60), emitter.percentages());
+        assertFalse(emitter.completed);
+        assertTrue(writes.isEmpty());
+    }
+
+    @Test
+    void testFullQueue_ClosesStreamWithNothingToDrop() {
+        // Given
+        properties.setBufferCapacity(1);
+        Queue<Runnable> writes = new ArrayDeque<>();
+        ProgressEventStreams streams = new ProgressEventStreams(properties, registry, writes::add);
+        send(streams, update(ProgressType.GENERATION_STARTED, 0));
+        RecordingEmitter emitter = new RecordingEmitter();
+        streams.open("op-1", emitter);
+
+        // When
+        send(streams, update(ProgressType.GENERATION_COMPLETED, 100));
+        writes.poll().run();
+
+        // Then
+        assertTrue(emitter.updates.isEmpty());
+        assertTrue(emitter.completed);
+        assertEquals(0, streams.getOpenStreams());
+    }
+
+    @Test
+    void testWriteBudget_LetsOtherStreamsThrough() {
+        // Given: two streams with more queued than one turn of the writer may write
+        properties.setWriteBudget(2);
+        Queue<Runnable> writes = new ArrayDeque<>();
+        ProgressEventStreams streams = new ProgressEventStreams(properties, registry, writes::add);
+        send(streams, update(ProgressType.GENERATION_STARTED, 0));
+        RecordingEmitter first = new RecordingEmitter();
+        RecordingEmitter second = new RecordingEmitter();
+        streams.open("op-1", first);
+        streams.open("op-1", second);
+        send(streams, update(ProgressType.GENERATION_PROGRESS, 20));
+        send(streams, update(ProgressType.GENERATION_PROGRESS, 40));
+
+        // When
+        writes.poll().run();
+
+        // Then: the first stream goes back behind the second
+        assertEquals(List.of(0, 20), first.percentages());
+        assertTrue(second.updates.isEmpty());
+        assertEquals(2, writes.size());
+        while (!writes.isEmpty()) {
+            writes.poll().run();
+        }
+        assertEquals(List.of(0, 20, 40), first.percentages());
+        assertEquals(List.of(0, 20, 40), second.percentages());
+    }
+
+    @Test
+    void testSlowWrite_ClosesStream() {
+        // Given
+        properties.setMaxWriteMillis(5);
+        ProgressEventStreams streams = new ProgressEventStreams(properties, registry, Runnable::run);
+        send(streams, update(ProgressType.GENERATION_STARTED, 0));
+        RecordingEmitter emitter = new RecordingEmitter();
+        emitter.sendMillis = 20;
+
+        // When
+        streams.open("op-1", emitter);
+        send(streams, update(ProgressType.GENERATION_PROGRESS, 20));
+
+        // Then: one slow write, and the stream no longer takes writer time
+        assertEquals(List.of(0), emitter.percentages());
+        assertTrue(emitter.completed);
+        assertEquals(0, streams.getOpenStreams());
+    }
+
+    @Test
+    void testSendHeartbeats_OnlyIdleStreams() {
+        // Given
+        Queue<Runnable> writes = new ArrayDeque<>();
+        ProgressEventStreams streams = new ProgressEventStreams(properties, registry, writes::add);
+        send(streams, update(ProgressType.GENERATION_STARTED, 0));
+        RecordingEmitter emitter = new RecordingEmitter();
+        streams.open("op-1", emitter);
+
+        // When: the state is still queued, then written
+        streams.sendHeartbeats();
+        writes.poll().run();
+        streams.sendHeartbeats();
+        writes.poll().run();
+
+        // Then
+        assertEquals(List.of(0), emitter.percentages());
+        assertEquals(1, emitter.heartbeats);
+    }
+
+    private void send(ProgressEventStreams streams, ProgressUpdate update) {
+        // Same order as WebSocketProgressService's listeners
+        registry.onProgressUpdate(update.getUserId(), update);
+        streams.onProgressUpdate(update.getUserId(), update);
+    }
+
+    private static ProgressUpdate update(ProgressType type, int percentage) {
+        return new ProgressUpdate("op-1", "user-1", type, percentage, "step", "Étape", LocalDateTime.now());
+    }
+
+    // Records events instead of writing them to a response
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<ProgressUpdate> updates = new ArrayList<>();
+        private int heartbeats;
+        private boolean completed;
+        // How long each send blocks, as for a client that reads slowly
+        private long sendMillis;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            if (sendMillis > 0) {
+                try {
+                    Thread.sleep(sendMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            for (ResponseBodyEmitter.DataWithMediaType data : builder.build()) {
+                if (data.getData() instanceof ProgressUpdate update) {
+                    updates.add(update);
+                } else if (data.getData().toString().startsWith(":heartbeat")) {
+                    heartbeats++;
+                }
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        private List<Integer> percentages() {
+            return updates.stream().map(ProgressUpdate::getPercentage).toList();
+        }
+    }
+}
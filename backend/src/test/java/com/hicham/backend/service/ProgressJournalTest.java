@@ -0,0 +1,183 @@
+package com.hicham.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import com.hicham.backend.config.ProgressJournalProperties;
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+class ProgressJournalTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private ProgressJournalProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .addScript("classpath:schema.sql")
+            .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        properties = new ProgressJournalProperties();
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void testFlush_WritesQueuedUpdatesInBatches() {
+        // Given
+        properties.setBatchSize(2);
+        ProgressJournal journal = new ProgressJournal(properties, jdbcTemplate);
+        for (int i = 0; i < 5; i++) {
+            journal.onProgressUpdate("user-1", update("op-1", "user-1", i * 20, (long) i));
+        }
+
+        // When
+        assertEquals(5, journal.getQueueSize());
+        journal.flush();
+
+        // Then
+        List<ProgressUpdate> history = journal.findByOperation("op-1");
+        assertEquals(0, journal.getQueueSize());
+        assertEquals(5, history.size());
+        assertEquals(0, history.get(0).getPercentage());
+        assertEquals(80, history.get(4).getPercentage());
+        assertEquals(4L, history.get(4).getSequence());
+        assertEquals(ProgressType.GENERATION_PROGRESS, history.get(4).getType());
+    }
+
+    @Test
+    void testFindByUser_ReturnsLatestUpdatesOldestFirst() {
+        // Given
+        ProgressJournal journal = new ProgressJournal(properties, jdbcTemplate);
+        journal.onProgressUpdate("user-1", update("op-1", "user-1", 10, null));
+        journal.onProgressUpdate("user-2", update("op-2", "user-2", 20, null));
+        journal.onProgressUpdate("user-1", update("op-3", "user-1", 30, null));
+        journal.onProgressUpdate("user-1", update("op-3", "user-1", 40, null));
+        journal.flush();
+
+        // When
+        List<ProgressUpdate> history = journal.findByUser("user-1", 2);
+
+        // Then
+        assertEquals(2, history.size());
+        assertEquals(30, history.get(0).getPercentage());
+        assertEquals(40, history.get(1).getPercentage());
+        assertNull(history.get(1).getSequence());
+    }
+
+    @Test
+    void testOverflow_DropNewestKeepsQueuedUpdates() {
+        // Given
+        properties.setQueueCapacity(2);
+        ProgressJournal journal = new ProgressJournal(properties, jdbcTemplate);
+
+        // When
+        for (int i = 1; i <= 3; i++) {
+            journal.onProgressUpdate("user-1", update("op-1", "user-1", i, null));
+        }
+        journal.flush();
+
+        // Then
+        List<ProgressUpdate> history = journal.findByOperation("op-1");
+        assertEquals(List.of(1, 2), history.stream().map(ProgressUpdate::getPercentage).toList());
+    }
+
+    @Test
+    void testOverflow_DropOldestKeepsLatestUpdates() {
+        // Given
+        properties.setQueueCapacity(2);
+        properties.setOverflowPolicy(ProgressJournalProperties.OverflowPolicy.DROP_OLDEST);
+        ProgressJournal journal = new ProgressJournal(properties, jdbcTemplate);
+
+        // When
+        for (int i = 1; i <= 3; i++) {
+            journal.onProgressUpdate("user-1", update("op-1", "user-1", i, null));
+        }
+        journal.flush();
+
+        // Then
+        List<ProgressUpdate> history = journal.findByOperation("op-1");
+        assertEquals(List.of(2, 3), history.stream().map(ProgressUpdate::getPercentage).toList());
+    }
+
+    @Test
+    void testDisabled_IgnoresUpdates() {
+        // Given
+        properties.setEnabled(false);
+        ProgressJournal journal = new ProgressJournal(properties, jdbcTemplate);
+
+        // When
+        journal.onProgressUpdate("user-1", update("op-1", "user-1", 10, null));
+        journal.flush();
+
+        // Then
+        assertTrue(journal.findByOperation("op-1").isEmpty());
+    }
+
+    @Test
+    void testWriterThread_FlushesAfterInterval() throws Exception {
+        // Given
+        properties.setFlushIntervalMillis(20);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ProgressJournal journal = new ProgressJournal(properties, jdbcTemplate, meterRegistry);
+
+        try {
+            // When
+            journal.onProgressUpdate("user-1", update("op-1", "user-1", 10, null));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (journal.findByOperation("op-1").isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            // Then
+            assertEquals(1, journal.findByOperation("op-1").size());
+            assertEquals(1.0, meterRegistry.get("progress.journal.written").counter().count());
+        } finally {
+            journal.shutdown();
+        }
+    }
+
+    @Test
+    void testFailedBatch_IsCountedAndDropped() {
+        // Given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ProgressJournal journal = new ProgressJournal(properties, jdbcTemplate, meterRegistry);
+        jdbcTemplate.execute("DROP TABLE progress_journal");
+
+        // When
+        journal.onProgressUpdate("user-1", update("op-1", "user-1", 10, null));
+        try {
+            journal.shutdown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Then
+        assertEquals(1.0, meterRegistry.get("progress.journal.failed").counter().count());
+        assertEquals(0, journal.getQueueSize());
+    }
+
+    private ProgressUpdate update(String operationId, String userId, int percentage, Long sequence) {
+        return new ProgressUpdate(operationId, userId, ProgressType.GENERATION_PROGRESS, percentage,
+            "step", "Etape", LocalDateTime.now(), sequence);
+    }
+}
@@ -0,0 +1,110 @@
+package com.hicham.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+
+class ProgressReplayBufferTest {
+
+    @Test
+    void testAssignsIncreasingSequences() {
+        // Given
+        ProgressReplayBuffer buffer = new ProgressReplayBuffer(16, 64 * 1024);
+        ProgressUpdate first = update(10);
+        ProgressUpdate second = update(20);
+
+        // When
+        buffer.onProgressUpdate("user-1", first);
+        buffer.onProgressUpdate("user-2", second);
+
+        // Then
+        assertEquals(1L, first.getSequence());
+        assertEquals(2L, second.getSequence());
+        assertEquals(2L, buffer.getLastSequence());
+    }
+
+    @Test
+    void testReplaySince_ReturnsOnlyMissedUpdatesOfUser() {
+        // Given
+        ProgressReplayBuffer buffer = new ProgressReplayBuffer(16, 64 * 1024);
+        buffer.onProgressUpdate("user-1", update(10));
+        buffer.onProgressUpdate("user-2", update(15));
+        buffer.onProgressUpdate("user-1", update(20));
+        buffer.onProgressUpdate("user-1", update(30));
+
+        // When
+        ProgressReplayBuffer.Replay replay = buffer.replaySince("user-1", 1);
+
+        // Then
+        assertEquals(List.of(20, 30), replay.getUpdates().stream().map(ProgressUpdate::getPercentage).toList());
+        assertFalse(replay.isTruncated());
+        assertTrue(buffer.replaySince("user-1", 4).getUpdates().isEmpty());
+        assertTrue(buffer.replaySince("user-3", 0).getUpdates().isEmpty());
+    }
+
+    @Test
+    void testReplaySince_PositionOfAnotherNodeIsTruncated() {
+        // Given
+        ProgressReplayBuffer buffer = new ProgressReplayBuffer("node-a", 16, 64 * 1024);
+        ProgressUpdate first = update(10);
+        buffer.onProgressUpdate("user-1", first);
+        buffer.onProgressUpdate("user-1", update(20));
+
+        // When
+        ProgressReplayBuffer.Replay elsewhere = buffer.replaySince("user-1", "node-b", 1);
+        ProgressReplayBuffer.Replay here = buffer.replaySince("user-1", "node-a", 1);
+
+        // Then
+        assertEquals("node-a", first.getNode());
+        assertTrue(elsewhere.getUpdates().isEmpty());
+        assertTrue(elsewhere.isTruncated());
+        assertEquals(List.of(20), here.getUpdates().stream().map(ProgressUpdate::getPercentage).toList());
+        assertFalse(here.isTruncated());
+    }
+
+    @Test
+    void testCountLimit_EvictsOldestAndReportsTruncation() {
+        // Given
+        ProgressReplayBuffer buffer = new ProgressReplayBuffer(2, 64 * 1024);
+        for (int percentage = 10; percentage <= 40; percentage += 10) {
+            buffer.onProgressUpdate("user-1", update(percentage));
+        }
+
+        // When
+        ProgressReplayBuffer.Replay fromStart = buffer.replaySince("user-1", 0);
+        ProgressReplayBuffer.Replay recent = buffer.replaySince("user-1", 2);
+
+        // Then
+        assertEquals(List.of(30, 40), fromStart.getUpdates().stream().map(ProgressUpdate::getPercentage).toList());
+        assertTrue(fromStart.isTruncated());
+        assertFalse(recent.isTruncated());
+    }
+
+    @Test
+    void testByteLimit_KeepsBufferUnderBudget() {
+        // Given
+        ProgressReplayBuffer buffer = new ProgressReplayBuffer(1000, 1024);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            buffer.onProgressUpdate("user-1", update(i));
+        }
+
+        // Then
+        int kept = buffer.replaySince("user-1", 0).getUpdates().size();
+        assertTrue(kept > 0 && kept < 100, "Only the most recent updates should fit in 1 KB, kept " + kept);
+    }
+
+    private static ProgressUpdate update(int percentage) {
+        return new ProgressUpdate("op-1", "user-1", ProgressType.GENERATION_PROGRESS,
+            percentage, "step", "Etape en cours", LocalDateTime.now());
+    }
+}
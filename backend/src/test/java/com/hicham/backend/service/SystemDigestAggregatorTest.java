@@ -0,0 +1,107 @@
+package com.hicham.backend.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+import com.hicham.backend.model.SystemDigest;
+
+@ExtendWith(MockitoExtension.class)
+class SystemDigestAggregatorTest {
+
+    private static final String DESTINATION = "/topic/system";
+
+    @Mock
+    private SimpMessageSendingOperations messagingTemplate;
+
+    private SystemDigestAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        aggregator = new SystemDigestAggregator(messagingTemplate, DESTINATION, 1000, 2);
+    }
+
+    @Test
+    void testFlush_SendsOneDigestPerInterval() {
+        // Given
+        aggregator.record(update("op-1", ProgressType.GENERATION_STARTED));
+        aggregator.record(update("op-2", ProgressType.GENERATION_STARTED));
+        aggregator.record(update("op-3", ProgressType.GENERATION_STARTED));
+        aggregator.record(update("op-1", ProgressType.GENERATION_COMPLETED));
+        aggregator.record(update("op-2", ProgressType.GENERATION_ERROR));
+        aggregator.record(update("op-3", ProgressType.GENERATION_CANCELLED));
+
+        // When
+        verifyNoInteractions(messagingTemplate);
+        aggregator.flush();
+
+        // Then
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, times(1)).convertAndSend(
+            eq(DESTINATION), payload.capture(), eq(Map.<String, Object>of(SystemDigestAggregator.DIGEST_HEADER, "true"))
+        );
+        SystemDigest digest = (SystemDigest) payload.getValue();
+        assertEquals(3, digest.getStarted());
+        assertEquals(1, digest.getCompleted());
+        assertEquals(1, digest.getFailed());
+        // A cancellation is not a failure
+        assertEquals(1, digest.getCancelled());
+        // Only the most recent IDs are kept
+        assertEquals(List.of("op-2", "op-3"), digest.getStartedOperationIds());
+        assertEquals(List.of("op-1"), digest.getCompletedOperationIds());
+        assertEquals(List.of("op-2"), digest.getFailedOperationIds());
+        assertEquals(List.of("op-3"), digest.getCancelledOperationIds());
+        assertEquals(1000, digest.getIntervalMillis());
+        assertEquals("System: 3 started, 1 completed, 1 failed, 1 cancelled in the last 1000 ms", digest.getMessage());
+    }
+
+    @Test
+    void testFlush_StartsNewInterval() {
+        // Given
+        aggregator.record(update("op-1", ProgressType.GENERATION_STARTED));
+        aggregator.flush();
+
+        // When
+        aggregator.record(update("op-1", ProgressType.GENERATION_COMPLETED));
+        aggregator.flush();
+
+        // Then
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, times(2)).convertAndSend(eq(DESTINATION), payload.capture(), eq(Map.<String, Object>of(
+            SystemDigestAggregator.DIGEST_HEADER, "true")));
+        SystemDigest second = (SystemDigest) payload.getAllValues().get(1);
+        assertEquals(0, second.getStarted());
+        assertEquals(1, second.getCompleted());
+    }
+
+    @Test
+    void testFlush_NothingRecorded() {
+        // Given
+        aggregator.record(update("op-1", ProgressType.GENERATION_PROGRESS));
+
+        // When
+        aggregator.flush();
+
+        // Then
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    private static ProgressUpdate update(String operationId, ProgressType type) {
+        return new ProgressUpdate(operationId, "user-1", type, null, "step", "System message", LocalDateTime.now());
+    }
+}
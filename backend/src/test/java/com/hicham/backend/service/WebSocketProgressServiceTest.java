@@ -1,22 +1,37 @@
 package com.hicham.backend.service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.Mock;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.TaskScheduler;
 
+import com.hicham.backend.config.ProgressDeliveryProperties;
 import com.hicham.backend.model.ProgressType;
 import com.hicham.backend.model.ProgressUpdate;
+import com.hicham.backend.model.SystemDigest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith(MockitoExtension.class)
 class WebSocketProgressServiceTest {
@@ -191,4 +206,208 @@ class WebSocketProgressServiceTest {
             eq(update)
         );
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testSendProgressUpdate_WithConflationEnabled() {
+        // Given
+        TaskScheduler scheduler = mock(TaskScheduler.class);
+        ProgressDeliveryProperties properties = new ProgressDeliveryProperties();
+        properties.getConflation().setEnabled(true);
+        properties.getConflation().setTickMillis(100);
+        WebSocketProgressService conflatingService = new WebSocketProgressService(messagingTemplate, properties, scheduler);
+        ArgumentCaptor<Runnable> tick = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).scheduleAtFixedRate(tick.capture(), eq(Duration.ofMillis(100)));
+        String userId = "test-user-123";
+        ProgressUpdate first = new ProgressUpdate(
+            "op-123", userId, ProgressType.GENERATION_PROGRESS,
+            20, "step_1", "Step 1", LocalDateTime.now()
+        );
+        ProgressUpdate second = new ProgressUpdate(
+            "op-123", userId, ProgressType.GENERATION_PROGRESS,
+            40, "step_2", "Step 2", LocalDateTime.now()
+        );
+
+        // When
+        conflatingService.sendProgressUpdate(userId, first);
+        conflatingService.sendProgressUpdate(userId, second);
+        tick.getValue().run();
+
+        // Then
+        verify(messagingTemplate, never()).convertAndSend("/topic/progress." + userId, (Object) first);
+        verify(messagingTemplate, times(1)).convertAndSend("/topic/progress." + userId, (Object) second);
+    }
+
+    @Test
+    void testDiscardPending_DropsConflatedProgress() {
+        // Given
+        TaskScheduler scheduler = mock(TaskScheduler.class);
+        ProgressDeliveryProperties properties = new ProgressDeliveryProperties();
+        properties.getConflation().setEnabled(true);
+        WebSocketProgressService conflatingService = new WebSocketProgressService(messagingTemplate, properties, scheduler);
+        ArgumentCaptor<Runnable> tick = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).scheduleAtFixedRate(tick.capture(), any(Duration.class));
+        ProgressUpdate progress = new ProgressUpdate(
+            "op-123", "test-user-123", ProgressType.GENERATION_PROGRESS,
+            20, "step_1", "Step 1", LocalDateTime.now()
+        );
+        conflatingService.sendProgressUpdate("test-user-123", progress);
+
+        // When
+        conflatingService.discardPending("op-123");
+        tick.getValue().run();
+
+        // Then
+        verify(messagingTemplate, never()).convertAndSend("/topic/progress.test-user-123", (Object) progress);
+    }
+
+    @Test
+    void testSendProgressUpdate_NotifiesListenersBeforeSending() {
+        // Given
+        OperationStateRegistry registry = new OperationStateRegistry(60_000, 60_000);
+        WebSocketProgressService service = new WebSocketProgressService(
+            messagingTemplate, new ProgressDeliveryProperties(), mock(TaskScheduler.class), List.of(registry)
+        );
+        ProgressUpdate update = new ProgressUpdate(
+            "op-123", "user-1", ProgressType.GENERATION_PROGRESS,
+            20, "step_1", "Etape 1", LocalDateTime.now()
+        );
+
+        // When
+        service.sendProgressUpdate("user-1", update);
+
+        // Then
+        assertEquals(20, registry.find("op-123").orElseThrow().getPercentage());
+        verify(messagingTemplate).convertAndSend(eq("/topic/progress.user-1"), eq(update));
+    }
+
+    @Test
+    void testSendToSession_RepliesOnTheUserQueue() {
+        // When
+        progressService.sendToSession("session-1", "Generation cancelled");
+
+        // Then
+        ArgumentCaptor<MessageHeaders> headers = ArgumentCaptor.forClass(MessageHeaders.class);
+        verify(messagingTemplate).convertAndSendToUser(
+            eq("session-1"), eq(WebSocketProgressService.REPLAY_DESTINATION), eq("Generation cancelled"), headers.capture()
+        );
+        assertEquals("session-1", SimpMessageHeaderAccessor.getSessionId(headers.getValue()));
+    }
+
+    @Test
+    void testSendReplay_SendsOneBatchToSession() {
+        // Given
+        ProgressUpdate update = new ProgressUpdate(
+            "op-123", "user-1", ProgressType.GENERATION_PROGRESS,
+            40, "step_2", "Etape 2", LocalDateTime.now(), 7L
+        );
+        ProgressReplayBuffer.Replay replay = new ProgressReplayBuffer.Replay(List.of(update), true);
+
+        // When
+        progressService.sendReplay("session-1", replay);
+
+        // Then
+        ArgumentCaptor<MessageHeaders> headers = ArgumentCaptor.forClass(MessageHeaders.class);
+        verify(messagingTemplate).convertAndSendToUser(
+            eq("session-1"), eq(WebSocketProgressService.REPLAY_DESTINATION), eq(List.of(update)), headers.capture()
+        );
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(
+            MessageBuilder.createMessage(new byte[0], headers.getValue())
+        );
+        assertEquals("session-1", accessor.getSessionId());
+        assertEquals("1", accessor.getFirstNativeHeader(ProgressBatcher.BATCH_HEADER));
+        assertEquals("true", accessor.getFirstNativeHeader(WebSocketProgressService.REPLAY_TRUNCATED_HEADER));
+    }
+
+    @Test
+    void testSendReplay_NothingMissed() {
+        // When
+        progressService.sendReplay("session-1", new ProgressReplayBuffer.Replay(List.of(), false));
+
+        // Then
+        verify(messagingTemplate, never()).convertAndSendToUser(any(), any(), any(), any(MessageHeaders.class));
+    }
+
+    @Test
+    void testSendProgressUpdate_CountsUpdatesPerType() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        WebSocketProgressService service = new WebSocketProgressService(
+            messagingTemplate, new ProgressDeliveryProperties(), mock(TaskScheduler.class), List.of(), registry
+        );
+        ProgressUpdate progress = new ProgressUpdate(
+            "op-123", "user-1", ProgressType.GENERATION_PROGRESS,
+            20, "step_1", "Etape 1", LocalDateTime.now()
+        );
+        ProgressUpdate completed = new ProgressUpdate(
+            "op-123", "user-1", ProgressType.GENERATION_COMPLETED,
+            100, "completed", "Done", LocalDateTime.now()
+        );
+
+        // When
+        service.sendProgressUpdate("user-1", progress);
+        service.sendProgressUpdate("user-1", progress);
+        service.broadcastSystemUpdate(completed);
+
+        // Then
+        assertEquals(2.0, registry.get("progress.updates.sent")
+            .tags("destination", "user", "type", "GENERATION_PROGRESS").counter().count());
+        assertEquals(1.0, registry.get("progress.updates.sent")
+            .tags("destination", "system", "type", "GENERATION_COMPLETED").counter().count());
+        assertEquals(0.0, registry.get("progress.updates.sent")
+            .tags("destination", "user", "type", "GENERATION_COMPLETED").counter().count());
+    }
+
+    @Test
+    void testBroadcastSystemUpdate_WithDigestMode() {
+        // Given
+        TaskScheduler scheduler = mock(TaskScheduler.class);
+        ProgressDeliveryProperties properties = new ProgressDeliveryProperties();
+        properties.getSystem().setMode(ProgressDeliveryProperties.SystemBroadcast.Mode.DIGEST);
+        properties.getSystem().setDigestIntervalMillis(2000);
+        WebSocketProgressService digestService = new WebSocketProgressService(messagingTemplate, properties, scheduler);
+        ArgumentCaptor<Runnable> tick = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).scheduleAtFixedRate(tick.capture(), eq(Duration.ofMillis(2000)));
+        ProgressUpdate started = new ProgressUpdate(
+            "op-123", "user-1", ProgressType.GENERATION_STARTED,
+            0, "init", "System: Generation started for user-1", LocalDateTime.now()
+        );
+
+        // When
+        digestService.broadcastSystemUpdate(started);
+        digestService.broadcastSystemUpdate(started);
+
+        // Then
+        verify(messagingTemplate, never()).convertAndSend(eq("/topic/system"), any(ProgressUpdate.class));
+        tick.getValue().run();
+        ArgumentCaptor<Object> digest = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/system"), digest.capture(), anyMap());
+        assertEquals(2, ((SystemDigest) digest.getValue()).getStarted());
+    }
+
+    @Test
+    void testSendProgressUpdate_ReplicatesToClusterAndDeliversFromPeers() {
+        // Given
+        ProgressClusterBus cluster = mock(ProgressClusterBus.class);
+        when(cluster.isEnabled()).thenReturn(true);
+        WebSocketProgressService clusteredService = new WebSocketProgressService(messagingTemplate,
+            new ProgressDeliveryProperties(), mock(TaskScheduler.class), List.of(), new SimpleMeterRegistry(), cluster);
+        ArgumentCaptor<ProgressSink> localSink = ArgumentCaptor.forClass(ProgressSink.class);
+        verify(cluster).setLocalSink(localSink.capture());
+        ProgressUpdate local = new ProgressUpdate(
+            "op-1", "user-1", ProgressType.GENERATION_PROGRESS, 20, "step_1", "Step 1", LocalDateTime.now()
+        );
+        ProgressUpdate remote = new ProgressUpdate(
+            "op-2", "user-2", ProgressType.GENERATION_PROGRESS, 40, "step_2", "Step 2", LocalDateTime.now()
+        );
+
+        // When
+        clusteredService.sendProgressUpdate("user-1", local);
+        localSink.getValue().send("/topic/progress.user-2", remote);
+
+        // Then
+        verify(messagingTemplate).convertAndSend("/topic/progress.user-1", (Object) local);
+        verify(cluster).replicate("/topic/progress.user-1", local);
+        verify(messagingTemplate).convertAndSend("/topic/progress.user-2", (Object) remote);
+        verify(cluster, never()).replicate("/topic/progress.user-2", remote);
+    }
+}
@@ -0,0 +1,120 @@
+package com.hicham.backend.websocket;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MultiValueMap;
+
+class IndexedSubscriptionRegistryTest {
+
+    private IndexedSubscriptionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new IndexedSubscriptionRegistry();
+    }
+
+    @Test
+    void shouldFindExactSubscriptions() {
+        registry.registerSubscription(subscribe("s1", "sub-1", "/topic/progress.user1"));
+        registry.registerSubscription(subscribe("s2", "sub-1", "/topic/progress.user1"));
+        registry.registerSubscription(subscribe("s2", "sub-2", "/topic/progress.user2"));
+
+        MultiValueMap<String, String> result = registry.findSubscriptions(message("/topic/progress.user1"));
+
+        assertEquals(2, result.size());
+        assertEquals(List.of("sub-1"), result.get("s1"));
+        assertEquals(List.of("sub-1"), result.get("s2"));
+        assertTrue(registry.findSubscriptions(message("/topic/progress.user3")).isEmpty());
+    }
+
+    @Test
+    void shouldMatchPatternSubscriptions() {
+        registry.registerSubscription(subscribe("s1", "sub-1", "/topic/progress.user1"));
+        registry.registerSubscription(subscribe("s2", "sub-1", "/topic/progress.*"));
+
+        MultiValueMap<String, String> result = registry.findSubscriptions(message("/topic/progress.user1"));
+
+        assertEquals(2, result.size());
+        assertTrue(registry.hasSubscribers("/topic/progress.user9"));
+        assertFalse(registry.hasSubscribers("/topic/system"));
+    }
+
+    @Test
+    void shouldRemoveSubscriptionAndEmptyDestination() {
+        registry.registerSubscription(subscribe("s1", "sub-1", "/topic/progress.user1"));
+        registry.registerSubscription(subscribe("s1", "sub-2", "/topic/system"));
+
+        registry.unregisterSubscription(unsubscribe("s1", "sub-1"));
+
+        assertFalse(registry.hasSubscribers("/topic/progress.user1"));
+        assertTrue(registry.hasSubscribers("/topic/system"));
+        assertEquals(1, registry.getDestinationCount());
+    }
+
+    @Test
+    void shouldUnregisterAllSubscriptionsOfSession() {
+        registry.registerSubscription(subscribe("s1", "sub-1", "/topic/progress.user1"));
+        registry.registerSubscription(subscribe("s1", "sub-2", "/topic/system"));
+        registry.registerSubscription(subscribe("s2", "sub-1", "/topic/system"));
+
+        registry.unregisterAllSubscriptions("s1");
+
+        assertFalse(registry.hasSubscribers("/topic/progress.user1"));
+        assertEquals(List.of("s2"), List.copyOf(registry.findSubscriptions(message("/topic/system")).keySet()));
+        assertEquals(1, registry.getSessionCount());
+    }
+
+    @Test
+    void shouldMoveResubscribedSubscriptionId() {
+        registry.registerSubscription(subscribe("s1", "sub-1", "/topic/progress.user1"));
+        registry.registerSubscription(subscribe("s1", "sub-1", "/topic/progress.user2"));
+
+        assertFalse(registry.hasSubscribers("/topic/progress.user1"));
+        assertTrue(registry.hasSubscribers("/topic/progress.user2"));
+    }
+
+    @Test
+    void shouldNotifyWhenDestinationGainsFirstOrLosesLastSubscriber() {
+        List<String> changes = new ArrayList<>();
+        registry.addDestinationListener(changes::add);
+
+        registry.registerSubscription(subscribe("s1", "sub-1", "/topic/progress.user1"));
+        registry.registerSubscription(subscribe("s2", "sub-1", "/topic/progress.user1"));
+        assertTrue(registry.isSubscribed("/topic/progress.user1"));
+        registry.unregisterAllSubscriptions("s1");
+        registry.unregisterAllSubscriptions("s2");
+
+        assertEquals(List.of("/topic/progress.user1", "/topic/progress.user1"), changes);
+        assertFalse(registry.isSubscribed("/topic/progress.user1"));
+    }
+
+    private static Message<byte[]> subscribe(String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> unsubscribe(String sessionId, String subscriptionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.UNSUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> message(String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
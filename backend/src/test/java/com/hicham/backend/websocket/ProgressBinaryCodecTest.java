@@ -0,0 +1,126 @@
+package com.hicham.backend.websocket;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+
+class ProgressBinaryCodecTest {
+
+    @Test
+    void testRoundTrip_WithUuidOperationId() {
+        // Given
+        ProgressUpdate update = new ProgressUpdate(
+            UUID.randomUUID().toString(), "user1", ProgressType.GENERATION_PROGRESS,
+            60, "step_3", "Etape 3 complétée pour user1", LocalDateTime.of(2025, 7, 14, 9, 5, 3, 123_000_000)
+        );
+
+        // When
+        List<ProgressUpdate> decoded = ProgressBinaryCodec.decode(ProgressBinaryCodec.encode(update));
+
+        // Then
+        assertEquals(List.of(update), decoded);
+    }
+
+    @Test
+    void testRoundTrip_WithSequence() {
+        // Given
+        ProgressUpdate update = new ProgressUpdate(
+            "op-1", "user1", ProgressType.GENERATION_COMPLETED,
+            100, "complete", "done", LocalDateTime.of(2025, 7, 14, 9, 5, 3), 3_000_000_000L, "node-a"
+        );
+
+        // When
+        List<ProgressUpdate> decoded = ProgressBinaryCodec.decode(ProgressBinaryCodec.encode(update));
+
+        // Then
+        assertEquals(List.of(update), decoded);
+    }
+
+    @Test
+    void testRoundTrip_WithNullValues() {
+        // Given
+        ProgressUpdate update = new ProgressUpdate(null, null, null, null, null, null, null);
+
+        // When & Then
+        assertEquals(List.of(update), ProgressBinaryCodec.decode(ProgressBinaryCodec.encode(update)));
+    }
+
+    @Test
+    void testRoundTrip_WithNonUuidIdsAndSpecialCharacters() {
+        // Given
+        ProgressUpdate update = new ProgressUpdate(
+            "op-émojis-🚀", "user@domain.com", ProgressType.GENERATION_ERROR,
+            -42, "", "Quote \" and\nnewline", LocalDateTime.of(1969, 12, 31, 23, 59, 59)
+        );
+
+        // When & Then
+        assertEquals(List.of(update), ProgressBinaryCodec.decode(ProgressBinaryCodec.encode(update)));
+    }
+
+    @Test
+    void testRoundTrip_KeepsUppercaseUuidAsString() {
+        // Given
+        ProgressUpdate update = new ProgressUpdate(
+            UUID.randomUUID().toString().toUpperCase(), "user1", ProgressType.GENERATION_STARTED,
+            0, "init", "start", null
+        );
+
+        // When & Then
+        assertEquals(List.of(update), ProgressBinaryCodec.decode(ProgressBinaryCodec.encode(update)));
+    }
+
+    @Test
+    void testRoundTrip_WithBatch() {
+        // Given
+        List<ProgressUpdate> batch = List.of(
+            new ProgressUpdate("op-1", "user1", ProgressType.GENERATION_PROGRESS, 20, "step_1", "a", null),
+            new ProgressUpdate("op-1", "user1", ProgressType.GENERATION_COMPLETED, 100, "completed", "b", null)
+        );
+
+        // When & Then
+        assertEquals(batch, ProgressBinaryCodec.decode(ProgressBinaryCodec.encode(batch)));
+    }
+
+    @Test
+    void testTimestamp_IsTruncatedToMillis() {
+        // Given
+        ProgressUpdate update = new ProgressUpdate("op", "user", ProgressType.GENERATION_STARTED,
+            0, "init", "start", LocalDateTime.of(2025, 1, 1, 0, 0, 0, 123_456_789));
+
+        // When
+        ProgressUpdate decoded = ProgressBinaryCodec.decode(ProgressBinaryCodec.encode(update)).get(0);
+
+        // Then
+        assertEquals(LocalDateTime.of(2025, 1, 1, 0, 0, 0, 123_000_000), decoded.getTimestamp());
+    }
+
+    @Test
+    void testEncode_IsMuchSmallerThanJson() {
+        // Given
+        String userId = "user1";
+        ProgressUpdate update = new ProgressUpdate(
+            UUID.randomUUID().toString(), userId, ProgressType.GENERATION_PROGRESS,
+            60, "step_3", "Etape 3 complétée pour " + userId, LocalDateTime.now()
+        );
+
+        // When
+        int binarySize = ProgressBinaryCodec.encode(update).length;
+        int jsonSize = new ProgressUpdateMessageConverter().toJson(update).length;
+
+        // Then
+        assertTrue(binarySize * 2 < jsonSize, "binary=" + binarySize + " json=" + jsonSize);
+    }
+
+    @Test
+    void testDecode_RejectsUnknownVersion() {
+        assertThrows(IllegalArgumentException.class, () -> ProgressBinaryCodec.decode(new byte[] {9, 0}));
+    }
+}
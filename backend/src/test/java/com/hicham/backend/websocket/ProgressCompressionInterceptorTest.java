@@ -0,0 +1,197 @@
+package com.hicham.backend.websocket;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import com.hicham.backend.config.WebSocketCompressionProperties;
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+
+class ProgressCompressionInterceptorTest {
+
+    private static final String SESSION_ID = "session-1";
+
+    private WebSocketCompressionProperties properties;
+    private MeterRegistry meterRegistry;
+    private ProgressCompressionInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        properties = new WebSocketCompressionProperties();
+        properties.setThresholdBytes(64);
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new ProgressCompressionInterceptor(properties, meterRegistry);
+    }
+
+    @Test
+    void testOutboundMessage_UnchangedWithoutAcceptEncoding() {
+        // Given
+        Message<?> message = outbound(progressJson());
+
+        // When
+        Message<?> result = interceptor.preSend(message, null);
+
+        // Then
+        assertSame(message, result);
+        assertEquals(0, interceptor.getSessionCount());
+    }
+
+    @Test
+    void testAcceptEncoding_DeflatesFramesOverThreshold() throws Exception {
+        // Given
+        interceptor.preSend(connect("gzip, deflate", null), null);
+        Message<?> message = outbound(progressJson());
+
+        // When
+        Message<?> result = interceptor.preSend(message, null);
+
+        // Then
+        assertNotSame(message, result);
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(result);
+        assertEquals(ProgressCompressionInterceptor.DEFLATE,
+            accessor.getFirstNativeHeader(ProgressCompressionInterceptor.CONTENT_ENCODING_HEADER));
+        assertEquals(MimeTypeUtils.APPLICATION_OCTET_STREAM, accessor.getContentType());
+        byte[] compressed = (byte[]) result.getPayload();
+        assertTrue(compressed.length < progressJson().length);
+        assertArrayEquals(progressJson(), inflate(compressed));
+        assertEquals(1, meterRegistry.get("websocket.compression.frames").tag("result", "compressed").counter().count());
+        assertEquals(1, meterRegistry.get("websocket.compression.ratio").summary().count());
+        assertEquals(1, meterRegistry.get("websocket.compression.cpu.time").timer().count());
+    }
+
+    @Test
+    void testSmallFrames_SentAsTheyAre() {
+        // Given
+        interceptor.preSend(connect(ProgressCompressionInterceptor.DEFLATE, null), null);
+        Message<?> message = outbound("{}".getBytes());
+
+        // When
+        Message<?> result = interceptor.preSend(message, null);
+
+        // Then
+        assertSame(message, result);
+        assertEquals(1, meterRegistry.get("websocket.compression.frames").tag("result", "below-threshold").counter().count());
+        assertEquals(0, meterRegistry.get("websocket.compression.cpu.time").timer().count());
+    }
+
+    @Test
+    void testIncompressibleFrames_SentAsTheyAre() {
+        // Given
+        interceptor.preSend(connect(ProgressCompressionInterceptor.DEFLATE, null), null);
+        byte[] noise = new byte[512];
+        new Random(42).nextBytes(noise);
+        Message<?> message = outbound(noise);
+
+        // When
+        Message<?> result = interceptor.preSend(message, null);
+
+        // Then
+        assertSame(message, result);
+        assertEquals(1, meterRegistry.get("websocket.compression.frames").tag("result", "incompressible").counter().count());
+    }
+
+    @Test
+    void testSockJsSessions_NeverCompressed() {
+        // Given
+        interceptor.preSend(connect(ProgressCompressionInterceptor.DEFLATE, TransportHandshakeInterceptor.SOCKJS), null);
+        Message<?> message = outbound(progressJson());
+
+        // When
+        Message<?> result = interceptor.preSend(message, null);
+
+        // Then
+        assertSame(message, result);
+        assertEquals(0, interceptor.getSessionCount());
+    }
+
+    @Test
+    void testDisconnect_ForgetsSession() {
+        // Given
+        interceptor.preSend(connect(ProgressCompressionInterceptor.DEFLATE, null), null);
+        StompHeaderAccessor disconnect = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+        disconnect.setSessionId(SESSION_ID);
+
+        // When
+        interceptor.preSend(MessageBuilder.createMessage(new byte[0], disconnect.getMessageHeaders()), null);
+
+        // Then
+        assertEquals(0, interceptor.getSessionCount());
+        Message<?> message = outbound(progressJson());
+        assertSame(message, interceptor.preSend(message, null));
+    }
+
+    @Test
+    void testDisabled_IgnoresAcceptEncoding() {
+        // Given
+        properties.setEnabled(false);
+        interceptor = new ProgressCompressionInterceptor(properties);
+        interceptor.preSend(connect(ProgressCompressionInterceptor.DEFLATE, null), null);
+        Message<?> message = outbound(progressJson());
+
+        // When
+        Message<?> result = interceptor.preSend(message, null);
+
+        // Then
+        assertSame(message, result);
+    }
+
+    private Message<?> connect(String acceptEncoding, String transport) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(SESSION_ID);
+        accessor.setNativeHeader(ProgressCompressionInterceptor.ACCEPT_ENCODING_HEADER, acceptEncoding);
+        Map<String, Object> attributes = new HashMap<>();
+        if (transport != null) {
+            attributes.put(TransportHandshakeInterceptor.TRANSPORT_ATTRIBUTE, transport);
+        }
+        accessor.setSessionAttributes(attributes);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private Message<?> outbound(byte[] payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(SESSION_ID);
+        accessor.setSubscriptionId("sub-1");
+        accessor.setDestination("/topic/progress.user1");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private static byte[] progressJson() {
+        ProgressUpdate update = new ProgressUpdate("op-1", "user1", ProgressType.GENERATION_PROGRESS,
+            40, "step_2", "Étape 2 : génération des composants", LocalDateTime.of(2025, 7, 14, 9, 5, 3));
+        return new ProgressUpdateMessageConverter().toJson(update);
+    }
+
+    private static byte[] inflate(byte[] compressed) throws Exception {
+        Inflater inflater = new Inflater();
+        inflater.setInput(compressed);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[256];
+        while (!inflater.finished()) {
+            out.write(buffer, 0, inflater.inflate(buffer));
+        }
+        inflater.end();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,174 @@
+package com.hicham.backend.websocket;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.MimeTypeUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ProgressUpdateMessageConverterTest {
+
+    // Same settings as the ObjectMapper Spring Boot hands to the STOMP Jackson converter
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final ProgressUpdateMessageConverter converter = new ProgressUpdateMessageConverter();
+
+    @Test
+    void testToJson_MatchesJackson() throws JsonProcessingException {
+        // Given
+        ProgressUpdate update = new ProgressUpdate(
+            "3f1c2d4e-5a6b-4c7d-8e9f-0a1b2c3d4e5f", "user1", ProgressType.GENERATION_PROGRESS,
+            60, "step_3", "Etape 3 complétée pour user1", LocalDateTime.of(2025, 7, 14, 9, 5, 3, 123456000)
+        );
+
+        // When & Then
+        assertMatchesJackson(update);
+    }
+
+    @Test
+    void testToJson_WithSequence() throws JsonProcessingException {
+        assertMatchesJackson(new ProgressUpdate("op", "user", ProgressType.GENERATION_PROGRESS,
+            20, "step_1", "msg", LocalDateTime.now(), Long.MAX_VALUE));
+        assertMatchesJackson(new ProgressUpdate("op", "user", ProgressType.GENERATION_PROGRESS,
+            20, "step_1", "msg", LocalDateTime.now(), 7L, "node-a"));
+    }
+
+    @Test
+    void testToJson_WithNullValues() throws JsonProcessingException {
+        assertMatchesJackson(new ProgressUpdate(null, null, null, null, null, null, null));
+    }
+
+    @Test
+    void testToJson_WithAllProgressTypes() throws JsonProcessingException {
+        for (ProgressType type : ProgressType.values()) {
+            assertMatchesJackson(new ProgressUpdate("op", "user", type, 0, "init", "msg", LocalDateTime.now()));
+        }
+    }
+
+    @Test
+    void testToJson_WithCharactersThatNeedEscaping() throws JsonProcessingException {
+        // Given
+        StringBuilder ascii = new StringBuilder();
+        for (char c = 0; c < 0x80; c++) {
+            ascii.append(c);
+        }
+
+        // When & Then
+        assertMatchesJackson(new ProgressUpdate(
+            "op-émojis-🚀", "user@domain.com", ProgressType.GENERATION_ERROR,
+            -42, ascii.toString(), "Quote \" backslash \\ slash / 中文   é", LocalDateTime.now()
+        ));
+    }
+
+    @Test
+    void testToJson_WithTimestampPrecisions() throws JsonProcessingException {
+        LocalDateTime[] timestamps = {
+            LocalDateTime.of(2024, 1, 15, 10, 30),
+            LocalDateTime.of(2024, 1, 15, 10, 30, 0, 100_000_000),
+            LocalDateTime.of(2024, 1, 15, 10, 30, 59, 1),
+            LocalDateTime.of(9, 12, 31, 23, 59, 59, 999_999_999),
+            LocalDateTime.of(12345, 6, 1, 0, 0),
+            LocalDateTime.of(-44, 3, 15, 12, 0)
+        };
+        for (LocalDateTime timestamp : timestamps) {
+            assertMatchesJackson(new ProgressUpdate("op", "user", ProgressType.GENERATION_STARTED,
+                Integer.MAX_VALUE, "init", "msg", timestamp));
+        }
+    }
+
+    @Test
+    void testToJson_WithBatch() throws JsonProcessingException {
+        // Given
+        List<ProgressUpdate> batch = List.of(
+            new ProgressUpdate("op", "user", ProgressType.GENERATION_PROGRESS, 20, "step_1", "a", LocalDateTime.now()),
+            new ProgressUpdate("op", "user", ProgressType.GENERATION_PROGRESS, 40, "step_2", "b", LocalDateTime.now())
+        );
+
+        // When
+        byte[] json = converter.toJson(batch);
+
+        // Then
+        assertArrayEquals(objectMapper.writeValueAsBytes(batch), json);
+    }
+
+    @Test
+    void testToJson_WithLargeMessage() throws JsonProcessingException {
+        assertMatchesJackson(new ProgressUpdate("op", "user", ProgressType.GENERATION_PROGRESS,
+            50, "step", "é".repeat(100_000), LocalDateTime.now()));
+        // The buffer is released after a large message, small ones still work
+        assertMatchesJackson(new ProgressUpdate("op", "user", ProgressType.GENERATION_PROGRESS,
+            50, "step", "small", LocalDateTime.now()));
+    }
+
+    @Test
+    void testToMessage_SetsJsonContentType() {
+        // Given
+        ProgressUpdate update = new ProgressUpdate("op", "user", ProgressType.GENERATION_STARTED,
+            0, "init", "msg", LocalDateTime.now());
+
+        // When
+        Message<?> message = converter.toMessage(update, null);
+
+        // Then
+        assertNotNull(message);
+        assertEquals(MimeTypeUtils.APPLICATION_JSON, message.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+    }
+
+    @Test
+    void testToMessage_RecordsSerializationTime() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Timer timer = registry.timer("progress.serialization");
+        ProgressUpdateMessageConverter timedConverter = new ProgressUpdateMessageConverter(timer);
+        ProgressUpdate update = new ProgressUpdate("op", "user", ProgressType.GENERATION_STARTED,
+            0, "init", "msg", LocalDateTime.now());
+
+        // When
+        timedConverter.toMessage(update, null);
+
+        // Then
+        assertEquals(1, timer.count());
+    }
+
+    @Test
+    void testToMessage_IgnoresOtherPayloads() {
+        assertNull(converter.toMessage("text", null));
+        assertNull(converter.toMessage(Map.of("key", "value"), null));
+        assertNull(converter.toMessage(List.of(), null));
+        assertNull(converter.toMessage(List.of("text"), null));
+    }
+
+    @Test
+    void testFromMessage_IsLeftToOtherConverters() {
+        // Given
+        Message<?> message = converter.toMessage(new ProgressUpdate("op", "user", ProgressType.GENERATION_STARTED,
+            0, "init", "msg", LocalDateTime.now()), null);
+
+        // When & Then
+        assertNotNull(message);
+        assertFalse(converter.canConvertFrom(message, ProgressUpdate.class));
+    }
+
+    // Compared against writeValueAsBytes: like the STOMP converter it goes through Jackson's UTF-8 generator
+    private void assertMatchesJackson(ProgressUpdate update) throws JsonProcessingException {
+        assertArrayEquals(objectMapper.writeValueAsBytes(update), converter.toJson(update));
+    }
+}
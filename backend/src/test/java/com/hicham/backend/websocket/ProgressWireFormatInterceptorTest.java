@@ -0,0 +1,166 @@
+package com.hicham.backend.websocket;
+
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+
+class ProgressWireFormatInterceptorTest {
+
+    private static final String SESSION_ID = "session-1";
+
+    private ProgressWireFormatInterceptor interceptor;
+    private ProgressUpdate update;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new ProgressWireFormatInterceptor();
+        update = new ProgressUpdate("op-1", "user1", ProgressType.GENERATION_PROGRESS,
+            40, "step_2", "Etape 2", LocalDateTime.of(2025, 7, 14, 9, 5, 3, 123_000_000));
+    }
+
+    @Test
+    void testOutboundMessage_StaysJsonByDefault() {
+        // Given
+        Message<?> message = outbound("sub-1");
+
+        // When
+        Message<?> result = interceptor.preSend(message, null);
+
+        // Then
+        assertSame(message, result);
+    }
+
+    @Test
+    void testConnectHeader_SwitchesSessionToBinary() {
+        // Given
+        interceptor.preSend(inbound(StompCommand.CONNECT, null, ProgressWireFormatInterceptor.BINARY, null), null);
+
+        // When
+        Message<?> result = interceptor.preSend(outbound("sub-1"), null);
+
+        // Then
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(result);
+        assertEquals(MimeTypeUtils.APPLICATION_OCTET_STREAM, accessor.getContentType());
+        assertEquals(ProgressWireFormatInterceptor.BINARY,
+            accessor.getFirstNativeHeader(ProgressWireFormatInterceptor.FORMAT_HEADER));
+        assertEquals(List.of(update), ProgressBinaryCodec.decode((byte[]) result.getPayload()));
+    }
+
+    @Test
+    void testSubscribeHeader_AppliesToThatSubscriptionOnly() {
+        // Given
+        interceptor.preSend(inbound(StompCommand.SUBSCRIBE, "sub-1", ProgressWireFormatInterceptor.BINARY, null), null);
+
+        // When
+        Message<?> binary = interceptor.preSend(outbound("sub-1"), null);
+        Message<?> json = interceptor.preSend(outbound("sub-2"), null);
+
+        // Then
+        assertEquals(List.of(update), ProgressBinaryCodec.decode((byte[]) binary.getPayload()));
+        assertEquals(MimeTypeUtils.APPLICATION_JSON, SimpMessageHeaderAccessor.wrap(json).getContentType());
+    }
+
+    @Test
+    void testSubscribeHeader_CanOptOutOfSessionDefault() {
+        // Given
+        interceptor.preSend(inbound(StompCommand.CONNECT, null, ProgressWireFormatInterceptor.BINARY, null), null);
+        interceptor.preSend(inbound(StompCommand.SUBSCRIBE, "sub-1", ProgressWireFormatInterceptor.JSON, null), null);
+
+        // When
+        Message<?> result = interceptor.preSend(outbound("sub-1"), null);
+
+        // Then
+        assertEquals(MimeTypeUtils.APPLICATION_JSON, SimpMessageHeaderAccessor.wrap(result).getContentType());
+    }
+
+    @Test
+    void testSockJsSession_GetsBase64Text() {
+        // Given
+        interceptor.preSend(inbound(StompCommand.CONNECT, null, ProgressWireFormatInterceptor.BINARY,
+            TransportHandshakeInterceptor.SOCKJS), null);
+
+        // When
+        Message<?> result = interceptor.preSend(outbound("sub-1"), null);
+
+        // Then
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(result);
+        assertEquals(MimeTypeUtils.TEXT_PLAIN, accessor.getContentType());
+        assertEquals(ProgressWireFormatInterceptor.BINARY_BASE64,
+            accessor.getFirstNativeHeader(ProgressWireFormatInterceptor.FORMAT_HEADER));
+        assertArrayEquals(ProgressBinaryCodec.encode(update), Base64.getDecoder().decode((byte[]) result.getPayload()));
+    }
+
+    @Test
+    void testMessagesWithoutProgressPayload_AreUntouched() {
+        // Given
+        interceptor.preSend(inbound(StompCommand.CONNECT, null, ProgressWireFormatInterceptor.BINARY, null), null);
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(SESSION_ID);
+        accessor.setSubscriptionId("sub-1");
+        Message<byte[]> message = MessageBuilder.createMessage("text".getBytes(), accessor.getMessageHeaders());
+
+        // When & Then
+        assertSame(message, interceptor.preSend(message, null));
+    }
+
+    @Test
+    void testDisconnect_ForgetsSession() {
+        // Given
+        interceptor.preSend(inbound(StompCommand.CONNECT, null, ProgressWireFormatInterceptor.BINARY, null), null);
+
+        // When
+        interceptor.preSend(inbound(StompCommand.DISCONNECT, null, null, null), null);
+
+        // Then
+        assertEquals(0, interceptor.getBinarySessionCount());
+        Message<?> result = interceptor.preSend(outbound("sub-1"), null);
+        assertNull(result.getHeaders().get(ProgressWireFormatInterceptor.FORMAT_HEADER));
+        assertEquals(MimeTypeUtils.APPLICATION_JSON, SimpMessageHeaderAccessor.wrap(result).getContentType());
+    }
+
+    private Message<?> inbound(StompCommand command, String subscriptionId, String format, String transport) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(SESSION_ID);
+        if (subscriptionId != null) {
+            accessor.setSubscriptionId(subscriptionId);
+        }
+        if (format != null) {
+            accessor.setNativeHeader(ProgressWireFormatInterceptor.FORMAT_HEADER, format);
+        }
+        Map<String, Object> attributes = new HashMap<>();
+        if (transport != null) {
+            attributes.put(TransportHandshakeInterceptor.TRANSPORT_ATTRIBUTE, transport);
+        }
+        accessor.setSessionAttributes(attributes);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    // What the simple broker hands to the outbound channel after the converter ran
+    private Message<?> outbound(String subscriptionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(SESSION_ID);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination("/topic/progress.user1");
+        accessor.setLeaveMutable(true);
+        return new ProgressUpdateMessageConverter().toMessage(update, accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,176 @@
+package com.hicham.backend.websocket;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import com.hicham.backend.model.ProgressType;
+import com.hicham.backend.model.ProgressUpdate;
+import com.hicham.backend.service.ProgressBatcher;
+
+class SlowConsumerSessionDecoratorTest {
+
+    private WebSocketSession delegate;
+    private SlowConsumerMonitor monitor;
+    private List<String> sent;
+    private CountDownLatch sendEntered;
+    private CountDownLatch releaseSend;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        delegate = mock(WebSocketSession.class);
+        when(delegate.getId()).thenReturn("session-1");
+        monitor = new SlowConsumerMonitor();
+        sent = new ArrayList<>();
+        sendEntered = new CountDownLatch(1);
+        releaseSend = new CountDownLatch(1);
+        // The first send blocks until released, like a stalled browser tab
+        doAnswer(invocation -> {
+            sent.add(((TextMessage) invocation.getArgument(0)).getPayload());
+            sendEntered.countDown();
+            releaseSend.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(delegate).sendMessage(any());
+    }
+
+    @Test
+    void shouldDropSupersededProgressAndKeepTerminalFrames() throws Exception {
+        TextMessage p10 = frame(update("op-1", ProgressType.GENERATION_PROGRESS, 10));
+        TextMessage p20 = frame(update("op-1", ProgressType.GENERATION_PROGRESS, 20));
+        TextMessage p30 = frame(update("op-1", ProgressType.GENERATION_PROGRESS, 30));
+        TextMessage p40 = frame(update("op-1", ProgressType.GENERATION_PROGRESS, 40));
+        TextMessage completed = frame(update("op-1", ProgressType.GENERATION_COMPLETED, 100));
+        SlowConsumerSessionDecorator session = new SlowConsumerSessionDecorator(
+                delegate, 10_000, p20.getPayloadLength() + completed.getPayloadLength(), 30_000, monitor);
+
+        Thread sender = blockFirstSend(session, p10);
+        session.sendMessage(p20);
+        session.sendMessage(p30);
+        session.sendMessage(p40);
+        session.sendMessage(completed);
+        releaseSend.countDown();
+        sender.join(5000);
+
+        assertEquals(List.of(p10.getPayload(), p40.getPayload(), completed.getPayload()), sent);
+        assertEquals(2, session.getDroppedCount());
+        assertEquals(2, monitor.getDroppedCount());
+        assertEquals(0, monitor.getDisconnectedCount());
+    }
+
+    @Test
+    void shouldDisconnectWhenOnlyTerminalFramesRemain() throws Exception {
+        TextMessage first = frame(update("op-1", ProgressType.GENERATION_PROGRESS, 10));
+        TextMessage completed = frame(update("op-2", ProgressType.GENERATION_COMPLETED, 100));
+        SlowConsumerSessionDecorator session = new SlowConsumerSessionDecorator(
+                delegate, 10_000, completed.getPayloadLength(), 30_000, monitor);
+
+        Thread sender = blockFirstSend(session, first);
+        session.sendMessage(completed);
+        assertThrows(SessionLimitExceededException.class,
+                () -> session.sendMessage(frame(update("op-3", ProgressType.GENERATION_ERROR, 0))));
+        releaseSend.countDown();
+        sender.join(5000);
+
+        assertEquals(1, monitor.getDisconnectedCount());
+        assertEquals(List.of(first.getPayload()), sent);
+    }
+
+    @Test
+    void shouldReleaseNextMessageOnceQueuedEvenWhileSendIsBlocked() throws Exception {
+        // The broker's publish-order callback must not wait for the slow send
+        TextMessage first = frame(update("op-1", ProgressType.GENERATION_PROGRESS, 10));
+        TextMessage second = frame(update("op-1", ProgressType.GENERATION_PROGRESS, 20));
+        SlowConsumerSessionDecorator session = new SlowConsumerSessionDecorator(
+                delegate, 10_000, 1024 * 1024, 30_000, monitor);
+        List<WebSocketMessage<?>> released = new ArrayList<>();
+        session.setMessageCallback(released::add);
+
+        Thread sender = blockFirstSend(session, first);
+        session.sendMessage(second);
+
+        assertEquals(List.of(first, second), released);
+        releaseSend.countDown();
+        sender.join(5000);
+        assertEquals(List.of(first.getPayload(), second.getPayload()), sent);
+    }
+
+    @Test
+    void shouldOnlyClassifySingleIntermediateProgressFrames() {
+        ProgressUpdate progress = update("op-1", ProgressType.GENERATION_PROGRESS, 50);
+
+        assertEquals("op-1", ProgressFrames.intermediateOperationId(frame(progress)));
+        assertNull(ProgressFrames.intermediateOperationId(frame(update("op-1", ProgressType.GENERATION_COMPLETED, 100))));
+        assertNull(ProgressFrames.intermediateOperationId(new TextMessage(
+                stomp(ProgressBatcher.BATCH_HEADER + ":1\n", "[" + json(progress) + "]"))));
+        String base64 = Base64.getEncoder().encodeToString(ProgressBinaryCodec.encode(progress));
+        assertEquals("op-1", ProgressFrames.intermediateOperationId(new TextMessage(stomp(
+                ProgressWireFormatInterceptor.FORMAT_HEADER + ":" + ProgressWireFormatInterceptor.BINARY_BASE64 + "\n",
+                base64))));
+        assertNull(ProgressFrames.intermediateOperationId(new TextMessage("\n")));
+    }
+
+    @Test
+    void shouldClassifyDeflatedProgressFrames() {
+        Deflater deflater = new Deflater();
+        deflater.setInput(json(update("op-1", ProgressType.GENERATION_PROGRESS, 50)).getBytes(StandardCharsets.UTF_8));
+        deflater.finish();
+        byte[] buffer = new byte[512];
+        byte[] body = Arrays.copyOf(buffer, deflater.deflate(buffer));
+        byte[] headers = ("MESSAGE\ndestination:/topic/progress.user-1\nsubscription:sub-0\n"
+                + ProgressCompressionInterceptor.CONTENT_ENCODING_HEADER + ":" + ProgressCompressionInterceptor.DEFLATE
+                + "\ncontent-length:" + body.length + "\n\n").getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer frame = ByteBuffer.allocate(headers.length + body.length + 1).put(headers).put(body).put((byte) 0);
+
+        assertEquals("op-1", ProgressFrames.intermediateOperationId(new BinaryMessage(frame.flip())));
+    }
+
+    private Thread blockFirstSend(SlowConsumerSessionDecorator session, WebSocketMessage<?> message) throws Exception {
+        Thread sender = new Thread(() -> {
+            try {
+                session.sendMessage(message);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        sender.start();
+        assertTrue(sendEntered.await(5, TimeUnit.SECONDS));
+        return sender;
+    }
+
+    private static ProgressUpdate update(String operationId, ProgressType type, int percentage) {
+        return new ProgressUpdate(operationId, "user-1", type, percentage, "step", "message",
+                LocalDateTime.of(2024, 1, 1, 12, 0));
+    }
+
+    private static TextMessage frame(ProgressUpdate update) {
+        return new TextMessage(stomp("", json(update)));
+    }
+
+    private static String json(ProgressUpdate update) {
+        return new String(new ProgressUpdateMessageConverter().toJson(update), StandardCharsets.UTF_8);
+    }
+
+    private static String stomp(String extraHeaders, String body) {
+        return "MESSAGE\ndestination:/topic/progress.user-1\nsubscription:sub-0\nmessage-id:1\n"
+                + extraHeaders + "content-length:" + body.length() + "\n\n" + body + "\u0000";
+    }
+}
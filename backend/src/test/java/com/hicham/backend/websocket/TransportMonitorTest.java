@@ -0,0 +1,106 @@
+package com.hicham.backend.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.withSettings;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import com.hicham.backend.model.TransportStats;
+
+class TransportMonitorTest {
+
+    private static final String NATIVE = TransportHandshakeInterceptor.NATIVE;
+    private static final String SOCKJS = TransportHandshakeInterceptor.SOCKJS;
+
+    private TransportMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        monitor = new TransportMonitor();
+    }
+
+    @Test
+    void testNativeSession_CountsPayloadAndFrameHeader() throws Exception {
+        // Given
+        WebSocketSession delegate = mock(WebSocketSession.class);
+        TransportMetricsSessionDecorator session = new TransportMetricsSessionDecorator(delegate, monitor);
+        TextMessage message = new TextMessage("MESSAGE\ndestination:/topic/system\n\n{}\u0000");
+
+        // When
+        session.sendMessage(message);
+
+        // Then
+        verify(delegate).sendMessage(message);
+        assertEquals(NATIVE, session.getTransport());
+        assertEquals(1, monitor.getMessageCount(NATIVE));
+        assertEquals(message.getPayloadLength(), monitor.getPayloadBytes(NATIVE));
+        assertEquals(message.getPayloadLength() + 2, monitor.getWireBytes(NATIVE));
+        assertEquals(0, monitor.getMessageCount(SOCKJS));
+    }
+
+    @Test
+    void testSockJsSession_WireBytesComeFromCodec() throws Exception {
+        // Given
+        WebSocketSession delegate = mock(WebSocketSession.class,
+                withSettings().extraInterfaces(SockJsSession.class));
+        TransportMetricsSessionDecorator session = new TransportMetricsSessionDecorator(delegate, monitor);
+        String stompFrame = "MESSAGE\ndestination:/topic/system\n\n{\"message\":\"Étape\"}\u0000";
+        MeteredSockJsMessageCodec codec = new MeteredSockJsMessageCodec(monitor);
+
+        // When
+        session.sendMessage(new TextMessage(stompFrame));
+        String sockJsFrame = codec.encode(stompFrame);
+
+        // Then
+        assertEquals(SOCKJS, session.getTransport());
+        assertEquals(1, monitor.getMessageCount(SOCKJS));
+        assertEquals(stompFrame.getBytes(StandardCharsets.UTF_8).length, monitor.getPayloadBytes(SOCKJS));
+        int frameBytes = sockJsFrame.getBytes(StandardCharsets.UTF_8).length;
+        assertEquals(frameBytes + 2, monitor.getWireBytes(SOCKJS));
+        // a[" "] plus the escaped quotes, newlines and NUL terminator
+        assertTrue(frameBytes > monitor.getPayloadBytes(SOCKJS) + 4);
+        assertEquals(0, monitor.getMessageCount(NATIVE));
+    }
+
+    @Test
+    void testUtf8Length_MatchesEncoder() {
+        String text = "a[\"café € 🚀\"]";
+        assertEquals(text.getBytes(StandardCharsets.UTF_8).length, MeteredSockJsMessageCodec.utf8Length(text));
+    }
+
+    @Test
+    void testFrameHeaderBytes() {
+        assertEquals(2, TransportMonitor.frameHeaderBytes(125));
+        assertEquals(4, TransportMonitor.frameHeaderBytes(126));
+        assertEquals(4, TransportMonitor.frameHeaderBytes(65_535));
+        assertEquals(10, TransportMonitor.frameHeaderBytes(65_536));
+    }
+
+    @Test
+    void testSnapshot_AveragesPerMessage() {
+        // Given
+        monitor.sessionOpened(SOCKJS);
+        monitor.sessionOpened(SOCKJS);
+        monitor.sessionClosed(SOCKJS);
+        monitor.recordSend(SOCKJS, 50, 1_000);
+        monitor.recordSockJsFrame(60);
+
+        // When
+        TransportStats stats = monitor.snapshot().get(1);
+
+        // Then
+        assertEquals(SOCKJS, stats.getTransport());
+        assertEquals(1, stats.getOpenSessions());
+        assertEquals(62.0, stats.getAverageWireBytes(), 1e-9);
+        assertEquals(1.0, stats.getAverageSendMicros(), 1e-9);
+    }
+}
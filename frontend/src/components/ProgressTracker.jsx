@@ -21,16 +21,19 @@ export const ProgressTracker = ({ userId, operationId }) => {
         toast.success(latestUpdate.message);
       } else if (latestUpdate.type === "GENERATION_ERROR") {
         toast.error(latestUpdate.message);
+      } else if (latestUpdate.type === "GENERATION_CANCELLED") {
+        toast.info(latestUpdate.message);
       }
     }
   }, [latestUpdate]);
 
   // Only show the tracker if there is at least one private update for this operation
-  // AND the operation is not completed or errored
+  // AND the operation is not completed, errored or cancelled
   if (
     !latestUpdate ||
     latestUpdate.type === "GENERATION_COMPLETED" ||
-    latestUpdate.type === "GENERATION_ERROR"
+    latestUpdate.type === "GENERATION_ERROR" ||
+    latestUpdate.type === "GENERATION_CANCELLED"
   ) {
     return null;
   }
@@ -2,17 +2,94 @@ import { useEffect, useState, useRef } from "react";
 import SockJS from "sockjs-client";
 import { Client } from "@stomp/stompjs";
 
+// Batched frames carry a JSON array of updates and a "progress-batch" header
+const parseUpdates = (message) => {
+  const payload = JSON.parse(message.body);
+  return message.headers && message.headers["progress-batch"]
+    ? payload
+    : [payload];
+};
+
+const bySequence = (a, b) => a.sequence - b.sequence;
+
+// Sequences remembered for deduplication; past it the lowest are forgotten
+const MAX_SEEN_SEQUENCES = 1000;
+
+// Inserts replayed updates among the private ones by sequence; the rest keeps its arrival order.
+// Only sequences of the same instance can be compared.
+const mergeReplayed = (prev, replayed) => {
+  const merged = [...prev];
+  [...replayed].sort(bySequence).forEach((update) => {
+    const index = merged.findIndex(
+      (existing) =>
+        !existing.isPublic &&
+        existing.sequence != null &&
+        existing.node === update.node &&
+        existing.sequence > update.sequence
+    );
+    merged.splice(index === -1 ? merged.length : index, 0, update);
+  });
+  return merged;
+};
+
 // Custom hook for WebSocket connection
 export const useWebSocket = (userId) => {
   const [isConnected, setIsConnected] = useState(false);
   const [progressUpdates, setProgressUpdates] = useState([]);
   const clientRef = useRef(null);
+  // Highest sequence received, sent on reconnect to get the updates missed meanwhile
+  const lastSequenceRef = useRef(0);
+  // Sequences only increase, so one at or below the low-water mark cannot be new
+  const lowWaterRef = useRef(0);
+  const seenSequencesRef = useRef(new Set());
+  // Instance that numbered the sequences above; each instance numbers its updates on its own
+  const sequenceNodeRef = useRef(null);
+
+  // After reconnecting to another instance, the sequences known so far say nothing about its own
+  const followNode = (node) => {
+    if (node == null || node === sequenceNodeRef.current) return;
+    sequenceNodeRef.current = node;
+    lastSequenceRef.current = 0;
+    lowWaterRef.current = 0;
+    seenSequencesRef.current.clear();
+  };
+
+  // Raises the low-water mark and forgets the sequences it now covers
+  const pruneSeen = (lowWater) => {
+    lowWaterRef.current = Math.max(lowWaterRef.current, lowWater);
+    seenSequencesRef.current.forEach((sequence) => {
+      if (sequence <= lowWaterRef.current) {
+        seenSequencesRef.current.delete(sequence);
+      }
+    });
+  };
+
+  // Drops updates already received, e.g. sent live and replayed after a reconnect
+  const unseen = (updates) => {
+    const fresh = updates.filter((update) => {
+      if (update.sequence == null) return true;
+      followNode(update.node);
+      if (
+        update.sequence <= lowWaterRef.current ||
+        seenSequencesRef.current.has(update.sequence)
+      ) {
+        return false;
+      }
+      seenSequencesRef.current.add(update.sequence);
+      lastSequenceRef.current = Math.max(lastSequenceRef.current, update.sequence);
+      return true;
+    });
+    if (seenSequencesRef.current.size > MAX_SEEN_SEQUENCES) {
+      const sorted = [...seenSequencesRef.current].sort((a, b) => a - b);
+      pruneSeen(sorted[sorted.length - MAX_SEEN_SEQUENCES / 2 - 1]);
+    }
+    return fresh;
+  };
 
   useEffect(() => {
-    // Connect to backend WebSocket endpoint
-    const socket = new SockJS("http://localhost:8080/ws");
+    // Connect to backend WebSocket endpoint; every reconnect needs a new socket
     const client = new Client({
-      webSocketFactory: () => socket,
+      webSocketFactory: () => new SockJS("http://localhost:8080/ws"),
       reconnectDelay: 5000, // Reconnect after 5 seconds
       heartbeatIncoming: 4000,
       heartbeatOutgoing: 4000,
@@ -24,20 +101,51 @@ export const useWebSocket = (userId) => {
 
       // Subscribe to private user-specific updates
       client.subscribe(`/topic/progress.${userId}`, (message) => {
-        const update = JSON.parse(message.body);
-        console.log(update);
+        const updates = unseen(parseUpdates(message));
+        console.log(updates);
 
-        setProgressUpdates((prev) => [...prev, { ...update, isPublic: false }]);
+        setProgressUpdates((prev) => [
+          ...prev,
+          ...updates.map((update) => ({ ...update, isPublic: false })),
+        ]);
       });
 
       // Subscribe to public system-wide updates
       client.subscribe("/topic/system", (message) => {
-        const update = JSON.parse(message.body);
-        setProgressUpdates((prev) => [...prev, { ...update, isPublic: true }]);
+        const updates = parseUpdates(message);
+        setProgressUpdates((prev) => [
+          ...prev,
+          ...updates.map((update) => ({ ...update, isPublic: true })),
+        ]);
       });
 
       // Send subscription message with userId
-      client.publish({ destination: "/app/subscribe", body: userId });
+      if (lastSequenceRef.current > 0) {
+        // Reconnecting: only updates after the last one received can still arrive,
+        // and the missed ones come back as one batch on the user queue
+        pruneSeen(lastSequenceRef.current);
+        client.subscribe("/user/queue/progress", (message) => {
+          if (!message.headers || !message.headers["progress-batch"]) return;
+          const updates = parseUpdates(message);
+          const replayed = unseen(updates);
+          // Every update up to the last replayed one has now been received
+          const sequences = updates.map((update) => update.sequence ?? 0);
+          pruneSeen(Math.max(0, ...sequences));
+          setProgressUpdates((prev) =>
+            mergeReplayed(
+              prev,
+              replayed.map((update) => ({ ...update, isPublic: false }))
+            )
+          );
+        });
+        const headers = { "last-sequence": String(lastSequenceRef.current) };
+        if (sequenceNodeRef.current != null) {
+          headers["sequence-node"] = sequenceNodeRef.current;
+        }
+        client.publish({ destination: "/app/subscribe", body: userId, headers });
+      } else {
+        client.publish({ destination: "/app/subscribe", body: userId });
+      }
     };
 
     client.onDisconnect = () => {
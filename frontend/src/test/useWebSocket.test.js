@@ -104,6 +104,168 @@ describe("useWebSocket", () => {
     expect(result.current.publicUpdates).toEqual([systemMessage]);
   });
 
+  test("should unpack batched progress frames", async () => {
+    const { result } = renderHook(() => useWebSocket("user1"));
+    await act(async () => {
+      mockClient.onConnect();
+    });
+    const batch = [
+      { id: 1, userId: "user1", status: "PROGRESS", percentage: 20 },
+      { id: 2, userId: "user1", status: "PROGRESS", percentage: 40 },
+    ];
+    await act(async () => {
+      const userCallback = mockClient.subscribe.mock.calls[0][1];
+      userCallback({
+        headers: { "progress-batch": "2" },
+        body: JSON.stringify(batch),
+      });
+    });
+    expect(result.current.privateUpdates).toEqual(
+      batch.map((update) => ({ ...update, isPublic: false }))
+    );
+  });
+
+  test("should request missed updates after a reconnect", async () => {
+    const { result } = renderHook(() => useWebSocket("user1"));
+    await act(async () => {
+      mockClient.onConnect();
+    });
+    await act(async () => {
+      const userCallback = mockClient.subscribe.mock.calls[0][1];
+      userCallback({
+        body: JSON.stringify({ userId: "user1", percentage: 20, sequence: 5 }),
+      });
+    });
+    mockClient.subscribe.mockClear();
+    await act(async () => {
+      mockClient.onDisconnect();
+      mockClient.onConnect();
+    });
+    expect(mockClient.publish).toHaveBeenLastCalledWith({
+      destination: "/app/subscribe",
+      body: "user1",
+      headers: { "last-sequence": "5" },
+    });
+    const live = { userId: "user1", percentage: 60, sequence: 8 };
+    const missed = [
+      { userId: "user1", percentage: 40, sequence: 7 },
+      live,
+    ];
+    await act(async () => {
+      mockClient.subscribe.mock.calls[0][1]({ body: JSON.stringify(live) });
+      const replayCallback = mockClient.subscribe.mock.calls[2][1];
+      replayCallback({
+        headers: { "progress-batch": "2" },
+        body: JSON.stringify(missed),
+      });
+    });
+    expect(
+      result.current.privateUpdates.map((update) => update.sequence)
+    ).toEqual([5, 7, 8]);
+  });
+
+  test("should start over after reconnecting to another instance", async () => {
+    const { result } = renderHook(() => useWebSocket("user1"));
+    await act(async () => {
+      mockClient.onConnect();
+    });
+    await act(async () => {
+      mockClient.subscribe.mock.calls[0][1]({
+        body: JSON.stringify({ userId: "user1", percentage: 20, sequence: 5, node: "node-b" }),
+      });
+    });
+    mockClient.subscribe.mockClear();
+    await act(async () => {
+      mockClient.onDisconnect();
+      mockClient.onConnect();
+    });
+    expect(mockClient.publish).toHaveBeenLastCalledWith({
+      destination: "/app/subscribe",
+      body: "user1",
+      headers: { "last-sequence": "5", "sequence-node": "node-b" },
+    });
+    await act(async () => {
+      // The new instance has nothing to replay for another instance's position
+      mockClient.subscribe.mock.calls[2][1]({
+        headers: { "progress-batch": "0", "replay-truncated": "true" },
+        body: "[]",
+      });
+      // Its own numbering is lower than the old instance's, yet new
+      mockClient.subscribe.mock.calls[0][1]({
+        body: JSON.stringify({ userId: "user1", percentage: 40, sequence: 2, node: "node-a" }),
+      });
+      mockClient.subscribe.mock.calls[0][1]({
+        body: JSON.stringify({ userId: "user1", percentage: 40, sequence: 2, node: "node-a" }),
+      });
+    });
+    expect(
+      result.current.privateUpdates.map((update) => [update.node, update.sequence])
+    ).toEqual([
+      ["node-b", 5],
+      ["node-a", 2],
+    ]);
+    mockClient.subscribe.mockClear();
+    await act(async () => {
+      mockClient.onDisconnect();
+      mockClient.onConnect();
+    });
+    expect(mockClient.publish).toHaveBeenLastCalledWith({
+      destination: "/app/subscribe",
+      body: "user1",
+      headers: { "last-sequence": "2", "sequence-node": "node-a" },
+    });
+  });
+
+  test("should open a new socket on every connection attempt", () => {
+    renderHook(() => useWebSocket("user1"));
+    const SockJS = jest.requireMock("sockjs-client").default;
+    const { Client } = jest.requireMock("@stomp/stompjs");
+    const { webSocketFactory } = Client.mock.calls[Client.mock.calls.length - 1][0];
+    // stompjs calls the factory again for each reconnect; a closed socket cannot be reused
+    const first = webSocketFactory();
+    const second = webSocketFactory();
+    expect(SockJS).toHaveBeenCalledTimes(2);
+    expect(second).not.toBe(first);
+  });
+
+  test("should resume after a reconnect and keep public updates in place", async () => {
+    const { result } = renderHook(() => useWebSocket("user1"));
+    await act(async () => {
+      mockClient.onConnect();
+    });
+    const first = { userId: "user1", percentage: 20, sequence: 5 };
+    const notice = { message: "Maintenance" };
+    await act(async () => {
+      mockClient.subscribe.mock.calls[0][1]({ body: JSON.stringify(first) });
+      mockClient.subscribe.mock.calls[1][1]({ body: JSON.stringify(notice) });
+    });
+    mockClient.subscribe.mockClear();
+    await act(async () => {
+      mockClient.onDisconnect();
+      mockClient.onConnect();
+    });
+    const missed = [
+      { userId: "user1", percentage: 40, sequence: 6 },
+      { userId: "user1", percentage: 60, sequence: 9 },
+    ];
+    await act(async () => {
+      mockClient.subscribe.mock.calls[2][1]({
+        headers: { "progress-batch": "2" },
+        body: JSON.stringify(missed),
+      });
+      // A live update already replayed, and one older than the replay
+      mockClient.subscribe.mock.calls[0][1]({ body: JSON.stringify(missed[1]) });
+      mockClient.subscribe.mock.calls[0][1]({
+        body: JSON.stringify({ userId: "user1", percentage: 50, sequence: 8 }),
+      });
+    });
+    expect(
+      result.current.progressUpdates.map(
+        (update) => update.sequence ?? update.message
+      )
+    ).toEqual([5, "Maintenance", 6, 9]);
+  });
+
   test("should handle STOMP error and set isConnected to false", async () => {
     const { result } = renderHook(() => useWebSocket("user1"));
     await act(async () => {